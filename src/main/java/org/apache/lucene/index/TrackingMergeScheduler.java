@@ -20,6 +20,7 @@
 package org.apache.lucene.index;
 
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.merge.MergeThrottle;
 
 import java.util.concurrent.ConcurrentMap;
 
@@ -29,6 +30,8 @@ public class TrackingMergeScheduler {
 
     private static final ConcurrentMap<Thread, MergePolicy.OneMerge> merges = ConcurrentCollections.newConcurrentMap();
 
+    private static final ConcurrentMap<Thread, MergeThrottle> throttles = ConcurrentCollections.newConcurrentMap();
+
     public static void setCurrentMerge(MergePolicy.OneMerge merge) {
         merges.put(Thread.currentThread(), merge);
     }
@@ -40,4 +43,19 @@ public class TrackingMergeScheduler {
     public static MergePolicy.OneMerge getCurrentMerge() {
         return merges.get(Thread.currentThread());
     }
+
+    public static void setCurrentMergeThrottle(MergeThrottle throttle) {
+        throttles.put(Thread.currentThread(), throttle);
+    }
+
+    public static void removeCurrentMergeThrottle() {
+        throttles.remove(Thread.currentThread());
+    }
+
+    /**
+     * The throttle of the shard the current thread is merging, <tt>null</tt> if not merging.
+     */
+    public static MergeThrottle getCurrentMergeThrottle() {
+        return throttles.get(Thread.currentThread());
+    }
 }
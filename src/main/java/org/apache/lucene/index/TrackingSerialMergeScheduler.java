@@ -76,6 +76,18 @@ public class TrackingSerialMergeScheduler extends MergeScheduler {
      * "synchronized" so that even if the application is using
      * multiple threads, only one merge may run at a time.
      */
+    /**
+     * Called before a merge is executed, on the merging thread.
+     */
+    protected void beforeMerge(MergePolicy.OneMerge merge) {
+    }
+
+    /**
+     * Called after a merge is executed (or failed), on the merging thread.
+     */
+    protected void afterMerge(MergePolicy.OneMerge merge) {
+    }
+
     @Override
     synchronized public void merge(IndexWriter writer) throws CorruptIndexException, IOException {
         while (true) {
@@ -98,11 +110,13 @@ public class TrackingSerialMergeScheduler extends MergeScheduler {
             if (logger.isTraceEnabled()) {
                 logger.trace("merge [{}] starting..., merging [{}] segments, [{}] docs, [{}] size, into [{}] estimated_size", merge.info == null ? "_na_" : merge.info.info.name, merge.segments.size(), totalNumDocs, new ByteSizeValue(totalSizeInBytes), new ByteSizeValue(merge.estimatedMergeBytes));
             }
+            beforeMerge(merge);
             try {
                 TrackingMergeScheduler.setCurrentMerge(merge);
                 writer.merge(merge);
             } finally {
                 TrackingMergeScheduler.removeCurrentMerge();
+                afterMerge(merge);
                 long took = System.currentTimeMillis() - time;
 
                 currentMerges.dec();
@@ -21,6 +21,7 @@ package org.apache.lucene.store;
 
 import org.apache.lucene.index.TrackingMergeScheduler;
 import org.elasticsearch.common.RateLimiter;
+import org.elasticsearch.index.merge.MergeThrottle;
 
 import java.io.File;
 import java.io.IOException;
@@ -41,6 +42,13 @@ public class XMMapFSDirectory extends MMapDirectory {
 
     @Override
     public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        MergeThrottle mergeThrottle = TrackingMergeScheduler.getCurrentMergeThrottle();
+        if (mergeThrottle != null && mergeThrottle.rateLimiter() != null) {
+            // we are merging, and the node merge budget applies, it takes precedence over the store throttling
+            ensureOpen();
+            ensureCanWrite(name);
+            return new XFSIndexOutput(this, name, mergeThrottle.rateLimiter(), mergeThrottle);
+        }
         StoreRateLimiting rateLimiting = rateLimitingProvider.rateLimiting();
         StoreRateLimiting.Type type = rateLimiting.getType();
         RateLimiter limiter = rateLimiting.getRateLimiter();
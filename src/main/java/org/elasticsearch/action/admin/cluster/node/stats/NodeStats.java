@@ -31,6 +31,7 @@ import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.network.NetworkStats;
 import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.process.ProcessStats;
+import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.threadpool.ThreadPoolStats;
 import org.elasticsearch.transport.TransportStats;
 
@@ -73,12 +74,15 @@ public class NodeStats extends NodeOperationResponse {
     @Nullable
     private HttpStats http;
 
+    @Nullable
+    private ScriptStats script;
+
     NodeStats() {
     }
 
     public NodeStats(DiscoveryNode node, long timestamp, @Nullable String hostname, @Nullable NodeIndicesStats indices,
                      @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool, @Nullable NetworkStats network,
-                     @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http) {
+                     @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http, @Nullable ScriptStats script) {
         super(node);
         this.timestamp = timestamp;
         this.hostname = hostname;
@@ -91,6 +95,7 @@ public class NodeStats extends NodeOperationResponse {
         this.fs = fs;
         this.transport = transport;
         this.http = http;
+        this.script = script;
     }
 
     public long timestamp() {
@@ -243,6 +248,22 @@ public class NodeStats extends NodeOperationResponse {
         return http();
     }
 
+    /**
+     * Compiled scripts cache and compilation statistics.
+     */
+    @Nullable
+    public ScriptStats script() {
+        return this.script;
+    }
+
+    /**
+     * Compiled scripts cache and compilation statistics.
+     */
+    @Nullable
+    public ScriptStats getScript() {
+        return script();
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -283,6 +304,9 @@ public class NodeStats extends NodeOperationResponse {
         if (in.readBoolean()) {
             http = HttpStats.readHttpStats(in);
         }
+        if (in.readBoolean()) {
+            script = ScriptStats.readScriptStats(in);
+        }
     }
 
     @Override
@@ -349,5 +373,11 @@ public class NodeStats extends NodeOperationResponse {
             out.writeBoolean(true);
             http.writeTo(out);
         }
+        if (script == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            script.writeTo(out);
+        }
     }
 }
\ No newline at end of file
@@ -236,6 +236,8 @@ public class IndicesStatusResponse extends BroadcastOperationResponse implements
                         builder.field(Fields.EXPECTED_RECOVERED_SIZE_IN_BYTES, peerRecoveryStatus.expectedRecoveredIndexSize().bytes());
                         builder.field(Fields.RECOVERED_SIZE, peerRecoveryStatus.recoveredIndexSize());
                         builder.field(Fields.RECOVERED_SIZE_IN_BYTES, peerRecoveryStatus.recoveredIndexSize().bytes());
+                        builder.field(Fields.THROTTLE, peerRecoveryStatus.throttle());
+                        builder.field(Fields.THROTTLE_IN_BYTES, peerRecoveryStatus.throttle().bytes());
                         builder.endObject();
 
                         builder.startObject(Fields.TRANSLOG);
@@ -338,6 +340,8 @@ public class IndicesStatusResponse extends BroadcastOperationResponse implements
         static final XContentBuilderString RECOVERED_SIZE = new XContentBuilderString("recovered_size");
         static final XContentBuilderString RECOVERED_SIZE_IN_BYTES = new XContentBuilderString("recovered_size_in_bytes");
         static final XContentBuilderString RECOVERED = new XContentBuilderString("recovered");
+        static final XContentBuilderString THROTTLE = new XContentBuilderString("throttle");
+        static final XContentBuilderString THROTTLE_IN_BYTES = new XContentBuilderString("throttle_in_bytes");
         static final XContentBuilderString GATEWAY_RECOVERY = new XContentBuilderString("gateway_recovery");
         static final XContentBuilderString GATEWAY_SNAPSHOT = new XContentBuilderString("gateway_snapshot");
         static final XContentBuilderString EXPECTED_OPERATIONS = new XContentBuilderString("expected_operations");
@@ -75,8 +75,10 @@ public class PeerRecoveryStatus {
 
     final long recoveredTranslogOperations;
 
+    final long throttle;
+
     public PeerRecoveryStatus(Stage stage, long startTime, long time, long indexSize, long reusedIndexSize,
-                              long recoveredIndexSize, long recoveredTranslogOperations) {
+                              long recoveredIndexSize, long recoveredTranslogOperations, long throttle) {
         this.stage = stage;
         this.startTime = startTime;
         this.time = time;
@@ -84,6 +86,7 @@ public class PeerRecoveryStatus {
         this.reusedIndexSize = reusedIndexSize;
         this.recoveredIndexSize = recoveredIndexSize;
         this.recoveredTranslogOperations = recoveredTranslogOperations;
+        this.throttle = throttle;
     }
 
     public Stage stage() {
@@ -165,4 +168,20 @@ public class PeerRecoveryStatus {
     public long getRecoveredTranslogOperations() {
         return recoveredTranslogOperations();
     }
+
+    /**
+     * The effective rate (per second) recovery files are throttled at on the node reporting the status,
+     * <tt>0</tt> when not throttled.
+     */
+    public ByteSizeValue throttle() {
+        return new ByteSizeValue(throttle);
+    }
+
+    /**
+     * The effective rate (per second) recovery files are throttled at on the node reporting the status,
+     * <tt>0</tt> when not throttled.
+     */
+    public ByteSizeValue getThrottle() {
+        return throttle();
+    }
 }
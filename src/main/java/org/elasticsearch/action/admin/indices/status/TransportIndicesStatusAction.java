@@ -42,6 +42,7 @@ import org.elasticsearch.index.service.InternalIndexService;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.service.InternalIndexShard;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.indices.recovery.RecoveryStatus;
 import org.elasticsearch.indices.recovery.RecoveryTarget;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -62,11 +63,14 @@ public class TransportIndicesStatusAction extends TransportBroadcastOperationAct
 
     private final RecoveryTarget peerRecoveryTarget;
 
+    private final RecoverySettings recoverySettings;
+
     @Inject
     public TransportIndicesStatusAction(Settings settings, ThreadPool threadPool, ClusterService clusterService, TransportService transportService,
-                                        IndicesService indicesService, RecoveryTarget peerRecoveryTarget) {
+                                        IndicesService indicesService, RecoveryTarget peerRecoveryTarget, RecoverySettings recoverySettings) {
         super(settings, threadPool, clusterService, transportService);
         this.peerRecoveryTarget = peerRecoveryTarget;
+        this.recoverySettings = recoverySettings;
         this.indicesService = indicesService;
     }
 
@@ -206,7 +210,8 @@ public class TransportIndicesStatusAction extends TransportBroadcastOperationAct
                 }
                 shardStatus.peerRecoveryStatus = new PeerRecoveryStatus(stage, peerRecoveryStatus.startTime(), peerRecoveryStatus.time(),
                         peerRecoveryStatus.phase1TotalSize(), peerRecoveryStatus.phase1ExistingTotalSize(),
-                        peerRecoveryStatus.currentFilesSize(), peerRecoveryStatus.currentTranslogOperations());
+                        peerRecoveryStatus.currentFilesSize(), peerRecoveryStatus.currentTranslogOperations(),
+                        recoverySettings.maxSizePerSec().bytes());
             }
 
             IndexShardGatewayService gatewayService = indexService.shardInjector(request.shardId()).getInstance(IndexShardGatewayService.class);
@@ -207,6 +207,16 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
     }
 
     public BulkRequest add(BytesReference data, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType, @Nullable Object payload) throws Exception {
+        addComplete(data, contentUnsafe, defaultIndex, defaultType, payload);
+        return this;
+    }
+
+    /**
+     * Adds the complete actions of the framed data, and returns the number of bytes consumed. A trailing
+     * action that is not complete yet (missing its separator, or an index / create action missing its
+     * source line) is not consumed, and should be passed again once the rest of it is available.
+     */
+    public int addComplete(BytesReference data, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType, @Nullable Object payload) throws Exception {
         XContent xContent = XContentFactory.xContent(data);
         int from = 0;
         int length = data.length();
@@ -216,6 +226,7 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
             if (nextMarker == -1) {
                 break;
             }
+            int actionFrom = from;
             // now parse the action
             XContentParser parser = xContent.createParser(data.slice(from, nextMarker - from));
 
@@ -289,6 +300,7 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
                 } else {
                     nextMarker = findNextMarker(marker, from, data, length);
                     if (nextMarker == -1) {
+                        from = actionFrom;
                         break;
                     }
                     // order is important, we set parent after routing, so routing will be set to parent if not set explicitly
@@ -318,7 +330,7 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
                 parser.close();
             }
         }
-        return this;
+        return from;
     }
 
     /**
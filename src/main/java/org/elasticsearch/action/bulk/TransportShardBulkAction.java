@@ -21,6 +21,7 @@ package org.elasticsearch.action.bulk;
 
 import com.google.common.collect.Sets;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.ElasticSearchInterruptedException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.RoutingMissingException;
@@ -44,6 +45,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocumentStreams;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.percolator.PercolatorExecutor;
 import org.elasticsearch.index.service.IndexService;
@@ -58,20 +60,42 @@ import org.elasticsearch.transport.TransportService;
 import java.io.IOException;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Performs the index operation.
+ * <p/>
+ * <p>Allows for the following settings:
+ * <ul>
+ * <li><b>parseConcurrency</b>: The number of threads (including the executing bulk thread) used to parse the
+ * documents of a shard bulk, and to percolate them. Engine operations are still applied in item order. Defaults
+ * to <tt>1</tt>, meaning items are parsed one after the other.
+ * <li><b>parseAhead</b>: How many items parsing may get ahead of the item being applied, bounding the number of
+ * parsed documents kept in memory. Defaults to <tt>4</tt> times <tt>parseConcurrency</tt>.
+ * </ul>
  */
 public class TransportShardBulkAction extends TransportShardReplicationOperationAction<BulkShardRequest, BulkShardRequest, BulkShardResponse> {
 
+    private static final Object NO_RESULT = new Object();
+
     private final MappingUpdatedAction mappingUpdatedAction;
 
+    private final boolean replicateParsedDocument;
+
+    private final int parseConcurrency;
+
+    private final int parseAhead;
+
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
                                     IndicesService indicesService, ThreadPool threadPool, ShardStateAction shardStateAction,
                                     MappingUpdatedAction mappingUpdatedAction) {
         super(settings, transportService, clusterService, indicesService, threadPool, shardStateAction);
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.replicateParsedDocument = settings.getAsBoolean("action.replicate_parsed_document", false);
+        this.parseConcurrency = settings.getAsInt("action.bulk.parse_concurrency", 1);
+        this.parseAhead = Math.max(parseConcurrency, settings.getAsInt("action.bulk.parse_ahead", parseConcurrency * 4));
     }
 
     @Override
@@ -125,109 +149,134 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     }
 
     @Override
-    protected PrimaryResponse<BulkShardResponse, BulkShardRequest> shardOperationOnPrimary(ClusterState clusterState, PrimaryOperationRequest shardRequest) {
+    protected PrimaryResponse<BulkShardResponse, BulkShardRequest> shardOperationOnPrimary(final ClusterState clusterState, PrimaryOperationRequest shardRequest) {
         final BulkShardRequest request = shardRequest.request;
-        IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.request.index()).shardSafe(shardRequest.shardId);
+        final IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.request.index()).shardSafe(shardRequest.shardId);
 
         Engine.IndexingOperation[] ops = null;
 
         Set<Tuple<String, String>> mappingsToUpdate = null;
 
-        BulkItemResponse[] responses = new BulkItemResponse[request.items().length];
-        for (int i = 0; i < request.items().length; i++) {
-            BulkItemRequest item = request.items()[i];
-            if (item.request() instanceof IndexRequest) {
-                IndexRequest indexRequest = (IndexRequest) item.request();
-                try {
-
-                    // validate, if routing is required, that we got routing
-                    MappingMetaData mappingMd = clusterState.metaData().index(request.index()).mappingOrDefault(indexRequest.type());
-                    if (mappingMd != null && mappingMd.routing().required()) {
-                        if (indexRequest.routing() == null) {
-                            throw new RoutingMissingException(indexRequest.index(), indexRequest.type(), indexRequest.id());
-                        }
+        // parse the index items ahead, the engine operations below still happen in item order
+        ConcurrentItemProcessor parser = null;
+        int indexItems = 0;
+        if (parseConcurrency > 1) {
+            for (BulkItemRequest item : request.items()) {
+                if (item.request() instanceof IndexRequest) {
+                    indexItems++;
+                }
+            }
+        }
+        if (indexItems > 1) {
+            parser = new ConcurrentItemProcessor(request.items().length, parseAhead) {
+                @Override
+                protected Object process(int i) throws Exception {
+                    BulkItemRequest item = request.items()[i];
+                    if (item.request() instanceof IndexRequest) {
+                        return prepareIndexOperation(clusterState, request, indexShard, (IndexRequest) item.request(), true);
                     }
+                    return null;
+                }
+            };
+            parser.start(Math.min(parseConcurrency, indexItems) - 1);
+        }
 
-                    SourceToParse sourceToParse = SourceToParse.source(indexRequest.source()).type(indexRequest.type()).id(indexRequest.id())
-                            .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl());
-
-                    long version;
-                    Engine.IndexingOperation op;
-                    if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
-                        Engine.Index index = indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
-                        indexShard.index(index);
-                        version = index.version();
-                        op = index;
-                    } else {
-                        Engine.Create create = indexShard.prepareCreate(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
-                        indexShard.create(create);
-                        version = create.version();
-                        op = create;
-                    }
-                    // update the version on request so it will happen on the replicas
-                    indexRequest.version(version);
+        BulkItemResponse[] responses = new BulkItemResponse[request.items().length];
+        try {
+            for (int i = 0; i < request.items().length; i++) {
+                BulkItemRequest item = request.items()[i];
+                if (item.request() instanceof IndexRequest) {
+                    IndexRequest indexRequest = (IndexRequest) item.request();
+                    try {
+                        Engine.IndexingOperation op;
+                        if (parser == null) {
+                            op = prepareIndexOperation(clusterState, request, indexShard, indexRequest, false);
+                        } else {
+                            op = (Engine.IndexingOperation) parser.result(i);
+                        }
 
-                    // update mapping on master if needed, we won't update changes to the same type, since once its changed, it won't have mappers added
-                    if (op.parsedDoc().mappingsModified()) {
-                        if (mappingsToUpdate == null) {
-                            mappingsToUpdate = Sets.newHashSet();
+                        long version;
+                        if (op instanceof Engine.Index) {
+                            Engine.Index index = (Engine.Index) op;
+                            indexShard.index(index);
+                            version = index.version();
+                        } else {
+                            Engine.Create create = (Engine.Create) op;
+                            indexShard.create(create);
+                            version = create.version();
+                        }
+                        // update the version on request so it will happen on the replicas
+                        indexRequest.version(version);
+                        if (replicateParsedDocument) {
+                            indexRequest.parsedDocument(ParsedDocumentStreams.writeSafely(op.parsedDoc(), op.docMapper(), indexRequest.source()));
                         }
-                        mappingsToUpdate.add(Tuple.tuple(indexRequest.index(), indexRequest.type()));
-                    }
 
-                    // if we are going to percolate, then we need to keep this op for the postPrimary operation
-                    if (Strings.hasLength(indexRequest.percolate())) {
-                        if (ops == null) {
-                            ops = new Engine.IndexingOperation[request.items().length];
+                        // update mapping on master if needed, we won't update changes to the same type, since once its changed, it won't have mappers added
+                        if (op.parsedDoc().mappingsModified()) {
+                            if (mappingsToUpdate == null) {
+                                mappingsToUpdate = Sets.newHashSet();
+                            }
+                            mappingsToUpdate.add(Tuple.tuple(indexRequest.index(), indexRequest.type()));
                         }
-                        ops[i] = op;
-                    }
 
-                    // add the response
-                    responses[i] = new BulkItemResponse(item.id(), indexRequest.opType().toString().toLowerCase(Locale.ENGLISH),
-                            new IndexResponse(indexRequest.index(), indexRequest.type(), indexRequest.id(), version));
-                } catch (Exception e) {
-                    // rethrow the failure if we are going to retry on primary and let parent failure to handle it
-                    if (retryPrimaryException(e)) {
-                        throw (ElasticSearchException) e;
-                    }
-                    if (e instanceof ElasticSearchException && ((ElasticSearchException) e).status() == RestStatus.CONFLICT) {
-                        logger.trace("[{}][{}] failed to execute bulk item (index) {}", e, shardRequest.request.index(), shardRequest.shardId, indexRequest);
-                    } else {
-                        logger.debug("[{}][{}] failed to execute bulk item (index) {}", e, shardRequest.request.index(), shardRequest.shardId, indexRequest);
-                    }
-                    responses[i] = new BulkItemResponse(item.id(), indexRequest.opType().toString().toLowerCase(Locale.ENGLISH),
-                            new BulkItemResponse.Failure(indexRequest.index(), indexRequest.type(), indexRequest.id(), ExceptionsHelper.detailedMessage(e)));
-                    // nullify the request so it won't execute on the replicas
-                    request.items()[i] = null;
-                }
-            } else if (item.request() instanceof DeleteRequest) {
-                DeleteRequest deleteRequest = (DeleteRequest) item.request();
-                try {
-                    Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version()).versionType(deleteRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
-                    indexShard.delete(delete);
-                    // update the request with teh version so it will go to the replicas
-                    deleteRequest.version(delete.version());
+                        // if we are going to percolate, then we need to keep this op for the postPrimary operation
+                        if (Strings.hasLength(indexRequest.percolate())) {
+                            if (ops == null) {
+                                ops = new Engine.IndexingOperation[request.items().length];
+                            }
+                            ops[i] = op;
+                        }
 
-                    // add the response
-                    responses[i] = new BulkItemResponse(item.id(), "delete",
-                            new DeleteResponse(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), delete.version(), delete.notFound()));
-                } catch (Exception e) {
-                    // rethrow the failure if we are going to retry on primary and let parent failure to handle it
-                    if (retryPrimaryException(e)) {
-                        throw (ElasticSearchException) e;
+                        // add the response
+                        responses[i] = new BulkItemResponse(item.id(), indexRequest.opType().toString().toLowerCase(Locale.ENGLISH),
+                                new IndexResponse(indexRequest.index(), indexRequest.type(), indexRequest.id(), version));
+                    } catch (Exception e) {
+                        // rethrow the failure if we are going to retry on primary and let parent failure to handle it
+                        if (retryPrimaryException(e)) {
+                            throw (ElasticSearchException) e;
+                        }
+                        if (e instanceof ElasticSearchException && ((ElasticSearchException) e).status() == RestStatus.CONFLICT) {
+                            logger.trace("[{}][{}] failed to execute bulk item (index) {}", e, shardRequest.request.index(), shardRequest.shardId, indexRequest);
+                        } else {
+                            logger.debug("[{}][{}] failed to execute bulk item (index) {}", e, shardRequest.request.index(), shardRequest.shardId, indexRequest);
+                        }
+                        responses[i] = new BulkItemResponse(item.id(), indexRequest.opType().toString().toLowerCase(Locale.ENGLISH),
+                                new BulkItemResponse.Failure(indexRequest.index(), indexRequest.type(), indexRequest.id(), ExceptionsHelper.detailedMessage(e)));
+                        // nullify the request so it won't execute on the replicas
+                        request.items()[i] = null;
                     }
-                    if (e instanceof ElasticSearchException && ((ElasticSearchException) e).status() == RestStatus.CONFLICT) {
-                        logger.trace("[{}][{}] failed to execute bulk item (delete) {}", e, shardRequest.request.index(), shardRequest.shardId, deleteRequest);
-                    } else {
-                        logger.debug("[{}][{}] failed to execute bulk item (delete) {}", e, shardRequest.request.index(), shardRequest.shardId, deleteRequest);
+                } else if (item.request() instanceof DeleteRequest) {
+                    DeleteRequest deleteRequest = (DeleteRequest) item.request();
+                    try {
+                        Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version()).versionType(deleteRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
+                        indexShard.delete(delete);
+                        // update the request with teh version so it will go to the replicas
+                        deleteRequest.version(delete.version());
+
+                        // add the response
+                        responses[i] = new BulkItemResponse(item.id(), "delete",
+                                new DeleteResponse(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), delete.version(), delete.notFound()));
+                    } catch (Exception e) {
+                        // rethrow the failure if we are going to retry on primary and let parent failure to handle it
+                        if (retryPrimaryException(e)) {
+                            throw (ElasticSearchException) e;
+                        }
+                        if (e instanceof ElasticSearchException && ((ElasticSearchException) e).status() == RestStatus.CONFLICT) {
+                            logger.trace("[{}][{}] failed to execute bulk item (delete) {}", e, shardRequest.request.index(), shardRequest.shardId, deleteRequest);
+                        } else {
+                            logger.debug("[{}][{}] failed to execute bulk item (delete) {}", e, shardRequest.request.index(), shardRequest.shardId, deleteRequest);
+                        }
+                        responses[i] = new BulkItemResponse(item.id(), "delete",
+                                new BulkItemResponse.Failure(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), ExceptionsHelper.detailedMessage(e)));
+                        // nullify the request so it won't execute on the replicas
+                        request.items()[i] = null;
                     }
-                    responses[i] = new BulkItemResponse(item.id(), "delete",
-                            new BulkItemResponse.Failure(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), ExceptionsHelper.detailedMessage(e)));
-                    // nullify the request so it won't execute on the replicas
-                    request.items()[i] = null;
                 }
             }
+        } finally {
+            if (parser != null) {
+                parser.cancel();
+            }
         }
 
         if (mappingsToUpdate != null) {
@@ -248,35 +297,66 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     }
 
     @Override
-    protected void postPrimaryOperation(BulkShardRequest request, PrimaryResponse<BulkShardResponse, BulkShardRequest> response) {
-        IndexService indexService = indicesService.indexServiceSafe(request.index());
-        Engine.IndexingOperation[] ops = (Engine.IndexingOperation[]) response.payload();
+    protected void postPrimaryOperation(final BulkShardRequest request, final PrimaryResponse<BulkShardResponse, BulkShardRequest> response) {
+        final IndexService indexService = indicesService.indexServiceSafe(request.index());
+        final Engine.IndexingOperation[] ops = (Engine.IndexingOperation[]) response.payload();
         if (ops == null) {
             return;
         }
-        for (int i = 0; i < ops.length; i++) {
-            BulkItemRequest itemRequest = request.items()[i];
-            BulkItemResponse itemResponse = response.response().responses()[i];
-            if (itemResponse.failed()) {
-                // failure, continue
-                continue;
-            }
-            Engine.IndexingOperation op = ops[i];
-            if (op == null) {
-                continue; // failed / no matches requested
+        int percolateItems = 0;
+        if (parseConcurrency > 1) {
+            for (Engine.IndexingOperation op : ops) {
+                if (op != null) {
+                    percolateItems++;
+                }
             }
-            if (itemRequest.request() instanceof IndexRequest) {
-                IndexRequest indexRequest = (IndexRequest) itemRequest.request();
-                if (!Strings.hasLength(indexRequest.percolate())) {
-                    continue;
+        }
+        if (percolateItems > 1) {
+            ConcurrentItemProcessor percolator = new ConcurrentItemProcessor(ops.length, parseAhead) {
+                @Override
+                protected Object process(int i) throws Exception {
+                    percolate(indexService, request, response, ops, i);
+                    return null;
                 }
+            };
+            percolator.start(Math.min(parseConcurrency, percolateItems) - 1);
+            for (int i = 0; i < ops.length; i++) {
                 try {
-                    PercolatorExecutor.Response percolate = indexService.percolateService().percolate(new PercolatorExecutor.DocAndSourceQueryRequest(op.parsedDoc(), indexRequest.percolate()));
-                    ((IndexResponse) itemResponse.response()).matches(percolate.matches());
+                    percolator.result(i);
                 } catch (Exception e) {
-                    logger.warn("failed to percolate [{}]", e, itemRequest.request());
+                    // percolation failures are logged when percolating
                 }
             }
+        } else {
+            for (int i = 0; i < ops.length; i++) {
+                percolate(indexService, request, response, ops, i);
+            }
+        }
+    }
+
+    private void percolate(IndexService indexService, BulkShardRequest request, PrimaryResponse<BulkShardResponse, BulkShardRequest> response,
+                           Engine.IndexingOperation[] ops, int i) {
+        BulkItemRequest itemRequest = request.items()[i];
+        BulkItemResponse itemResponse = response.response().responses()[i];
+        if (itemResponse.failed()) {
+            // failure, continue
+            return;
+        }
+        Engine.IndexingOperation op = ops[i];
+        if (op == null) {
+            return; // failed / no matches requested
+        }
+        if (itemRequest.request() instanceof IndexRequest) {
+            IndexRequest indexRequest = (IndexRequest) itemRequest.request();
+            if (!Strings.hasLength(indexRequest.percolate())) {
+                return;
+            }
+            try {
+                PercolatorExecutor.Response percolate = indexService.percolateService().percolate(new PercolatorExecutor.DocAndSourceQueryRequest(op.parsedDoc(), indexRequest.percolate()));
+                ((IndexResponse) itemResponse.response()).matches(percolate.matches());
+            } catch (Exception e) {
+                logger.warn("failed to percolate [{}]", e, itemRequest.request());
+            }
         }
     }
 
@@ -293,7 +373,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 IndexRequest indexRequest = (IndexRequest) item.request();
                 try {
                     SourceToParse sourceToParse = SourceToParse.source(indexRequest.source()).type(indexRequest.type()).id(indexRequest.id())
-                            .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl());
+                            .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl())
+                            .parsedDocument(indexRequest.parsedDocument());
 
                     if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
                         Engine.Index index = indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).origin(Engine.Operation.Origin.REPLICA);
@@ -325,6 +406,172 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         }
     }
 
+    private Engine.IndexingOperation prepareIndexOperation(ClusterState clusterState, BulkShardRequest request, IndexShard indexShard,
+                                                           IndexRequest indexRequest, boolean parsedAhead) throws ElasticSearchException {
+        // validate, if routing is required, that we got routing
+        MappingMetaData mappingMd = clusterState.metaData().index(request.index()).mappingOrDefault(indexRequest.type());
+        if (mappingMd != null && mappingMd.routing().required()) {
+            if (indexRequest.routing() == null) {
+                throw new RoutingMissingException(indexRequest.index(), indexRequest.type(), indexRequest.id());
+            }
+        }
+
+        SourceToParse sourceToParse = SourceToParse.source(indexRequest.source()).type(indexRequest.type()).id(indexRequest.id())
+                .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl())
+                .parsedAhead(parsedAhead);
+
+        if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
+            return indexShard.prepareIndex(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
+        } else {
+            return indexShard.prepareCreate(sourceToParse).version(indexRequest.version()).versionType(indexRequest.versionType()).origin(Engine.Operation.Origin.PRIMARY);
+        }
+    }
+
+    /**
+     * Processes the items of a shard bulk request on the {@link ThreadPool.Names#BULK} pool, with the calling thread
+     * helping out while it waits for results. Items are handed out in order, so {@link #result(int)} can be called in
+     * item order while later items are still being processed. Processing gets at most <tt>window</tt> items ahead of
+     * the last result read, and results are dropped once read, so only the results within the window are kept.
+     */
+    private abstract class ConcurrentItemProcessor {
+
+        private final int size;
+
+        private final int window;
+
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        private final AtomicReferenceArray<Object> results;
+
+        // the next item the results are read for
+        private volatile int consumed;
+
+        private volatile boolean cancelled;
+
+        ConcurrentItemProcessor(int size, int window) {
+            this.size = size;
+            this.window = window;
+            this.results = new AtomicReferenceArray<Object>(size);
+        }
+
+        /**
+         * Processes the item, returning its result (can be <tt>null</tt>).
+         */
+        protected abstract Object process(int i) throws Exception;
+
+        void start(int workers) {
+            for (int i = 0; i < workers; i++) {
+                try {
+                    threadPool.executor(ThreadPool.Names.BULK).execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            while (!cancelled) {
+                                int i = cursor.get();
+                                if (i >= size) {
+                                    return;
+                                }
+                                if (i - consumed >= window) {
+                                    if (!awaitConsumed(i)) {
+                                        return;
+                                    }
+                                    continue;
+                                }
+                                if (cursor.compareAndSet(i, i + 1)) {
+                                    processItem(i);
+                                }
+                            }
+                        }
+                    });
+                } catch (Exception e) {
+                    // the calling thread processes the items itself
+                    logger.debug("failed to fork bulk item processing", e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Returns the result of the item, rethrowing its failure if it failed.
+         */
+        Object result(int i) throws Exception {
+            while (cursor.get() <= i) {
+                int next = cursor.getAndIncrement();
+                if (next >= size) {
+                    break;
+                }
+                processItem(next);
+            }
+            Object result = results.get(i);
+            if (result == null) {
+                synchronized (this) {
+                    while ((result = results.get(i)) == null) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new ElasticSearchInterruptedException(e.getMessage());
+                        }
+                    }
+                }
+            }
+            // the result is not needed anymore, let it (like a parsed document) be collected and parsing move ahead
+            results.set(i, null);
+            consumed = i + 1;
+            synchronized (this) {
+                notifyAll();
+            }
+            if (result == NO_RESULT) {
+                return null;
+            }
+            if (result instanceof Exception) {
+                throw (Exception) result;
+            }
+            if (result instanceof Error) {
+                throw (Error) result;
+            }
+            return result;
+        }
+
+        void cancel() {
+            cancelled = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waits for the results to be read far enough for the item to be within the window, returns <tt>false</tt>
+         * if processing got cancelled meanwhile.
+         */
+        private synchronized boolean awaitConsumed(int i) {
+            while (!cancelled && i - consumed >= window) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return !cancelled;
+        }
+
+        private void processItem(int i) {
+            Object result;
+            try {
+                result = process(i);
+                if (result == null) {
+                    result = NO_RESULT;
+                }
+            } catch (Throwable t) {
+                result = t;
+            }
+            results.set(i, result);
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
     private void updateMappingOnMaster(final String index, final String type) {
         try {
             MapperService mapperService = indicesService.indexServiceSafe(index).mapperService();
@@ -334,7 +581,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             }
             documentMapper.refreshSource();
 
-            mappingUpdatedAction.execute(new MappingUpdatedAction.MappingUpdatedRequest(index, type, documentMapper.mappingSource()), new ActionListener<MappingUpdatedAction.MappingUpdatedResponse>() {
+            mappingUpdatedAction.updateMappingOnMaster(new MappingUpdatedAction.MappingUpdatedRequest(index, type, documentMapper.mappingSource()), new ActionListener<MappingUpdatedAction.MappingUpdatedResponse>() {
                 @Override
                 public void onResponse(MappingUpdatedAction.MappingUpdatedResponse mappingUpdatedResponse) {
                     // all is well
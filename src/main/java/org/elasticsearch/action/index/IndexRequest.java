@@ -127,6 +127,8 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
     private VersionType versionType = VersionType.INTERNAL;
     private String percolate;
 
+    private BytesReference parsedDocument;
+
     private XContentType contentType = Requests.INDEX_CONTENT_TYPE;
 
     public IndexRequest() {
@@ -539,6 +541,20 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         return this.percolate;
     }
 
+    /**
+     * Internal: The binary form of the document as parsed on the primary shard, allowing replicas
+     * to index it without parsing the source again.
+     */
+    public IndexRequest parsedDocument(@Nullable BytesReference parsedDocument) {
+        this.parsedDocument = parsedDocument;
+        return this;
+    }
+
+    @Nullable
+    public BytesReference parsedDocument() {
+        return this.parsedDocument;
+    }
+
     public void process(MetaData metaData, String aliasOrIndex, @Nullable MappingMetaData mappingMd, boolean allowIdGeneration) throws ElasticSearchException {
         // resolve the routing if needed
         routing(metaData.resolveIndexRouting(routing, aliasOrIndex));
@@ -613,6 +629,9 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         version = in.readLong();
         percolate = in.readOptionalString();
         versionType = VersionType.fromValue(in.readByte());
+        if (in.readBoolean()) {
+            parsedDocument = in.readBytesReference();
+        }
     }
 
     @Override
@@ -630,6 +649,12 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         out.writeLong(version);
         out.writeOptionalString(percolate);
         out.writeByte(versionType.getValue());
+        if (parsedDocument == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeBytesReference(parsedDocument);
+        }
     }
 
     @Override
@@ -42,6 +42,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocumentStreams;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.percolator.PercolatorExecutor;
 import org.elasticsearch.index.service.IndexService;
@@ -63,6 +64,8 @@ import java.util.concurrent.TimeUnit;
  * <li><b>autoCreateIndex</b>: When set to <tt>true</tt>, will automatically create an index if one does not exists.
  * Defaults to <tt>true</tt>.
  * <li><b>allowIdGeneration</b>: If the id is set not, should it be generated. Defaults to <tt>true</tt>.
+ * <li><b>replicateParsedDocument</b>: Send the document as parsed on the primary to the replicas, so they
+ * don't parse the source again. Defaults to <tt>false</tt>.
  * </ul>
  */
 public class TransportIndexAction extends TransportShardReplicationOperationAction<IndexRequest, IndexRequest, IndexResponse> {
@@ -77,6 +80,8 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
 
     private final boolean waitForMappingChange;
 
+    private final boolean replicateParsedDocument;
+
     @Inject
     public TransportIndexAction(Settings settings, TransportService transportService, ClusterService clusterService,
                                 IndicesService indicesService, ThreadPool threadPool, ShardStateAction shardStateAction,
@@ -87,6 +92,7 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
         this.autoCreateIndex = new AutoCreateIndex(settings);
         this.allowIdGeneration = settings.getAsBoolean("action.allow_id_generation", true);
         this.waitForMappingChange = settings.getAsBoolean("action.wait_on_mapping_change", false);
+        this.replicateParsedDocument = settings.getAsBoolean("action.replicate_parsed_document", false);
     }
 
     @Override
@@ -228,6 +234,9 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
         }
         // update the version on the request, so it will be used for the replicas
         request.version(version);
+        if (replicateParsedDocument) {
+            request.parsedDocument(ParsedDocumentStreams.writeSafely(op.parsedDoc(), op.docMapper(), sourceToParse.source()));
+        }
 
         IndexResponse response = new IndexResponse(request.index(), request.type(), request.id(), version);
         return new PrimaryResponse<IndexResponse, IndexRequest>(shardRequest.request, response, op);
@@ -253,7 +262,8 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.request.index()).shardSafe(shardRequest.shardId);
         IndexRequest request = shardRequest.request;
         SourceToParse sourceToParse = SourceToParse.source(request.source()).type(request.type()).id(request.id())
-                .routing(request.routing()).parent(request.parent()).timestamp(request.timestamp()).ttl(request.ttl());
+                .routing(request.routing()).parent(request.parent()).timestamp(request.timestamp()).ttl(request.ttl())
+                .parsedDocument(request.parsedDocument());
         if (request.opType() == IndexRequest.OpType.INDEX) {
             Engine.Index index = indexShard.prepareIndex(sourceToParse)
                     .version(request.version())
@@ -284,7 +294,7 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             }
             documentMapper.refreshSource();
 
-            mappingUpdatedAction.execute(new MappingUpdatedAction.MappingUpdatedRequest(request.index(), request.type(), documentMapper.mappingSource()), new ActionListener<MappingUpdatedAction.MappingUpdatedResponse>() {
+            mappingUpdatedAction.updateMappingOnMaster(new MappingUpdatedAction.MappingUpdatedRequest(request.index(), request.type(), documentMapper.mappingSource()), new ActionListener<MappingUpdatedAction.MappingUpdatedResponse>() {
                 @Override
                 public void onResponse(MappingUpdatedAction.MappingUpdatedResponse mappingUpdatedResponse) {
                     // all is well
@@ -19,7 +19,10 @@
 
 package org.elasticsearch.cluster.action.index;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.action.support.master.MasterNodeOperationRequest;
@@ -36,6 +39,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -47,6 +52,8 @@ public class MappingUpdatedAction extends TransportMasterNodeOperationAction<Map
 
     private final MetaDataMappingService metaDataMappingService;
 
+    private final Map<MappingUpdatedRequest, List<ActionListener<MappingUpdatedResponse>>> inFlightUpdates = Maps.newHashMap();
+
     @Inject
     public MappingUpdatedAction(Settings settings, TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
                                 MetaDataMappingService metaDataMappingService) {
@@ -54,6 +61,44 @@ public class MappingUpdatedAction extends TransportMasterNodeOperationAction<Map
         this.metaDataMappingService = metaDataMappingService;
     }
 
+    /**
+     * Sends the updated mapping to the master. If an identical update (same index, type and mapping source) is already
+     * in flight from this node, no additional request is sent and the listener is notified once the pending one completes.
+     */
+    public void updateMappingOnMaster(final MappingUpdatedRequest request, ActionListener<MappingUpdatedResponse> listener) {
+        synchronized (inFlightUpdates) {
+            List<ActionListener<MappingUpdatedResponse>> listeners = inFlightUpdates.get(request);
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+            listeners = Lists.newArrayList();
+            listeners.add(listener);
+            inFlightUpdates.put(request, listeners);
+        }
+        execute(request, new ActionListener<MappingUpdatedResponse>() {
+            @Override
+            public void onResponse(MappingUpdatedResponse response) {
+                for (ActionListener<MappingUpdatedResponse> listener : completed(request)) {
+                    listener.onResponse(response);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                for (ActionListener<MappingUpdatedResponse> listener : completed(request)) {
+                    listener.onFailure(e);
+                }
+            }
+        });
+    }
+
+    private List<ActionListener<MappingUpdatedResponse>> completed(MappingUpdatedRequest request) {
+        synchronized (inFlightUpdates) {
+            return inFlightUpdates.remove(request);
+        }
+    }
+
     @Override
     protected String transportAction() {
         return "cluster/mappingUpdated";
@@ -150,6 +195,28 @@ public class MappingUpdatedAction extends TransportMasterNodeOperationAction<Map
             return null;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            MappingUpdatedRequest that = (MappingUpdatedRequest) o;
+
+            if (!index.equals(that.index)) return false;
+            if (!type.equals(that.type)) return false;
+            if (!mappingSource.equals(that.mappingSource)) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = index.hashCode();
+            result = 31 * result + type.hashCode();
+            result = 31 * result + mappingSource.hashCode();
+            return result;
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             super.readFrom(in);
@@ -28,6 +28,7 @@ import org.elasticsearch.cluster.ClusterStateUpdateTask;
 import org.elasticsearch.cluster.ProcessedClusterStateUpdateTask;
 import org.elasticsearch.cluster.action.index.NodeMappingCreatedAction;
 import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.compress.CompressedString;
 import org.elasticsearch.common.inject.Inject;
@@ -70,6 +71,8 @@ public class MetaDataMappingService extends AbstractComponent {
 
     private final Map<String, Set<String>> indicesAndTypesToRefresh = Maps.newHashMap();
 
+    private final List<MappingUpdate> pendingMappingUpdates = Lists.newArrayList();
+
     @Inject
     public MetaDataMappingService(Settings settings, ClusterService clusterService, IndicesService indicesService, NodeMappingCreatedAction mappingCreatedAction) {
         super(settings);
@@ -154,79 +157,155 @@ public class MetaDataMappingService extends AbstractComponent {
         });
     }
 
+    /**
+     * Dynamically updates the mapping of a type. Updates are queued and processed in batches, so a single cluster
+     * state change merges all the mapping updates that were received while the previous one was being processed.
+     */
     public void updateMapping(final String index, final String type, final CompressedString mappingSource, final Listener listener) {
+        synchronized (pendingMappingUpdates) {
+            pendingMappingUpdates.add(new MappingUpdate(index, type, mappingSource, listener));
+        }
         clusterService.submitStateUpdateTask("update-mapping [" + index + "][" + type + "]", new ProcessedClusterStateUpdateTask() {
+
+            private List<MappingUpdate> updates;
+
             @Override
             public ClusterState execute(ClusterState currentState) {
-                boolean createdIndex = false;
-                try {
-                    // first, check if it really needs to be updated
-                    final IndexMetaData indexMetaData = currentState.metaData().index(index);
-                    if (indexMetaData == null) {
-                        // index got delete on us, ignore...
-                        return currentState;
-                    }
-                    if (indexMetaData.mappings().containsKey(type) && indexMetaData.mapping(type).source().equals(mappingSource)) {
-                        return currentState;
+                synchronized (pendingMappingUpdates) {
+                    updates = Lists.newArrayList(pendingMappingUpdates);
+                    pendingMappingUpdates.clear();
+                }
+                // we already processed those updates as part of a previous batch...
+                if (updates.isEmpty()) {
+                    return currentState;
+                }
+                return applyMappingUpdates(currentState, updates);
+            }
+
+            @Override
+            public void clusterStateProcessed(ClusterState clusterState) {
+                for (MappingUpdate update : updates) {
+                    if (!update.failed) {
+                        update.listener.onResponse(new Response(true));
                     }
+                }
+            }
+        });
+    }
 
-                    IndexService indexService = indicesService.indexService(index);
-                    if (indexService == null) {
-                        // we need to create the index here, and add the current mapping to it, so we can merge
-                        indexService = indicesService.createIndex(indexMetaData.index(), indexMetaData.settings(), currentState.nodes().localNode().id());
-                        createdIndex = true;
-                        // only add the current relevant mapping (if exists)
-                        if (indexMetaData.mappings().containsKey(type)) {
-                            indexService.mapperService().add(type, indexMetaData.mappings().get(type).source().string(), false);
+    private ClusterState applyMappingUpdates(ClusterState currentState, List<MappingUpdate> updates) {
+        Map<String, List<MappingUpdate>> updatesPerIndex = Maps.newHashMap();
+        for (MappingUpdate update : updates) {
+            List<MappingUpdate> indexUpdates = updatesPerIndex.get(update.index);
+            if (indexUpdates == null) {
+                indexUpdates = Lists.newArrayList();
+                updatesPerIndex.put(update.index, indexUpdates);
+            }
+            indexUpdates.add(update);
+        }
+
+        MetaData.Builder builder = null;
+        for (Map.Entry<String, List<MappingUpdate>> entry : updatesPerIndex.entrySet()) {
+            String index = entry.getKey();
+            // first, check if it really needs to be updated
+            final IndexMetaData indexMetaData = currentState.metaData().index(index);
+            if (indexMetaData == null) {
+                // index got delete on us, ignore...
+                continue;
+            }
+            boolean createdIndex = false;
+            try {
+                IndexService indexService = indicesService.indexService(index);
+                if (indexService == null) {
+                    // we need to create the index here, and add the current mappings to it, so we can merge
+                    indexService = indicesService.createIndex(indexMetaData.index(), indexMetaData.settings(), currentState.nodes().localNode().id());
+                    createdIndex = true;
+                    Set<String> addedTypes = Sets.newHashSet();
+                    for (MappingUpdate update : entry.getValue()) {
+                        // only add the current relevant mappings (if exists)
+                        if (indexMetaData.mappings().containsKey(update.type) && addedTypes.add(update.type)) {
+                            indexService.mapperService().add(update.type, indexMetaData.mappings().get(update.type).source().string(), false);
                         }
                     }
-                    MapperService mapperService = indexService.mapperService();
-
-                    DocumentMapper existingMapper = mapperService.documentMapper(type);
-                    // parse the updated one
-                    DocumentMapper updatedMapper = mapperService.parse(type, mappingSource.string());
-                    if (existingMapper == null) {
-                        existingMapper = updatedMapper;
-                    } else {
-                        // merge from the updated into the existing, ignore conflicts (we know we have them, we just want the new ones)
-                        existingMapper.merge(updatedMapper, mergeFlags().simulate(false));
+                }
+                MapperService mapperService = indexService.mapperService();
+
+                Map<String, DocumentMapper> updatedMappers = Maps.newHashMap();
+                Set<Tuple<String, CompressedString>> processed = Sets.newHashSet();
+                for (MappingUpdate update : entry.getValue()) {
+                    try {
+                        if (indexMetaData.mappings().containsKey(update.type) && indexMetaData.mapping(update.type).source().equals(update.mappingSource)) {
+                            continue;
+                        }
+                        if (!processed.add(Tuple.tuple(update.type, update.mappingSource))) {
+                            // the same update sent by another shard, already merged as part of this batch
+                            continue;
+                        }
+                        DocumentMapper existingMapper = mapperService.documentMapper(update.type);
+                        // parse the updated one
+                        DocumentMapper updatedMapper = mapperService.parse(update.type, update.mappingSource.string());
+                        if (existingMapper == null) {
+                            existingMapper = updatedMapper;
+                        } else {
+                            // merge from the updated into the existing, ignore conflicts (we know we have them, we just want the new ones)
+                            existingMapper.merge(updatedMapper, mergeFlags().simulate(false));
+                        }
+                        updatedMappers.put(update.type, existingMapper);
+                    } catch (Exception e) {
+                        logger.warn("[{}] failed to dynamically update the mapping [{}] in cluster_state from shard", e, index, update.type);
+                        update.failed = true;
+                        update.listener.onFailure(e);
                     }
+                }
 
+                IndexMetaData.Builder indexMetaDataBuilder = null;
+                for (DocumentMapper mapper : updatedMappers.values()) {
                     // if we end up with the same mapping as the original once, ignore
-                    if (indexMetaData.mappings().containsKey(type) && indexMetaData.mapping(type).source().equals(existingMapper.mappingSource())) {
-                        return currentState;
+                    if (indexMetaData.mappings().containsKey(mapper.type()) && indexMetaData.mapping(mapper.type()).source().equals(mapper.mappingSource())) {
+                        continue;
                     }
-
-                    // build the updated mapping source
                     if (logger.isDebugEnabled()) {
                         try {
-                            logger.debug("[{}] update_mapping [{}] (dynamic) with source [{}]", index, type, existingMapper.mappingSource().string());
+                            logger.debug("[{}] update_mapping [{}] (dynamic) with source [{}]", index, mapper.type(), mapper.mappingSource().string());
                         } catch (IOException e) {
                             // ignore
                         }
                     } else if (logger.isInfoEnabled()) {
-                        logger.info("[{}] update_mapping [{}] (dynamic)", index, type);
+                        logger.info("[{}] update_mapping [{}] (dynamic)", index, mapper.type());
                     }
-
-                    MetaData.Builder builder = newMetaDataBuilder().metaData(currentState.metaData());
-                    builder.put(newIndexMetaDataBuilder(indexMetaData).putMapping(new MappingMetaData(existingMapper)));
-                    return newClusterStateBuilder().state(currentState).metaData(builder).build();
-                } catch (Exception e) {
-                    logger.warn("failed to dynamically update the mapping in cluster_state from shard", e);
-                    listener.onFailure(e);
-                    return currentState;
-                } finally {
-                    if (createdIndex) {
-                        indicesService.cleanIndex(index, "created for mapping processing");
+                    if (indexMetaDataBuilder == null) {
+                        indexMetaDataBuilder = newIndexMetaDataBuilder(indexMetaData);
+                    }
+                    indexMetaDataBuilder.putMapping(new MappingMetaData(mapper));
+                }
+                if (indexMetaDataBuilder != null) {
+                    if (builder == null) {
+                        builder = newMetaDataBuilder().metaData(currentState.metaData());
+                    }
+                    builder.put(indexMetaDataBuilder);
+                }
+            } catch (Exception e) {
+                logger.warn("[{}] failed to dynamically update the mapping in cluster_state from shard", e, index);
+                for (MappingUpdate update : entry.getValue()) {
+                    if (!update.failed) {
+                        update.failed = true;
+                        update.listener.onFailure(e);
                     }
                 }
+            } finally {
+                if (createdIndex) {
+                    indicesService.cleanIndex(index, "created for mapping processing");
+                }
             }
+        }
 
-            @Override
-            public void clusterStateProcessed(ClusterState clusterState) {
-                listener.onResponse(new Response(true));
-            }
-        });
+        if (builder == null) {
+            return currentState;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("applied [{}] dynamic mapping updates in a single cluster state update", updates.size());
+        }
+        return newClusterStateBuilder().state(currentState).metaData(builder).build();
     }
 
     public void removeMapping(final RemoveRequest request, final Listener listener) {
@@ -496,6 +575,26 @@ public class MetaDataMappingService extends AbstractComponent {
         }
     }
 
+    private static class MappingUpdate {
+
+        final String index;
+
+        final String type;
+
+        final CompressedString mappingSource;
+
+        final Listener listener;
+
+        boolean failed;
+
+        MappingUpdate(String index, String type, CompressedString mappingSource, Listener listener) {
+            this.index = index;
+            this.type = type;
+            this.mappingSource = mappingSource;
+            this.listener = listener;
+        }
+    }
+
     private class CountDownListener implements NodeMappingCreatedAction.Listener {
 
         private final AtomicBoolean notified = new AtomicBoolean();
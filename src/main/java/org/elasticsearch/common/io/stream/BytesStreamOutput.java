@@ -23,9 +23,13 @@ import org.elasticsearch.common.Bytes;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.BytesStream;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  *
@@ -42,6 +46,18 @@ public class BytesStreamOutput extends StreamOutput implements BytesStream {
      */
     protected int count;
 
+    /**
+     * The minimum size of a bytes reference to keep a reference to instead of copying it, <tt>-1</tt> to always copy.
+     */
+    private int referenceThreshold = -1;
+
+    /**
+     * The bytes references kept, with the position in the buffer they are logically written at.
+     */
+    private List<BytesReference> references;
+    private int[] referencesPositions;
+    private int referencesLength;
+
     public BytesStreamOutput() {
         this(1024);
     }
@@ -99,12 +115,48 @@ public class BytesStreamOutput extends StreamOutput implements BytesStream {
         count = newcount;
     }
 
+    /**
+     * Writes the bytes reference, keeping a reference to it instead of copying it if its at least
+     * {@link #referenceThreshold(int)} bytes long. In that case, the bytes must not be modified until
+     * the content of this stream has been fully consumed.
+     */
+    @Override
+    public void writeBytesReference(BytesReference bytes) throws IOException {
+        if (referenceThreshold < 0 || bytes == null || bytes.length() < referenceThreshold) {
+            super.writeBytesReference(bytes);
+            return;
+        }
+        writeVInt(bytes.length());
+        if (references == null) {
+            references = new ArrayList<BytesReference>();
+            referencesPositions = new int[4];
+        } else if (references.size() == referencesPositions.length) {
+            referencesPositions = Arrays.copyOf(referencesPositions, referencesPositions.length * 2);
+        }
+        referencesPositions[references.size()] = count;
+        references.add(bytes);
+        referencesLength += bytes.length();
+    }
+
+    /**
+     * Sets the minimum size of bytes references written with {@link #writeBytesReference(BytesReference)}
+     * to keep a reference to instead of copying them, <tt>-1</tt> (the default) to always copy. Seeking
+     * should not go back before a position a reference was kept at.
+     */
+    public void referenceThreshold(int referenceThreshold) {
+        this.referenceThreshold = referenceThreshold;
+    }
+
     public void seek(int seekTo) {
         count = seekTo;
     }
 
     public void reset() {
         count = 0;
+        if (references != null) {
+            references.clear();
+            referencesLength = 0;
+        }
     }
 
     @Override
@@ -117,19 +169,65 @@ public class BytesStreamOutput extends StreamOutput implements BytesStream {
         // nothing to do here
     }
 
+    /**
+     * The content of the stream. If references to bytes were kept, the content is copied into a single array,
+     * use {@link #toChannelBuffer()} to avoid it.
+     */
     @Override
     public BytesReference bytes() {
-        return new BytesArray(buf, 0, count);
+        if (references == null || references.isEmpty()) {
+            return new BytesArray(buf, 0, count);
+        }
+        byte[] bytes = new byte[count + referencesLength];
+        int from = 0;
+        int upTo = 0;
+        for (int i = 0; i < references.size(); i++) {
+            int position = referencesPositions[i];
+            System.arraycopy(buf, from, bytes, upTo, position - from);
+            upTo += position - from;
+            from = position;
+            BytesReference reference = references.get(i);
+            if (reference.hasArray()) {
+                System.arraycopy(reference.array(), reference.arrayOffset(), bytes, upTo, reference.length());
+            } else {
+                System.arraycopy(reference.toBytes(), 0, bytes, upTo, reference.length());
+            }
+            upTo += reference.length();
+        }
+        System.arraycopy(buf, from, bytes, upTo, count - from);
+        return new BytesArray(bytes);
     }
 
     /**
-     * Returns the current size of the buffer.
+     * The content of the stream as a channel buffer, composed of the buffer of this stream and the bytes
+     * references kept (if any) without copying them.
+     */
+    public ChannelBuffer toChannelBuffer() {
+        if (references == null || references.isEmpty()) {
+            return ChannelBuffers.wrappedBuffer(buf, 0, count);
+        }
+        ChannelBuffer[] buffers = new ChannelBuffer[references.size() * 2 + 1];
+        int from = 0;
+        int upTo = 0;
+        for (int i = 0; i < references.size(); i++) {
+            int position = referencesPositions[i];
+            buffers[upTo++] = ChannelBuffers.wrappedBuffer(buf, from, position - from);
+            buffers[upTo++] = references.get(i).toChannelBuffer();
+            from = position;
+        }
+        buffers[upTo] = ChannelBuffers.wrappedBuffer(buf, from, count - from);
+        // gathering, so the components are written as is instead of being merged into a single buffer first
+        return ChannelBuffers.wrappedBuffer(true, buffers);
+    }
+
+    /**
+     * Returns the current size of the stream, including the bytes references kept.
      *
-     * @return the value of the <code>count</code> field, which is the number
-     *         of valid bytes in this output stream.
+     * @return the value of the <code>count</code> field plus the size of the references kept,
+     *         which is the number of valid bytes in this output stream.
      * @see java.io.ByteArrayOutputStream#count
      */
     public int size() {
-        return count;
+        return count + referencesLength;
     }
 }
@@ -52,6 +52,7 @@ public class CachedStreamOutput {
 
         public void reset() {
             bytes.reset();
+            bytes.referenceThreshold(-1);
             handles.setOut(bytes);
             handles.clear();
         }
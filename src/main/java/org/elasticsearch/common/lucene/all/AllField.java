@@ -24,6 +24,8 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.analysis.SharedAnalysis;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -37,10 +39,30 @@ public class AllField extends Field {
 
     private final Analyzer analyzer;
 
+    private final SharedAnalysis sharedAnalysis;
+
     public AllField(String name, AllEntries allEntries, Analyzer analyzer, FieldType fieldType) {
+        this(name, allEntries, analyzer, fieldType, null);
+    }
+
+    /**
+     * @param sharedAnalysis if provided, each entry is analyzed on its own, sharing its analysis with
+     *                       the field it was created from
+     */
+    public AllField(String name, AllEntries allEntries, Analyzer analyzer, FieldType fieldType, @Nullable SharedAnalysis sharedAnalysis) {
         super(name, fieldType);
         this.allEntries = allEntries;
         this.analyzer = analyzer;
+        this.sharedAnalysis = sharedAnalysis;
+    }
+
+    public AllEntries allEntries() {
+        return this.allEntries;
+    }
+
+    @Nullable
+    public SharedAnalysis sharedAnalysis() {
+        return this.sharedAnalysis;
     }
 
     @Override
@@ -59,6 +81,9 @@ public class AllField extends Field {
     @Override
     public TokenStream tokenStream(Analyzer analyzer) throws IOException {
         try {
+            if (sharedAnalysis != null) {
+                return sharedAnalysis.allTokenStream(name, allEntries, analyzer);
+            }
             allEntries.reset(); // reset the all entries, just in case it was read already
             return AllTokenStream.allTokenStream(name, allEntries, analyzer);
         } catch (IOException e) {
@@ -0,0 +1,325 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.support;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The streaming counterpart of {@link XContentMapValues}, extracting values directly from an {@link XContentParser}
+ * positioned at (or right before) the start of an object. Only the requested paths are converted into values, other
+ * subtrees are skipped without being materialized, and path extraction stops as soon as the path is resolved.
+ * Results are the same as applying the matching {@link XContentMapValues} method on the parsed map, except for
+ * objects with duplicate keys, where the first key wins instead of the last one.
+ */
+public class XContentStreamValues {
+
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * Extracts raw values (string, int, and so on) based on the path provided returning all of them
+     * as a single list.
+     *
+     * @see XContentMapValues#extractRawValues(String, java.util.Map)
+     */
+    public static List<Object> extractRawValues(String path, XContentParser parser) throws IOException {
+        List<Object> values = Lists.newArrayList();
+        String[] pathElements = Strings.splitStringToArray(path, '.');
+        if (pathElements.length == 0) {
+            return values;
+        }
+        if (startObject(parser)) {
+            extractRawValuesFromObject(values, parser, pathElements, 0, true);
+        }
+        return values;
+    }
+
+    /**
+     * @see XContentMapValues#extractValue(String, java.util.Map)
+     */
+    public static Object extractValue(String path, XContentParser parser) throws IOException {
+        String[] pathElements = Strings.splitStringToArray(path, '.');
+        if (pathElements.length == 0) {
+            return null;
+        }
+        if (!startObject(parser)) {
+            return null;
+        }
+        return extractValueFromObject(parser, pathElements, 0, true);
+    }
+
+    /**
+     * @see XContentMapValues#filter(java.util.Map, String[], String[])
+     */
+    public static Map<String, Object> filter(XContentParser parser, String[] includes, String[] excludes) throws IOException {
+        Map<String, Object> result = Maps.newHashMap();
+        if (startObject(parser)) {
+            filter(parser, result, includes, excludes, new StringBuilder());
+        }
+        return result;
+    }
+
+    private static boolean startObject(XContentParser parser) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        return token == XContentParser.Token.START_OBJECT;
+    }
+
+    /**
+     * Returns the path index following the path elements the field name consumes (a field name can hold several
+     * path elements joined with dots), or <tt>-1</tt> if the field is not on the path.
+     */
+    private static int matchPath(String fieldName, String[] pathElements, int index) {
+        int offset = 0;
+        for (int i = index; i < pathElements.length; i++) {
+            String pathElement = pathElements[i];
+            if (!fieldName.startsWith(pathElement, offset)) {
+                return -1;
+            }
+            offset += pathElement.length();
+            if (offset == fieldName.length()) {
+                return i + 1;
+            }
+            if (fieldName.charAt(offset) != '.') {
+                return -1;
+            }
+            offset++;
+        }
+        return -1;
+    }
+
+    private static void extractRawValuesFromObject(List<Object> values, XContentParser parser, String[] pathElements, int index, boolean root) throws IOException {
+        if (index == pathElements.length) {
+            parser.skipChildren();
+            return;
+        }
+        // the map based lookup prefers the shortest key that has a non null value, so keep the values extracted for
+        // each matching key around until the object is done, or the shortest key is found
+        List<Object>[] matches = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            int nextIndex = matchPath(parser.currentName(), pathElements, index);
+            token = parser.nextToken();
+            if (nextIndex == -1) {
+                parser.skipChildren();
+                continue;
+            }
+            if (matches == null) {
+                matches = new List[pathElements.length - index];
+            }
+            if (token == XContentParser.Token.VALUE_NULL) {
+                matches[nextIndex - index - 1] = null;
+                continue;
+            }
+            List<Object> match = new ArrayList<Object>();
+            if (token == XContentParser.Token.START_OBJECT) {
+                extractRawValuesFromObject(match, parser, pathElements, nextIndex, false);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                extractRawValuesFromArray(match, parser, pathElements, nextIndex);
+            } else {
+                match.add(XContentMapConverter.readValue(parser, XContentMapConverter.SIMPLE_MAP_FACTORY, token));
+            }
+            if (nextIndex == index + 1) {
+                values.addAll(match);
+                skipRemainingFields(parser, root);
+                return;
+            }
+            matches[nextIndex - index - 1] = match;
+        }
+        if (matches != null) {
+            for (List<Object> match : matches) {
+                if (match != null) {
+                    values.addAll(match);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the parser to the end of the current object, unless it is the root object, in which case there is
+     * nothing left to read.
+     */
+    private static void skipRemainingFields(XContentParser parser, boolean root) throws IOException {
+        if (root) {
+            return;
+        }
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    private static void extractRawValuesFromArray(List<Object> values, XContentParser parser, String[] pathElements, int index) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.VALUE_NULL) {
+                continue;
+            }
+            if (token == XContentParser.Token.START_OBJECT) {
+                extractRawValuesFromObject(values, parser, pathElements, index, false);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                extractRawValuesFromArray(values, parser, pathElements, index);
+            } else {
+                values.add(XContentMapConverter.readValue(parser, XContentMapConverter.SIMPLE_MAP_FACTORY, token));
+            }
+        }
+    }
+
+    private static Object extractValueFromObject(XContentParser parser, String[] pathElements, int index, boolean root) throws IOException {
+        // same as with raw values, the shortest key with a non null value wins, even if nothing could be extracted from it
+        Object[] matches = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            int nextIndex = matchPath(parser.currentName(), pathElements, index);
+            token = parser.nextToken();
+            if (nextIndex == -1) {
+                parser.skipChildren();
+                continue;
+            }
+            if (matches == null) {
+                matches = new Object[pathElements.length - index];
+            }
+            if (token == XContentParser.Token.VALUE_NULL) {
+                matches[nextIndex - index - 1] = null;
+                continue;
+            }
+            Object match = extractValue(parser, token, pathElements, nextIndex);
+            if (nextIndex == index + 1) {
+                skipRemainingFields(parser, root);
+                return match;
+            }
+            matches[nextIndex - index - 1] = match == null ? NULL_VALUE : match;
+        }
+        if (matches != null) {
+            for (Object match : matches) {
+                if (match != null) {
+                    return match == NULL_VALUE ? null : match;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Object extractValue(XContentParser parser, XContentParser.Token token, String[] pathElements, int index) throws IOException {
+        if (index == pathElements.length) {
+            return XContentMapConverter.readValue(parser, XContentMapConverter.SIMPLE_MAP_FACTORY, token);
+        }
+        if (token == XContentParser.Token.START_OBJECT) {
+            return extractValueFromObject(parser, pathElements, index, false);
+        }
+        if (token == XContentParser.Token.START_ARRAY) {
+            List<Object> newList = new ArrayList<Object>();
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                Object listValue = extractValue(parser, token, pathElements, index);
+                if (listValue != null) {
+                    newList.add(listValue);
+                }
+            }
+            return newList;
+        }
+        return null;
+    }
+
+    private static void filter(XContentParser parser, Map<String, Object> into, String[] includes, String[] excludes, StringBuilder sb) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String key = parser.currentName();
+            token = parser.nextToken();
+            int mark = sb.length();
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+            sb.append(key);
+            String path = sb.toString();
+            boolean excluded = false;
+            for (String exclude : excludes) {
+                if (Regex.simpleMatch(exclude, path)) {
+                    excluded = true;
+                    break;
+                }
+            }
+            if (excluded) {
+                sb.setLength(mark);
+                parser.skipChildren();
+                continue;
+            }
+            if (includes.length > 0) {
+                boolean atLeastOnOneIncludeMatched = false;
+                for (String include : includes) {
+                    // check for prefix as well, something like: obj1.arr1.*
+                    // note, this does not work well with middle matches, like obj1.*.obj3
+                    if (include.startsWith(path) || Regex.simpleMatch(include, path)) {
+                        atLeastOnOneIncludeMatched = true;
+                        break;
+                    }
+                }
+                if (!atLeastOnOneIncludeMatched) {
+                    sb.setLength(mark);
+                    parser.skipChildren();
+                    continue;
+                }
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+                Map<String, Object> innerInto = Maps.newHashMap();
+                filter(parser, innerInto, includes, excludes, sb);
+                if (!innerInto.isEmpty()) {
+                    into.put(key, innerInto);
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                List<Object> innerInto = new ArrayList<Object>();
+                filterArray(parser, innerInto, includes, excludes, sb);
+                into.put(key, innerInto);
+            } else {
+                into.put(key, XContentMapConverter.readValue(parser, XContentMapConverter.SIMPLE_MAP_FACTORY, token));
+            }
+            sb.setLength(mark);
+        }
+    }
+
+    private static void filterArray(XContentParser parser, List<Object> to, String[] includes, String[] excludes, StringBuilder sb) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                Map<String, Object> innerInto = Maps.newHashMap();
+                filter(parser, innerInto, includes, excludes, sb);
+                if (!innerInto.isEmpty()) {
+                    to.add(innerInto);
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                // nested arrays are dropped, as they are when filtering a map
+                filterArray(parser, new ArrayList<Object>(), includes, excludes, sb);
+            } else {
+                to.add(XContentMapConverter.readValue(parser, XContentMapConverter.SIMPLE_MAP_FACTORY, token));
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.http;
 
 import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.Streams;
@@ -81,6 +82,11 @@ public class HttpServer extends AbstractLifecycleComponent<HttpServer> {
         public void dispatchRequest(HttpRequest request, HttpChannel channel) {
             server.internalDispatchRequest(request, channel);
         }
+
+        @Override
+        public RestContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, RestContentStream stream) {
+            return server.internalDispatchStreamingRequest(request, channel, stream);
+        }
     }
 
     @Override
@@ -120,6 +126,18 @@ public class HttpServer extends AbstractLifecycleComponent<HttpServer> {
         restController.dispatchRequest(request, channel);
     }
 
+    @Nullable
+    public RestContentConsumer internalDispatchStreamingRequest(final HttpRequest request, final HttpChannel channel, final RestContentStream stream) {
+        if (request.rawPath().startsWith("/_plugin/")) {
+            return null;
+        }
+        StreamingRestHandler handler = restController.streamingHandler(request);
+        if (handler == null) {
+            return null;
+        }
+        return handler.handleStreamingRequest(request, channel, stream);
+    }
+
 
     class PluginSiteFilter extends RestFilter {
 
@@ -19,10 +19,22 @@
 
 package org.elasticsearch.http;
 
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.rest.RestContentConsumer;
+import org.elasticsearch.rest.RestContentStream;
+
 /**
  *
  */
 public interface HttpServerAdapter {
 
     void dispatchRequest(HttpRequest request, HttpChannel channel);
+
+    /**
+     * Dispatches a request before its body has been received, returning the consumer the body should
+     * be streamed to, or <tt>null</tt> if the body should be fully received and the request dispatched
+     * using {@link #dispatchRequest(HttpRequest, HttpChannel)}.
+     */
+    @Nullable
+    RestContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, RestContentStream stream);
 }
@@ -0,0 +1,99 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
+import org.elasticsearch.rest.RestContentConsumer;
+import org.elasticsearch.rest.RestContentStream;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.http.*;
+
+import java.nio.channels.ClosedChannelException;
+
+import static org.jboss.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
+import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Sits in front of the chunk aggregator, and streams the chunks of requests handled by a
+ * {@link org.elasticsearch.rest.StreamingRestHandler} to its consumer as they arrive, instead
+ * of aggregating the full body in memory. Other requests are passed through to be aggregated.
+ * <p/>
+ * A new instance is needed per channel.
+ */
+public class HttpStreamingContentHandler extends SimpleChannelUpstreamHandler {
+
+    private final NettyHttpServerTransport serverTransport;
+
+    private RestContentConsumer consumer;
+
+    public HttpStreamingContentHandler(NettyHttpServerTransport serverTransport) {
+        this.serverTransport = serverTransport;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        Object msg = e.getMessage();
+        if (consumer != null && msg instanceof HttpChunk) {
+            HttpChunk chunk = (HttpChunk) msg;
+            if (chunk.getContent().readable()) {
+                // the http decoder copies the chunk content into its own buffer, so its safe to retain it
+                consumer.onContent(new ChannelBufferBytesReference(chunk.getContent()));
+            }
+            if (chunk.isLast()) {
+                RestContentConsumer consumer = this.consumer;
+                this.consumer = null;
+                consumer.onEnd();
+            }
+            return;
+        }
+        if (msg instanceof HttpRequest && ((HttpRequest) msg).isChunked()) {
+            HttpRequest request = (HttpRequest) msg;
+            final Channel channel = e.getChannel();
+            consumer = serverTransport.dispatchStreamingRequest(new NettyHttpRequest(request), new NettyHttpChannel(serverTransport, channel, request), new RestContentStream() {
+                @Override
+                public void pause() {
+                    channel.setReadable(false);
+                }
+
+                @Override
+                public void resume() {
+                    channel.setReadable(true);
+                }
+            });
+            if (consumer != null) {
+                if (HttpHeaders.is100ContinueExpected(request)) {
+                    Channels.write(ctx, Channels.succeededFuture(channel), new DefaultHttpResponse(HTTP_1_1, CONTINUE));
+                }
+                return;
+            }
+        }
+        ctx.sendUpstream(e);
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        RestContentConsumer consumer = this.consumer;
+        if (consumer != null) {
+            this.consumer = null;
+            consumer.onFailure(new ClosedChannelException());
+        }
+        super.channelClosed(ctx, e);
+    }
+}
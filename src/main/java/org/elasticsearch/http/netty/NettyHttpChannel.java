@@ -23,8 +23,10 @@ import org.elasticsearch.common.io.stream.CachedStreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpException;
+import org.elasticsearch.rest.RestOutputStream;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingRestChannel;
 import org.elasticsearch.rest.XContentRestResponse;
 import org.elasticsearch.rest.support.RestUtils;
 import org.elasticsearch.transport.netty.NettyTransport;
@@ -34,6 +36,7 @@ import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.handler.codec.http.*;
+import org.jboss.netty.util.internal.DeadLockProofWorker;
 
 import java.io.IOException;
 import java.util.Set;
@@ -41,7 +44,7 @@ import java.util.Set;
 /**
  *
  */
-public class NettyHttpChannel implements HttpChannel {
+public class NettyHttpChannel implements HttpChannel, StreamingRestChannel {
     private final NettyHttpServerTransport transport;
     private final Channel channel;
     private final org.jboss.netty.handler.codec.http.HttpRequest request;
@@ -56,39 +59,10 @@ public class NettyHttpChannel implements HttpChannel {
     public void sendResponse(RestResponse response) {
 
         // Decide whether to close the connection or not.
-        boolean http10 = request.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
-        boolean close =
-                HttpHeaders.Values.CLOSE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)) ||
-                        (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)));
+        boolean close = isCloseConnection();
 
         // Build the response object.
-        HttpResponseStatus status = getStatus(response.status());
-        org.jboss.netty.handler.codec.http.HttpResponse resp;
-        if (http10) {
-            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
-            if (!close) {
-                resp.addHeader(HttpHeaders.Names.CONNECTION, "Keep-Alive");
-            }
-        } else {
-            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
-        }
-        if (RestUtils.isBrowser(request.getHeader(HttpHeaders.Names.USER_AGENT))) {
-            if (transport.settings().getAsBoolean("http.cors.enabled", true)) {
-                // Add support for cross-origin Ajax requests (CORS)
-                resp.addHeader("Access-Control-Allow-Origin", transport.settings().get("http.cors.allow-origin", "*"));
-                if (request.getMethod() == HttpMethod.OPTIONS) {
-                    // Allow Ajax requests based on the CORS "preflight" request
-                    resp.addHeader("Access-Control-Max-Age", transport.settings().getAsInt("http.cors.max-age", 1728000));
-                    resp.addHeader("Access-Control-Allow-Methods", transport.settings().get("http.cors.allow-methods", "OPTIONS, HEAD, GET, POST, PUT, DELETE"));
-                    resp.addHeader("Access-Control-Allow-Headers", transport.settings().get("http.cors.allow-headers", "X-Requested-With, Content-Type, Content-Length"));
-                }
-            }
-        }
-
-        String opaque = request.getHeader("X-Opaque-Id");
-        if (opaque != null) {
-            resp.addHeader("X-Opaque-Id", opaque);
-        }
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(getStatus(response.status()), close);
 
         // Convert the response content to a ChannelBuffer.
         ChannelFutureListener releaseContentListener = null;
@@ -132,6 +106,187 @@ public class NettyHttpChannel implements HttpChannel {
 
         resp.setHeader(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buf.readableBytes()));
 
+        // Write the response.
+        ChannelFuture future = channel.write(resp);
+        if (releaseContentListener != null) {
+            future.addListener(releaseContentListener);
+        }
+
+        // Close the connection after the write operation is done if necessary.
+        if (close) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public RestOutputStream startResponse(RestStatus status, String contentType) {
+        return new ChunkedOutputStream(getStatus(status), contentType);
+    }
+
+    /**
+     * Renders a response into fixed size chunks that are written to the channel as soon as they fill up. The
+     * response headers are only sent with the first full chunk, so a response that ends up fitting in a single
+     * chunk is sent as a regular response with a content length. HTTP 1.0 clients do not support chunked
+     * transfer encoding, so their response is aggregated and sent on close.
+     */
+    private class ChunkedOutputStream extends RestOutputStream {
+
+        private final HttpResponseStatus status;
+
+        private final String contentType;
+
+        private final boolean close;
+
+        private final boolean chunked;
+
+        private ChannelBuffer buffer;
+
+        private boolean committed;
+
+        private boolean closed;
+
+        ChunkedOutputStream(HttpResponseStatus status, String contentType) {
+            this.status = status;
+            this.contentType = contentType;
+            this.close = isCloseConnection();
+            this.chunked = !request.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
+            this.buffer = chunked ? ChannelBuffers.buffer(transport.responseChunkSize) : ChannelBuffers.dynamicBuffer(transport.responseChunkSize);
+        }
+
+        @Override
+        public boolean committed() {
+            return committed;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            buffer.writeByte(b);
+            if (chunked && !buffer.writable()) {
+                flushChunk();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (!chunked) {
+                buffer.writeBytes(b, off, len);
+                return;
+            }
+            while (len > 0) {
+                int length = Math.min(len, buffer.writableBytes());
+                buffer.writeBytes(b, off, length);
+                off += length;
+                len -= length;
+                if (!buffer.writable()) {
+                    flushChunk();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ChannelFuture future;
+            if (!committed) {
+                committed = true;
+                org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(status, close);
+                resp.setHeader(HttpHeaders.Names.CONTENT_TYPE, contentType);
+                resp.setHeader(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.readableBytes()));
+                resp.setContent(buffer);
+                future = channel.write(resp);
+            } else {
+                if (buffer.readable()) {
+                    channel.write(new DefaultHttpChunk(buffer));
+                }
+                future = channel.write(HttpChunk.LAST_CHUNK);
+            }
+            buffer = null;
+            if (close) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        @Override
+        public void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer = null;
+            if (committed) {
+                channel.close();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (!committed) {
+                committed = true;
+                org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(status, close);
+                resp.setHeader(HttpHeaders.Names.CONTENT_TYPE, contentType);
+                resp.setHeader(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+                resp.setChunked(true);
+                channel.write(resp);
+            }
+            ChannelFuture future = channel.write(new DefaultHttpChunk(buffer));
+            buffer = ChannelBuffers.buffer(transport.responseChunkSize);
+            // if the client does not keep up, wait for the pending chunks to be written instead of queueing
+            // the rest of the response in memory. Streaming responses are rendered off the netty workers, the
+            // check only guards against a deadlock if one still ends up rendered on a worker
+            if (!channel.isWritable() && DeadLockProofWorker.PARENT.get() == null) {
+                future.awaitUninterruptibly();
+                if (!future.isSuccess()) {
+                    throw new IOException("failed to send response chunk", future.getCause());
+                }
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("response stream is closed");
+            }
+        }
+    }
+
+    private boolean isCloseConnection() {
+        boolean http10 = request.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
+        return HttpHeaders.Values.CLOSE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)) ||
+                (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)));
+    }
+
+    private org.jboss.netty.handler.codec.http.HttpResponse newResponse(HttpResponseStatus status, boolean close) {
+        boolean http10 = request.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
+        org.jboss.netty.handler.codec.http.HttpResponse resp;
+        if (http10) {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
+            if (!close) {
+                resp.addHeader(HttpHeaders.Names.CONNECTION, "Keep-Alive");
+            }
+        } else {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+        }
+        if (RestUtils.isBrowser(request.getHeader(HttpHeaders.Names.USER_AGENT))) {
+            if (transport.settings().getAsBoolean("http.cors.enabled", true)) {
+                // Add support for cross-origin Ajax requests (CORS)
+                resp.addHeader("Access-Control-Allow-Origin", transport.settings().get("http.cors.allow-origin", "*"));
+                if (request.getMethod() == HttpMethod.OPTIONS) {
+                    // Allow Ajax requests based on the CORS "preflight" request
+                    resp.addHeader("Access-Control-Max-Age", transport.settings().getAsInt("http.cors.max-age", 1728000));
+                    resp.addHeader("Access-Control-Allow-Methods", transport.settings().get("http.cors.allow-methods", "OPTIONS, HEAD, GET, POST, PUT, DELETE"));
+                    resp.addHeader("Access-Control-Allow-Headers", transport.settings().get("http.cors.allow-headers", "X-Requested-With, Content-Type, Content-Length"));
+                }
+            }
+        }
+
+        String opaque = request.getHeader("X-Opaque-Id");
+        if (opaque != null) {
+            resp.addHeader("X-Opaque-Id", opaque);
+        }
+
         if (transport.resetCookies) {
             String cookieString = request.getHeader(HttpHeaders.Names.COOKIE);
             if (cookieString != null) {
@@ -148,16 +303,7 @@ public class NettyHttpChannel implements HttpChannel {
             }
         }
 
-        // Write the response.
-        ChannelFuture future = channel.write(resp);
-        if (releaseContentListener != null) {
-            future.addListener(releaseContentListener);
-        }
-
-        // Close the connection after the write operation is done if necessary.
-        if (close) {
-            future.addListener(ChannelFutureListener.CLOSE);
-        }
+        return resp;
     }
 
     private HttpResponseStatus getStatus(RestStatus status) {
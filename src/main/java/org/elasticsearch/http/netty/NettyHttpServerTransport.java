@@ -36,8 +36,11 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.http.*;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.rest.RestContentConsumer;
+import org.elasticsearch.rest.RestContentStream;
 import org.elasticsearch.transport.BindTransportException;
 import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 import org.jboss.netty.channel.socket.oio.OioServerSocketChannelFactory;
@@ -79,6 +82,12 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
 
     final boolean resetCookies;
 
+    final boolean streaming;
+
+    final int responseChunkSize;
+
+    final boolean directBuffers;
+
     private final String port;
 
     private final String bindHost;
@@ -153,6 +162,13 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
             receiveBufferSizePredictorFactory = new AdaptiveReceiveBufferSizePredictorFactory((int) receivePredictorMin.bytes(), (int) receivePredictorMin.bytes(), (int) receivePredictorMax.bytes());
         }
 
+        // requests with a chunked body routed to a streaming rest handler (like bulk) are streamed to it instead of aggregated,
+        // opt in since a streamed bulk request is not rejected as a whole anymore when one of its actions is malformed
+        this.streaming = componentSettings.getAsBoolean("streaming", settings.getAsBoolean("http.streaming", false));
+        // responses rendered through a streaming channel (like search) are flushed to the client in chunks of this size
+        this.responseChunkSize = (int) componentSettings.getAsBytesSize("response_chunk_size", settings.getAsBytesSize("http.response_chunk_size", new ByteSizeValue(64, ByteSizeUnit.KB))).bytes();
+        // read requests into direct buffers (sliced out of preallocated chunks) instead of heap buffers
+        this.directBuffers = componentSettings.getAsBoolean("direct_buffers", settings.getAsBoolean("network.netty.direct_buffers", false));
         this.compression = settings.getAsBoolean("http.compression", false);
         this.compressionLevel = settings.getAsInt("http.compression_level", 6);
 
@@ -207,6 +223,9 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         }
         serverBootstrap.setOption("receiveBufferSizePredictorFactory", receiveBufferSizePredictorFactory);
         serverBootstrap.setOption("child.receiveBufferSizePredictorFactory", receiveBufferSizePredictorFactory);
+        if (directBuffers) {
+            serverBootstrap.setOption("child.bufferFactory", DirectChannelBufferFactory.getInstance());
+        }
         if (reuseAddress != null) {
             serverBootstrap.setOption("reuseAddress", reuseAddress);
             serverBootstrap.setOption("child.reuseAddress", reuseAddress);
@@ -290,6 +309,10 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         httpServerAdapter.dispatchRequest(request, channel);
     }
 
+    RestContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, RestContentStream stream) {
+        return httpServerAdapter.dispatchStreamingRequest(request, channel, stream);
+    }
+
     void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if (e.getCause() instanceof ReadTimeoutException) {
             if (logger.isTraceEnabled()) {
@@ -345,6 +368,9 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
             if (transport.compression) {
                 pipeline.addLast("decoder_compress", new HttpContentDecompressor());
             }
+            if (transport.streaming) {
+                pipeline.addLast("streaming", new HttpStreamingContentHandler(transport));
+            }
             HttpChunkAggregator httpChunkAggregator = new HttpChunkAggregator((int) transport.maxContentLength.bytes());
             if (transport.maxCompositeBufferComponents != -1) {
                 httpChunkAggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
@@ -47,6 +47,13 @@ public final class FieldNameAnalyzer extends AnalyzerWrapper {
         return defaultAnalyzer;
     }
 
+    /**
+     * The analyzer used for the provided field name.
+     */
+    public Analyzer analyzer(String fieldName) {
+        return getAnalyzer(fieldName);
+    }
+
     @Override
     protected Analyzer getWrappedAnalyzer(String fieldName) {
         return getAnalyzer(fieldName);
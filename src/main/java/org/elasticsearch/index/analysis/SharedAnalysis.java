@@ -0,0 +1,387 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.analysis;
+
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.FastStringReader;
+import org.elasticsearch.common.lucene.all.AllEntries;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.lucene.analysis.payloads.PayloadHelper.encodeFloat;
+
+/**
+ * Shares the analysis of values indexed more than once within a document, for example by the sub fields of
+ * a <tt>multi_field</tt> or by a field and its <tt>_all</tt> entry. The first field that analyzes a value with
+ * a given analyzer records the resulting tokens, and the other fields analyzing the same value with the same
+ * analyzer replay them instead of running the analysis chain again.
+ * <p/>
+ * Fields register the values they will analyze while the document is parsed ({@link #expect(String)}), so only
+ * values that are going to be analyzed again are recorded. An instance is created per parsed document, and is
+ * not thread safe (a document is indexed by a single thread).
+ */
+public class SharedAnalysis {
+
+    private final TObjectIntHashMap<String> consumers = new TObjectIntHashMap<String>();
+
+    private Map<Key, RecordedTokens> recorded;
+
+    /**
+     * Registers a field that is going to analyze the provided value.
+     */
+    public void expect(String value) {
+        consumers.adjustOrPutValue(value, 1, 1);
+    }
+
+    /**
+     * The token stream of the provided value, replayed if the same value was already analyzed with the same
+     * analyzer within the document.
+     */
+    public TokenStream tokenStream(Analyzer analyzer, String fieldName, String value) throws IOException {
+        analyzer = resolve(analyzer, fieldName);
+        int remainingConsumers = consumers.adjustOrPutValue(value, -1, 0);
+        Key key = new Key(analyzer, value);
+        if (recorded != null) {
+            RecordedTokens tokens = recorded.get(key);
+            if (tokens != null) {
+                return new ReplayTokenStream(tokens);
+            }
+        }
+        TokenStream stream = analyzer.tokenStream(fieldName, new FastStringReader(value));
+        if (remainingConsumers > 0 && stream.hasAttribute(CharTermAttribute.class)) {
+            return new RecordingTokenFilter(stream, this, key);
+        }
+        return stream;
+    }
+
+    /**
+     * A token stream for the <tt>_all</tt> field that analyzes each entry on its own, allowing to share the
+     * analysis of the entries with the fields they were created from. Offsets are shifted and boosts are
+     * stored as payloads the same way the concatenated {@link org.elasticsearch.common.lucene.all.AllTokenStream} does.
+     */
+    public TokenStream allTokenStream(String allFieldName, AllEntries allEntries, Analyzer analyzer) {
+        return new AllEntriesTokenStream(this, allFieldName, allEntries.entries(), resolve(analyzer, allFieldName));
+    }
+
+    /**
+     * The number of values recorded so far, mainly for testing.
+     */
+    public int recordedCount() {
+        return recorded == null ? 0 : recorded.size();
+    }
+
+    void recorded(Key key, RecordedTokens tokens) {
+        if (recorded == null) {
+            recorded = new HashMap<Key, RecordedTokens>();
+        }
+        recorded.put(key, tokens);
+    }
+
+    /**
+     * Resolves the per field analyzer, so values are shared based on the analyzer that actually analyzes them.
+     */
+    static Analyzer resolve(Analyzer analyzer, String fieldName) {
+        while (analyzer instanceof FieldNameAnalyzer) {
+            analyzer = ((FieldNameAnalyzer) analyzer).analyzer(fieldName);
+        }
+        return analyzer;
+    }
+
+    static final class Key {
+
+        final Analyzer analyzer;
+
+        final String value;
+
+        Key(Analyzer analyzer, String value) {
+            this.analyzer = analyzer;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return analyzer == other.analyzer && value.equals(other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(analyzer) + value.hashCode();
+        }
+    }
+
+    /**
+     * The attributes the indexing chain consumes, recorded in flat arrays.
+     */
+    static final class RecordedTokens {
+
+        char[] terms = new char[32];
+        int[] termEnds = new int[4];
+        int[] positionIncrements = new int[4];
+        int[] startOffsets = new int[4];
+        int[] endOffsets = new int[4];
+        // null if the recorded stream has no payloads
+        BytesRef[] payloads;
+        int size;
+        int finalOffset;
+
+        RecordedTokens(boolean hasPayloads) {
+            if (hasPayloads) {
+                payloads = new BytesRef[4];
+            }
+        }
+
+        void add(CharTermAttribute term, int positionIncrement, int startOffset, int endOffset, BytesRef payload) {
+            if (size == termEnds.length) {
+                int newLength = ArrayUtil.oversize(size + 1, RamUsageEstimator.NUM_BYTES_INT);
+                termEnds = ArrayUtil.grow(termEnds, newLength);
+                positionIncrements = ArrayUtil.grow(positionIncrements, newLength);
+                startOffsets = ArrayUtil.grow(startOffsets, newLength);
+                endOffsets = ArrayUtil.grow(endOffsets, newLength);
+                if (payloads != null) {
+                    BytesRef[] newPayloads = new BytesRef[newLength];
+                    System.arraycopy(payloads, 0, newPayloads, 0, size);
+                    payloads = newPayloads;
+                }
+            }
+            int termStart = size == 0 ? 0 : termEnds[size - 1];
+            terms = ArrayUtil.grow(terms, termStart + term.length());
+            System.arraycopy(term.buffer(), 0, terms, termStart, term.length());
+            termEnds[size] = termStart + term.length();
+            positionIncrements[size] = positionIncrement;
+            startOffsets[size] = startOffset;
+            endOffsets[size] = endOffset;
+            if (payloads != null) {
+                payloads[size] = payload == null ? null : BytesRef.deepCopyOf(payload);
+            }
+            size++;
+        }
+    }
+
+    static final class RecordingTokenFilter extends TokenFilter {
+
+        private final SharedAnalysis sharedAnalysis;
+        private final Key key;
+
+        private final CharTermAttribute termAtt;
+        private final PositionIncrementAttribute posIncAtt;
+        private final OffsetAttribute offsetAtt;
+        private final PayloadAttribute payloadAtt;
+
+        private RecordedTokens tokens;
+        private boolean exhausted;
+
+        RecordingTokenFilter(TokenStream input, SharedAnalysis sharedAnalysis, Key key) {
+            super(input);
+            this.sharedAnalysis = sharedAnalysis;
+            this.key = key;
+            this.termAtt = addAttribute(CharTermAttribute.class);
+            this.posIncAtt = addAttribute(PositionIncrementAttribute.class);
+            this.offsetAtt = addAttribute(OffsetAttribute.class);
+            this.payloadAtt = hasAttribute(PayloadAttribute.class) ? getAttribute(PayloadAttribute.class) : null;
+            this.tokens = new RecordedTokens(payloadAtt != null);
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            if (!input.incrementToken()) {
+                exhausted = true;
+                return false;
+            }
+            tokens.add(termAtt, posIncAtt.getPositionIncrement(), offsetAtt.startOffset(), offsetAtt.endOffset(),
+                    payloadAtt == null ? null : payloadAtt.getPayload());
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            // only fully consumed streams can be replayed
+            if (exhausted) {
+                tokens.finalOffset = offsetAtt.endOffset();
+                sharedAnalysis.recorded(key, tokens);
+            }
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            tokens = new RecordedTokens(payloadAtt != null);
+            exhausted = false;
+        }
+    }
+
+    static final class ReplayTokenStream extends TokenStream {
+
+        private final RecordedTokens tokens;
+
+        private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+        private final PositionIncrementAttribute posIncAtt = addAttribute(PositionIncrementAttribute.class);
+        private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+        private final PayloadAttribute payloadAtt;
+
+        private int upto;
+
+        ReplayTokenStream(RecordedTokens tokens) {
+            this.tokens = tokens;
+            this.payloadAtt = tokens.payloads == null ? null : addAttribute(PayloadAttribute.class);
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            if (upto == tokens.size) {
+                return false;
+            }
+            clearAttributes();
+            int termStart = upto == 0 ? 0 : tokens.termEnds[upto - 1];
+            termAtt.copyBuffer(tokens.terms, termStart, tokens.termEnds[upto] - termStart);
+            posIncAtt.setPositionIncrement(tokens.positionIncrements[upto]);
+            offsetAtt.setOffset(tokens.startOffsets[upto], tokens.endOffsets[upto]);
+            if (payloadAtt != null) {
+                payloadAtt.setPayload(tokens.payloads[upto]);
+            }
+            upto++;
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            offsetAtt.setOffset(tokens.finalOffset, tokens.finalOffset);
+        }
+
+        @Override
+        public void reset() throws IOException {
+            upto = 0;
+        }
+    }
+
+    static final class AllEntriesTokenStream extends TokenStream {
+
+        private final SharedAnalysis sharedAnalysis;
+        private final String allFieldName;
+        private final List<AllEntries.Entry> entries;
+        private final Analyzer analyzer;
+
+        private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+        private final PositionIncrementAttribute posIncAtt = addAttribute(PositionIncrementAttribute.class);
+        private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+        private final PayloadAttribute payloadAtt = addAttribute(PayloadAttribute.class);
+
+        private final BytesRef payloadSpare = new BytesRef(new byte[4]);
+
+        private int entryUpto;
+        private int offsetShift;
+        private int finalOffset;
+
+        private TokenStream current;
+        private int currentLength;
+        private BytesRef currentPayload;
+        private CharTermAttribute currentTermAtt;
+        private PositionIncrementAttribute currentPosIncAtt;
+        private OffsetAttribute currentOffsetAtt;
+
+        AllEntriesTokenStream(SharedAnalysis sharedAnalysis, String allFieldName, List<AllEntries.Entry> entries, Analyzer analyzer) {
+            this.sharedAnalysis = sharedAnalysis;
+            this.allFieldName = allFieldName;
+            this.entries = entries;
+            this.analyzer = analyzer;
+        }
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (entryUpto == entries.size()) {
+                        return false;
+                    }
+                    nextEntry(entries.get(entryUpto++));
+                }
+                if (current.incrementToken()) {
+                    clearAttributes();
+                    termAtt.copyBuffer(currentTermAtt.buffer(), 0, currentTermAtt.length());
+                    posIncAtt.setPositionIncrement(currentPosIncAtt.getPositionIncrement());
+                    offsetAtt.setOffset(offsetShift + currentOffsetAtt.startOffset(), offsetShift + currentOffsetAtt.endOffset());
+                    payloadAtt.setPayload(currentPayload);
+                    return true;
+                }
+                current.end();
+                finalOffset = offsetShift + currentOffsetAtt.endOffset();
+                current.close();
+                current = null;
+                // the entries are separated with a whitespace in the concatenated form
+                offsetShift += currentLength + 1;
+            }
+        }
+
+        private void nextEntry(AllEntries.Entry entry) throws IOException {
+            String text = entry.reader().toString();
+            current = sharedAnalysis.tokenStream(analyzer, allFieldName, text);
+            currentLength = text.length();
+            currentTermAtt = current.addAttribute(CharTermAttribute.class);
+            currentPosIncAtt = current.addAttribute(PositionIncrementAttribute.class);
+            currentOffsetAtt = current.addAttribute(OffsetAttribute.class);
+            if (entry.boost() != 1.0f) {
+                encodeFloat(entry.boost(), payloadSpare.bytes, payloadSpare.offset);
+                currentPayload = payloadSpare;
+            } else {
+                currentPayload = null;
+            }
+            current.reset();
+        }
+
+        @Override
+        public void end() throws IOException {
+            offsetAtt.setOffset(finalOffset, finalOffset);
+        }
+
+        @Override
+        public void reset() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+            entryUpto = 0;
+            offsetShift = 0;
+            finalOffset = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
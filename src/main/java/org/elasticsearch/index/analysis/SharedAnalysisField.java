@@ -0,0 +1,56 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+
+import java.io.IOException;
+
+/**
+ * A string field that gets its tokens through the document {@link SharedAnalysis}, so the analysis of its
+ * value can be shared with other fields of the document indexing the same value.
+ */
+public class SharedAnalysisField extends Field {
+
+    private final SharedAnalysis sharedAnalysis;
+
+    public SharedAnalysisField(String name, String value, FieldType fieldType, SharedAnalysis sharedAnalysis) {
+        super(name, value, fieldType);
+        this.sharedAnalysis = sharedAnalysis;
+        if (fieldType.indexed() && fieldType.tokenized()) {
+            sharedAnalysis.expect(value);
+        }
+    }
+
+    public SharedAnalysis sharedAnalysis() {
+        return this.sharedAnalysis;
+    }
+
+    @Override
+    public TokenStream tokenStream(Analyzer analyzer) throws IOException {
+        if (!fieldType().indexed() || !fieldType().tokenized() || tokenStreamValue() != null || stringValue() == null) {
+            return super.tokenStream(analyzer);
+        }
+        return sharedAnalysis.tokenStream(analyzer, name(), stringValue());
+    }
+}
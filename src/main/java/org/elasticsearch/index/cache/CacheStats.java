@@ -38,28 +38,34 @@ public class CacheStats implements Streamable, ToXContent {
     long filterEvictions;
     long filterCount;
     long fieldSize;
+    long fieldOffHeapSize;
     long filterSize;
     long idCacheSize;
+    long fixedBitSetFilterSize;
 
     public CacheStats() {
     }
 
-    public CacheStats(long fieldEvictions, long filterEvictions, long fieldSize, long filterSize, long filterCount, long idCacheSize) {
+    public CacheStats(long fieldEvictions, long filterEvictions, long fieldSize, long fieldOffHeapSize, long filterSize, long filterCount, long idCacheSize, long fixedBitSetFilterSize) {
         this.fieldEvictions = fieldEvictions;
         this.filterEvictions = filterEvictions;
         this.fieldSize = fieldSize;
+        this.fieldOffHeapSize = fieldOffHeapSize;
         this.filterSize = filterSize;
         this.filterCount = filterCount;
         this.idCacheSize = idCacheSize;
+        this.fixedBitSetFilterSize = fixedBitSetFilterSize;
     }
 
     public void add(CacheStats stats) {
         this.fieldEvictions += stats.fieldEvictions;
         this.filterEvictions += stats.filterEvictions;
         this.fieldSize += stats.fieldSize;
+        this.fieldOffHeapSize += stats.fieldOffHeapSize;
         this.filterSize += stats.filterSize;
         this.filterCount += stats.filterCount;
         this.idCacheSize += stats.idCacheSize;
+        this.fixedBitSetFilterSize += stats.fixedBitSetFilterSize;
     }
 
     public long fieldEvictions() {
@@ -110,6 +116,25 @@ public class CacheStats implements Streamable, ToXContent {
         return this.fieldSize();
     }
 
+    /**
+     * The size of the field data held outside of the heap, not included in {@link #fieldSize()}.
+     */
+    public long fieldOffHeapSizeInBytes() {
+        return this.fieldOffHeapSize;
+    }
+
+    public long getFieldOffHeapSizeInBytes() {
+        return fieldOffHeapSizeInBytes();
+    }
+
+    public ByteSizeValue fieldOffHeapSize() {
+        return new ByteSizeValue(fieldOffHeapSize);
+    }
+
+    public ByteSizeValue getFieldOffHeapSize() {
+        return fieldOffHeapSize();
+    }
+
     public long filterSizeInBytes() {
         return this.filterSize;
     }
@@ -142,18 +167,38 @@ public class CacheStats implements Streamable, ToXContent {
         return idCacheSize();
     }
 
+    public long fixedBitSetFilterSizeInBytes() {
+        return fixedBitSetFilterSize;
+    }
+
+    public long getFixedBitSetFilterSizeInBytes() {
+        return fixedBitSetFilterSizeInBytes();
+    }
+
+    public ByteSizeValue fixedBitSetFilterSize() {
+        return new ByteSizeValue(fixedBitSetFilterSize);
+    }
+
+    public ByteSizeValue getFixedBitSetFilterSize() {
+        return fixedBitSetFilterSize();
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.CACHE);
         builder.field(Fields.FIELD_EVICTIONS, fieldEvictions);
         builder.field(Fields.FIELD_SIZE, fieldSize().toString());
         builder.field(Fields.FIELD_SIZE_IN_BYTES, fieldSize);
+        builder.field(Fields.FIELD_OFF_HEAP_SIZE, fieldOffHeapSize().toString());
+        builder.field(Fields.FIELD_OFF_HEAP_SIZE_IN_BYTES, fieldOffHeapSize);
         builder.field(Fields.FILTER_COUNT, filterCount);
         builder.field(Fields.FILTER_EVICTIONS, filterEvictions);
         builder.field(Fields.FILTER_SIZE, filterSize().toString());
         builder.field(Fields.FILTER_SIZE_IN_BYTES, filterSize);
         builder.field(Fields.ID_CACHE_SIZE, idCacheSize().toString());
         builder.field(Fields.ID_CACHE_SIZE_IN_BYTES, idCacheSize);
+        builder.field(Fields.FIXED_BITSET_FILTER_SIZE, fixedBitSetFilterSize().toString());
+        builder.field(Fields.FIXED_BITSET_FILTER_SIZE_IN_BYTES, fixedBitSetFilterSize);
         builder.endObject();
         return builder;
     }
@@ -162,6 +207,8 @@ public class CacheStats implements Streamable, ToXContent {
         static final XContentBuilderString CACHE = new XContentBuilderString("cache");
         static final XContentBuilderString FIELD_SIZE = new XContentBuilderString("field_size");
         static final XContentBuilderString FIELD_SIZE_IN_BYTES = new XContentBuilderString("field_size_in_bytes");
+        static final XContentBuilderString FIELD_OFF_HEAP_SIZE = new XContentBuilderString("field_off_heap_size");
+        static final XContentBuilderString FIELD_OFF_HEAP_SIZE_IN_BYTES = new XContentBuilderString("field_off_heap_size_in_bytes");
         static final XContentBuilderString FIELD_EVICTIONS = new XContentBuilderString("field_evictions");
         static final XContentBuilderString FILTER_EVICTIONS = new XContentBuilderString("filter_evictions");
         static final XContentBuilderString FILTER_COUNT = new XContentBuilderString("filter_count");
@@ -169,6 +216,8 @@ public class CacheStats implements Streamable, ToXContent {
         static final XContentBuilderString FILTER_SIZE_IN_BYTES = new XContentBuilderString("filter_size_in_bytes");
         static final XContentBuilderString ID_CACHE_SIZE = new XContentBuilderString("id_cache_size");
         static final XContentBuilderString ID_CACHE_SIZE_IN_BYTES = new XContentBuilderString("id_cache_size_in_bytes");
+        static final XContentBuilderString FIXED_BITSET_FILTER_SIZE = new XContentBuilderString("fixed_bitset_filter_size");
+        static final XContentBuilderString FIXED_BITSET_FILTER_SIZE_IN_BYTES = new XContentBuilderString("fixed_bitset_filter_size_in_bytes");
     }
 
     public static CacheStats readCacheStats(StreamInput in) throws IOException {
@@ -182,9 +231,11 @@ public class CacheStats implements Streamable, ToXContent {
         fieldEvictions = in.readVLong();
         filterEvictions = in.readVLong();
         fieldSize = in.readVLong();
+        fieldOffHeapSize = in.readVLong();
         filterSize = in.readVLong();
         filterCount = in.readVLong();
         idCacheSize = in.readVLong();
+        fixedBitSetFilterSize = in.readVLong();
     }
 
     @Override
@@ -192,8 +243,10 @@ public class CacheStats implements Streamable, ToXContent {
         out.writeVLong(fieldEvictions);
         out.writeVLong(filterEvictions);
         out.writeVLong(fieldSize);
+        out.writeVLong(fieldOffHeapSize);
         out.writeVLong(filterSize);
         out.writeVLong(filterCount);
         out.writeVLong(idCacheSize);
+        out.writeVLong(fixedBitSetFilterSize);
     }
 }
\ No newline at end of file
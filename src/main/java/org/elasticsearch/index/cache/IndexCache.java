@@ -31,6 +31,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.cache.bitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
 import org.elasticsearch.index.cache.id.IdCache;
@@ -50,6 +51,8 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
 
     private final IdCache idCache;
 
+    private final FixedBitSetFilterCache fixedBitSetFilterCache;
+
     private final TimeValue refreshInterval;
 
     private ClusterService clusterService;
@@ -59,12 +62,13 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
 
     @Inject
     public IndexCache(Index index, @IndexSettings Settings indexSettings, FilterCache filterCache, FieldDataCache fieldDataCache,
-                      QueryParserCache queryParserCache, IdCache idCache) {
+                      QueryParserCache queryParserCache, IdCache idCache, FixedBitSetFilterCache fixedBitSetFilterCache) {
         super(index, indexSettings);
         this.filterCache = filterCache;
         this.fieldDataCache = fieldDataCache;
         this.queryParserCache = queryParserCache;
         this.idCache = idCache;
+        this.fixedBitSetFilterCache = fixedBitSetFilterCache;
 
         this.refreshInterval = componentSettings.getAsTime("stats.refresh_interval", TimeValue.timeValueSeconds(1));
 
@@ -81,7 +85,7 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
 
     public synchronized void invalidateCache() {
         FilterCache.EntriesStats filterEntriesStats = filterCache.entriesStats();
-        latestCacheStats = new CacheStats(fieldDataCache.evictions(), filterCache.evictions(), fieldDataCache.sizeInBytes(), filterEntriesStats.sizeInBytes, filterEntriesStats.count, idCache.sizeInBytes());
+        latestCacheStats = new CacheStats(fieldDataCache.evictions(), filterCache.evictions(), fieldDataCache.sizeInBytes(), fieldDataCache.offHeapSizeInBytes(), filterEntriesStats.sizeInBytes, filterEntriesStats.count, idCache.sizeInBytes(), fixedBitSetFilterCache.sizeInBytes());
         latestCacheStatsTimestamp = System.currentTimeMillis();
     }
 
@@ -89,7 +93,7 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         long timestamp = System.currentTimeMillis();
         if ((timestamp - latestCacheStatsTimestamp) > refreshInterval.millis()) {
             FilterCache.EntriesStats filterEntriesStats = filterCache.entriesStats();
-            latestCacheStats = new CacheStats(fieldDataCache.evictions(), filterCache.evictions(), fieldDataCache.sizeInBytes(), filterEntriesStats.sizeInBytes, filterEntriesStats.count, idCache.sizeInBytes());
+            latestCacheStats = new CacheStats(fieldDataCache.evictions(), filterCache.evictions(), fieldDataCache.sizeInBytes(), fieldDataCache.offHeapSizeInBytes(), filterEntriesStats.sizeInBytes, filterEntriesStats.count, idCache.sizeInBytes(), fixedBitSetFilterCache.sizeInBytes());
             latestCacheStatsTimestamp = timestamp;
         }
         return latestCacheStats;
@@ -107,6 +111,13 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         return this.idCache;
     }
 
+    /**
+     * The resident cache of per segment filter bitsets, used for nested parent and child filters.
+     */
+    public FixedBitSetFilterCache fixedBitSetFilter() {
+        return this.fixedBitSetFilterCache;
+    }
+
     public QueryParserCache queryParserCache() {
         return this.queryParserCache;
     }
@@ -116,6 +127,7 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         filterCache.close();
         fieldDataCache.close();
         idCache.close();
+        fixedBitSetFilterCache.close();
         queryParserCache.close();
         if (clusterService != null) {
             clusterService.remove(this);
@@ -126,12 +138,14 @@ public class IndexCache extends AbstractIndexComponent implements CloseableCompo
         filterCache.clear(reader);
         fieldDataCache.clear(reader);
         idCache.clear(reader);
+        fixedBitSetFilterCache.clear(reader);
     }
 
     public void clear(String reason) {
         filterCache.clear(reason);
         fieldDataCache.clear(reason);
         idCache.clear();
+        fixedBitSetFilterCache.clear(reason);
         queryParserCache.clear();
     }
 
@@ -21,6 +21,7 @@ package org.elasticsearch.index.cache;
 
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.bitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.field.data.FieldDataCacheModule;
 import org.elasticsearch.index.cache.filter.FilterCacheModule;
 import org.elasticsearch.index.cache.id.IdCacheModule;
@@ -44,6 +45,7 @@ public class IndexCacheModule extends AbstractModule {
         new IdCacheModule(settings).configure(binder());
         new QueryParserCacheModule(settings).configure(binder());
 
+        bind(FixedBitSetFilterCache.class).asEagerSingleton();
         bind(IndexCache.class).asEagerSingleton();
     }
 }
@@ -0,0 +1,197 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.bitset;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.component.CloseableComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.docset.DocSet;
+import org.elasticsearch.common.lucene.docset.DocSets;
+import org.elasticsearch.common.lucene.docset.FixedBitDocSet;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.AbstractIndexComponent;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettings;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A per segment cache of {@link FixedBitSet}s for filters that are required to produce one, like the parent
+ * filters of nested (block join) queries.
+ * <p/>
+ * Unlike the {@link org.elasticsearch.index.cache.filter.FilterCache}, entries are never evicted because of
+ * memory pressure, they only go away when the segment they were computed for is closed (or when the cache is
+ * explicitly cleared). The number of filters cached here is bounded by the mappings (one per nested path, plus
+ * the non nested docs filter), and entries are populated when a new searcher is warmed, so the bitsets are not
+ * rebuilt on the search hot path.
+ */
+public class FixedBitSetFilterCache extends AbstractIndexComponent implements SegmentReader.CoreClosedListener, CloseableComponent {
+
+    private final ConcurrentMap<Object, ConcurrentMap<Filter, DocSet>> cache;
+
+    @Inject
+    public FixedBitSetFilterCache(Index index, @IndexSettings Settings indexSettings) {
+        super(index, indexSettings);
+        this.cache = ConcurrentCollections.newConcurrentMap();
+    }
+
+    /**
+     * Wraps the filter so its doc id sets are computed once per segment and kept as {@link FixedBitSet}s.
+     */
+    public Filter cache(Filter filter) {
+        if (filter instanceof FixedBitSetFilterWrapper) {
+            return filter;
+        }
+        return new FixedBitSetFilterWrapper(filter, this);
+    }
+
+    /**
+     * Loads the provided filters for all the segments of the reader, if not already loaded.
+     */
+    public void warm(IndexReader reader, Iterable<Filter> filters) throws IOException {
+        for (AtomicReaderContext context : reader.leaves()) {
+            for (Filter filter : filters) {
+                getAndLoadIfNotPresent(filter, context);
+            }
+        }
+    }
+
+    @Override
+    public void onClose(SegmentReader owner) {
+        clear(owner);
+    }
+
+    @Override
+    public void close() throws ElasticSearchException {
+        cache.clear();
+    }
+
+    public void clear(String reason) {
+        logger.debug("full cache clear, reason [{}]", reason);
+        cache.clear();
+    }
+
+    public void clear(IndexReader reader) {
+        cache.remove(reader.getCoreCacheKey());
+    }
+
+    /**
+     * The number of cached filter bitsets, across all segments.
+     */
+    public long count() {
+        long count = 0;
+        for (ConcurrentMap<Filter, DocSet> segmentCache : cache.values()) {
+            count += segmentCache.size();
+        }
+        return count;
+    }
+
+    public long sizeInBytes() {
+        long sizeInBytes = 0;
+        for (ConcurrentMap<Filter, DocSet> segmentCache : cache.values()) {
+            for (DocSet docSet : segmentCache.values()) {
+                sizeInBytes += docSet.sizeInBytes();
+            }
+        }
+        return sizeInBytes;
+    }
+
+    DocSet getAndLoadIfNotPresent(Filter filter, AtomicReaderContext context) throws IOException {
+        Object coreCacheKey = context.reader().getCoreCacheKey();
+        ConcurrentMap<Filter, DocSet> segmentCache = cache.get(coreCacheKey);
+        if (segmentCache == null) {
+            segmentCache = ConcurrentCollections.newConcurrentMap();
+            ConcurrentMap<Filter, DocSet> previous = cache.putIfAbsent(coreCacheKey, segmentCache);
+            if (previous != null) {
+                segmentCache = previous;
+            } else if (context.reader() instanceof SegmentReader) {
+                ((SegmentReader) context.reader()).addCoreClosedListener(this);
+            }
+        }
+        DocSet docSet = segmentCache.get(filter);
+        if (docSet == null) {
+            // we compute it without accept docs, deletes are applied on the top level (and parent filters
+            // must include deleted parents for the block join to work)
+            docSet = fixedBitDocSet(context, filter.getDocIdSet(context, null));
+            // we might compute the same one concurrently, that's fine, last one wins
+            segmentCache.put(filter, docSet);
+        }
+        return docSet;
+    }
+
+    private static DocSet fixedBitDocSet(AtomicReaderContext context, DocIdSet docIdSet) throws IOException {
+        if (docIdSet == null || docIdSet == DocIdSet.EMPTY_DOCIDSET) {
+            return DocSet.EMPTY_DOC_SET;
+        }
+        if (docIdSet instanceof FixedBitDocSet) {
+            return (FixedBitDocSet) docIdSet;
+        }
+        if (docIdSet instanceof FixedBitSet) {
+            return new FixedBitDocSet((FixedBitSet) docIdSet);
+        }
+        DocIdSetIterator it = docIdSet.iterator();
+        if (it == null) {
+            return DocSet.EMPTY_DOC_SET;
+        }
+        return new FixedBitDocSet(DocSets.createFixedBitSet(it, context.reader().maxDoc()));
+    }
+
+    static class FixedBitSetFilterWrapper extends Filter {
+
+        private final Filter filter;
+
+        private final FixedBitSetFilterCache cache;
+
+        FixedBitSetFilterWrapper(Filter filter, FixedBitSetFilterCache cache) {
+            this.filter = filter;
+            this.cache = cache;
+        }
+
+        @Override
+        public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+            DocSet docSet = cache.getAndLoadIfNotPresent(filter, context);
+            // return null if its EMPTY, this allows for further optimizations to ignore filters
+            return docSet == DocSet.EMPTY_DOC_SET ? null : docSet;
+        }
+
+        public String toString() {
+            return "fixed_bitset(" + filter + ")";
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof FixedBitSetFilterWrapper)) return false;
+            return this.filter.equals(((FixedBitSetFilterWrapper) o).filter);
+        }
+
+        public int hashCode() {
+            return filter.hashCode() ^ 0x1117BF26;
+        }
+    }
+}
@@ -48,4 +48,9 @@ public interface FieldDataCache extends IndexComponent, CloseableComponent {
     long sizeInBytes();
 
     long sizeInBytes(String fieldName);
+
+    /**
+     * The size (in bytes) of the cached field data held outside of the heap.
+     */
+    long offHeapSizeInBytes();
 }
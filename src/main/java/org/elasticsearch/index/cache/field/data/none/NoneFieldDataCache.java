@@ -81,6 +81,11 @@ public class NoneFieldDataCache extends AbstractIndexComponent implements FieldD
         return 0;
     }
 
+    @Override
+    public long offHeapSizeInBytes() {
+        return 0;
+    }
+
     @Override
     public long evictions() {
         return 0;
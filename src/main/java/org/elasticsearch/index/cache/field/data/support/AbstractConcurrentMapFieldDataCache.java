@@ -74,7 +74,14 @@ public abstract class AbstractConcurrentMapFieldDataCache extends AbstractIndexC
 
     @Override
     public void onClose(SegmentReader owner) {
-        clear(owner);
+        Cache<String, FieldData> fieldDataCache = cache.remove(owner.getCoreCacheKey());
+        if (fieldDataCache != null) {
+            // the segment core is closed, so no search can still use its field data and it can be released
+            // right away. Entries dropped in any other way can still be in use and are left to the GC
+            for (FieldData fieldData : fieldDataCache.asMap().values()) {
+                fieldData.release();
+            }
+        }
     }
 
     @Override
@@ -94,6 +101,17 @@ public abstract class AbstractConcurrentMapFieldDataCache extends AbstractIndexC
         return sizeInBytes;
     }
 
+    @Override
+    public long offHeapSizeInBytes() {
+        long sizeInBytes = 0;
+        for (Cache<String, FieldData> map : cache.values()) {
+            for (FieldData fieldData : map.asMap().values()) {
+                sizeInBytes += fieldData.offHeapSizeInBytes();
+            }
+        }
+        return sizeInBytes;
+    }
+
     @Override
     public long sizeInBytes(String fieldName) {
         long sizeInBytes = 0;
@@ -70,6 +70,13 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
      */
     void start() throws EngineException;
 
+    /**
+     * Sets the primary translog this shard copy is being recovered against. It is stored with every
+     * subsequent commit, allowing a later recovery from the same primary translog to only replay it
+     * instead of copying the index files. Must be called before {@link #start()}.
+     */
+    void recoveryTranslog(long translogId, String translogUuid);
+
     void create(Create create) throws EngineException;
 
     void index(Index index) throws EngineException;
@@ -237,7 +244,8 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
         private boolean waitIfOngoing = false;
 
         /**
-         * Should a refresh be performed after flushing. Defaults to <tt>false</tt>.
+         * Should a refresh be performed after flushing. Defaults to <tt>false</tt>. A {@link Type#COMMIT}
+         * flush uses it to also prune the versioning table, since the translog is not cleared.
          */
         public boolean refresh() {
             return this.refresh;
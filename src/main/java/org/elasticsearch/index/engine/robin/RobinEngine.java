@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.engine.robin;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
@@ -143,6 +144,9 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
 
     private final AtomicLong translogIdGenerator = new AtomicLong();
 
+    private volatile long recoveryTranslogId = -1;
+    private volatile String recoveryTranslogUuid;
+
     private SegmentInfos lastCommittedSegmentInfos;
 
     @Inject
@@ -245,17 +249,22 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
             try {
                 // commit on a just opened writer will commit even if there are no changes done to it
                 // we rely on that for the commit data translog id key
+                Map<String, String> commitUserData = ImmutableMap.of();
                 if (DirectoryReader.indexExists(store.directory())) {
-                    Map<String, String> commitUserData = Lucene.readSegmentInfos(store.directory()).getUserData();
-                    if (commitUserData.containsKey(Translog.TRANSLOG_ID_KEY)) {
-                        translogIdGenerator.set(Long.parseLong(commitUserData.get(Translog.TRANSLOG_ID_KEY)));
-                    } else {
-                        translogIdGenerator.set(System.currentTimeMillis());
-                        indexWriter.commit(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogIdGenerator.get())).map());
-                    }
+                    commitUserData = Lucene.readSegmentInfos(store.directory()).getUserData();
+                }
+                if (commitUserData.containsKey(Translog.TRANSLOG_ID_KEY)) {
+                    translogIdGenerator.set(Long.parseLong(commitUserData.get(Translog.TRANSLOG_ID_KEY)));
                 } else {
                     translogIdGenerator.set(System.currentTimeMillis());
-                    indexWriter.commit(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogIdGenerator.get())).map());
+                }
+                if (recoveryTranslogUuid == null && commitUserData.containsKey(Translog.RECOVERY_TRANSLOG_UUID_KEY)) {
+                    recoveryTranslogId = Long.parseLong(commitUserData.get(Translog.RECOVERY_TRANSLOG_ID_KEY));
+                    recoveryTranslogUuid = commitUserData.get(Translog.RECOVERY_TRANSLOG_UUID_KEY);
+                }
+                Map<String, String> userData = commitUserData(translogIdGenerator.get());
+                if (!userData.equals(commitUserData)) {
+                    indexWriter.commit(userData);
                 }
                 translog.newTranslog(translogIdGenerator.get());
                 this.searcherManager = buildSearchManager(indexWriter);
@@ -281,6 +290,22 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
         }
     }
 
+    @Override
+    public void recoveryTranslog(long translogId, String translogUuid) {
+        this.recoveryTranslogId = translogId;
+        this.recoveryTranslogUuid = translogUuid;
+    }
+
+    private Map<String, String> commitUserData(long translogId) {
+        MapBuilder<String, String> userData = MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId));
+        String recoveryTranslogUuid = this.recoveryTranslogUuid;
+        if (recoveryTranslogUuid != null) {
+            userData.put(Translog.RECOVERY_TRANSLOG_ID_KEY, Long.toString(recoveryTranslogId));
+            userData.put(Translog.RECOVERY_TRANSLOG_UUID_KEY, recoveryTranslogUuid);
+        }
+        return userData.map();
+    }
+
     @Override
     public TimeValue defaultRefreshInterval() {
         return new TimeValue(1, TimeUnit.SECONDS);
@@ -819,7 +844,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
                         if (flushNeeded || flush.force()) {
                             flushNeeded = false;
                             long translogId = translogIdGenerator.incrementAndGet();
-                            indexWriter.commit(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)).map());
+                            indexWriter.commit(commitUserData(translogId));
                             translog.newTranslog(translogId);
                         }
 
@@ -858,7 +883,7 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
                         try {
                             long translogId = translogIdGenerator.incrementAndGet();
                             translog.newTransientTranslog(translogId);
-                            indexWriter.commit(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)).map());
+                            indexWriter.commit(commitUserData(translogId));
                             if (flush.force()) {
                                 // if we force, we might not have committed, we need to check that its the same id
                                 Map<String, String> commitUserData = Lucene.readSegmentInfos(store.directory()).getUserData();
@@ -910,7 +935,11 @@ public class RobinEngine extends AbstractIndexShardComponent implements Engine {
                     // other flushes use flushLock
                     try {
                         long translogId = translog.currentId();
-                        indexWriter.commit(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)).map());
+                        indexWriter.commit(commitUserData(translogId));
+                        if (flush.refresh()) {
+                            // the translog is kept, but we can still clear version values that are now visible to search
+                            refreshVersioningTable(threadPool.estimatedTimeInMillis());
+                        }
                     } catch (OutOfMemoryError e) {
                         translog.revertTransient();
                         failEngine(e);
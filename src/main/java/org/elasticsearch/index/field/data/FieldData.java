@@ -69,6 +69,20 @@ public abstract class FieldData<Doc extends DocFieldData> {
 
     protected abstract long computeSizeInBytes();
 
+    /**
+     * The size (in bytes) this field data holds outside of the heap, not included in {@link #sizeInBytes()}.
+     */
+    public long offHeapSizeInBytes() {
+        return 0;
+    }
+
+    /**
+     * Releases the resources held outside of the heap, called once the segment the field data was loaded from
+     * is closed and nothing can use it anymore.
+     */
+    public void release() {
+    }
+
     protected abstract Doc createFieldData();
 
     /**
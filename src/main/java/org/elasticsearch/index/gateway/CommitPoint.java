@@ -37,12 +37,18 @@ public class CommitPoint {
         private final String physicalName;
         private final long length;
         private final String checksum;
+        private final ImmutableList<String> parts;
 
         public FileInfo(String name, String physicalName, long length, String checksum) {
+            this(name, physicalName, length, checksum, null);
+        }
+
+        public FileInfo(String name, String physicalName, long length, String checksum, @Nullable List<String> parts) {
             this.name = name;
             this.physicalName = physicalName;
             this.length = length;
             this.checksum = checksum;
+            this.parts = parts == null ? null : ImmutableList.copyOf(parts);
         }
 
         public String name() {
@@ -62,6 +68,15 @@ public class CommitPoint {
             return checksum;
         }
 
+        /**
+         * The (content addressed) blobs holding the file content, in order. <tt>null</tt> if the file
+         * is stored under its {@link #name()} (possibly split into <tt>[name].part[N]</tt> chunks).
+         */
+        @Nullable
+        public ImmutableList<String> parts() {
+            return parts;
+        }
+
         public boolean isSame(StoreFileMetaData md) {
             if (checksum == null || md.checksum() == null) {
                 return false;
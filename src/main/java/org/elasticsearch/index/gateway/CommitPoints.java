@@ -102,6 +102,9 @@ public class CommitPoints implements Iterable<CommitPoint> {
             if (fileInfo.checksum() != null) {
                 builder.field("checksum", fileInfo.checksum());
             }
+            if (fileInfo.parts() != null) {
+                builder.field("parts", fileInfo.parts());
+            }
             builder.endObject();
         }
         builder.endObject();
@@ -153,9 +156,19 @@ public class CommitPoints implements Iterable<CommitPoint> {
                             String physicalName = null;
                             long size = -1;
                             String checksum = null;
+                            List<String> parts = null;
                             while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                                 if (token == XContentParser.Token.FIELD_NAME) {
                                     currentFieldName = parser.currentName();
+                                } else if (token == XContentParser.Token.START_ARRAY) {
+                                    if ("parts".equals(currentFieldName)) {
+                                        parts = Lists.newArrayList();
+                                        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                                            parts.add(parser.text());
+                                        }
+                                    } else {
+                                        parser.skipChildren();
+                                    }
                                 } else if (token.isValue()) {
                                     if ("physical_name".equals(currentFieldName) || "physicalName".equals(currentFieldName)) {
                                         physicalName = parser.text();
@@ -172,7 +185,7 @@ public class CommitPoints implements Iterable<CommitPoint> {
                             if (size == -1) {
                                 throw new IOException("Malformed commit, missing length for [" + fileName + "]");
                             }
-                            files.add(new CommitPoint.FileInfo(fileName, physicalName, size, checksum));
+                            files.add(new CommitPoint.FileInfo(fileName, physicalName, size, checksum, parts));
                         }
                     }
                 } else if (token.isValue()) {
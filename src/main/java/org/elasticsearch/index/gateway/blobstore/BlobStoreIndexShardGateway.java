@@ -22,12 +22,16 @@ package org.elasticsearch.index.gateway.blobstore;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Digest;
+import org.elasticsearch.common.Hex;
+import org.elasticsearch.common.RateLimiter;
 import org.elasticsearch.common.blobstore.*;
 import org.elasticsearch.common.io.FastByteArrayInputStream;
 import org.elasticsearch.common.io.FastByteArrayOutputStream;
@@ -36,6 +40,7 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.lucene.store.ThreadSafeInputStreamIndexInput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.deletionpolicy.SnapshotIndexCommit;
 import org.elasticsearch.index.gateway.*;
@@ -50,10 +55,13 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogStreams;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -79,6 +87,17 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
 
     protected final ImmutableBlobContainer blobContainer;
 
+    /**
+     * Prefix of the content addressed blobs index files are split into when deduplicating snapshots.
+     */
+    static final String PART_PREFIX = "part-";
+
+    private final boolean dedup;
+
+    private final ByteSizeValue partSize;
+
+    private final RateLimiter rateLimiter;
+
     private volatile RecoveryStatus recoveryStatus;
 
     private volatile SnapshotStatus lastSnapshotStatus;
@@ -101,6 +120,13 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
 
         this.blobContainer = blobStore.immutableBlobContainer(shardPath);
 
+        // split index files into parts named after their content, so parts that already exist in the gateway
+        // are not uploaded again, and the parts of large files are uploaded concurrently
+        this.dedup = indexSettings.getAsBoolean("index.gateway.snapshot.dedup", true);
+        this.partSize = chunkSize != null ? chunkSize : indexSettings.getAsBytesSize("index.gateway.snapshot.part_size", new ByteSizeValue(64, ByteSizeUnit.MB));
+        ByteSizeValue maxBytesPerSec = indexSettings.getAsBytesSize("index.gateway.snapshot.max_bytes_per_sec", new ByteSizeValue(0));
+        this.rateLimiter = maxBytesPerSec.bytes() <= 0 ? null : new RateLimiter(maxBytesPerSec.mbFrac());
+
         this.recoveryStatus = new RecoveryStatus();
     }
 
@@ -198,6 +224,8 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
         final CountDownLatch indexLatch = new CountDownLatch(snapshotIndexCommit.getFiles().length);
         final CopyOnWriteArrayList<Throwable> failures = new CopyOnWriteArrayList<Throwable>();
         final List<CommitPoint.FileInfo> indexCommitPointFiles = Lists.newArrayList();
+        final Set<String> snapshotParts = Sets.newHashSet();
+        final AtomicLong uploadedPartsSize = new AtomicLong();
 
         int indexNumberOfFiles = 0;
         long indexTotalFilesSize = 0;
@@ -225,9 +253,14 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
                 indexTotalFilesSize += md.length();
                 // create a new FileInfo
                 try {
-                    CommitPoint.FileInfo snapshotFileInfo = new CommitPoint.FileInfo(fileNameFromGeneration(++generation), fileName, md.length(), md.checksum());
-                    indexCommitPointFiles.add(snapshotFileInfo);
-                    snapshotFile(snapshotIndexCommit.getDirectory(), snapshotFileInfo, indexLatch, failures);
+                    if (dedup) {
+                        List<String> parts = snapshotFileParts(fileName, md.length(), blobs, snapshotParts, uploadedPartsSize, indexLatch, failures);
+                        indexCommitPointFiles.add(new CommitPoint.FileInfo(fileNameFromGeneration(++generation), fileName, md.length(), md.checksum(), parts));
+                    } else {
+                        CommitPoint.FileInfo snapshotFileInfo = new CommitPoint.FileInfo(fileNameFromGeneration(++generation), fileName, md.length(), md.checksum());
+                        indexCommitPointFiles.add(snapshotFileInfo);
+                        snapshotFile(snapshotIndexCommit.getDirectory(), snapshotFileInfo, indexLatch, failures);
+                    }
                 } catch (IOException e) {
                     failures.add(e);
                     indexLatch.countDown();
@@ -249,6 +282,9 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
         }
 
         currentSnapshotStatus.index().time(System.currentTimeMillis() - currentSnapshotStatus.index().startTime());
+        if (dedup && logger.isDebugEnabled()) {
+            logger.debug("snapshot index files [{}] with total_size [{}], uploaded [{}] in [{}] parts", indexNumberOfFiles, new ByteSizeValue(indexTotalFilesSize), new ByteSizeValue(uploadedPartsSize.get()), snapshotParts.size());
+        }
 
         currentSnapshotStatus.updateStage(SnapshotStatus.Stage.TRANSLOG);
         currentSnapshotStatus.translog().startTime(System.currentTimeMillis());
@@ -351,6 +387,23 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
             }
         }
         // now go over all the blobs, and if they don't exists in a commit point, delete them
+        Set<String> referencedParts = Sets.newHashSet();
+        for (CommitPoint point : newCommitPoints) {
+            for (CommitPoint.FileInfo fileInfo : point.indexFiles()) {
+                if (fileInfo.parts() != null) {
+                    referencedParts.addAll(fileInfo.parts());
+                }
+            }
+        }
+        for (String blobName : blobs.keySet()) {
+            if (blobName.startsWith(PART_PREFIX) && !referencedParts.contains(blobName)) {
+                try {
+                    blobContainer.deleteBlob(blobName);
+                } catch (IOException e) {
+                    // ignore, will delete it laters
+                }
+            }
+        }
         for (String blobName : blobs.keySet()) {
             String name = blobName;
             if (!name.startsWith("__")) {
@@ -646,12 +699,18 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
             return;
         }
 
-        String firstFileToRecover = fileInfo.name();
-        if (!blobs.containsKey(fileInfo.name())) {
-            // chunking, append part0 to it
-            firstFileToRecover = fileInfo.name() + ".part0";
+        final List<String> blobNames = Lists.newArrayList();
+        if (fileInfo.parts() != null) {
+            blobNames.addAll(fileInfo.parts());
+        } else if (blobs.containsKey(fileInfo.name())) {
+            blobNames.add(fileInfo.name());
+        } else {
+            // chunking, read all the parts
+            for (int part = 0; blobs.containsKey(fileInfo.name() + ".part" + part); part++) {
+                blobNames.add(fileInfo.name() + ".part" + part);
+            }
         }
-        if (!blobs.containsKey(firstFileToRecover)) {
+        if (blobNames.isEmpty() || !blobs.containsKey(blobNames.get(0))) {
             // no file, what to do, what to do?
             logger.warn("no file [{}]/[{}] to recover, ignoring it", fileInfo.name(), fileInfo.physicalName());
             latch.countDown();
@@ -659,7 +718,7 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
         }
         final AtomicInteger partIndex = new AtomicInteger();
 
-        blobContainer.readBlob(firstFileToRecover, new BlobContainer.ReadBlobListener() {
+        blobContainer.readBlob(blobNames.get(0), new BlobContainer.ReadBlobListener() {
             @Override
             public synchronized void onPartial(byte[] data, int offset, int size) throws IOException {
                 recoveryStatus.index().addCurrentFilesSize(size);
@@ -669,10 +728,9 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
             @Override
             public synchronized void onCompleted() {
                 int part = partIndex.incrementAndGet();
-                String partName = fileInfo.name() + ".part" + part;
-                if (blobs.containsKey(partName)) {
+                if (part < blobNames.size()) {
                     // continue with the new part
-                    blobContainer.readBlob(partName, this);
+                    blobContainer.readBlob(blobNames.get(part), this);
                     return;
                 } else {
                     // we are done...
@@ -806,6 +864,79 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
         }
     }
 
+    /**
+     * Splits the file into parts named after the SHA-1 of their content and uploads the parts that don't exist in
+     * the gateway yet (and are not already uploaded as part of this snapshot). The parts are uploaded concurrently on
+     * the blob store executor, and the latch is counted down once all of them are done.
+     */
+    private List<String> snapshotFileParts(String physicalName, long length, ImmutableMap<String, BlobMetaData> blobs, Set<String> snapshotParts,
+                                           final AtomicLong uploadedPartsSize, final CountDownLatch latch, final List<Throwable> failures) throws IOException {
+        long partBytes = partSize.bytes();
+        long numberOfParts = length / partBytes;
+        if (length % partBytes > 0 || numberOfParts == 0) {
+            numberOfParts++;
+        }
+        List<String> parts = Lists.newArrayList();
+        // one extra count so the latch is not counted down while parts are still being scheduled
+        final AtomicLong counter = new AtomicLong(1);
+        for (long i = 0; i < numberOfParts; i++) {
+            final long partOffset = i * partBytes;
+            final long partLength = Math.min(partBytes, length - partOffset);
+            IndexInput indexInput = indexShard.store().openInputRaw(physicalName, IOContext.READ);
+            String partName;
+            try {
+                indexInput.seek(partOffset);
+                partName = PART_PREFIX + Hex.encodeHexString(Digest.sha(new InputStreamIndexInput(indexInput, partLength)));
+                parts.add(partName);
+                BlobMetaData blobMetaData = blobs.get(partName);
+                if ((blobMetaData != null && blobMetaData.length() == partLength) || !snapshotParts.add(partName)) {
+                    // already in the gateway, or being uploaded by this snapshot
+                    indexInput.close();
+                    continue;
+                }
+                indexInput.seek(partOffset);
+            } catch (IOException e) {
+                indexInput.close();
+                throw e;
+            }
+
+            InputStream is = new ThreadSafeInputStreamIndexInput(indexInput, partLength);
+            if (rateLimiter != null) {
+                is = new RateLimitedInputStream(is, rateLimiter);
+            }
+            counter.incrementAndGet();
+            final IndexInput fIndexInput = indexInput;
+            blobContainer.writeBlob(partName, is, partLength, new ImmutableBlobContainer.WriterListener() {
+                @Override
+                public void onCompleted() {
+                    uploadedPartsSize.addAndGet(partLength);
+                    done();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    failures.add(t);
+                    done();
+                }
+
+                private void done() {
+                    try {
+                        fIndexInput.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                    if (counter.decrementAndGet() == 0) {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        if (counter.decrementAndGet() == 0) {
+            latch.countDown();
+        }
+        return parts;
+    }
+
     private boolean commitPointExistsInBlobs(CommitPoint commitPoint, ImmutableMap<String, BlobMetaData> blobs) {
         for (CommitPoint.FileInfo fileInfo : Iterables.concat(commitPoint.indexFiles(), commitPoint.translogFiles())) {
             if (!commitPointFileExistsInBlobs(fileInfo, blobs)) {
@@ -816,6 +947,17 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
     }
 
     private boolean commitPointFileExistsInBlobs(CommitPoint.FileInfo fileInfo, ImmutableMap<String, BlobMetaData> blobs) {
+        if (fileInfo.parts() != null) {
+            long totalSize = 0;
+            for (String part : fileInfo.parts()) {
+                BlobMetaData blobMetaData = blobs.get(part);
+                if (blobMetaData == null) {
+                    return false;
+                }
+                totalSize += blobMetaData.length();
+            }
+            return totalSize == fileInfo.length();
+        }
         BlobMetaData blobMetaData = blobs.get(fileInfo.name());
         if (blobMetaData != null) {
             if (blobMetaData.length() != fileInfo.length()) {
@@ -881,4 +1023,35 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
         }
         return generation;
     }
+
+    /**
+     * Throttles reading the content to upload using the snapshot rate limiter.
+     */
+    static class RateLimitedInputStream extends FilterInputStream {
+
+        private final RateLimiter rateLimiter;
+
+        RateLimitedInputStream(InputStream in, RateLimiter rateLimiter) {
+            super(in);
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                rateLimiter.pause(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                rateLimiter.pause(n);
+            }
+            return n;
+        }
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.lucene.analysis.Analyzer;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.index.analysis.FieldNameAnalyzer;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,48 +37,28 @@ import static com.google.common.collect.Maps.newHashMap;
 public class DocumentFieldMappers implements Iterable<FieldMapper> {
 
     private final ImmutableList<FieldMapper> fieldMappers;
-    private final Map<String, FieldMappers> fullNameFieldMappers;
-    private final Map<String, FieldMappers> nameFieldMappers;
-    private final Map<String, FieldMappers> indexNameFieldMappers;
+    private final FieldMappersLookup lookup;
 
     private final FieldNameAnalyzer indexAnalyzer;
     private final FieldNameAnalyzer searchAnalyzer;
     private final FieldNameAnalyzer searchQuoteAnalyzer;
 
     public DocumentFieldMappers(DocumentMapper docMapper, Iterable<FieldMapper> fieldMappers) {
-        final Map<String, FieldMappers> tempNameFieldMappers = newHashMap();
-        final Map<String, FieldMappers> tempIndexNameFieldMappers = newHashMap();
-        final Map<String, FieldMappers> tempFullNameFieldMappers = newHashMap();
-
-        final Map<String, Analyzer> indexAnalyzers = newHashMap();
-        final Map<String, Analyzer> searchAnalyzers = newHashMap();
-        final Map<String, Analyzer> searchQuoteAnalyzers = newHashMap();
-
-        for (FieldMapper fieldMapper : fieldMappers) {
-            FieldMappers mappers = tempNameFieldMappers.get(fieldMapper.names().name());
-            if (mappers == null) {
-                mappers = new FieldMappers(fieldMapper);
-            } else {
-                mappers = mappers.concat(fieldMapper);
-            }
-            tempNameFieldMappers.put(fieldMapper.names().name(), mappers);
-
-            mappers = tempIndexNameFieldMappers.get(fieldMapper.names().indexName());
-            if (mappers == null) {
-                mappers = new FieldMappers(fieldMapper);
-            } else {
-                mappers = mappers.concat(fieldMapper);
-            }
-            tempIndexNameFieldMappers.put(fieldMapper.names().indexName(), mappers);
+        this(docMapper, ImmutableList.copyOf(fieldMappers));
+    }
 
-            mappers = tempFullNameFieldMappers.get(fieldMapper.names().fullName());
-            if (mappers == null) {
-                mappers = new FieldMappers(fieldMapper);
-            } else {
-                mappers = mappers.concat(fieldMapper);
-            }
-            tempFullNameFieldMappers.put(fieldMapper.names().fullName(), mappers);
+    private DocumentFieldMappers(DocumentMapper docMapper, ImmutableList<FieldMapper> fieldMappers) {
+        this(docMapper, fieldMappers, FieldMappersLookup.EMPTY, ImmutableMap.<String, Analyzer>of(), ImmutableMap.<String, Analyzer>of(),
+                ImmutableMap.<String, Analyzer>of(), fieldMappers);
+    }
 
+    private DocumentFieldMappers(DocumentMapper docMapper, ImmutableList<FieldMapper> allFieldMappers, FieldMappersLookup lookup,
+                                 Map<String, Analyzer> indexAnalyzers, Map<String, Analyzer> searchAnalyzers, Map<String, Analyzer> searchQuoteAnalyzers,
+                                 List<FieldMapper> newFieldMappers) {
+        indexAnalyzers = newHashMap(indexAnalyzers);
+        searchAnalyzers = newHashMap(searchAnalyzers);
+        searchQuoteAnalyzers = newHashMap(searchQuoteAnalyzers);
+        for (FieldMapper fieldMapper : newFieldMappers) {
             if (fieldMapper.indexAnalyzer() != null) {
                 indexAnalyzers.put(fieldMapper.names().indexName(), fieldMapper.indexAnalyzer());
             }
@@ -88,10 +69,8 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
                 searchQuoteAnalyzers.put(fieldMapper.names().indexName(), fieldMapper.searchQuoteAnalyzer());
             }
         }
-        this.fieldMappers = ImmutableList.copyOf(fieldMappers);
-        this.nameFieldMappers = ImmutableMap.copyOf(tempNameFieldMappers);
-        this.indexNameFieldMappers = ImmutableMap.copyOf(tempIndexNameFieldMappers);
-        this.fullNameFieldMappers = ImmutableMap.copyOf(tempFullNameFieldMappers);
+        this.fieldMappers = allFieldMappers;
+        this.lookup = lookup.copyAndAddAll(newFieldMappers.toArray(new FieldMapper[newFieldMappers.size()]));
 
         this.indexAnalyzer = new FieldNameAnalyzer(indexAnalyzers, docMapper.indexAnalyzer());
         this.searchAnalyzer = new FieldNameAnalyzer(searchAnalyzers, docMapper.searchAnalyzer());
@@ -112,15 +91,22 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
     }
 
     public FieldMappers name(String name) {
-        return nameFieldMappers.get(name);
+        return lookup.name(name);
     }
 
     public FieldMappers indexName(String indexName) {
-        return indexNameFieldMappers.get(indexName);
+        return lookup.indexName(indexName);
     }
 
     public FieldMappers fullName(String fullName) {
-        return fullNameFieldMappers.get(fullName);
+        return lookup.fullName(fullName);
+    }
+
+    /**
+     * The lookup of the field mappers of this document mapper.
+     */
+    public FieldMappersLookup lookup() {
+        return lookup;
     }
 
     public Set<String> simpleMatchToIndexNames(String pattern) {
@@ -142,15 +128,7 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
      * by {@link #name(String)}.
      */
     public FieldMappers smartName(String name) {
-        FieldMappers fieldMappers = fullName(name);
-        if (fieldMappers != null) {
-            return fieldMappers;
-        }
-        fieldMappers = indexName(name);
-        if (fieldMappers != null) {
-            return fieldMappers;
-        }
-        return name(name);
+        return lookup.smartName(name);
     }
 
     public FieldMapper smartNameFieldMapper(String name) {
@@ -193,7 +171,13 @@ public class DocumentFieldMappers implements Iterable<FieldMapper> {
         return concat(docMapper, newArrayList(fieldMappers));
     }
 
+    /**
+     * Returns a new {@link DocumentFieldMappers} with the provided field mappers added. Only the added field
+     * mappers are registered in the copied lookups, the existing ones are not processed again.
+     */
     public DocumentFieldMappers concat(DocumentMapper docMapper, Iterable<FieldMapper> fieldMappers) {
-        return new DocumentFieldMappers(docMapper, Iterables.concat(this.fieldMappers, fieldMappers));
+        List<FieldMapper> newFieldMappers = ImmutableList.copyOf(fieldMappers);
+        return new DocumentFieldMappers(docMapper, ImmutableList.<FieldMapper>builder().addAll(this.fieldMappers).addAll(newFieldMappers).build(),
+                lookup, indexAnalyzer.analyzers(), searchAnalyzer.analyzers(), searchQuoteAnalyzer.analyzers(), newFieldMappers);
     }
 }
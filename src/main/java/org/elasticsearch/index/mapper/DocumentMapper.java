@@ -442,6 +442,17 @@ public class DocumentMapper implements ToXContent {
         }
         source.type(this.type);
 
+        if (source.parsedDocument() != null && listener == null) {
+            try {
+                ParsedDocument doc = ParsedDocumentStreams.read(this, source, source.parsedDocument());
+                if (doc != null) {
+                    return doc;
+                }
+            } catch (IOException e) {
+                throw new MapperParsingException("Failed to read parsed document", e);
+            }
+        }
+
         XContentParser parser = source.parser();
         try {
             if (parser == null) {
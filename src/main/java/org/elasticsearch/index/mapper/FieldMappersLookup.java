@@ -0,0 +1,191 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import com.google.common.collect.Sets;
+import org.elasticsearch.common.regex.Regex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable lookup of {@link FieldMappers} by name, index name and full name. The {@link #smartName(String)}
+ * resolution (full name, then index name, then name) is precomputed so it is resolved with a single lookup.
+ * <p/>
+ * <p>Changes are applied using {@link #copyAndAddAll(FieldMapper[])} and {@link #copyAndRemoveAll(Iterable)},
+ * which copy the maps and only re-resolve the smart names of the fields that changed.
+ */
+public final class FieldMappersLookup {
+
+    public static final FieldMappersLookup EMPTY = new FieldMappersLookup(new HashMap<String, FieldMappers>(), new HashMap<String, FieldMappers>(),
+            new HashMap<String, FieldMappers>(), new HashMap<String, FieldMappers>());
+
+    private final Map<String, FieldMappers> name;
+    private final Map<String, FieldMappers> indexName;
+    private final Map<String, FieldMappers> fullName;
+    private final Map<String, FieldMappers> smartName;
+
+    private FieldMappersLookup(Map<String, FieldMappers> name, Map<String, FieldMappers> indexName, Map<String, FieldMappers> fullName,
+                               Map<String, FieldMappers> smartName) {
+        this.name = name;
+        this.indexName = indexName;
+        this.fullName = fullName;
+        this.smartName = smartName;
+    }
+
+    public FieldMappers name(String name) {
+        return this.name.get(name);
+    }
+
+    public FieldMappers indexName(String indexName) {
+        return this.indexName.get(indexName);
+    }
+
+    public FieldMappers fullName(String fullName) {
+        return this.fullName.get(fullName);
+    }
+
+    /**
+     * Returns the field mappers registered under the full name, index name or name (in that order).
+     */
+    public FieldMappers smartName(String smartName) {
+        return this.smartName.get(smartName);
+    }
+
+    /**
+     * All the names the {@link #smartName(String)} lookup resolves, with the field mappers they resolve to.
+     */
+    public Map<String, FieldMappers> smartNames() {
+        return Collections.unmodifiableMap(smartName);
+    }
+
+    /**
+     * Returns the index names of the fields that have a full name, index name or name matching the
+     * provided simple match pattern.
+     */
+    public Set<String> simpleMatchToIndexNames(String pattern) {
+        Set<String> fields = Sets.newHashSet();
+        addIndexNames(fields, pattern, fullName);
+        addIndexNames(fields, pattern, indexName);
+        addIndexNames(fields, pattern, name);
+        return fields;
+    }
+
+    private static void addIndexNames(Set<String> fields, String pattern, Map<String, FieldMappers> mappers) {
+        for (Map.Entry<String, FieldMappers> entry : mappers.entrySet()) {
+            if (Regex.simpleMatch(pattern, entry.getKey())) {
+                for (FieldMapper mapper : entry.getValue()) {
+                    fields.add(mapper.names().indexName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new lookup with the provided field mappers added.
+     */
+    public FieldMappersLookup copyAndAddAll(FieldMapper... fieldMappers) {
+        if (fieldMappers.length == 0) {
+            return this;
+        }
+        Map<String, FieldMappers> name = new HashMap<String, FieldMappers>(this.name);
+        Map<String, FieldMappers> indexName = new HashMap<String, FieldMappers>(this.indexName);
+        Map<String, FieldMappers> fullName = new HashMap<String, FieldMappers>(this.fullName);
+        Set<String> changed = Sets.newHashSet();
+        for (FieldMapper fieldMapper : fieldMappers) {
+            FieldMapper.Names names = fieldMapper.names();
+            add(name, names.name(), fieldMapper);
+            add(indexName, names.indexName(), fieldMapper);
+            add(fullName, names.fullName(), fieldMapper);
+            changed.add(names.name());
+            changed.add(names.indexName());
+            changed.add(names.fullName());
+        }
+        return new FieldMappersLookup(name, indexName, fullName, resolve(changed, name, indexName, fullName));
+    }
+
+    /**
+     * Returns a new lookup with the provided field mappers removed (by instance equality).
+     */
+    public FieldMappersLookup copyAndRemoveAll(Iterable<FieldMapper> fieldMappers) {
+        Map<String, FieldMappers> name = new HashMap<String, FieldMappers>(this.name);
+        Map<String, FieldMappers> indexName = new HashMap<String, FieldMappers>(this.indexName);
+        Map<String, FieldMappers> fullName = new HashMap<String, FieldMappers>(this.fullName);
+        Set<String> changed = Sets.newHashSet();
+        for (FieldMapper fieldMapper : fieldMappers) {
+            FieldMapper.Names names = fieldMapper.names();
+            remove(name, names.name(), fieldMapper);
+            remove(indexName, names.indexName(), fieldMapper);
+            remove(fullName, names.fullName(), fieldMapper);
+            changed.add(names.name());
+            changed.add(names.indexName());
+            changed.add(names.fullName());
+        }
+        if (changed.isEmpty()) {
+            return this;
+        }
+        return new FieldMappersLookup(name, indexName, fullName, resolve(changed, name, indexName, fullName));
+    }
+
+    private Map<String, FieldMappers> resolve(Set<String> changed, Map<String, FieldMappers> name, Map<String, FieldMappers> indexName,
+                                              Map<String, FieldMappers> fullName) {
+        Map<String, FieldMappers> smartName = new HashMap<String, FieldMappers>(this.smartName);
+        for (String key : changed) {
+            FieldMappers mappers = fullName.get(key);
+            if (mappers == null) {
+                mappers = indexName.get(key);
+            }
+            if (mappers == null) {
+                mappers = name.get(key);
+            }
+            if (mappers == null) {
+                smartName.remove(key);
+            } else {
+                smartName.put(key, mappers);
+            }
+        }
+        return smartName;
+    }
+
+    private static void add(Map<String, FieldMappers> map, String key, FieldMapper fieldMapper) {
+        FieldMappers mappers = map.get(key);
+        if (mappers == null) {
+            mappers = new FieldMappers(fieldMapper);
+        } else {
+            mappers = mappers.concat(fieldMapper);
+        }
+        map.put(key, mappers);
+    }
+
+    private static void remove(Map<String, FieldMappers> map, String key, FieldMapper fieldMapper) {
+        FieldMappers mappers = map.get(key);
+        if (mappers == null) {
+            return;
+        }
+        mappers = mappers.remove(fieldMapper);
+        if (mappers.isEmpty()) {
+            map.remove(key);
+        } else {
+            map.put(key, mappers);
+        }
+    }
+}
@@ -37,7 +37,6 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.lucene.search.TermFilter;
 import org.elasticsearch.common.lucene.search.XBooleanFilter;
-import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.FailedToResolveConfigException;
@@ -62,6 +61,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import static com.google.common.collect.Maps.newHashMap;
 import static org.elasticsearch.common.collect.MapBuilder.newMapBuilder;
 
 /**
@@ -85,15 +85,14 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
 
     private final Object mutex = new Object();
 
-    private volatile Map<String, FieldMappers> nameFieldMappers = ImmutableMap.of();
-    private volatile Map<String, FieldMappers> indexNameFieldMappers = ImmutableMap.of();
-    private volatile Map<String, FieldMappers> fullNameFieldMappers = ImmutableMap.of();
+    private volatile FieldMappersLookup fieldMappers = FieldMappersLookup.EMPTY;
+    // smart names prefixed with their type ("type.name"), resolved to the field mappers of that type
+    private volatile Map<String, SmartNameFieldMappers> typedSmartNameFieldMappers = ImmutableMap.of();
     private volatile Map<String, ObjectMappers> fullPathObjectMappers = ImmutableMap.of();
     private boolean hasNested = false; // updated dynamically to true when a nested object is added
 
     private final DocumentMapperParser documentParser;
 
-    private final InternalFieldMapperListener fieldMapperListener = new InternalFieldMapperListener();
     private final InternalObjectMapperListener objectMapperListener = new InternalObjectMapperListener();
 
     private final SmartIndexNameSearchAnalyzer searchAnalyzer;
@@ -216,8 +215,8 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
 
             FieldMapperListener.Aggregator fieldMappersAgg = new FieldMapperListener.Aggregator();
             mapper.traverse(fieldMappersAgg);
-            addFieldMappers(fieldMappersAgg.mappers.toArray(new FieldMapper[fieldMappersAgg.mappers.size()]));
-            mapper.addFieldMapperListener(fieldMapperListener, false);
+            addFieldMappers(mapper, fieldMappersAgg.mappers.toArray(new FieldMapper[fieldMappersAgg.mappers.size()]));
+            mapper.addFieldMapperListener(new InternalFieldMapperListener(mapper), false);
 
             ObjectMapperListener.Aggregator objectMappersAgg = new ObjectMapperListener.Aggregator();
             mapper.traverse(objectMappersAgg);
@@ -252,42 +251,33 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
         }
     }
 
-    private void addFieldMappers(FieldMapper[] fieldMappers) {
+    private void addFieldMappers(DocumentMapper docMapper, FieldMapper[] fieldMappers) {
         synchronized (mutex) {
-            MapBuilder<String, FieldMappers> nameFieldMappers = newMapBuilder(this.nameFieldMappers);
-            MapBuilder<String, FieldMappers> indexNameFieldMappers = newMapBuilder(this.indexNameFieldMappers);
-            MapBuilder<String, FieldMappers> fullNameFieldMappers = newMapBuilder(this.fullNameFieldMappers);
+            this.fieldMappers = this.fieldMappers.copyAndAddAll(fieldMappers);
+            if (docMapper.type().indexOf('.') != -1) {
+                // smart names are split on the first '.', so this type can never be resolved as a prefix
+                return;
+            }
+            Map<String, SmartNameFieldMappers> typedSmartNameFieldMappers = newHashMap(this.typedSmartNameFieldMappers);
+            FieldMappersLookup typeLookup = docMapper.mappers().lookup();
             for (FieldMapper fieldMapper : fieldMappers) {
-                FieldMappers mappers = nameFieldMappers.get(fieldMapper.names().name());
-                if (mappers == null) {
-                    mappers = new FieldMappers(fieldMapper);
-                } else {
-                    mappers = mappers.concat(fieldMapper);
-                }
-                nameFieldMappers.put(fieldMapper.names().name(), mappers);
-
-
-                mappers = indexNameFieldMappers.get(fieldMapper.names().indexName());
-                if (mappers == null) {
-                    mappers = new FieldMappers(fieldMapper);
-                } else {
-                    mappers = mappers.concat(fieldMapper);
-                }
-                indexNameFieldMappers.put(fieldMapper.names().indexName(), mappers);
-
-
-                mappers = fullNameFieldMappers.get(fieldMapper.names().fullName());
-                if (mappers == null) {
-                    mappers = new FieldMappers(fieldMapper);
-                } else {
-                    mappers = mappers.concat(fieldMapper);
-                }
-                fullNameFieldMappers.put(fieldMapper.names().fullName(), mappers);
+                FieldMapper.Names names = fieldMapper.names();
+                resolveTypedSmartName(typedSmartNameFieldMappers, docMapper, typeLookup, names.name());
+                resolveTypedSmartName(typedSmartNameFieldMappers, docMapper, typeLookup, names.indexName());
+                resolveTypedSmartName(typedSmartNameFieldMappers, docMapper, typeLookup, names.fullName());
             }
+            this.typedSmartNameFieldMappers = typedSmartNameFieldMappers;
+        }
+    }
 
-            this.nameFieldMappers = nameFieldMappers.map();
-            this.indexNameFieldMappers = indexNameFieldMappers.map();
-            this.fullNameFieldMappers = fullNameFieldMappers.map();
+    private void resolveTypedSmartName(Map<String, SmartNameFieldMappers> typedSmartNameFieldMappers, DocumentMapper docMapper,
+                                       FieldMappersLookup typeLookup, String name) {
+        String typedName = (docMapper.type() + '.' + name).intern();
+        FieldMappers mappers = typeLookup.smartName(name);
+        if (mappers == null) {
+            typedSmartNameFieldMappers.remove(typedName);
+        } else {
+            typedSmartNameFieldMappers.put(typedName, new SmartNameFieldMappers(this, mappers, docMapper, true));
         }
     }
 
@@ -305,44 +295,18 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
 
     private void removeObjectAndFieldMappers(DocumentMapper docMapper) {
         // we need to remove those mappers
-        MapBuilder<String, FieldMappers> nameFieldMappers = newMapBuilder(this.nameFieldMappers);
-        MapBuilder<String, FieldMappers> indexNameFieldMappers = newMapBuilder(this.indexNameFieldMappers);
-        MapBuilder<String, FieldMappers> fullNameFieldMappers = newMapBuilder(this.fullNameFieldMappers);
-
-        for (FieldMapper mapper : docMapper.mappers()) {
-            FieldMappers mappers = nameFieldMappers.get(mapper.names().name());
-            if (mappers != null) {
-                mappers = mappers.remove(mapper);
-                if (mappers.isEmpty()) {
-                    nameFieldMappers.remove(mapper.names().name());
-                } else {
-                    nameFieldMappers.put(mapper.names().name(), mappers);
-                }
-            }
+        this.fieldMappers = this.fieldMappers.copyAndRemoveAll(docMapper.mappers());
 
-            mappers = indexNameFieldMappers.get(mapper.names().indexName());
-            if (mappers != null) {
-                mappers = mappers.remove(mapper);
-                if (mappers.isEmpty()) {
-                    indexNameFieldMappers.remove(mapper.names().indexName());
-                } else {
-                    indexNameFieldMappers.put(mapper.names().indexName(), mappers);
-                }
-            }
-
-            mappers = fullNameFieldMappers.get(mapper.names().fullName());
-            if (mappers != null) {
-                mappers = mappers.remove(mapper);
-                if (mappers.isEmpty()) {
-                    fullNameFieldMappers.remove(mapper.names().fullName());
-                } else {
-                    fullNameFieldMappers.put(mapper.names().fullName(), mappers);
-                }
+        Map<String, SmartNameFieldMappers> typedSmartNameFieldMappers = newHashMap(this.typedSmartNameFieldMappers);
+        for (String name : docMapper.mappers().lookup().smartNames().keySet()) {
+            String typedName = docMapper.type() + '.' + name;
+            SmartNameFieldMappers mappers = typedSmartNameFieldMappers.get(typedName);
+            // only remove it if it was not replaced by the mappers of a new document mapper for the same type
+            if (mappers != null && mappers.docMapper() == docMapper) {
+                typedSmartNameFieldMappers.remove(typedName);
             }
         }
-        this.nameFieldMappers = nameFieldMappers.map();
-        this.indexNameFieldMappers = indexNameFieldMappers.map();
-        this.fullNameFieldMappers = fullNameFieldMappers.map();
+        this.typedSmartNameFieldMappers = typedSmartNameFieldMappers;
 
         MapBuilder<String, ObjectMappers> fullPathObjectMappers = newMapBuilder(this.fullPathObjectMappers);
         for (ObjectMapper mapper : docMapper.objectMappers().values()) {
@@ -464,7 +428,7 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
      * @return All the {@link FieldMappers} for across all {@link DocumentMapper}s
      */
     public FieldMappers name(String name) {
-        return nameFieldMappers.get(name);
+        return fieldMappers.name(name);
     }
 
     /**
@@ -475,7 +439,7 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
      * @return All the {@link FieldMappers} across all {@link DocumentMapper}s for the given indexName.
      */
     public FieldMappers indexName(String indexName) {
-        return indexNameFieldMappers.get(indexName);
+        return fieldMappers.indexName(indexName);
     }
 
     /**
@@ -486,7 +450,7 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
      * @return All teh {@link FieldMappers} across all the {@link DocumentMapper}s for the given fullName.
      */
     public FieldMappers fullName(String fullName) {
-        return fullNameFieldMappers.get(fullName);
+        return fieldMappers.fullName(fullName);
     }
 
     /**
@@ -509,29 +473,7 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
                 return typedFields;
             }
         }
-        Set<String> fields = Sets.newHashSet();
-        for (Map.Entry<String, FieldMappers> entry : fullNameFieldMappers.entrySet()) {
-            if (Regex.simpleMatch(pattern, entry.getKey())) {
-                for (FieldMapper mapper : entry.getValue()) {
-                    fields.add(mapper.names().indexName());
-                }
-            }
-        }
-        for (Map.Entry<String, FieldMappers> entry : indexNameFieldMappers.entrySet()) {
-            if (Regex.simpleMatch(pattern, entry.getKey())) {
-                for (FieldMapper mapper : entry.getValue()) {
-                    fields.add(mapper.names().indexName());
-                }
-            }
-        }
-        for (Map.Entry<String, FieldMappers> entry : nameFieldMappers.entrySet()) {
-            if (Regex.simpleMatch(pattern, entry.getKey())) {
-                for (FieldMapper mapper : entry.getValue()) {
-                    fields.add(mapper.names().indexName());
-                }
-            }
-        }
-        return fields;
+        return fieldMappers.simpleMatchToIndexNames(pattern);
     }
 
     public SmartNameObjectMapper smartNameObjectMapper(String smartName, @Nullable String[] types) {
@@ -623,17 +565,9 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
             }
         }
         // did not find explicit field in the type provided, see if its prefixed with type
-        int dotIndex = smartName.indexOf('.');
-        if (dotIndex != -1) {
-            String possibleType = smartName.substring(0, dotIndex);
-            DocumentMapper possibleDocMapper = mappers.get(possibleType);
-            if (possibleDocMapper != null) {
-                String possibleName = smartName.substring(dotIndex + 1);
-                FieldMappers mappers = possibleDocMapper.mappers().smartName(possibleName);
-                if (mappers != null) {
-                    return mappers;
-                }
-            }
+        SmartNameFieldMappers typedMappers = typedSmartNameFieldMappers.get(smartName);
+        if (typedMappers != null) {
+            return typedMappers.fieldMappers();
         }
         // we did not find the field mapping in any of the types, so don't go and try to find
         // it in other types...
@@ -644,27 +578,11 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
      * Same as {@link #smartName(String)}, except it returns just the field mappers.
      */
     public FieldMappers smartNameFieldMappers(String smartName) {
-        int dotIndex = smartName.indexOf('.');
-        if (dotIndex != -1) {
-            String possibleType = smartName.substring(0, dotIndex);
-            DocumentMapper possibleDocMapper = mappers.get(possibleType);
-            if (possibleDocMapper != null) {
-                String possibleName = smartName.substring(dotIndex + 1);
-                FieldMappers mappers = possibleDocMapper.mappers().smartName(possibleName);
-                if (mappers != null) {
-                    return mappers;
-                }
-            }
-        }
-        FieldMappers mappers = fullName(smartName);
-        if (mappers != null) {
-            return mappers;
+        SmartNameFieldMappers typedMappers = typedSmartNameFieldMappers.get(smartName);
+        if (typedMappers != null) {
+            return typedMappers.fieldMappers();
         }
-        mappers = indexName(smartName);
-        if (mappers != null) {
-            return mappers;
-        }
-        return name(smartName);
+        return fieldMappers.smartName(smartName);
     }
 
     public SmartNameFieldMappers smartName(String smartName, @Nullable String[] types) {
@@ -686,21 +604,9 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
             }
         }
         // did not find explicit field in the type provided, see if its prefixed with type
-        int dotIndex = smartName.indexOf('.');
-        if (dotIndex != -1) {
-            String possibleType = smartName.substring(0, dotIndex);
-            DocumentMapper possibleDocMapper = mappers.get(possibleType);
-            if (possibleDocMapper != null) {
-                String possibleName = smartName.substring(dotIndex + 1);
-                FieldMappers mappers = possibleDocMapper.mappers().smartName(possibleName);
-                if (mappers != null) {
-                    return new SmartNameFieldMappers(this, mappers, possibleDocMapper, true);
-                }
-            }
-        }
-        // we did not find the field mapping in any of the types, so don't go and try to find
+        // if we did not find the field mapping in any of the types, don't go and try to find
         // it in other types...
-        return null;
+        return typedSmartNameFieldMappers.get(smartName);
     }
 
     /**
@@ -716,27 +622,11 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
      * <p>If nothing is found, returns null.
      */
     public SmartNameFieldMappers smartName(String smartName) {
-        int dotIndex = smartName.indexOf('.');
-        if (dotIndex != -1) {
-            String possibleType = smartName.substring(0, dotIndex);
-            DocumentMapper possibleDocMapper = mappers.get(possibleType);
-            if (possibleDocMapper != null) {
-                String possibleName = smartName.substring(dotIndex + 1);
-                FieldMappers mappers = possibleDocMapper.mappers().smartName(possibleName);
-                if (mappers != null) {
-                    return new SmartNameFieldMappers(this, mappers, possibleDocMapper, true);
-                }
-            }
+        SmartNameFieldMappers typedMappers = typedSmartNameFieldMappers.get(smartName);
+        if (typedMappers != null) {
+            return typedMappers;
         }
-        FieldMappers fieldMappers = fullName(smartName);
-        if (fieldMappers != null) {
-            return new SmartNameFieldMappers(this, fieldMappers, null, false);
-        }
-        fieldMappers = indexName(smartName);
-        if (fieldMappers != null) {
-            return new SmartNameFieldMappers(this, fieldMappers, null, false);
-        }
-        fieldMappers = name(smartName);
+        FieldMappers fieldMappers = this.fieldMappers.smartName(smartName);
         if (fieldMappers != null) {
             return new SmartNameFieldMappers(this, fieldMappers, null, false);
         }
@@ -886,12 +776,12 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
                     return possibleDocMapper.mappers().searchAnalyzer();
                 }
             }
-            FieldMappers mappers = fullNameFieldMappers.get(fieldName);
+            FieldMappers mappers = fieldMappers.fullName(fieldName);
             if (mappers != null && mappers.mapper() != null && mappers.mapper().searchAnalyzer() != null) {
                 return mappers.mapper().searchAnalyzer();
             }
 
-            mappers = indexNameFieldMappers.get(fieldName);
+            mappers = fieldMappers.indexName(fieldName);
             if (mappers != null && mappers.mapper() != null && mappers.mapper().searchAnalyzer() != null) {
                 return mappers.mapper().searchAnalyzer();
             }
@@ -922,12 +812,12 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
                     return possibleDocMapper.mappers().searchQuoteAnalyzer();
                 }
             }
-            FieldMappers mappers = fullNameFieldMappers.get(fieldName);
+            FieldMappers mappers = fieldMappers.fullName(fieldName);
             if (mappers != null && mappers.mapper() != null && mappers.mapper().searchQuoteAnalyzer() != null) {
                 return mappers.mapper().searchQuoteAnalyzer();
             }
 
-            mappers = indexNameFieldMappers.get(fieldName);
+            mappers = fieldMappers.indexName(fieldName);
             if (mappers != null && mappers.mapper() != null && mappers.mapper().searchQuoteAnalyzer() != null) {
                 return mappers.mapper().searchQuoteAnalyzer();
             }
@@ -941,14 +831,21 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
     }
 
     class InternalFieldMapperListener extends FieldMapperListener {
+
+        private final DocumentMapper docMapper;
+
+        InternalFieldMapperListener(DocumentMapper docMapper) {
+            this.docMapper = docMapper;
+        }
+
         @Override
         public void fieldMapper(FieldMapper fieldMapper) {
-            addFieldMappers(new FieldMapper[]{fieldMapper});
+            addFieldMappers(docMapper, new FieldMapper[]{fieldMapper});
         }
 
         @Override
         public void fieldMappers(FieldMapper... fieldMappers) {
-            addFieldMappers(fieldMappers);
+            addFieldMappers(docMapper, fieldMappers);
         }
     }
 
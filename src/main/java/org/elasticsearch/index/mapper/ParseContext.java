@@ -28,6 +28,7 @@ import org.elasticsearch.common.lucene.uid.UidField;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.analysis.AnalysisService;
+import org.elasticsearch.index.analysis.SharedAnalysis;
 import org.elasticsearch.index.mapper.object.RootObjectMapper;
 
 import java.util.ArrayList;
@@ -80,6 +81,8 @@ public class ParseContext {
 
     private AllEntries allEntries = new AllEntries();
 
+    private SharedAnalysis sharedAnalysis = new SharedAnalysis();
+
     private float docBoost = 1.0f;
 
     private FieldMapperListener.Aggregator newFieldMappers = new FieldMapperListener.Aggregator();
@@ -111,6 +114,7 @@ public class ParseContext {
         this.mappingsModified = false;
         this.listener = listener == null ? DocumentMapper.ParseListener.EMPTY : listener;
         this.allEntries = new AllEntries();
+        this.sharedAnalysis = new SharedAnalysis();
         this.ignoredValues.clear();
         this.docBoost = 1.0f;
         this.newFieldMappers.mappers.clear();
@@ -267,6 +271,13 @@ public class ParseContext {
         return this.allEntries;
     }
 
+    /**
+     * Shares the analysis of values indexed by more than one field of the document.
+     */
+    public SharedAnalysis sharedAnalysis() {
+        return this.sharedAnalysis;
+    }
+
     public Analyzer analyzer() {
         return this.analyzer;
     }
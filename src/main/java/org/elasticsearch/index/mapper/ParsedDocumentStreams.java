@@ -0,0 +1,668 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Unicode;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.lucene.all.AllEntries;
+import org.elasticsearch.common.lucene.all.AllField;
+import org.elasticsearch.common.lucene.uid.UidField;
+import org.elasticsearch.common.util.concurrent.ThreadLocals;
+import org.elasticsearch.index.analysis.SharedAnalysis;
+import org.elasticsearch.index.analysis.SharedAnalysisField;
+import org.elasticsearch.index.mapper.core.ByteFieldMapper;
+import org.elasticsearch.index.mapper.core.DoubleFieldMapper;
+import org.elasticsearch.index.mapper.core.FloatFieldMapper;
+import org.elasticsearch.index.mapper.core.IntegerFieldMapper;
+import org.elasticsearch.index.mapper.core.LongFieldMapper;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
+import org.elasticsearch.index.mapper.core.ShortFieldMapper;
+import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Writes and reads a compact binary form of a {@link ParsedDocument}. The binary form holds the Lucene fields
+ * the mappers created for the document (post mapping, pre analysis), so a replica can index the document
+ * without parsing its source and walking the mappers again.
+ * <p/>
+ * Field names are written once per document and then referenced by ordinal, and <tt>_all</tt> entries reference
+ * the string and numeric values of the fields they were created from instead of repeating them. The
+ * <tt>_source</tt> field is not written, since the replica gets the source along with the binary form and rebuilds
+ * the field from it.
+ * <p/>
+ * Only documents made of fields we know how to rebuild are supported, {@link #write(ParsedDocument, DocumentMapper, BytesReference)}
+ * returns <tt>null</tt> for anything else (or when parsing modified the mappings), in which case the replica should
+ * parse the source as usual. Same goes for {@link #read(DocumentMapper, SourceToParse, BytesReference)} when the
+ * local mappings can't resolve one of the fields.
+ */
+public class ParsedDocumentStreams {
+
+    private static final ESLogger logger = Loggers.getLogger(ParsedDocumentStreams.class);
+
+    private static final byte PLAIN_STRING = 0;
+    private static final byte PLAIN_BINARY = 1;
+    private static final byte UID = 2;
+    private static final byte ALL = 3;
+    private static final byte NUMERIC_BYTE = 4;
+    private static final byte NUMERIC_SHORT = 5;
+    private static final byte NUMERIC_INT = 6;
+    private static final byte NUMERIC_LONG = 7;
+    private static final byte NUMERIC_FLOAT = 8;
+    private static final byte NUMERIC_DOUBLE = 9;
+    private static final byte SOURCE = 10;
+
+    private static final int INDEXED = 1;
+    private static final int STORED = 1 << 1;
+    private static final int TOKENIZED = 1 << 2;
+    private static final int TERM_VECTORS = 1 << 3;
+    private static final int TERM_VECTOR_OFFSETS = 1 << 4;
+    private static final int TERM_VECTOR_POSITIONS = 1 << 5;
+    private static final int OMIT_NORMS = 1 << 6;
+    private static final int INDEX_OPTIONS_SHIFT = 7;
+    private static final int INDEX_OPTIONS_MASK = 0x3;
+    // not part of the field type, marks that a boost follows
+    private static final int BOOSTED = 1 << 9;
+
+    private static final FieldInfo.IndexOptions[] INDEX_OPTIONS = FieldInfo.IndexOptions.values();
+
+    /**
+     * Frozen field types, by their encoded flags, so we don't create one per field on the replica.
+     */
+    private static final AtomicReferenceArray<FieldType> fieldTypes = new AtomicReferenceArray<FieldType>(BOOSTED);
+
+    /**
+     * Field names are mostly the same from one document to the next, so we keep the decoded names per thread
+     * and look them up by their bytes, which also gives us strings with their hash code already computed.
+     */
+    private static final ThreadLocal<ThreadLocals.CleanableValue<NameCache>> nameCache = new ThreadLocal<ThreadLocals.CleanableValue<NameCache>>() {
+        @Override
+        protected ThreadLocals.CleanableValue<NameCache> initialValue() {
+            return new ThreadLocals.CleanableValue<NameCache>(new NameCache());
+        }
+    };
+
+    private ParsedDocumentStreams() {
+
+    }
+
+    /**
+     * Writes the binary form of the parsed document, returning <tt>null</tt> if the document can't be
+     * represented in it.
+     *
+     * @param doc          The document, as parsed on the primary
+     * @param docMapper    The document mapper that parsed the document
+     * @param parsedSource The source the document was parsed from, the document source is only written if it differs from it
+     */
+    @Nullable
+    public static BytesReference write(ParsedDocument doc, DocumentMapper docMapper, BytesReference parsedSource) throws IOException {
+        // new mappers need to be introduced on the replica by parsing, same for a per document analyzer
+        if (doc.mappingsModified() || doc.analyzer() != docMapper.mappers().indexAnalyzer()) {
+            return null;
+        }
+        Writer writer = new Writer(doc.source());
+        // the source comes first, the _source field is rebuilt from it when reading the fields
+        if (doc.source() == parsedSource) {
+            writer.out.writeBoolean(false);
+        } else {
+            writer.out.writeBoolean(true);
+            writer.out.writeBytesReference(doc.source());
+        }
+        writer.out.writeVInt(doc.docs().size());
+        for (Document document : doc.docs()) {
+            List<IndexableField> fields = document.getFields();
+            writer.out.writeVInt(fields.size());
+            for (IndexableField field : fields) {
+                if (!writer.writeField(field)) {
+                    return null;
+                }
+            }
+        }
+        return writer.out.bytes();
+    }
+
+    /**
+     * Same as {@link #write(ParsedDocument, DocumentMapper, BytesReference)}, returning <tt>null</tt> (so replicas
+     * parse the source) if writing the binary form fails.
+     */
+    @Nullable
+    public static BytesReference writeSafely(ParsedDocument doc, DocumentMapper docMapper, BytesReference parsedSource) {
+        try {
+            return write(doc, docMapper, parsedSource);
+        } catch (Exception e) {
+            logger.debug("failed to write parsed document [{}], replicas will parse the source", e, doc.uid().uid());
+            return null;
+        }
+    }
+
+    /**
+     * Reads a parsed document from its binary form, returning <tt>null</tt> if the local mappings can't
+     * resolve all of its fields (for example, when a mapping update has not been applied yet).
+     *
+     * @param docMapper The local document mapper of the document type
+     * @param source    The source to parse, used for the document id, routing, parent, timestamp and ttl
+     * @param bytes     The binary form of the document, as created by {@link #write(ParsedDocument, DocumentMapper, BytesReference)}
+     */
+    @Nullable
+    public static ParsedDocument read(DocumentMapper docMapper, SourceToParse source, BytesReference bytes) throws IOException {
+        Reader reader = new Reader(docMapper, bytes);
+        BytesReference docSource = source.source();
+        if (reader.readBoolean()) {
+            docSource = reader.readBytesReference();
+        }
+        reader.source = docSource.toBytesArray();
+        int numberOfDocs = reader.readVInt();
+        List<Document> docs = new ArrayList<Document>(numberOfDocs);
+        for (int i = 0; i < numberOfDocs; i++) {
+            int numberOfFields = reader.readVInt();
+            Document document = new Document();
+            for (int j = 0; j < numberOfFields; j++) {
+                Field field = reader.readField();
+                if (field == null) {
+                    return null;
+                }
+                document.add(field);
+            }
+            docs.add(document);
+        }
+        if (reader.uid == null) {
+            return null;
+        }
+        return new ParsedDocument(reader.uid, source.id(), docMapper.type(), source.routing(), source.timestamp(), source.ttl(), docs,
+                reader.fieldMappers.indexAnalyzer(), docSource, false).parent(source.parent());
+    }
+
+    private static FieldType fieldType(int flags) {
+        FieldType fieldType = fieldTypes.get(flags);
+        if (fieldType != null) {
+            return fieldType;
+        }
+        fieldType = new FieldType();
+        fieldType.setIndexed((flags & INDEXED) != 0);
+        fieldType.setStored((flags & STORED) != 0);
+        fieldType.setTokenized((flags & TOKENIZED) != 0);
+        fieldType.setStoreTermVectors((flags & TERM_VECTORS) != 0);
+        fieldType.setStoreTermVectorOffsets((flags & TERM_VECTOR_OFFSETS) != 0);
+        fieldType.setStoreTermVectorPositions((flags & TERM_VECTOR_POSITIONS) != 0);
+        fieldType.setOmitNorms((flags & OMIT_NORMS) != 0);
+        fieldType.setIndexOptions(INDEX_OPTIONS[(flags >>> INDEX_OPTIONS_SHIFT) & INDEX_OPTIONS_MASK]);
+        fieldType.freeze();
+        if (fieldTypes.compareAndSet(flags, null, fieldType)) {
+            return fieldType;
+        }
+        return fieldTypes.get(flags);
+    }
+
+    private static class Writer {
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+
+        final BytesReference source;
+
+        final Map<String, Integer> names = new HashMap<String, Integer>();
+
+        // the plain string values written so far, referenced by the _all entries
+        final List<String> values = new ArrayList<String>();
+
+        int valuesCursor = 0;
+
+        // the numeric fields written so far, referenced by the _all entries holding their value
+        final List<NumberFieldMapper.CustomNumericField> numbers = new ArrayList<NumberFieldMapper.CustomNumericField>();
+
+        int numbersCursor = 0;
+
+        Writer(BytesReference source) {
+            this.source = source;
+        }
+
+        boolean writeField(IndexableField field) throws IOException {
+            IndexableFieldType fieldType = field.fieldType();
+            if (fieldType.docValueType() != null) {
+                return false;
+            }
+            if (field instanceof UidField) {
+                writeHeader(UID, field);
+                out.writeString(((UidField) field).uid());
+                return true;
+            }
+            if (field instanceof AllField) {
+                writeHeader(ALL, field);
+                List<AllEntries.Entry> entries = ((AllField) field).allEntries().entries();
+                out.writeVInt(entries.size());
+                for (AllEntries.Entry entry : entries) {
+                    writeName(entry.name());
+                    writeAllText(entry.name(), entry.reader().toString());
+                    out.writeFloat(entry.boost());
+                }
+                return true;
+            }
+            if (field instanceof NumberFieldMapper.CustomNumericField) {
+                Number number = ((NumberFieldMapper.CustomNumericField) field).numericAsNumber();
+                if (field instanceof LongFieldMapper.CustomLongNumericField) {
+                    writeHeader(NUMERIC_LONG, field);
+                    out.writeLong(number.longValue());
+                } else if (field instanceof IntegerFieldMapper.CustomIntegerNumericField) {
+                    writeHeader(NUMERIC_INT, field);
+                    out.writeInt(number.intValue());
+                } else if (field instanceof DoubleFieldMapper.CustomDoubleNumericField) {
+                    writeHeader(NUMERIC_DOUBLE, field);
+                    out.writeDouble(number.doubleValue());
+                } else if (field instanceof FloatFieldMapper.CustomFloatNumericField) {
+                    writeHeader(NUMERIC_FLOAT, field);
+                    out.writeFloat(number.floatValue());
+                } else if (field instanceof ShortFieldMapper.CustomShortNumericField) {
+                    writeHeader(NUMERIC_SHORT, field);
+                    out.writeShort(number.shortValue());
+                } else if (field instanceof ByteFieldMapper.CustomByteNumericField) {
+                    writeHeader(NUMERIC_BYTE, field);
+                    out.writeByte(number.byteValue());
+                } else {
+                    return false;
+                }
+                numbers.add((NumberFieldMapper.CustomNumericField) field);
+                return true;
+            }
+            if (field instanceof StoredField && SourceFieldMapper.NAME.equals(field.name())) {
+                BytesRef value = field.binaryValue();
+                if (value != null && BytesReference.Helper.bytesEqual(new BytesArray(value), source)) {
+                    // the source is sent along with the binary form anyway
+                    writeHeader(SOURCE, field);
+                    return true;
+                }
+            }
+            // only plain fields, custom field implementations might create their own token streams
+            Class<?> fieldClass = field.getClass();
+            if (fieldClass != Field.class && fieldClass != SharedAnalysisField.class && fieldClass != StringField.class && fieldClass != TextField.class && fieldClass != StoredField.class) {
+                return false;
+            }
+            if (field.readerValue() != null || field.numericValue() != null || ((Field) field).tokenStreamValue() != null) {
+                return false;
+            }
+            String stringValue = field.stringValue();
+            if (stringValue != null) {
+                writeHeader(PLAIN_STRING, field);
+                out.writeString(stringValue);
+                values.add(stringValue);
+                return true;
+            }
+            BytesRef binaryValue = field.binaryValue();
+            if (binaryValue != null) {
+                writeHeader(PLAIN_BINARY, field);
+                out.writeBytesRef(binaryValue);
+                return true;
+            }
+            return false;
+        }
+
+        void writeHeader(byte kind, IndexableField field) throws IOException {
+            out.writeByte(kind);
+            writeName(field.name());
+            IndexableFieldType fieldType = field.fieldType();
+            int flags = 0;
+            if (fieldType.indexed()) {
+                flags |= INDEXED;
+            }
+            if (fieldType.stored()) {
+                flags |= STORED;
+            }
+            if (fieldType.tokenized()) {
+                flags |= TOKENIZED;
+            }
+            if (fieldType.storeTermVectors()) {
+                flags |= TERM_VECTORS;
+            }
+            if (fieldType.storeTermVectorOffsets()) {
+                flags |= TERM_VECTOR_OFFSETS;
+            }
+            if (fieldType.storeTermVectorPositions()) {
+                flags |= TERM_VECTOR_POSITIONS;
+            }
+            if (fieldType.omitNorms()) {
+                flags |= OMIT_NORMS;
+            }
+            flags |= fieldType.indexOptions().ordinal() << INDEX_OPTIONS_SHIFT;
+            if (field.boost() != 1.0f) {
+                flags |= BOOSTED;
+            }
+            out.writeVInt(flags);
+            if (field.boost() != 1.0f) {
+                out.writeFloat(field.boost());
+            }
+        }
+
+        void writeName(String name) throws IOException {
+            Integer ord = names.get(name);
+            if (ord != null) {
+                out.writeVInt(ord);
+                return;
+            }
+            // a new name, marked by the next ordinal and followed by the name itself
+            ord = names.size();
+            names.put(name, ord);
+            out.writeVInt(ord);
+            out.writeBytesRef(Unicode.fromStringAsUtf8(name));
+        }
+
+        /**
+         * Writes the text of an <tt>_all</tt> entry as <tt>0</tt> followed by the text, or as a reference to a
+         * string value (odd) or to a numeric field whose value formats to the text (even).
+         */
+        void writeAllText(String name, String text) throws IOException {
+            // the _all entries are added in the same order as the field values, so we look ahead from the last match
+            for (int i = valuesCursor; i < values.size(); i++) {
+                if (values.get(i) == text) {
+                    valuesCursor = i + 1;
+                    out.writeVInt((i << 1) | 1);
+                    return;
+                }
+            }
+            for (int i = numbersCursor; i < numbers.size(); i++) {
+                NumberFieldMapper.CustomNumericField number = numbers.get(i);
+                if (number.name().equals(name) && text.equals(number.numericAsNumber().toString())) {
+                    numbersCursor = i + 1;
+                    out.writeVInt((i + 1) << 1);
+                    return;
+                }
+            }
+            out.writeVInt(0);
+            out.writeString(text);
+        }
+    }
+
+    /**
+     * Reads the binary form directly from the backing array, this is the hot path on the replica and going
+     * through a {@link org.elasticsearch.common.io.stream.StreamInput} byte by byte is noticeably slower.
+     */
+    private static class Reader {
+
+        final byte[] bytes;
+
+        int pos;
+
+        final DocumentFieldMappers fieldMappers;
+
+        final boolean allSharedAnalysis;
+
+        final SharedAnalysis sharedAnalysis = new SharedAnalysis();
+
+        final NameCache nameCache = ParsedDocumentStreams.nameCache.get().get();
+
+        final List<String> names = new ArrayList<String>();
+
+        final List<String> values = new ArrayList<String>();
+
+        final List<NumberFieldMapper.CustomNumericField> numbers = new ArrayList<NumberFieldMapper.CustomNumericField>();
+
+        char[] chars = new char[32];
+
+        UidField uid;
+
+        BytesArray source;
+
+        Reader(DocumentMapper docMapper, BytesReference bytes) {
+            BytesArray array = bytes.toBytesArray();
+            this.bytes = array.array();
+            this.pos = array.arrayOffset();
+            this.fieldMappers = docMapper.mappers();
+            this.allSharedAnalysis = docMapper.allFieldMapper().sharedAnalysis();
+        }
+
+        Field readField() throws IOException {
+            byte kind = bytes[pos++];
+            String name = readName();
+            int flags = readVInt();
+            if (kind == UID) {
+                uid = new UidField(name, readString(), 0);
+                return uid;
+            }
+            FieldType fieldType = fieldType(flags & ~BOOSTED);
+            float boost = (flags & BOOSTED) != 0 ? Float.intBitsToFloat(readInt()) : 1.0f;
+            Field field;
+            if (kind == ALL) {
+                AllEntries allEntries = new AllEntries();
+                int numberOfEntries = readVInt();
+                for (int i = 0; i < numberOfEntries; i++) {
+                    allEntries.addText(readName(), readAllText(), Float.intBitsToFloat(readInt()));
+                }
+                allEntries.reset();
+                if (allSharedAnalysis) {
+                    for (AllEntries.Entry entry : allEntries.entries()) {
+                        sharedAnalysis.expect(entry.reader().toString());
+                    }
+                    field = new AllField(name, allEntries, fieldMappers.indexAnalyzer(), fieldType, sharedAnalysis);
+                } else {
+                    field = new AllField(name, allEntries, fieldMappers.indexAnalyzer(), fieldType);
+                }
+            } else if (kind == PLAIN_STRING) {
+                if (fieldMappers.indexName(name) == null) {
+                    return null;
+                }
+                String value = readString();
+                values.add(value);
+                if (fieldType.indexed() && fieldType.tokenized()) {
+                    field = new SharedAnalysisField(name, value, fieldType, sharedAnalysis);
+                } else {
+                    field = new Field(name, value, fieldType);
+                }
+            } else if (kind == SOURCE) {
+                field = new Field(name, new BytesRef(source.array(), source.arrayOffset(), source.length()), fieldType);
+            } else if (kind == PLAIN_BINARY) {
+                if (fieldMappers.indexName(name) == null) {
+                    return null;
+                }
+                int length = readVInt();
+                field = new Field(name, new BytesRef(bytes, pos, length), fieldType);
+                pos += length;
+            } else {
+                FieldMappers mappers = fieldMappers.indexName(name);
+                if (mappers == null || !(mappers.mapper() instanceof NumberFieldMapper)) {
+                    return null;
+                }
+                NumberFieldMapper mapper = (NumberFieldMapper) mappers.mapper();
+                switch (kind) {
+                    case NUMERIC_LONG:
+                        field = new LongFieldMapper.CustomLongNumericField(mapper, readLong(), fieldType);
+                        break;
+                    case NUMERIC_INT:
+                        field = new IntegerFieldMapper.CustomIntegerNumericField(mapper, readInt(), fieldType);
+                        break;
+                    case NUMERIC_DOUBLE:
+                        field = new DoubleFieldMapper.CustomDoubleNumericField(mapper, Double.longBitsToDouble(readLong()), fieldType);
+                        break;
+                    case NUMERIC_FLOAT:
+                        field = new FloatFieldMapper.CustomFloatNumericField(mapper, Float.intBitsToFloat(readInt()), fieldType);
+                        break;
+                    case NUMERIC_SHORT:
+                        field = new ShortFieldMapper.CustomShortNumericField(mapper, (short) (((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF)), fieldType);
+                        pos += 2;
+                        break;
+                    case NUMERIC_BYTE:
+                        field = new ByteFieldMapper.CustomByteNumericField(mapper, bytes[pos++], fieldType);
+                        break;
+                    default:
+                        throw new IOException("unknown parsed document field kind [" + kind + "]");
+                }
+                numbers.add((NumberFieldMapper.CustomNumericField) field);
+            }
+            if (boost != 1.0f) {
+                field.setBoost(boost);
+            }
+            return field;
+        }
+
+        String readName() {
+            int ord = readVInt();
+            if (ord < names.size()) {
+                return names.get(ord);
+            }
+            int length = readVInt();
+            String name = nameCache.name(bytes, pos, length);
+            pos += length;
+            names.add(name);
+            return name;
+        }
+
+        String readAllText() {
+            int ref = readVInt();
+            if (ref == 0) {
+                return readString();
+            }
+            if ((ref & 1) != 0) {
+                return values.get(ref >>> 1);
+            }
+            return numbers.get((ref >>> 1) - 1).numericAsNumber().toString();
+        }
+
+        boolean readBoolean() {
+            return bytes[pos++] != 0;
+        }
+
+        int readInt() {
+            int i = ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16) | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+            pos += 4;
+            return i;
+        }
+
+        long readLong() {
+            return (((long) readInt()) << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        int readVInt() {
+            byte b = bytes[pos++];
+            int i = b & 0x7F;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                b = bytes[pos++];
+                i |= (b & 0x7F) << shift;
+            }
+            return i;
+        }
+
+        BytesReference readBytesReference() {
+            int length = readVInt();
+            BytesReference reference = new BytesArray(bytes, pos, length);
+            pos += length;
+            return reference;
+        }
+
+        /**
+         * Same encoding as {@link org.elasticsearch.common.io.stream.StreamOutput#writeString(String)}.
+         */
+        String readString() {
+            int charCount = readVInt();
+            if (chars.length < charCount) {
+                chars = new char[ArrayUtil.oversize(charCount, RamUsageEstimator.NUM_BYTES_CHAR)];
+            }
+            final byte[] bytes = this.bytes;
+            final char[] chars = this.chars;
+            int pos = this.pos;
+            for (int i = 0; i < charCount; i++) {
+                int c = bytes[pos++] & 0xFF;
+                if (c < 0x80) {
+                    chars[i] = (char) c;
+                } else if (c < 0xE0) {
+                    chars[i] = (char) ((c & 0x1F) << 6 | bytes[pos++] & 0x3F);
+                } else {
+                    chars[i] = (char) ((c & 0x0F) << 12 | (bytes[pos++] & 0x3F) << 6 | (bytes[pos++] & 0x3F));
+                }
+            }
+            this.pos = pos;
+            return new String(chars, 0, charCount);
+        }
+    }
+
+    /**
+     * A small open addressing table from the UTF-8 bytes of a name to the name, cleared once it fills up.
+     */
+    static class NameCache {
+
+        private static final int SIZE = 1024;
+
+        private final byte[][] keys = new byte[SIZE * 2][];
+
+        private final String[] names = new String[SIZE * 2];
+
+        private int count;
+
+        String name(byte[] bytes, int offset, int length) {
+            int hash = 0;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (true) {
+                byte[] key = keys[slot];
+                if (key == null) {
+                    break;
+                }
+                if (equals(key, bytes, offset, length)) {
+                    return names[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            String name = Unicode.fromBytes(bytes, offset, length);
+            if (count == SIZE) {
+                Arrays.fill(keys, null);
+                Arrays.fill(names, null);
+                count = 0;
+                slot = hash & mask;
+            }
+            keys[slot] = Arrays.copyOfRange(bytes, offset, offset + length);
+            names[slot] = name;
+            count++;
+            return name;
+        }
+
+        private static boolean equals(byte[] key, byte[] bytes, int offset, int length) {
+            if (key.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -41,6 +41,8 @@ public class SourceToParse {
 
     private boolean flyweight = false;
 
+    private boolean parsedAhead = false;
+
     private String type;
 
     private String id;
@@ -53,6 +55,8 @@ public class SourceToParse {
 
     private long ttl;
 
+    private BytesReference parsedDocument;
+
     public SourceToParse(XContentParser parser) {
         this.parser = parser;
         this.source = null;
@@ -91,6 +95,20 @@ public class SourceToParse {
         return this.flyweight;
     }
 
+    /**
+     * Marks the source as parsed ahead of being indexed (for example, when bulk items are parsed
+     * concurrently), so the parsed document must not share per thread cached fields with documents
+     * parsed later on the same thread.
+     */
+    public SourceToParse parsedAhead(boolean parsedAhead) {
+        this.parsedAhead = parsedAhead;
+        return this;
+    }
+
+    public boolean parsedAhead() {
+        return this.parsedAhead;
+    }
+
     public String id() {
         return this.id;
     }
@@ -140,4 +158,17 @@ public class SourceToParse {
         this.ttl = ttl;
         return this;
     }
+
+    public BytesReference parsedDocument() {
+        return this.parsedDocument;
+    }
+
+    /**
+     * The binary form of the document as already parsed on another shard copy (see {@link ParsedDocumentStreams}),
+     * used instead of parsing the source when the local mappings allow for it.
+     */
+    public SourceToParse parsedDocument(BytesReference parsedDocument) {
+        this.parsedDocument = parsedDocument;
+        return this;
+    }
 }
@@ -587,6 +587,8 @@ public abstract class AbstractFieldMapper<T> implements FieldMapper<T>, Mapper {
                 return TypeParsers.INDEX_OPTIONS_FREQS;
             case DOCS_AND_FREQS_AND_POSITIONS:
                 return TypeParsers.INDEX_OPTIONS_POSITIONS;
+            case DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS:
+                return TypeParsers.INDEX_OPTIONS_OFFSETS;
             case DOCS_ONLY:
                 return TypeParsers.INDEX_OPTIONS_DOCS;
             default:
@@ -390,5 +390,10 @@ public class ByteFieldMapper extends NumberFieldMapper<Byte> {
         public String numericAsString() {
             return Byte.toString(number);
         }
+
+        @Override
+        public Number numericAsNumber() {
+            return number;
+        }
     }
 }
\ No newline at end of file
@@ -394,5 +394,10 @@ public class DoubleFieldMapper extends NumberFieldMapper<Double> {
         public String numericAsString() {
             return Double.toString(number);
         }
+
+        @Override
+        public Number numericAsNumber() {
+            return number;
+        }
     }
 }
\ No newline at end of file
@@ -389,5 +389,10 @@ public class FloatFieldMapper extends NumberFieldMapper<Float> {
         public String numericAsString() {
             return Float.toString(number);
         }
+
+        @Override
+        public Number numericAsNumber() {
+            return number;
+        }
     }
 }
\ No newline at end of file
@@ -394,5 +394,10 @@ public class IntegerFieldMapper extends NumberFieldMapper<Integer> {
         public String numericAsString() {
             return Integer.toString(number);
         }
+
+        @Override
+        public Number numericAsNumber() {
+            return number;
+        }
     }
 }
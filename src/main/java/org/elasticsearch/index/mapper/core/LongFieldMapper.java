@@ -393,5 +393,10 @@ public class LongFieldMapper extends NumberFieldMapper<Long> {
         public String numericAsString() {
             return Long.toString(number);
         }
+
+        @Override
+        public Number numericAsNumber() {
+            return number;
+        }
     }
 }
\ No newline at end of file
@@ -313,6 +313,8 @@ public abstract class NumberFieldMapper<T extends Number> extends AbstractFieldM
         }
 
         public abstract String numericAsString();
+
+        public abstract Number numericAsNumber();
     }
 
     @Override
@@ -393,5 +393,10 @@ public class ShortFieldMapper extends NumberFieldMapper<Short> {
         public String numericAsString() {
             return Short.toString(number);
         }
+
+        @Override
+        public Number numericAsNumber() {
+            return number;
+        }
     }
 }
\ No newline at end of file
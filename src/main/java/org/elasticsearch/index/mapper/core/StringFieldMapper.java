@@ -30,6 +30,7 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.analysis.NamedCustomAnalyzer;
+import org.elasticsearch.index.analysis.SharedAnalysisField;
 import org.elasticsearch.index.codec.postingsformat.PostingsFormatProvider;
 import org.elasticsearch.index.mapper.*;
 import org.elasticsearch.index.mapper.internal.AllFieldMapper;
@@ -299,7 +300,13 @@ public class StringFieldMapper extends AbstractFieldMapper<String> implements Al
             context.ignoredValue(names.indexName(), value);
             return null;
         }
-        Field field = new Field(names.indexName(), value, fieldType);
+        Field field;
+        if (fieldType.indexed() && fieldType.tokenized()) {
+            // share the analysis with other fields of the document indexing the same value (multi field, _all)
+            field = new SharedAnalysisField(names.indexName(), value, fieldType, context.sharedAnalysis());
+        } else {
+            field = new Field(names.indexName(), value, fieldType);
+        }
         field.setBoost(boost);
         return field;
     }
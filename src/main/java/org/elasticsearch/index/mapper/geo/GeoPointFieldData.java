@@ -20,10 +20,10 @@
 package org.elasticsearch.index.mapper.geo;
 
 import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TLongArrayList;
 import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.util.BytesRef;
-import org.elasticsearch.common.RamUsage;
 import org.elasticsearch.common.unit.DistanceUnit;
 import org.elasticsearch.common.util.concurrent.ThreadLocals;
 import org.elasticsearch.index.field.data.FieldData;
@@ -61,13 +61,11 @@ public abstract class GeoPointFieldData extends FieldData<GeoPointDocFieldData>
 
     public static final GeoPoint[] EMPTY_ARRAY = new GeoPoint[0];
 
-    protected final double[] lat;
-    protected final double[] lon;
+    protected final GeoPointValues values;
 
-    protected GeoPointFieldData(String fieldName, double[] lat, double[] lon) {
+    protected GeoPointFieldData(String fieldName, GeoPointValues values) {
         super(fieldName);
-        this.lat = lat;
-        this.lon = lon;
+        this.values = values;
     }
 
     abstract public GeoPoint value(int docId);
@@ -112,8 +110,17 @@ public abstract class GeoPointFieldData extends FieldData<GeoPointDocFieldData>
 
     @Override
     protected long computeSizeInBytes() {
-        return (RamUsage.NUM_BYTES_DOUBLE * lat.length + RamUsage.NUM_BYTES_ARRAY_HEADER) +
-                (RamUsage.NUM_BYTES_DOUBLE * lon.length + RamUsage.NUM_BYTES_ARRAY_HEADER);
+        return values.sizeInBytes();
+    }
+
+    @Override
+    public long offHeapSizeInBytes() {
+        return values.offHeapSizeInBytes();
+    }
+
+    @Override
+    public void release() {
+        values.release();
     }
 
     @Override
@@ -133,15 +140,15 @@ public abstract class GeoPointFieldData extends FieldData<GeoPointDocFieldData>
 
     @Override
     public void forEachValue(StringValueProc proc) {
-        for (int i = 1; i < lat.length; i++) {
-            proc.onValue(new BytesRef(GeoHashUtils.encode(lat[i], lon[i])));
+        for (int i = 1; i < values.size(); i++) {
+            proc.onValue(new BytesRef(GeoHashUtils.encode(values.lat(i), values.lon(i))));
         }
     }
 
     public void forEachValue(PointValueProc proc) {
-        for (int i = 1; i < lat.length; i++) {
+        for (int i = 1; i < values.size(); i++) {
             GeoPoint point = valuesCache.get().get();
-            point.latlon(lat[i], lon[i]);
+            point.latlon(values.lat(i), values.lon(i));
             proc.onValue(point);
         }
     }
@@ -151,8 +158,8 @@ public abstract class GeoPointFieldData extends FieldData<GeoPointDocFieldData>
     }
 
     public void forEachValue(ValueProc proc) {
-        for (int i = 1; i < lat.length; i++) {
-            proc.onValue(lat[i], lon[i]);
+        for (int i = 1; i < values.size(); i++) {
+            proc.onValue(values.lat(i), values.lon(i));
         }
     }
 
@@ -170,6 +177,13 @@ public abstract class GeoPointFieldData extends FieldData<GeoPointDocFieldData>
         return FieldDataLoader.load(reader, field, new StringTypeLoader());
     }
 
+    /**
+     * Loads the field data with the lat/lon values encoded with the given number of bits, see {@link GeoPointValues.Packed}.
+     */
+    public static GeoPointFieldData loadPacked(AtomicReader reader, String field, int bits, boolean offHeap) throws IOException {
+        return FieldDataLoader.load(reader, field, new PackedTypeLoader(bits, offHeap));
+    }
+
     static class StringTypeLoader extends FieldDataLoader.FreqsTypeLoader<GeoPointFieldData> {
 
         private final TDoubleArrayList lat = new TDoubleArrayList();
@@ -194,12 +208,53 @@ public abstract class GeoPointFieldData extends FieldData<GeoPointDocFieldData>
 
         @Override
         public GeoPointFieldData buildSingleValue(String field, int[] ordinals) {
-            return new SingleValueGeoPointFieldData(field, ordinals, lat.toArray(), lon.toArray());
+            return new SingleValueGeoPointFieldData(field, ordinals, new GeoPointValues.Doubles(lat.toArray(), lon.toArray()));
+        }
+
+        @Override
+        public GeoPointFieldData buildMultiValue(String field, int[][] ordinals) {
+            return new MultiValueGeoPointFieldData(field, ordinals, new GeoPointValues.Doubles(lat.toArray(), lon.toArray()));
+        }
+    }
+
+    static class PackedTypeLoader extends FieldDataLoader.FreqsTypeLoader<GeoPointFieldData> {
+
+        private final int bits;
+        private final boolean offHeap;
+        // the encoded lat/lon entries, collected before we know how many there are
+        private final TLongArrayList entries = new TLongArrayList();
+
+        PackedTypeLoader(int bits, boolean offHeap) {
+            super();
+            this.bits = bits;
+            this.offHeap = offHeap;
+            // the first one indicates null value
+            entries.add(GeoPointValues.Packed.encode(0, 0, bits));
+        }
+
+        @Override
+        public void collectTerm(BytesRef term) {
+            String location = term.utf8ToString();
+            int comma = location.indexOf(',');
+            entries.add(GeoPointValues.Packed.encode(Double.parseDouble(location.substring(0, comma)), Double.parseDouble(location.substring(comma + 1)), bits));
+        }
+
+        private GeoPointValues.Packed buildValues() {
+            GeoPointValues.Packed values = GeoPointValues.Packed.create(entries.size(), bits, offHeap);
+            for (int i = 0; i < entries.size(); i++) {
+                values.set(i, entries.get(i));
+            }
+            return values;
+        }
+
+        @Override
+        public GeoPointFieldData buildSingleValue(String field, int[] ordinals) {
+            return new SingleValueGeoPointFieldData(field, ordinals, buildValues());
         }
 
         @Override
         public GeoPointFieldData buildMultiValue(String field, int[][] ordinals) {
-            return new MultiValueGeoPointFieldData(field, ordinals, lat.toArray(), lon.toArray());
+            return new MultiValueGeoPointFieldData(field, ordinals, buildValues());
         }
     }
 }
@@ -29,11 +29,40 @@ import org.elasticsearch.index.field.data.strings.StringOrdValFieldDataComparato
 import java.io.IOException;
 
 /**
- *
+ * The geo point field data type. The default {@link #TYPE} loads the lat/lon values as doubles, while
+ * {@link #compressed(int, boolean)} types load them encoded with fewer bits, optionally off heap.
  */
 public class GeoPointFieldDataType implements FieldDataType<GeoPointFieldData> {
 
-    public static final GeoPointFieldDataType TYPE = new GeoPointFieldDataType();
+    public static final GeoPointFieldDataType TYPE = new GeoPointFieldDataType(0, false);
+
+    public static GeoPointFieldDataType compressed(int bits, boolean offHeap) {
+        return new GeoPointFieldDataType(bits, offHeap);
+    }
+
+    private final int bits;
+
+    private final boolean offHeap;
+
+    private GeoPointFieldDataType(int bits, boolean offHeap) {
+        this.bits = bits;
+        this.offHeap = offHeap;
+    }
+
+    public boolean compressed() {
+        return bits > 0;
+    }
+
+    /**
+     * The number of bits lat/lon values are encoded with when compressed.
+     */
+    public int bits() {
+        return bits;
+    }
+
+    public boolean offHeap() {
+        return offHeap;
+    }
 
     @Override
     public ExtendedFieldComparatorSource newFieldComparatorSource(final FieldDataCache cache, final String missing) {
@@ -52,6 +81,9 @@ public class GeoPointFieldDataType implements FieldDataType<GeoPointFieldData> {
 
     @Override
     public GeoPointFieldData load(AtomicReader reader, String fieldName) throws IOException {
+        if (bits > 0) {
+            return GeoPointFieldData.loadPacked(reader, fieldName, bits, offHeap);
+        }
         return GeoPointFieldData.load(reader, fieldName);
     }
 }
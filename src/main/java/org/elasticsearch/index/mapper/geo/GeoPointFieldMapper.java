@@ -23,6 +23,7 @@ import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.unit.DistanceUnit;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
@@ -75,11 +76,14 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         public static final boolean STORE = false;
         public static final boolean ENABLE_LATLON = false;
         public static final boolean ENABLE_GEOHASH = false;
+        public static final boolean ENABLE_GEOHASH_PREFIX = false;
         public static final int PRECISION = GeoHashUtils.PRECISION;
         public static final boolean NORMALIZE_LAT = true;
         public static final boolean NORMALIZE_LON = true;
         public static final boolean VALIDATE_LAT = true;
         public static final boolean VALIDATE_LON = true;
+        public static final String FIELD_DATA_FORMAT = "double";
+        public static final boolean FIELD_DATA_OFF_HEAP = false;
 
         public static final FieldType GEO_STRING_FIELD_TYPE = new FieldType(StringFieldMapper.Defaults.STRING_FIELD_TYPE);
 
@@ -98,6 +102,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
         private boolean enableGeoHash = Defaults.ENABLE_GEOHASH;
 
+        private boolean enableGeohashPrefix = Defaults.ENABLE_GEOHASH_PREFIX;
+
         private boolean enableLatLon = Defaults.ENABLE_LATLON;
 
         private Integer precisionStep;
@@ -111,6 +117,10 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         boolean normalizeLat = Defaults.NORMALIZE_LAT;
         boolean normalizeLon = Defaults.NORMALIZE_LON;
 
+        private String fieldDataFormat = Defaults.FIELD_DATA_FORMAT;
+        private String fieldDataPrecision;
+        private boolean fieldDataOffHeap = Defaults.FIELD_DATA_OFF_HEAP;
+
         public Builder(String name) {
             super(name);
             this.builder = this;
@@ -126,6 +136,40 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
             return this;
         }
 
+        /**
+         * Index all the prefixes of the geohash (and not only the full geohash), so geohash cells of any precision
+         * can be looked up with a single term. Implies geohash.
+         */
+        public Builder geohashPrefix(boolean enableGeohashPrefix) {
+            this.enableGeohashPrefix = enableGeohashPrefix;
+            return this;
+        }
+
+        /**
+         * The format the field data is loaded with, either <tt>double</tt> (the default) or <tt>compressed</tt>,
+         * which encodes the lat/lon values as fixed point numbers with the {@link #fieldDataPrecision(String)}.
+         */
+        public Builder fieldDataFormat(String fieldDataFormat) {
+            this.fieldDataFormat = fieldDataFormat;
+            return this;
+        }
+
+        /**
+         * The precision (a distance, in km by default) of <tt>compressed</tt> field data, defaults to about 1cm.
+         */
+        public Builder fieldDataPrecision(String fieldDataPrecision) {
+            this.fieldDataPrecision = fieldDataPrecision;
+            return this;
+        }
+
+        /**
+         * Should <tt>compressed</tt> field data be loaded off heap.
+         */
+        public Builder fieldDataOffHeap(boolean fieldDataOffHeap) {
+            this.fieldDataOffHeap = fieldDataOffHeap;
+            return this;
+        }
+
         public Builder enableLatLon(boolean enableLatLon) {
             this.enableLatLon = enableLatLon;
             return this;
@@ -170,16 +214,29 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                 lonMapper = (DoubleFieldMapper) lonMapperBuilder.includeInAll(false).store(store).build(context);
             }
             StringFieldMapper geohashMapper = null;
-            if (enableGeoHash) {
+            if (enableGeoHash || enableGeohashPrefix) {
                 geohashMapper = stringField(Names.GEOHASH).index(true).tokenized(false).includeInAll(false).omitNorms(true).indexOptions(IndexOptions.DOCS_ONLY).build(context);
             }
             context.path().remove();
 
             context.path().pathType(origPathType);
 
-            return new GeoPointFieldMapper(name, pathType, enableLatLon, enableGeoHash, precisionStep, precision,
+            GeoPointFieldDataType fieldDataType;
+            if ("double".equals(fieldDataFormat)) {
+                fieldDataType = GeoPointFieldDataType.TYPE;
+            } else if ("compressed".equals(fieldDataFormat)) {
+                int bits = 32;
+                if (fieldDataPrecision != null) {
+                    bits = GeoPointValues.Packed.bitsForPrecision(DistanceUnit.parse(fieldDataPrecision, DistanceUnit.KILOMETERS, DistanceUnit.KILOMETERS));
+                }
+                fieldDataType = GeoPointFieldDataType.compressed(bits, fieldDataOffHeap);
+            } else {
+                throw new MapperParsingException("field data format [" + fieldDataFormat + "] not supported for geo_point field [" + name + "], either 'double' or 'compressed' are allowed");
+            }
+
+            return new GeoPointFieldMapper(name, pathType, enableLatLon, enableGeoHash || enableGeohashPrefix, enableGeohashPrefix, precisionStep, precision,
                     latMapper, lonMapper, geohashMapper, geoStringMapper,
-                    validateLon, validateLat, normalizeLon, normalizeLat);
+                    validateLon, validateLat, normalizeLon, normalizeLat, fieldDataType, fieldDataPrecision);
         }
     }
 
@@ -199,6 +256,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                     builder.enableLatLon(XContentMapValues.nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("geohash")) {
                     builder.enableGeoHash(XContentMapValues.nodeBooleanValue(fieldNode));
+                } else if (fieldName.equals("geohash_prefix")) {
+                    builder.geohashPrefix(XContentMapValues.nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("precision_step")) {
                     builder.precisionStep(XContentMapValues.nodeIntegerValue(fieldNode));
                 } else if (fieldName.equals("geohash_precision")) {
@@ -217,6 +276,18 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                     builder.normalizeLat = XContentMapValues.nodeBooleanValue(fieldNode);
                 } else if (fieldName.equals("normalize_lon")) {
                     builder.normalizeLon = XContentMapValues.nodeBooleanValue(fieldNode);
+                } else if (fieldName.equals("field_data")) {
+                    for (Map.Entry<String, Object> dataEntry : ((Map<String, Object>) fieldNode).entrySet()) {
+                        String propName = Strings.toUnderscoreCase(dataEntry.getKey());
+                        Object propNode = dataEntry.getValue();
+                        if (propName.equals("format")) {
+                            builder.fieldDataFormat(propNode.toString());
+                        } else if (propName.equals("precision")) {
+                            builder.fieldDataPrecision(propNode.toString());
+                        } else if (propName.equals("off_heap")) {
+                            builder.fieldDataOffHeap(XContentMapValues.nodeBooleanValue(propNode));
+                        }
+                    }
                 }
             }
             return builder;
@@ -231,6 +302,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
     private final boolean enableGeoHash;
 
+    private final boolean enableGeohashPrefix;
+
     private final Integer precisionStep;
 
     private final int precision;
@@ -249,14 +322,19 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
     private final boolean normalizeLon;
     private final boolean normalizeLat;
 
-    public GeoPointFieldMapper(String name, ContentPath.Type pathType, boolean enableLatLon, boolean enableGeoHash, Integer precisionStep, int precision,
+    private final GeoPointFieldDataType fieldDataType;
+    private final String fieldDataPrecision;
+
+    public GeoPointFieldMapper(String name, ContentPath.Type pathType, boolean enableLatLon, boolean enableGeoHash, boolean enableGeohashPrefix, Integer precisionStep, int precision,
                                DoubleFieldMapper latMapper, DoubleFieldMapper lonMapper, StringFieldMapper geohashMapper, GeoStringFieldMapper geoStringMapper,
                                boolean validateLon, boolean validateLat,
-                               boolean normalizeLon, boolean normalizeLat) {
+                               boolean normalizeLon, boolean normalizeLat,
+                               GeoPointFieldDataType fieldDataType, String fieldDataPrecision) {
         this.name = name;
         this.pathType = pathType;
         this.enableLatLon = enableLatLon;
         this.enableGeoHash = enableGeoHash;
+        this.enableGeohashPrefix = enableGeohashPrefix;
         this.precisionStep = precisionStep;
         this.precision = precision;
 
@@ -272,6 +350,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
         this.normalizeLat = normalizeLat;
         this.normalizeLon = normalizeLon;
+
+        this.fieldDataType = fieldDataType;
+        this.fieldDataPrecision = fieldDataPrecision;
     }
 
     @Override
@@ -291,6 +372,31 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         return enableLatLon;
     }
 
+    /**
+     * The field data type the geo points of this field are loaded with.
+     */
+    public GeoPointFieldDataType fieldDataType() {
+        return fieldDataType;
+    }
+
+    public boolean isEnableGeohashPrefix() {
+        return enableGeohashPrefix;
+    }
+
+    /**
+     * The mapper of the geohash field, <tt>null</tt> if geohash is not enabled.
+     */
+    public StringFieldMapper geohashMapper() {
+        return geohashMapper;
+    }
+
+    /**
+     * The precision (length) of the indexed geohash.
+     */
+    public int geohashPrecision() {
+        return precision;
+    }
+
     @Override
     public void parse(ParseContext context) throws IOException {
         ContentPath.Type origPathType = context.path().pathType();
@@ -404,8 +510,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         context.externalValue(Double.toString(lat) + ',' + Double.toString(lon));
         geoStringMapper.parse(context);
         if (enableGeoHash) {
-            context.externalValue(GeoHashUtils.encode(lat, lon, precision));
-            geohashMapper.parse(context);
+            parseGeohashField(context, GeoHashUtils.encode(lat, lon, precision));
         }
         if (enableLatLon) {
             context.externalValue(lat);
@@ -441,8 +546,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         context.externalValue(Double.toString(lat) + ',' + Double.toString(lon));
         geoStringMapper.parse(context);
         if (enableGeoHash) {
-            context.externalValue(geohash);
-            geohashMapper.parse(context);
+            parseGeohashField(context, geohash);
         }
         if (enableLatLon) {
             context.externalValue(lat);
@@ -452,6 +556,14 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         }
     }
 
+    private void parseGeohashField(ParseContext context, String geohash) throws IOException {
+        int length = enableGeohashPrefix ? 1 : geohash.length();
+        for (; length <= geohash.length(); length++) {
+            context.externalValue(geohash.substring(0, length));
+            geohashMapper.parse(context);
+        }
+    }
+
     @Override
     public void close() {
         if (latMapper != null) {
@@ -502,6 +614,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         if (enableGeoHash != Defaults.ENABLE_GEOHASH) {
             builder.field("geohash", enableGeoHash);
         }
+        if (enableGeohashPrefix != Defaults.ENABLE_GEOHASH_PREFIX) {
+            builder.field("geohash_prefix", enableGeohashPrefix);
+        }
         if (geoStringMapper.stored() != Defaults.STORE) {
             builder.field("store", geoStringMapper.stored());
         }
@@ -531,6 +646,17 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                 builder.field("normalize_lon", normalizeLon);
             }
         }
+        if (fieldDataType.compressed()) {
+            builder.startObject("field_data");
+            builder.field("format", "compressed");
+            if (fieldDataPrecision != null) {
+                builder.field("precision", fieldDataPrecision);
+            }
+            if (fieldDataType.offHeap() != Defaults.FIELD_DATA_OFF_HEAP) {
+                builder.field("off_heap", fieldDataType.offHeap());
+            }
+            builder.endObject();
+        }
 
         builder.endObject();
         return builder;
@@ -577,7 +703,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
         @Override
         public FieldDataType fieldDataType() {
-            return GeoPointFieldDataType.TYPE;
+            return geoMapper.fieldDataType();
         }
 
         public GeoPointFieldMapper geoMapper() {
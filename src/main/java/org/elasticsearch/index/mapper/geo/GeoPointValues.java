@@ -0,0 +1,241 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper.geo;
+
+import org.apache.lucene.store.bytebuffer.ByteBufferAllocator;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.RamUsage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The lat/lon values of a {@link GeoPointFieldData}, by ordinal. Ordinal 0 is the null value.
+ */
+public abstract class GeoPointValues {
+
+    public abstract int size();
+
+    public abstract double lat(int ord);
+
+    public abstract double lon(int ord);
+
+    /**
+     * The size (in bytes) of the values on the heap.
+     */
+    public abstract long sizeInBytes();
+
+    /**
+     * The size (in bytes) of the values outside of the heap.
+     */
+    public long offHeapSizeInBytes() {
+        return 0;
+    }
+
+    /**
+     * Frees the memory held outside of the heap. The values must not be used afterwards.
+     */
+    public void release() {
+    }
+
+    /**
+     * Lat/lon values kept as two <tt>double</tt> arrays, 16 bytes per value.
+     */
+    public static class Doubles extends GeoPointValues {
+
+        private final double[] lat;
+        private final double[] lon;
+
+        public Doubles(double[] lat, double[] lon) {
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        @Override
+        public int size() {
+            return lat.length;
+        }
+
+        @Override
+        public double lat(int ord) {
+            return lat[ord];
+        }
+
+        @Override
+        public double lon(int ord) {
+            return lon[ord];
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (RamUsage.NUM_BYTES_DOUBLE * lat.length + RamUsage.NUM_BYTES_ARRAY_HEADER) +
+                    (RamUsage.NUM_BYTES_DOUBLE * lon.length + RamUsage.NUM_BYTES_ARRAY_HEADER);
+        }
+    }
+
+    /**
+     * Lat/lon values encoded as fixed point numbers of <tt>bits</tt> bits each, packed next to each other
+     * (lat in the lower bits) in a long buffer, either on the heap or in a direct (off heap) buffer.
+     * With 32 bits, the values are precise up to about 1cm, using 8 bytes per value.
+     */
+    public static class Packed extends GeoPointValues {
+
+        private final int size;
+        private final int bits;
+        private final long mask;
+        private final double latDecode;
+        private final double lonDecode;
+        private final LongBuffer buffer;
+        // the direct buffer backing the long buffer, null when on heap
+        private final ByteBuffer directBuffer;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Packed(int size, int bits, LongBuffer buffer, ByteBuffer directBuffer) {
+            this.size = size;
+            this.bits = bits;
+            this.mask = (1L << bits) - 1;
+            this.latDecode = 180.0 / mask;
+            this.lonDecode = 360.0 / mask;
+            this.buffer = buffer;
+            this.directBuffer = directBuffer;
+        }
+
+        /**
+         * Returns the number of bits needed to encode lat/lon values with the given precision (in kilometers).
+         */
+        public static int bitsForPrecision(double precisionInKm) {
+            // the error is at most half the encoded step, and a degree of lon is at most ~111.3km
+            double steps = (360.0 * 111.32) / (2 * precisionInKm);
+            int bits = (int) Math.ceil(Math.log(steps + 1) / Math.log(2));
+            return Math.max(1, Math.min(32, bits));
+        }
+
+        /**
+         * Returns the precision (in kilometers) lat/lon values are encoded with using the given number of bits.
+         */
+        public static double precisionForBits(int bits) {
+            return (360.0 * 111.32) / (2 * ((1L << bits) - 1));
+        }
+
+        /**
+         * Encodes a lat/lon pair into a single entry, as {@link #set(int, long)} expects it. Values out of
+         * the valid lat/lon range are clamped to it.
+         */
+        public static long encode(double lat, double lon, int bits) {
+            lat = Math.max(-90, Math.min(90, lat));
+            lon = Math.max(-180, Math.min(180, lon));
+            long mask = (1L << bits) - 1;
+            long encodedLat = Math.round((lat + 90) / 180.0 * mask);
+            long encodedLon = Math.round((lon + 180) / 360.0 * mask);
+            return (encodedLon << bits) | encodedLat;
+        }
+
+        public static Packed create(int size, int bits, boolean offHeap) {
+            long numLongs = ((long) size * 2 * bits + 63) / 64;
+            if (offHeap) {
+                if (numLongs * RamUsage.NUM_BYTES_LONG > Integer.MAX_VALUE) {
+                    throw new ElasticSearchIllegalArgumentException("too many geo point values [" + size + "] to load off heap with [" + bits + "] bits");
+                }
+                ByteBuffer directBuffer = ByteBuffer.allocateDirect((int) numLongs * RamUsage.NUM_BYTES_LONG).order(ByteOrder.nativeOrder());
+                return new Packed(size, bits, directBuffer.asLongBuffer(), directBuffer);
+            }
+            return new Packed(size, bits, LongBuffer.wrap(new long[(int) numLongs]), null);
+        }
+
+        public void set(int ord, long entry) {
+            int entryBits = bits * 2;
+            long bitPos = (long) ord * entryBits;
+            int index = (int) (bitPos >>> 6);
+            int shift = (int) (bitPos & 63);
+            long entryMask = entryBits == 64 ? -1L : (1L << entryBits) - 1;
+            entry &= entryMask;
+            buffer.put(index, (buffer.get(index) & ~(entryMask << shift)) | (entry << shift));
+            if (shift + entryBits > 64) {
+                int remaining = shift + entryBits - 64;
+                long remainingMask = (1L << remaining) - 1;
+                buffer.put(index + 1, (buffer.get(index + 1) & ~remainingMask) | (entry >>> (64 - shift)));
+            }
+        }
+
+        private long entry(int ord) {
+            int entryBits = bits * 2;
+            long bitPos = (long) ord * entryBits;
+            int index = (int) (bitPos >>> 6);
+            int shift = (int) (bitPos & 63);
+            long entry = buffer.get(index) >>> shift;
+            if (shift + entryBits > 64) {
+                entry |= buffer.get(index + 1) << (64 - shift);
+            }
+            return entry;
+        }
+
+        public int bits() {
+            return bits;
+        }
+
+        public boolean offHeap() {
+            return directBuffer != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public double lat(int ord) {
+            return (entry(ord) & mask) * latDecode - 90;
+        }
+
+        @Override
+        public double lon(int ord) {
+            return ((entry(ord) >>> bits) & mask) * lonDecode - 180;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            if (directBuffer != null) {
+                return 0;
+            }
+            return buffer.capacity() * RamUsage.NUM_BYTES_LONG + RamUsage.NUM_BYTES_ARRAY_HEADER;
+        }
+
+        @Override
+        public long offHeapSizeInBytes() {
+            if (directBuffer == null || released.get()) {
+                return 0;
+            }
+            return directBuffer.capacity();
+        }
+
+        /**
+         * Frees the direct buffer right away instead of waiting for it to be garbage collected. Reading the
+         * values afterwards reads freed memory, so this must only be called once nothing uses them anymore.
+         */
+        @Override
+        public void release() {
+            if (directBuffer != null && released.compareAndSet(false, true)) {
+                ByteBufferAllocator.Cleaner.clean(directBuffer);
+            }
+        }
+    }
+}
@@ -71,8 +71,8 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
     // order with value 0 indicates no value
     private final int[][] ordinals;
 
-    public MultiValueGeoPointFieldData(String fieldName, int[][] ordinals, double[] lat, double[] lon) {
-        super(fieldName, lat, lon);
+    public MultiValueGeoPointFieldData(String fieldName, int[][] ordinals, GeoPointValues values) {
+        super(fieldName, values);
         this.ordinals = ordinals;
     }
 
@@ -112,7 +112,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
                 break;
             }
             //LUCENE 4 UPGRADE: Make GeoHashUtils works with BytesRef instead of String
-            proc.onValue(docId, new BytesRef(GeoHashUtils.encode(lat[loc], lon[loc])));
+            proc.onValue(docId, new BytesRef(GeoHashUtils.encode(values.lat(loc), values.lon(loc))));
         }
     }
 
@@ -123,7 +123,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
             if (loc == 0) {
                 break;
             }
-            proc.onValue(docId, lat[loc], lon[loc]);
+            proc.onValue(docId, values.lat(loc), values.lon(loc));
         }
     }
 
@@ -147,7 +147,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
             int loc = ordinal[docId];
             if (loc != 0) {
                 GeoPoint point = valuesCache.get().get();
-                point.latlon(lat[loc], lon[loc]);
+                point.latlon(values.lat(loc), values.lon(loc));
                 return point;
             }
         }
@@ -171,13 +171,13 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
             points = valuesArrayCache.get().get()[length];
             for (int i = 0; i < length; i++) {
                 int loc = ordinals[i][docId];
-                points[i].latlon(lat[loc], lon[loc]);
+                points[i].latlon(values.lat(loc), values.lon(loc));
             }
         } else {
             points = new GeoPoint[length];
             for (int i = 0; i < length; i++) {
                 int loc = ordinals[i][docId];
-                points[i] = new GeoPoint(lat[loc], lon[loc]);
+                points[i] = new GeoPoint(values.lat(loc), values.lon(loc));
             }
         }
         return points;
@@ -188,7 +188,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
         for (int[] ordinal : ordinals) {
             int loc = ordinal[docId];
             if (loc != 0) {
-                return lat[loc];
+                return values.lat(loc);
             }
         }
         return 0;
@@ -199,7 +199,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
         for (int[] ordinal : ordinals) {
             int loc = ordinal[docId];
             if (loc != 0) {
-                return lon[loc];
+                return values.lon(loc);
             }
         }
         return 0;
@@ -224,7 +224,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
             doubles = new double[length];
         }
         for (int i = 0; i < length; i++) {
-            doubles[i] = lat[ordinals[i][docId]];
+            doubles[i] = values.lat(ordinals[i][docId]);
         }
         return doubles;
     }
@@ -247,7 +247,7 @@ public class MultiValueGeoPointFieldData extends GeoPointFieldData {
             doubles = new double[length];
         }
         for (int i = 0; i < length; i++) {
-            doubles[i] = lon[ordinals[i][docId]];
+            doubles[i] = values.lon(ordinals[i][docId]);
         }
         return doubles;
     }
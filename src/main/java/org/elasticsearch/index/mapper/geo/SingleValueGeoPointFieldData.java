@@ -57,8 +57,8 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
     // order with value 0 indicates no value
     private final int[] ordinals;
 
-    public SingleValueGeoPointFieldData(String fieldName, int[] ordinals, double[] lat, double[] lon) {
-        super(fieldName, lat, lon);
+    public SingleValueGeoPointFieldData(String fieldName, int[] ordinals, GeoPointValues values) {
+        super(fieldName, values);
         this.ordinals = ordinals;
     }
 
@@ -86,7 +86,7 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
             return;
         }
         //LUCENE 4 UPGRADE: Make GeoHashUtils works with BytesRef instead of String
-        proc.onValue(docId, new BytesRef(GeoHashUtils.encode(lat[loc], lon[loc])));
+        proc.onValue(docId, new BytesRef(GeoHashUtils.encode(values.lat(loc), values.lon(loc))));
     }
 
     @Override
@@ -100,7 +100,7 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
         if (loc == 0) {
             return;
         }
-        proc.onValue(docId, lat[loc], lon[loc]);
+        proc.onValue(docId, values.lat(loc), values.lon(loc));
     }
 
     @Override
@@ -110,7 +110,7 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
             return null;
         }
         GeoPoint point = valuesCache.get().get();
-        point.latlon(lat[loc], lon[loc]);
+        point.latlon(values.lat(loc), values.lon(loc));
         return point;
     }
 
@@ -121,18 +121,18 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
             return EMPTY_ARRAY;
         }
         GeoPoint[] ret = valuesArrayCache.get().get();
-        ret[0].latlon(lat[loc], lon[loc]);
+        ret[0].latlon(values.lat(loc), values.lon(loc));
         return ret;
     }
 
     @Override
     public double latValue(int docId) {
-        return lat[ordinals[docId]];
+        return values.lat(ordinals[docId]);
     }
 
     @Override
     public double lonValue(int docId) {
-        return lon[ordinals[docId]];
+        return values.lon(ordinals[docId]);
     }
 
     @Override
@@ -142,7 +142,7 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
             return DoubleFieldData.EMPTY_DOUBLE_ARRAY;
         }
         double[] ret = valuesLatCache.get().get();
-        ret[0] = lat[loc];
+        ret[0] = values.lat(loc);
         return ret;
     }
 
@@ -153,7 +153,7 @@ public class SingleValueGeoPointFieldData extends GeoPointFieldData {
             return DoubleFieldData.EMPTY_DOUBLE_ARRAY;
         }
         double[] ret = valuesLonCache.get().get();
-        ret[0] = lon[loc];
+        ret[0] = values.lon(loc);
         return ret;
     }
 }
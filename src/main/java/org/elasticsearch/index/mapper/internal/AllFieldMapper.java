@@ -28,6 +28,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.all.AllEntries;
 import org.elasticsearch.common.lucene.all.AllField;
 import org.elasticsearch.common.lucene.all.AllTermQuery;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -65,6 +66,7 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
         public static final String NAME = AllFieldMapper.NAME;
         public static final String INDEX_NAME = AllFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SHARED_ANALYSIS = false;
 
         public static final FieldType ALL_FIELD_TYPE = new FieldType();
 
@@ -79,6 +81,8 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
 
         private boolean enabled = Defaults.ENABLED;
 
+        private boolean sharedAnalysis = Defaults.SHARED_ANALYSIS;
+
         // an internal flag, automatically set if we encounter boosting
         boolean autoBoost = false;
 
@@ -93,13 +97,18 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
             return this;
         }
 
+        public Builder sharedAnalysis(boolean sharedAnalysis) {
+            this.sharedAnalysis = sharedAnalysis;
+            return this;
+        }
+
         @Override
         public AllFieldMapper build(BuilderContext context) {
             // In case the mapping overrides these
             fieldType.setIndexed(true);
             fieldType.setTokenized(true);
 
-            return new AllFieldMapper(name, fieldType, indexAnalyzer, searchAnalyzer, enabled, autoBoost, provider, similarity);
+            return new AllFieldMapper(name, fieldType, indexAnalyzer, searchAnalyzer, enabled, autoBoost, sharedAnalysis, provider, similarity);
         }
     }
 
@@ -115,6 +124,8 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
                     builder.enabled(nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("auto_boost")) {
                     builder.autoBoost = nodeBooleanValue(fieldNode);
+                } else if (fieldName.equals("shared_analysis")) {
+                    builder.sharedAnalysis(nodeBooleanValue(fieldNode));
                 }
             }
             return builder;
@@ -129,23 +140,30 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
     // where fields don't usually have boost associated with them, and we don't need to use the
     // special SpanTermQuery to look at payloads
     private volatile boolean autoBoost;
+    // analyze each entry on its own, sharing the analysis with the field the entry was created from when both
+    // use the same analyzer (instead of analyzing the concatenated entries once more)
+    private final boolean sharedAnalysis;
 
     public AllFieldMapper() {
-        this(Defaults.NAME, new FieldType(Defaults.ALL_FIELD_TYPE), null, null, Defaults.ENABLED, false, null, null);
+        this(Defaults.NAME, new FieldType(Defaults.ALL_FIELD_TYPE), null, null, Defaults.ENABLED, false, Defaults.SHARED_ANALYSIS, null, null);
     }
 
     protected AllFieldMapper(String name, FieldType fieldType, NamedAnalyzer indexAnalyzer, NamedAnalyzer searchAnalyzer,
-                             boolean enabled, boolean autoBoost, PostingsFormatProvider provider, SimilarityProvider similarity) {
+                             boolean enabled, boolean autoBoost, boolean sharedAnalysis, PostingsFormatProvider provider, SimilarityProvider similarity) {
         super(new Names(name, name, name, name), 1.0f, fieldType, indexAnalyzer, searchAnalyzer, provider, similarity);
         this.enabled = enabled;
         this.autoBoost = autoBoost;
-
+        this.sharedAnalysis = sharedAnalysis;
     }
 
     public boolean enabled() {
         return this.enabled;
     }
 
+    public boolean sharedAnalysis() {
+        return this.sharedAnalysis;
+    }
+
     @Override
     public Query queryStringTermQuery(Term term) {
         if (!autoBoost) {
@@ -202,6 +220,12 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
         }
 
         Analyzer analyzer = findAnalyzer(context);
+        if (sharedAnalysis) {
+            for (AllEntries.Entry entry : context.allEntries().entries()) {
+                context.sharedAnalysis().expect(entry.reader().toString());
+            }
+            return new AllField(names.indexName(), context.allEntries(), analyzer, fieldType, context.sharedAnalysis());
+        }
         return new AllField(names.indexName(), context.allEntries(), analyzer, fieldType);
     }
 
@@ -248,7 +272,7 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         // if all are defaults, no need to write it at all
-        if (enabled == Defaults.ENABLED && stored() == Defaults.ALL_FIELD_TYPE.stored() &&
+        if (enabled == Defaults.ENABLED && sharedAnalysis == Defaults.SHARED_ANALYSIS && stored() == Defaults.ALL_FIELD_TYPE.stored() &&
                 storeTermVectors() == Defaults.ALL_FIELD_TYPE.storeTermVectors() &&
                 indexAnalyzer == null && searchAnalyzer == null) {
             return builder;
@@ -260,6 +284,9 @@ public class AllFieldMapper extends AbstractFieldMapper<Void> implements Interna
         if (autoBoost != false) {
             builder.field("auto_boost", autoBoost);
         }
+        if (sharedAnalysis != Defaults.SHARED_ANALYSIS) {
+            builder.field("shared_analysis", sharedAnalysis);
+        }
         if (stored() != Defaults.ALL_FIELD_TYPE.stored()) {
             builder.field("store", stored());
         }
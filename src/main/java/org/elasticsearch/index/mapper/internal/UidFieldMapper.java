@@ -168,7 +168,8 @@ public class UidFieldMapper extends AbstractFieldMapper<Uid> implements Internal
         // so, caching uid stream and field is fine
         // since we don't do any mapping parsing without immediate indexing
         // and, when percolating, we don't index the uid
-        UidField field = fieldCache.get();
+        // documents parsed ahead of indexing (concurrent bulk parsing) get their own field
+        UidField field = context.sourceToParse().parsedAhead() ? new UidField(names().indexName(), "", 0) : fieldCache.get();
         field.setUid(Uid.createUid(context.stringBuilder(), context.type(), context.id()));
         context.uid(field);
         return field; // version get updated by the engine
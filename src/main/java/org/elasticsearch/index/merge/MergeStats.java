@@ -42,6 +42,7 @@ public class MergeStats implements Streamable, ToXContent {
     private long current;
     private long currentNumDocs;
     private long currentSizeInBytes;
+    private long totalThrottledTimeInMillis;
 
     public MergeStats() {
 
@@ -57,6 +58,10 @@ public class MergeStats implements Streamable, ToXContent {
         this.currentSizeInBytes += currentSizeInBytes;
     }
 
+    public void addThrottledTime(long totalThrottledTimeInMillis) {
+        this.totalThrottledTimeInMillis += totalThrottledTimeInMillis;
+    }
+
     public void add(MergeStats mergeStats) {
         if (mergeStats == null) {
             return;
@@ -68,6 +73,7 @@ public class MergeStats implements Streamable, ToXContent {
         this.current += mergeStats.current;
         this.currentNumDocs += mergeStats.currentNumDocs;
         this.currentSizeInBytes += mergeStats.currentSizeInBytes;
+        this.totalThrottledTimeInMillis += mergeStats.totalThrottledTimeInMillis;
     }
 
     /**
@@ -91,6 +97,20 @@ public class MergeStats implements Streamable, ToXContent {
         return new TimeValue(totalTimeInMillis);
     }
 
+    /**
+     * The total time merges have been paused by the node merge I/O budget (in milliseconds).
+     */
+    public long totalThrottledTimeInMillis() {
+        return this.totalThrottledTimeInMillis;
+    }
+
+    /**
+     * The total time merges have been paused by the node merge I/O budget.
+     */
+    public TimeValue totalThrottledTime() {
+        return new TimeValue(totalThrottledTimeInMillis);
+    }
+
     public long totalNumDocs() {
         return this.totalNumDocs;
     }
@@ -141,6 +161,8 @@ public class MergeStats implements Streamable, ToXContent {
         builder.field(Fields.TOTAL_DOCS, totalNumDocs);
         builder.field(Fields.TOTAL_SIZE, totalSize().toString());
         builder.field(Fields.TOTAL_SIZE_IN_BYTES, totalSizeInBytes);
+        builder.field(Fields.TOTAL_THROTTLED_TIME, totalThrottledTime().toString());
+        builder.field(Fields.TOTAL_THROTTLED_TIME_IN_MILLIS, totalThrottledTimeInMillis);
         builder.endObject();
         return builder;
     }
@@ -157,6 +179,8 @@ public class MergeStats implements Streamable, ToXContent {
         static final XContentBuilderString TOTAL_DOCS = new XContentBuilderString("total_docs");
         static final XContentBuilderString TOTAL_SIZE = new XContentBuilderString("total_size");
         static final XContentBuilderString TOTAL_SIZE_IN_BYTES = new XContentBuilderString("total_size_in_bytes");
+        static final XContentBuilderString TOTAL_THROTTLED_TIME = new XContentBuilderString("total_throttled_time");
+        static final XContentBuilderString TOTAL_THROTTLED_TIME_IN_MILLIS = new XContentBuilderString("total_throttled_time_in_millis");
     }
 
     @Override
@@ -168,6 +192,7 @@ public class MergeStats implements Streamable, ToXContent {
         current = in.readVLong();
         currentNumDocs = in.readVLong();
         currentSizeInBytes = in.readVLong();
+        totalThrottledTimeInMillis = in.readVLong();
     }
 
     @Override
@@ -179,5 +204,6 @@ public class MergeStats implements Streamable, ToXContent {
         out.writeVLong(current);
         out.writeVLong(currentNumDocs);
         out.writeVLong(currentSizeInBytes);
+        out.writeVLong(totalThrottledTimeInMillis);
     }
 }
\ No newline at end of file
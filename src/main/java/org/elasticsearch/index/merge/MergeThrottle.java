@@ -0,0 +1,125 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.merge;
+
+import org.apache.lucene.store.StoreRateLimiting;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.RateLimiter;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.unit.ByteSizeValue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The merge I/O throttle of a shard. Outputs created by merges of the shard are rate limited at the
+ * (node assigned) rate of the throttle, and the time merges were paused is tracked. The merge schedulers
+ * call {@link #beforeMerge()} and {@link #afterMerge()} around each merge, so the node can re-split its
+ * budget as soon as merges start or finish.
+ */
+public class MergeThrottle implements StoreRateLimiting.Listener {
+
+    /**
+     * Notified (on the merging thread) when a merge of the shard starts or finishes.
+     */
+    public static interface Listener {
+
+        void onMergeStarted(MergeThrottle throttle);
+
+        void onMergeFinished(MergeThrottle throttle);
+    }
+
+    private final RateLimiter rateLimiter = new RateLimiter(0);
+    private volatile RateLimiter actualRateLimiter;
+
+    private volatile ByteSizeValue maxRate = new ByteSizeValue(0);
+
+    private final CounterMetric throttleTimeInNanos = new CounterMetric();
+
+    private final AtomicInteger currentMerges = new AtomicInteger();
+
+    private volatile Listener listener;
+
+    /**
+     * The rate limiter to use for merge outputs, <tt>null</tt> if not throttled.
+     */
+    @Nullable
+    public RateLimiter rateLimiter() {
+        return actualRateLimiter;
+    }
+
+    public ByteSizeValue maxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Sets the max rate (per second) merges are allowed to write at, <tt>0</tt> to disable throttling.
+     */
+    public synchronized void maxRate(ByteSizeValue rate) {
+        this.maxRate = rate;
+        if (rate.bytes() <= 0) {
+            actualRateLimiter = null;
+        } else {
+            rateLimiter.setMaxRate(rate.mbFrac());
+            actualRateLimiter = rateLimiter;
+        }
+    }
+
+    public void listener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * The number of merges of the shard currently running.
+     */
+    public int currentMerges() {
+        return currentMerges.get();
+    }
+
+    /**
+     * Called before a merge of the shard starts writing.
+     */
+    public void beforeMerge() {
+        currentMerges.incrementAndGet();
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onMergeStarted(this);
+        }
+    }
+
+    /**
+     * Called once a merge of the shard is done (or failed).
+     */
+    public void afterMerge() {
+        currentMerges.decrementAndGet();
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onMergeFinished(this);
+        }
+    }
+
+    @Override
+    public void onPause(long nanos) {
+        throttleTimeInNanos.inc(nanos);
+    }
+
+    public long throttleTimeInNanos() {
+        return throttleTimeInNanos.count();
+    }
+}
@@ -26,6 +26,7 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.merge.MergeStats;
+import org.elasticsearch.index.merge.MergeThrottle;
 import org.elasticsearch.index.merge.policy.EnableMergePolicy;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
@@ -34,6 +35,7 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -45,6 +47,8 @@ public class ConcurrentMergeSchedulerProvider extends AbstractIndexShardComponen
 
     private Set<CustomConcurrentMergeScheduler> schedulers = new CopyOnWriteArraySet<CustomConcurrentMergeScheduler>();
 
+    private final MergeThrottle throttle = new MergeThrottle();
+
     @Inject
     public ConcurrentMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings) {
         super(shardId, indexSettings);
@@ -71,9 +75,15 @@ public class ConcurrentMergeSchedulerProvider extends AbstractIndexShardComponen
             mergeStats.add(scheduler.totalMerges(), scheduler.totalMergeTime(), scheduler.totalMergeNumDocs(), scheduler.totalMergeSizeInBytes(),
                     scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes());
         }
+        mergeStats.addThrottledTime(TimeUnit.NANOSECONDS.toMillis(throttle.throttleTimeInNanos()));
         return mergeStats;
     }
 
+    @Override
+    public MergeThrottle throttle() {
+        return throttle;
+    }
+
     public static class CustomConcurrentMergeScheduler extends TrackingConcurrentMergeScheduler {
 
         private final ShardId shardId;
@@ -109,6 +119,18 @@ public class ConcurrentMergeSchedulerProvider extends AbstractIndexShardComponen
             }
         }
 
+        @Override
+        protected void doMerge(MergePolicy.OneMerge merge) throws IOException {
+            TrackingMergeScheduler.setCurrentMergeThrottle(provider.throttle);
+            provider.throttle.beforeMerge();
+            try {
+                super.doMerge(merge);
+            } finally {
+                provider.throttle.afterMerge();
+                TrackingMergeScheduler.removeCurrentMergeThrottle();
+            }
+        }
+
         @Override
         protected MergeThread getMergeThread(IndexWriter writer, MergePolicy.OneMerge merge) throws IOException {
             MergeThread thread = super.getMergeThread(writer, merge);
@@ -21,6 +21,7 @@ package org.elasticsearch.index.merge.scheduler;
 
 import org.apache.lucene.index.MergeScheduler;
 import org.elasticsearch.index.merge.MergeStats;
+import org.elasticsearch.index.merge.MergeThrottle;
 import org.elasticsearch.index.shard.IndexShardComponent;
 
 /**
@@ -31,4 +32,9 @@ public interface MergeSchedulerProvider<T extends MergeScheduler> extends IndexS
     T newMergeScheduler();
 
     MergeStats stats();
+
+    /**
+     * The merge I/O throttle of the shard, its rate is controlled by the node level merge budget.
+     */
+    MergeThrottle throttle();
 }
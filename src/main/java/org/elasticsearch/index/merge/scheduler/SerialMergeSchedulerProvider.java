@@ -21,13 +21,16 @@ package org.elasticsearch.index.merge.scheduler;
 
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.index.TrackingMergeScheduler;
 import org.apache.lucene.index.TrackingSerialMergeScheduler;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.merge.MergeStats;
+import org.elasticsearch.index.merge.MergeThrottle;
 import org.elasticsearch.index.merge.policy.EnableMergePolicy;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
@@ -36,6 +39,7 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -44,6 +48,8 @@ public class SerialMergeSchedulerProvider extends AbstractIndexShardComponent im
 
     private Set<CustomSerialMergeScheduler> schedulers = new CopyOnWriteArraySet<CustomSerialMergeScheduler>();
 
+    private final MergeThrottle throttle = new MergeThrottle();
+
     @Inject
     public SerialMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings) {
         super(shardId, indexSettings);
@@ -64,9 +70,15 @@ public class SerialMergeSchedulerProvider extends AbstractIndexShardComponent im
             mergeStats.add(scheduler.totalMerges(), scheduler.totalMergeTime(), scheduler.totalMergeNumDocs(), scheduler.totalMergeSizeInBytes(),
                     scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes());
         }
+        mergeStats.addThrottledTime(TimeUnit.NANOSECONDS.toMillis(throttle.throttleTimeInNanos()));
         return mergeStats;
     }
 
+    @Override
+    public MergeThrottle throttle() {
+        return throttle;
+    }
+
     public static class CustomSerialMergeScheduler extends TrackingSerialMergeScheduler {
 
         private final SerialMergeSchedulerProvider provider;
@@ -91,14 +103,27 @@ public class SerialMergeSchedulerProvider extends AbstractIndexShardComponent im
                 // since we do it outside of a lock in the RobinEngine
                 return;
             }
+            TrackingMergeScheduler.setCurrentMergeThrottle(provider.throttle);
             try {
                 super.merge(writer);
             } catch (IOException e) {
                 logger.warn("failed to merge", e);
                 throw e;
+            } finally {
+                TrackingMergeScheduler.removeCurrentMergeThrottle();
             }
         }
 
+        @Override
+        protected void beforeMerge(MergePolicy.OneMerge merge) {
+            provider.throttle.beforeMerge();
+        }
+
+        @Override
+        protected void afterMerge(MergePolicy.OneMerge merge) {
+            provider.throttle.afterMerge();
+        }
+
         @Override
         public void close() {
             super.close();
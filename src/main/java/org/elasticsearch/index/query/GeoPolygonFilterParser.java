@@ -172,12 +172,12 @@ public class GeoPolygonFilterParser implements FilterParser {
             throw new QueryParsingException(parseContext.index(), "failed to find geo_point field [" + fieldName + "]");
         }
         FieldMapper mapper = smartMappers.mapper();
-        if (mapper.fieldDataType() != GeoPointFieldDataType.TYPE) {
+        if (!(mapper.fieldDataType() instanceof GeoPointFieldDataType)) {
             throw new QueryParsingException(parseContext.index(), "field [" + fieldName + "] is not a geo_point field");
         }
         fieldName = mapper.names().indexName();
 
-        Filter filter = new GeoPolygonFilter(points.toArray(new Point[points.size()]), fieldName, parseContext.indexCache().fieldData());
+        Filter filter = new GeoPolygonFilter(points.toArray(new Point[points.size()]), fieldName, (GeoPointFieldDataType) mapper.fieldDataType(), parseContext.indexCache().fieldData());
         if (cache) {
             filter = parseContext.cacheFilter(filter, cacheKey);
         }
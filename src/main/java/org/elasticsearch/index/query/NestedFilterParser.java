@@ -129,7 +129,7 @@ public class NestedFilterParser implements FilterParser {
                 throw new QueryParsingException(parseContext.index(), "[nested] nested object under path [" + path + "] is not of nested type");
             }
 
-            Filter childFilter = parseContext.cacheFilter(objectMapper.nestedTypeFilter(), null);
+            Filter childFilter = parseContext.indexCache().fixedBitSetFilter().cache(objectMapper.nestedTypeFilter());
             usAsParentFilter.filter = childFilter;
             // wrap the child query to only work on the nested path type
             query = new FilteredQuery(query, childFilter);
@@ -142,7 +142,7 @@ public class NestedFilterParser implements FilterParser {
                 //    // filter based on the type...
                 //    parentFilter = mapper.docMapper().typeFilter();
                 //}
-                parentFilter = parseContext.cacheFilter(parentFilter, null);
+                parentFilter = parseContext.indexCache().fixedBitSetFilter().cache(parentFilter);
             }
 
             BlockJoinQuery joinQuery = new BlockJoinQuery(query, parentFilter, BlockJoinQuery.ScoreMode.None);
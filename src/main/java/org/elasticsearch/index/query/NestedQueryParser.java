@@ -137,7 +137,7 @@ public class NestedQueryParser implements QueryParser {
                 throw new QueryParsingException(parseContext.index(), "[nested] nested object under path [" + path + "] is not of nested type");
             }
 
-            Filter childFilter = parseContext.cacheFilter(objectMapper.nestedTypeFilter(), null);
+            Filter childFilter = parseContext.indexCache().fixedBitSetFilter().cache(objectMapper.nestedTypeFilter());
             usAsParentFilter.filter = childFilter;
             // wrap the child query to only work on the nested path type
             query = new FilteredQuery(query, childFilter);
@@ -150,7 +150,7 @@ public class NestedQueryParser implements QueryParser {
                 //    // filter based on the type...
                 //    parentFilter = mapper.docMapper().typeFilter();
                 //}
-                parentFilter = parseContext.cacheFilter(parentFilter, null);
+                parentFilter = parseContext.indexCache().fixedBitSetFilter().cache(parentFilter);
             }
 
             BlockJoinQuery joinQuery = new BlockJoinQuery(query, parentFilter, scoreMode);
@@ -87,6 +87,8 @@ public class GeoDistanceDataComparator extends FieldComparator<Double> {
 
     protected final String indexFieldName;
 
+    protected final GeoPointFieldDataType fieldDataType;
+
     protected final double lat;
 
     protected final double lon;
@@ -121,15 +123,16 @@ public class GeoDistanceDataComparator extends FieldComparator<Double> {
         if (mapper == null) {
             throw new ElasticSearchIllegalArgumentException("No mapping found for field [" + fieldName + "] for geo distance sort");
         }
-        if (mapper.fieldDataType() != GeoPointFieldDataType.TYPE) {
+        if (!(mapper.fieldDataType() instanceof GeoPointFieldDataType)) {
             throw new ElasticSearchIllegalArgumentException("field [" + fieldName + "] is not a geo_point field");
         }
         this.indexFieldName = mapper.names().indexName();
+        this.fieldDataType = (GeoPointFieldDataType) mapper.fieldDataType();
     }
 
     @Override
     public GeoDistanceDataComparator setNextReader(AtomicReaderContext context) throws IOException {
-        fieldData = (GeoPointFieldData) fieldDataCache.cache(GeoPointFieldDataType.TYPE, context.reader(), indexFieldName);
+        fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), indexFieldName);
         return this;
     }
 
@@ -21,9 +21,14 @@ package org.elasticsearch.index.search.geo;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.lucene.docset.AndDocSet;
 import org.elasticsearch.common.lucene.docset.DocSet;
@@ -36,11 +41,26 @@ import org.elasticsearch.index.mapper.geo.GeoPointFieldDataType;
 import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
 
 /**
+ * A filter for documents within a distance of a point. The bounding box of the distance can optionally be used to
+ * reduce the number of distance computations, either checked in memory (<tt>memory</tt>), using the indexed lat/lon
+ * numeric fields (<tt>indexed</tt>), or using geohash cells covering it (<tt>geohash</tt>), which requires the geo
+ * point field to index its geohash prefixes. With <tt>geohash</tt>, documents in cells that are completely within the
+ * distance match without computing the distance, and the distance is only computed for documents in the cells
+ * crossing the edge of the distance.
  */
 public class GeoDistanceFilter extends Filter {
 
+    /**
+     * The maximum number of geohash cells (terms) used to cover the bounding box of the distance.
+     */
+    static final int MAX_GEOHASH_CELLS = 256;
+
     private final double lat;
 
     private final double lon;
@@ -51,12 +71,18 @@ public class GeoDistanceFilter extends Filter {
 
     private final String fieldName;
 
+    private final GeoPointFieldDataType fieldDataType;
+
     private final FieldDataCache fieldDataCache;
 
     private final GeoDistance.FixedSourceDistance fixedSourceDistance;
     private GeoDistance.DistanceBoundingCheck distanceBoundingCheck;
     private final Filter boundingBoxFilter;
 
+    private final String geohashFieldName;
+    private final BytesRef[] innerGeohashCells;
+    private final BytesRef[] edgeGeohashCells;
+
     public GeoDistanceFilter(double lat, double lon, double distance, GeoDistance geoDistance, String fieldName, GeoPointFieldMapper mapper, FieldDataCache fieldDataCache,
                              String optimizeBbox) {
         this.lat = lat;
@@ -64,9 +90,13 @@ public class GeoDistanceFilter extends Filter {
         this.distance = distance;
         this.geoDistance = geoDistance;
         this.fieldName = fieldName;
+        this.fieldDataType = mapper.fieldDataType();
         this.fieldDataCache = fieldDataCache;
 
         this.fixedSourceDistance = geoDistance.fixedSourceDistance(lat, lon, DistanceUnit.MILES);
+        String geohashFieldName = null;
+        BytesRef[] innerGeohashCells = null;
+        BytesRef[] edgeGeohashCells = null;
         if (optimizeBbox != null && !"none".equals(optimizeBbox)) {
             distanceBoundingCheck = GeoDistance.distanceBoundingCheck(lat, lon, distance, DistanceUnit.MILES);
             if ("memory".equals(optimizeBbox)) {
@@ -74,6 +104,17 @@ public class GeoDistanceFilter extends Filter {
             } else if ("indexed".equals(optimizeBbox)) {
                 boundingBoxFilter = IndexedGeoBoundingBoxFilter.create(distanceBoundingCheck.topLeft(), distanceBoundingCheck.bottomRight(), mapper);
                 distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE; // fine, we do the bounding box check using the filter
+            } else if ("geohash".equals(optimizeBbox)) {
+                if (!mapper.isEnableGeohashPrefix()) {
+                    throw new ElasticSearchIllegalArgumentException("type [geohash] for bounding box optimization requires [geohash_prefix] to be enabled on [" + fieldName + "]");
+                }
+                boundingBoxFilter = null;
+                geohashFieldName = mapper.geohashMapper().names().indexName();
+                List<String> innerCells = new ArrayList<String>();
+                List<String> edgeCells = new ArrayList<String>();
+                coverWithGeohashCells(distanceBoundingCheck.topLeft(), distanceBoundingCheck.bottomRight(), mapper.geohashPrecision(), innerCells, edgeCells);
+                innerGeohashCells = toSortedBytesRefs(innerCells);
+                edgeGeohashCells = toSortedBytesRefs(edgeCells);
             } else {
                 throw new ElasticSearchIllegalArgumentException("type [" + optimizeBbox + "] for bounding box optimization not supported");
             }
@@ -81,6 +122,123 @@ public class GeoDistanceFilter extends Filter {
             distanceBoundingCheck = GeoDistance.ALWAYS_INSTANCE;
             boundingBoxFilter = null;
         }
+        this.geohashFieldName = geohashFieldName;
+        this.innerGeohashCells = innerGeohashCells;
+        this.edgeGeohashCells = edgeGeohashCells;
+    }
+
+    /**
+     * Covers the bounding box with geohash cells, starting with the finest level that needs only a few cells, and then
+     * dividing the cells crossing the edge of the distance into their sub cells while the number of cells allows it.
+     */
+    private void coverWithGeohashCells(Point topLeft, Point bottomRight, int precision, List<String> innerCells, List<String> edgeCells) {
+        double[][] lonRanges;
+        if (topLeft.lon > bottomRight.lon) {
+            // crosses the 180 meridian
+            lonRanges = new double[][]{{topLeft.lon, 180}, {-180, bottomRight.lon}};
+        } else {
+            lonRanges = new double[][]{{topLeft.lon, bottomRight.lon}};
+        }
+        double minLat = bottomRight.lat;
+        double maxLat = topLeft.lat;
+
+        int level = 1;
+        while (level < precision && countCells(minLat, maxLat, lonRanges, level + 1) <= GeoHashUtils.BASE_32_LENGTH) {
+            level++;
+        }
+
+        LinkedList<String> queue = new LinkedList<String>();
+        double width = GeoHashUtils.cellWidth(level);
+        double height = GeoHashUtils.cellHeight(level);
+        for (double[] lonRange : lonRanges) {
+            for (double cellLat = Math.floor((minLat + 90) / height) * height - 90; cellLat <= maxLat && cellLat < 90; cellLat += height) {
+                for (double cellLon = Math.floor((lonRange[0] + 180) / width) * width - 180; cellLon <= lonRange[1] && cellLon < 180; cellLon += width) {
+                    String cell = GeoHashUtils.encode(cellLat + height / 2, cellLon + width / 2, level);
+                    if (!queue.contains(cell)) {
+                        queue.add(cell);
+                    }
+                }
+            }
+        }
+
+        double[] center = new double[2];
+        // breadth first, so we always divide the biggest cells crossing the edge first
+        while (!queue.isEmpty()) {
+            String cell = queue.getFirst();
+            if (cell.length() >= precision || innerCells.size() + queue.size() - 1 + GeoHashUtils.BASE_32_LENGTH > MAX_GEOHASH_CELLS) {
+                break;
+            }
+            queue.removeFirst();
+            if (isInnerCell(cell, center)) {
+                innerCells.add(cell);
+                continue;
+            }
+            for (String subCell : GeoHashUtils.subCells(cell)) {
+                if (!intersects(subCell, center, minLat, maxLat, lonRanges)) {
+                    continue;
+                }
+                if (isInnerCell(subCell, center)) {
+                    innerCells.add(subCell);
+                } else {
+                    queue.add(subCell);
+                }
+            }
+        }
+        edgeCells.addAll(queue);
+    }
+
+    private static int countCells(double minLat, double maxLat, double[][] lonRanges, int level) {
+        double width = GeoHashUtils.cellWidth(level);
+        double height = GeoHashUtils.cellHeight(level);
+        int latCells = (int) (Math.floor((maxLat + 90) / height) - Math.floor((minLat + 90) / height)) + 1;
+        int lonCells = 0;
+        for (double[] lonRange : lonRanges) {
+            lonCells += (int) (Math.floor((lonRange[1] + 180) / width) - Math.floor((lonRange[0] + 180) / width)) + 1;
+        }
+        return latCells * lonCells;
+    }
+
+    private static boolean intersects(String cell, double[] center, double minLat, double maxLat, double[][] lonRanges) {
+        GeoHashUtils.decode(cell, center);
+        double halfHeight = GeoHashUtils.cellHeight(cell.length()) / 2;
+        if (center[0] + halfHeight < minLat || center[0] - halfHeight > maxLat) {
+            return false;
+        }
+        double halfWidth = GeoHashUtils.cellWidth(cell.length()) / 2;
+        for (double[] lonRange : lonRanges) {
+            if (center[1] + halfWidth >= lonRange[0] && center[1] - halfWidth <= lonRange[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A cell is completely within the distance if all its corners are, since the distance from the source point is
+     * maximal at the corners of a cell (for distances shorter than a quarter of the earth circumference).
+     */
+    private boolean isInnerCell(String cell, double[] center) {
+        if (geoDistance == GeoDistance.FACTOR) {
+            // not a distance, always compute it
+            return false;
+        }
+        GeoHashUtils.decode(cell, center);
+        double halfHeight = GeoHashUtils.cellHeight(cell.length()) / 2;
+        double halfWidth = GeoHashUtils.cellWidth(cell.length()) / 2;
+        return fixedSourceDistance.calculate(center[0] + halfHeight, center[1] - halfWidth) < distance
+                && fixedSourceDistance.calculate(center[0] + halfHeight, center[1] + halfWidth) < distance
+                && fixedSourceDistance.calculate(center[0] - halfHeight, center[1] - halfWidth) < distance
+                && fixedSourceDistance.calculate(center[0] - halfHeight, center[1] + halfWidth) < distance;
+    }
+
+    private static BytesRef[] toSortedBytesRefs(List<String> cells) {
+        BytesRef[] refs = new BytesRef[cells.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = new BytesRef(cells.get(i));
+        }
+        // sorted, so the terms enum only seeks forward
+        Arrays.sort(refs);
+        return refs;
     }
 
     public double lat() {
@@ -105,6 +263,9 @@ public class GeoDistanceFilter extends Filter {
 
     @Override
     public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
+        if (geohashFieldName != null) {
+            return geohashDocIdSet(context, acceptedDocs);
+        }
         DocSet boundingBoxDocSet = null;
         if (boundingBoxFilter != null) {
             DocIdSet docIdSet = boundingBoxFilter.getDocIdSet(context, acceptedDocs);
@@ -113,7 +274,7 @@ public class GeoDistanceFilter extends Filter {
             }
             boundingBoxDocSet = DocSets.convert(context.reader(), docIdSet);
         }
-        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(GeoPointFieldDataType.TYPE, context.reader(), fieldName);
+        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), fieldName);
         GeoDistanceDocSet distDocSet = new GeoDistanceDocSet(context.reader().maxDoc(), fieldData, fixedSourceDistance, distanceBoundingCheck, distance);
         if (boundingBoxDocSet == null) {
             return distDocSet;
@@ -122,6 +283,53 @@ public class GeoDistanceFilter extends Filter {
         }
     }
 
+    private DocIdSet geohashDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
+        Terms terms = context.reader().terms(geohashFieldName);
+        if (terms == null) {
+            return null;
+        }
+        final int maxDoc = context.reader().maxDoc();
+        FixedBitSet result = null;
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsEnum docsEnum = null;
+        for (BytesRef cell : innerGeohashCells) {
+            if (!termsEnum.seekExact(cell, false)) {
+                continue;
+            }
+            docsEnum = termsEnum.docs(acceptedDocs, docsEnum, 0);
+            for (int docId = docsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
+                if (result == null) {
+                    result = new FixedBitSet(maxDoc);
+                }
+                result.set(docId);
+            }
+        }
+        GeoDistanceDocSet distDocSet = null;
+        for (BytesRef cell : edgeGeohashCells) {
+            if (!termsEnum.seekExact(cell, false)) {
+                continue;
+            }
+            docsEnum = termsEnum.docs(acceptedDocs, docsEnum, 0);
+            for (int docId = docsEnum.nextDoc(); docId != DocsEnum.NO_MORE_DOCS; docId = docsEnum.nextDoc()) {
+                if (result != null && result.get(docId)) {
+                    continue;
+                }
+                if (distDocSet == null) {
+                    // only load the field data once we have a document to compute the distance for
+                    GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), fieldName);
+                    distDocSet = new GeoDistanceDocSet(maxDoc, fieldData, fixedSourceDistance, distanceBoundingCheck, distance);
+                }
+                if (distDocSet.get(docId)) {
+                    if (result == null) {
+                        result = new FixedBitSet(maxDoc);
+                    }
+                    result.set(docId);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
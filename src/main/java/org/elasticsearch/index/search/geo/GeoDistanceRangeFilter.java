@@ -56,6 +56,8 @@ public class GeoDistanceRangeFilter extends Filter {
 
     private final String fieldName;
 
+    private final GeoPointFieldDataType fieldDataType;
+
     private final FieldDataCache fieldDataCache;
 
     public GeoDistanceRangeFilter(double lat, double lon, Double lowerVal, Double upperVal, boolean includeLower, boolean includeUpper, GeoDistance geoDistance, String fieldName, GeoPointFieldMapper mapper, FieldDataCache fieldDataCache,
@@ -64,6 +66,7 @@ public class GeoDistanceRangeFilter extends Filter {
         this.lon = lon;
         this.geoDistance = geoDistance;
         this.fieldName = fieldName;
+        this.fieldDataType = mapper.fieldDataType();
         this.fieldDataCache = fieldDataCache;
 
         this.fixedSourceDistance = geoDistance.fixedSourceDistance(lat, lon, DistanceUnit.MILES);
@@ -129,7 +132,7 @@ public class GeoDistanceRangeFilter extends Filter {
             }
             boundingBoxDocSet = DocSets.convert(context.reader(), docIdSet);
         }
-        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(GeoPointFieldDataType.TYPE, context.reader(), fieldName);
+        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), fieldName);
         GeoDistanceRangeDocSet distDocSet = new GeoDistanceRangeDocSet(context.reader().maxDoc(), fieldData, fixedSourceDistance, distanceBoundingCheck, inclusiveLowerPoint, inclusiveUpperPoint);
         if (boundingBoxDocSet == null) {
             return distDocSet;
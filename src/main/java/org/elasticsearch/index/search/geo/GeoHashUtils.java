@@ -36,6 +36,11 @@ public class GeoHashUtils {
     private final static TIntIntHashMap DECODE_MAP = new TIntIntHashMap();
 
     public static final int PRECISION = 12;
+
+    /**
+     * The number of sub cells a geohash cell is divided into.
+     */
+    public static final int BASE_32_LENGTH = BASE_32.length;
     private static final int[] BITS = {16, 8, 4, 2, 1};
 
     static {
@@ -47,6 +52,33 @@ public class GeoHashUtils {
     private GeoHashUtils() {
     }
 
+    /**
+     * The width, in degrees of longitude, of a geohash cell of the given precision (length).
+     */
+    public static double cellWidth(int precision) {
+        int lonBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    /**
+     * The height, in degrees of latitude, of a geohash cell of the given precision (length).
+     */
+    public static double cellHeight(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    /**
+     * The geohashes of the 32 cells the given geohash cell is divided into.
+     */
+    public static String[] subCells(String geohash) {
+        String[] cells = new String[BASE_32.length];
+        for (int i = 0; i < BASE_32.length; i++) {
+            cells[i] = geohash + BASE_32[i];
+        }
+        return cells;
+    }
+
     public static String encode(double latitude, double longitude) {
         return encode(latitude, longitude, PRECISION);
     }
@@ -40,11 +40,14 @@ public class GeoPolygonFilter extends Filter {
 
     private final String fieldName;
 
+    private final GeoPointFieldDataType fieldDataType;
+
     private final FieldDataCache fieldDataCache;
 
-    public GeoPolygonFilter(Point[] points, String fieldName, FieldDataCache fieldDataCache) {
+    public GeoPolygonFilter(Point[] points, String fieldName, GeoPointFieldDataType fieldDataType, FieldDataCache fieldDataCache) {
         this.points = points;
         this.fieldName = fieldName;
+        this.fieldDataType = fieldDataType;
         this.fieldDataCache = fieldDataCache;
     }
 
@@ -58,7 +61,7 @@ public class GeoPolygonFilter extends Filter {
 
     @Override
     public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
-        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(GeoPointFieldDataType.TYPE, context.reader(), fieldName);
+        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), fieldName);
         return new GeoPolygonDocSet(context.reader().maxDoc(), fieldData, points);
     }
 
@@ -41,12 +41,15 @@ public class InMemoryGeoBoundingBoxFilter extends Filter {
 
     private final String fieldName;
 
+    private final GeoPointFieldDataType fieldDataType;
+
     private final FieldDataCache fieldDataCache;
 
-    public InMemoryGeoBoundingBoxFilter(Point topLeft, Point bottomRight, String fieldName, FieldDataCache fieldDataCache) {
+    public InMemoryGeoBoundingBoxFilter(Point topLeft, Point bottomRight, String fieldName, GeoPointFieldDataType fieldDataType, FieldDataCache fieldDataCache) {
         this.topLeft = topLeft;
         this.bottomRight = bottomRight;
         this.fieldName = fieldName;
+        this.fieldDataType = fieldDataType;
         this.fieldDataCache = fieldDataCache;
     }
 
@@ -64,7 +67,7 @@ public class InMemoryGeoBoundingBoxFilter extends Filter {
 
     @Override
     public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
-        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(GeoPointFieldDataType.TYPE, context.reader(), fieldName);
+        final GeoPointFieldData fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), fieldName);
 
         //checks to see if bounding box crosses 180 degrees
         if (topLeft.lon > bottomRight.lon) {
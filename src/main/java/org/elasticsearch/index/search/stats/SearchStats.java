@@ -46,17 +46,26 @@ public class SearchStats implements Streamable, ToXContent {
         private long fetchTimeInMillis;
         private long fetchCurrent;
 
+        @Nullable
+        private Map<String, Long> fetchSubPhaseTimeInMillis;
+
         Stats() {
 
         }
 
         public Stats(long queryCount, long queryTimeInMillis, long queryCurrent, long fetchCount, long fetchTimeInMillis, long fetchCurrent) {
+            this(queryCount, queryTimeInMillis, queryCurrent, fetchCount, fetchTimeInMillis, fetchCurrent, null);
+        }
+
+        public Stats(long queryCount, long queryTimeInMillis, long queryCurrent, long fetchCount, long fetchTimeInMillis, long fetchCurrent,
+                     @Nullable Map<String, Long> fetchSubPhaseTimeInMillis) {
             this.queryCount = queryCount;
             this.queryTimeInMillis = queryTimeInMillis;
             this.queryCurrent = queryCurrent;
             this.fetchCount = fetchCount;
             this.fetchTimeInMillis = fetchTimeInMillis;
             this.fetchCurrent = fetchCurrent;
+            this.fetchSubPhaseTimeInMillis = fetchSubPhaseTimeInMillis;
         }
 
         public void add(Stats stats) {
@@ -67,6 +76,16 @@ public class SearchStats implements Streamable, ToXContent {
             fetchCount += stats.fetchCount;
             fetchTimeInMillis += stats.fetchTimeInMillis;
             fetchCurrent += stats.fetchCurrent;
+
+            if (stats.fetchSubPhaseTimeInMillis != null && !stats.fetchSubPhaseTimeInMillis.isEmpty()) {
+                if (fetchSubPhaseTimeInMillis == null) {
+                    fetchSubPhaseTimeInMillis = new HashMap<String, Long>(stats.fetchSubPhaseTimeInMillis.size());
+                }
+                for (Map.Entry<String, Long> entry : stats.fetchSubPhaseTimeInMillis.entrySet()) {
+                    Long time = fetchSubPhaseTimeInMillis.get(entry.getKey());
+                    fetchSubPhaseTimeInMillis.put(entry.getKey(), time == null ? entry.getValue() : time + entry.getValue());
+                }
+            }
         }
 
         public long queryCount() {
@@ -125,6 +144,24 @@ public class SearchStats implements Streamable, ToXContent {
             return fetchCurrent;
         }
 
+        /**
+         * The time (in milliseconds) spent in each part of the fetch phase (loading the stored fields,
+         * highlighting, script fields, ...), <tt>null</tt> if not available.
+         */
+        @Nullable
+        public Map<String, Long> fetchSubPhaseTimeInMillis() {
+            return fetchSubPhaseTimeInMillis;
+        }
+
+        /**
+         * The time (in milliseconds) spent in each part of the fetch phase (loading the stored fields,
+         * highlighting, script fields, ...), <tt>null</tt> if not available.
+         */
+        @Nullable
+        public Map<String, Long> getFetchSubPhaseTimeInMillis() {
+            return fetchSubPhaseTimeInMillis();
+        }
+
 
         public static Stats readStats(StreamInput in) throws IOException {
             Stats stats = new Stats();
@@ -141,6 +178,14 @@ public class SearchStats implements Streamable, ToXContent {
             fetchCount = in.readVLong();
             fetchTimeInMillis = in.readVLong();
             fetchCurrent = in.readVLong();
+
+            if (in.readBoolean()) {
+                int size = in.readVInt();
+                fetchSubPhaseTimeInMillis = new HashMap<String, Long>(size);
+                for (int i = 0; i < size; i++) {
+                    fetchSubPhaseTimeInMillis.put(in.readString(), in.readVLong());
+                }
+            }
         }
 
         @Override
@@ -152,6 +197,17 @@ public class SearchStats implements Streamable, ToXContent {
             out.writeVLong(fetchCount);
             out.writeVLong(fetchTimeInMillis);
             out.writeVLong(fetchCurrent);
+
+            if (fetchSubPhaseTimeInMillis == null || fetchSubPhaseTimeInMillis.isEmpty()) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                out.writeVInt(fetchSubPhaseTimeInMillis.size());
+                for (Map.Entry<String, Long> entry : fetchSubPhaseTimeInMillis.entrySet()) {
+                    out.writeString(entry.getKey());
+                    out.writeVLong(entry.getValue());
+                }
+            }
         }
 
         @Override
@@ -166,6 +222,17 @@ public class SearchStats implements Streamable, ToXContent {
             builder.field(Fields.FETCH_TIME_IN_MILLIS, fetchTimeInMillis);
             builder.field(Fields.FETCH_CURRENT, fetchCurrent);
 
+            if (fetchSubPhaseTimeInMillis != null && !fetchSubPhaseTimeInMillis.isEmpty()) {
+                builder.startObject(Fields.FETCH_PHASES);
+                for (Map.Entry<String, Long> entry : fetchSubPhaseTimeInMillis.entrySet()) {
+                    builder.startObject(entry.getKey(), XContentBuilder.FieldCaseConversion.NONE);
+                    builder.field(Fields.TIME, new TimeValue(entry.getValue()).toString());
+                    builder.field(Fields.TIME_IN_MILLIS, entry.getValue());
+                    builder.endObject();
+                }
+                builder.endObject();
+            }
+
             return builder;
         }
     }
@@ -245,6 +312,9 @@ public class SearchStats implements Streamable, ToXContent {
         static final XContentBuilderString FETCH_TIME = new XContentBuilderString("fetch_time");
         static final XContentBuilderString FETCH_TIME_IN_MILLIS = new XContentBuilderString("fetch_time_in_millis");
         static final XContentBuilderString FETCH_CURRENT = new XContentBuilderString("fetch_current");
+        static final XContentBuilderString FETCH_PHASES = new XContentBuilderString("fetch_phases");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
     }
 
     public static SearchStats readSearchStats(StreamInput in) throws IOException {
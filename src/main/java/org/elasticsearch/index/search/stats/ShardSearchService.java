@@ -25,6 +25,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.search.slowlog.ShardSlowLogSearchService;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
@@ -33,6 +34,7 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -141,6 +143,18 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         slowLogSearchService.onFetchPhase(searchContext, tookInNanos);
     }
 
+    /**
+     * Records the time spent in a part of the fetch phase (like loading stored fields, or highlighting).
+     */
+    public void onFetchSubPhase(SearchContext searchContext, String subPhase, long tookInNanos) {
+        totalStats.fetchSubPhaseMetric(subPhase).inc(tookInNanos);
+        if (searchContext.groupStats() != null) {
+            for (int i = 0; i < searchContext.groupStats().size(); i++) {
+                groupStats(searchContext.groupStats().get(i)).fetchSubPhaseMetric(subPhase).inc(tookInNanos);
+            }
+        }
+    }
+
     public void clear() {
         totalStats.clear();
         synchronized (this) {
@@ -176,11 +190,32 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         public final MeanMetric fetchMetric = new MeanMetric();
         public final CounterMetric queryCurrent = new CounterMetric();
         public final CounterMetric fetchCurrent = new CounterMetric();
+        public final ConcurrentMap<String, CounterMetric> fetchSubPhaseMetrics = ConcurrentCollections.newConcurrentMap();
+
+        public CounterMetric fetchSubPhaseMetric(String subPhase) {
+            CounterMetric metric = fetchSubPhaseMetrics.get(subPhase);
+            if (metric == null) {
+                metric = new CounterMetric();
+                CounterMetric existing = fetchSubPhaseMetrics.putIfAbsent(subPhase, metric);
+                if (existing != null) {
+                    metric = existing;
+                }
+            }
+            return metric;
+        }
 
         public SearchStats.Stats stats() {
+            Map<String, Long> fetchSubPhaseTimeInMillis = null;
+            if (!fetchSubPhaseMetrics.isEmpty()) {
+                fetchSubPhaseTimeInMillis = new HashMap<String, Long>(fetchSubPhaseMetrics.size());
+                for (Map.Entry<String, CounterMetric> entry : fetchSubPhaseMetrics.entrySet()) {
+                    fetchSubPhaseTimeInMillis.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().count()));
+                }
+            }
             return new SearchStats.Stats(
                     queryMetric.count(), TimeUnit.NANOSECONDS.toMillis(queryMetric.sum()), queryCurrent.count(),
-                    fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count());
+                    fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count(),
+                    fetchSubPhaseTimeInMillis);
         }
 
         public long totalCurrent() {
@@ -190,6 +225,7 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         public void clear() {
             queryMetric.clear();
             fetchMetric.clear();
+            fetchSubPhaseMetrics.clear();
         }
     }
 }
@@ -371,7 +371,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         query = filterQueryIfNeeded(query, types);
 
         Filter aliasFilter = indexAliasesService.aliasFilter(filteringAliases);
-        Filter parentFilter = mapperService.hasNested() ? indexCache.filter().cache(NonNestedDocsFilter.INSTANCE) : null;
+        Filter parentFilter = mapperService.hasNested() ? indexCache.fixedBitSetFilter().cache(NonNestedDocsFilter.INSTANCE) : null;
         return new Engine.DeleteByQuery(query, querySource, filteringAliases, aliasFilter, parentFilter, types).startTime(startTime);
     }
 
@@ -547,6 +547,18 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         engine.start();
     }
 
+    /**
+     * After the store has been recovered from a peer, we need to start the engine in order to apply operations
+     * from the provided primary translog, which is recorded with the following commits.
+     */
+    public void performRecoveryPrepareForTranslog(long recoveryTranslogId, String recoveryTranslogUuid) throws ElasticSearchException {
+        if (state != IndexShardState.RECOVERING) {
+            throw new IndexShardNotRecoveringException(shardId, state);
+        }
+        engine.recoveryTranslog(recoveryTranslogId, recoveryTranslogUuid);
+        performRecoveryPrepareForTranslog();
+    }
+
     /**
      * The peer recovery status if this shard recovered from a peer shard.
      */
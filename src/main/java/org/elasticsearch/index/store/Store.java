@@ -22,7 +22,6 @@ package org.elasticsearch.index.store;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
-import jsr166y.ThreadLocalRandom;
 import org.apache.lucene.store.*;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.Strings;
@@ -34,12 +33,14 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Directories;
 import org.elasticsearch.common.lucene.store.BufferedChecksumIndexOutput;
 import org.elasticsearch.common.lucene.store.ChecksumIndexOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.distributor.Distributor;
 import org.elasticsearch.index.store.support.ForceSyncDirectory;
 
 import java.io.File;
@@ -91,8 +92,12 @@ public class Store extends AbstractIndexShardComponent {
 
     private final DirectoryService directoryService;
 
+    private final Distributor distributor;
+
     private final StoreDirectory directory;
 
+    private final ImmutableMap<Directory, CounterMetric> writtenBytes;
+
     private volatile ImmutableMap<String, StoreFileMetaData> filesMetadata = ImmutableMap.of();
 
     private volatile String[] files = Strings.EMPTY_ARRAY;
@@ -108,18 +113,25 @@ public class Store extends AbstractIndexShardComponent {
 
 
     @Inject
-    public Store(ShardId shardId, @IndexSettings Settings indexSettings, IndexStore indexStore, IndexSettingsService indexSettingsService, DirectoryService directoryService) throws IOException {
+    public Store(ShardId shardId, @IndexSettings Settings indexSettings, IndexStore indexStore, IndexSettingsService indexSettingsService,
+                 DirectoryService directoryService, Distributor distributor) throws IOException {
         super(shardId, indexSettings);
         this.indexStore = indexStore;
         this.indexSettingsService = indexSettingsService;
         this.directoryService = directoryService;
+        this.distributor = distributor;
         this.sync = componentSettings.getAsBoolean("sync", true); // TODO we don't really need to fsync when using shared gateway...
-        this.directory = new StoreDirectory(directoryService.build());
+        ImmutableMap.Builder<Directory, CounterMetric> writtenBytes = ImmutableMap.builder();
+        for (Directory delegate : distributor.all()) {
+            writtenBytes.put(delegate, new CounterMetric());
+        }
+        this.writtenBytes = writtenBytes.build();
+        this.directory = new StoreDirectory(distributor);
 
         this.compressStored = componentSettings.getAsBoolean("compress.stored", false);
         this.compressTv = componentSettings.getAsBoolean("compress.tv", false);
 
-        logger.debug("using compress.stored [{}], compress.tv [{}]", compressStored, compressTv);
+        logger.debug("using compress.stored [{}], compress.tv [{}], distributor [{}]", compressStored, compressTv, distributor);
 
         indexSettingsService.addListener(applySettings);
     }
@@ -188,7 +200,24 @@ public class Store extends AbstractIndexShardComponent {
     }
 
     public StoreStats stats() throws IOException {
-        return new StoreStats(Directories.estimateSize(directory), directoryService.throttleTimeInNanos());
+        Directory[] delegates = distributor.all();
+        StoreStats.PathStats[] paths = new StoreStats.PathStats[delegates.length];
+        for (int i = 0; i < delegates.length; i++) {
+            int numberOfFiles = 0;
+            for (StoreFileMetaData md : filesMetadata.values()) {
+                if (md.directory() == delegates[i]) {
+                    numberOfFiles++;
+                }
+            }
+            String path;
+            if (delegates[i] instanceof FSDirectory) {
+                path = ((FSDirectory) delegates[i]).getDirectory().getAbsolutePath();
+            } else {
+                path = delegates[i].toString();
+            }
+            paths[i] = new StoreStats.PathStats(path, numberOfFiles, writtenBytes.get(delegates[i]).count());
+        }
+        return new StoreStats(Directories.estimateSize(directory), directoryService.throttleTimeInNanos(), paths);
     }
 
     public ByteSizeValue estimateSize() throws IOException {
@@ -341,10 +370,13 @@ public class Store extends AbstractIndexShardComponent {
      */
     class StoreDirectory extends Directory implements ForceSyncDirectory {
 
+        private final Distributor distributor;
+
         private final Directory[] delegates;
 
-        StoreDirectory(Directory[] delegates) throws IOException {
-            this.delegates = delegates;
+        StoreDirectory(Distributor distributor) throws IOException {
+            this.distributor = distributor;
+            this.delegates = distributor.all();
             synchronized (mutex) {
                 MapBuilder<String, StoreFileMetaData> builder = MapBuilder.newMapBuilder();
                 Map<String, String> checksums = readChecksums(delegates, new HashMap<String, String>());
@@ -441,29 +473,11 @@ public class Store extends AbstractIndexShardComponent {
         }
 
         public IndexOutput createOutput(String name, IOContext context, boolean raw) throws IOException {
-            Directory directory = null;
+            Directory directory;
             if (isChecksum(name)) {
-                directory = delegates[0];
+                directory = distributor.primary();
             } else {
-                if (delegates.length == 1) {
-                    directory = delegates[0];
-                } else {
-                    long size = Long.MIN_VALUE;
-                    for (Directory delegate : delegates) {
-                        if (delegate instanceof FSDirectory) {
-                            long currentSize = ((FSDirectory) delegate).getDirectory().getUsableSpace();
-                            if (currentSize > size) {
-                                size = currentSize;
-                                directory = delegate;
-                            } else if (currentSize == size && ThreadLocalRandom.current().nextBoolean()) {
-                                directory = delegate;
-                            } else {
-                            }
-                        } else {
-                            directory = delegate; // really, make sense to have multiple directories for FS
-                        }
-                    }
-                }
+                directory = distributor.any();
             }
             IndexOutput out = directory.createOutput(name, context);
             synchronized (mutex) {
@@ -536,27 +550,27 @@ public class Store extends AbstractIndexShardComponent {
 
         @Override
         public Lock makeLock(String name) {
-            return delegates[0].makeLock(name);
+            return distributor.primary().makeLock(name);
         }
 
         @Override
         public void clearLock(String name) throws IOException {
-            delegates[0].clearLock(name);
+            distributor.primary().clearLock(name);
         }
 
         @Override
         public void setLockFactory(LockFactory lockFactory) throws IOException {
-            delegates[0].setLockFactory(lockFactory);
+            distributor.primary().setLockFactory(lockFactory);
         }
 
         @Override
         public LockFactory getLockFactory() {
-            return delegates[0].getLockFactory();
+            return distributor.primary().getLockFactory();
         }
 
         @Override
         public String getLockID() {
-            return delegates[0].getLockID();
+            return distributor.primary().getLockID();
         }
 
         @Override
@@ -621,8 +635,13 @@ public class Store extends AbstractIndexShardComponent {
             } else if (underlying instanceof ChecksumIndexOutput) {
                 checksum = Long.toString(((ChecksumIndexOutput) underlying).digest().getValue(), Character.MAX_RADIX);
             }
+            long length = metaData.directory().fileLength(name);
+            CounterMetric written = writtenBytes.get(metaData.directory());
+            if (written != null) {
+                written.inc(length);
+            }
             synchronized (mutex) {
-                StoreFileMetaData md = new StoreFileMetaData(name, metaData.directory().fileLength(name), checksum, metaData.directory());
+                StoreFileMetaData md = new StoreFileMetaData(name, length, checksum, metaData.directory());
                 filesMetadata = MapBuilder.newMapBuilder(filesMetadata).put(name, md).immutableMap();
                 files = filesMetadata.keySet().toArray(new String[filesMetadata.size()]);
             }
@@ -21,6 +21,10 @@ package org.elasticsearch.index.store;
 
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.store.distributor.Distributor;
+import org.elasticsearch.index.store.distributor.LeastUsedDistributor;
+import org.elasticsearch.index.store.distributor.LoadAwareDistributor;
+import org.elasticsearch.index.store.distributor.WeightedRoundRobinDistributor;
 import org.elasticsearch.jmx.JmxService;
 
 /**
@@ -40,9 +44,25 @@ public class StoreModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(DirectoryService.class).to(indexStore.shardDirectory()).asEagerSingleton();
+        bind(Distributor.class).to(loadDistributor()).asEagerSingleton();
         bind(Store.class).asEagerSingleton();
         if (JmxService.shouldExport(settings)) {
             bind(StoreManagement.class).asEagerSingleton();
         }
     }
+
+    private Class<? extends Distributor> loadDistributor() {
+        final Class<? extends Distributor> distributor;
+        final String type = settings.get("index.store.distributor");
+        if ("least_used".equals(type)) {
+            distributor = LeastUsedDistributor.class;
+        } else if ("weighted_round_robin".equals(type)) {
+            distributor = WeightedRoundRobinDistributor.class;
+        } else if ("load_aware".equals(type)) {
+            distributor = LoadAwareDistributor.class;
+        } else {
+            distributor = settings.getAsClass("index.store.distributor", LeastUsedDistributor.class);
+        }
+        return distributor;
+    }
 }
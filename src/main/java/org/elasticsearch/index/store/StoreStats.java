@@ -29,22 +29,33 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  */
 public class StoreStats implements Streamable, ToXContent {
 
+    private static final PathStats[] EMPTY_PATHS = new PathStats[0];
+
     private long sizeInBytes;
 
     private long throttleTimeInNanos;
 
+    private PathStats[] paths = EMPTY_PATHS;
+
     public StoreStats() {
 
     }
 
     public StoreStats(long sizeInBytes, long throttleTimeInNanos) {
+        this(sizeInBytes, throttleTimeInNanos, EMPTY_PATHS);
+    }
+
+    public StoreStats(long sizeInBytes, long throttleTimeInNanos, PathStats[] paths) {
         this.sizeInBytes = sizeInBytes;
         this.throttleTimeInNanos = throttleTimeInNanos;
+        this.paths = paths;
     }
 
     public void add(StoreStats stats) {
@@ -53,6 +64,22 @@ public class StoreStats implements Streamable, ToXContent {
         }
         sizeInBytes += stats.sizeInBytes;
         throttleTimeInNanos += stats.throttleTimeInNanos;
+        if (stats.paths.length > 0) {
+            Map<String, PathStats> merged = new LinkedHashMap<String, PathStats>();
+            for (PathStats path : paths) {
+                merged.put(path.path, new PathStats(path.path, path.numberOfFiles, path.writtenInBytes));
+            }
+            for (PathStats path : stats.paths) {
+                PathStats existing = merged.get(path.path);
+                if (existing == null) {
+                    merged.put(path.path, new PathStats(path.path, path.numberOfFiles, path.writtenInBytes));
+                } else {
+                    existing.numberOfFiles += path.numberOfFiles;
+                    existing.writtenInBytes += path.writtenInBytes;
+                }
+            }
+            paths = merged.values().toArray(new PathStats[merged.size()]);
+        }
     }
 
 
@@ -80,6 +107,20 @@ public class StoreStats implements Streamable, ToXContent {
         return throttleTime();
     }
 
+    /**
+     * Per data path stats, one entry for each of the directories the store distributes its files across.
+     */
+    public PathStats[] paths() {
+        return paths;
+    }
+
+    /**
+     * Per data path stats, one entry for each of the directories the store distributes its files across.
+     */
+    public PathStats[] getPaths() {
+        return paths();
+    }
+
     public static StoreStats readStoreStats(StreamInput in) throws IOException {
         StoreStats store = new StoreStats();
         store.readFrom(in);
@@ -90,12 +131,25 @@ public class StoreStats implements Streamable, ToXContent {
     public void readFrom(StreamInput in) throws IOException {
         sizeInBytes = in.readVLong();
         throttleTimeInNanos = in.readVLong();
+        int size = in.readVInt();
+        if (size == 0) {
+            paths = EMPTY_PATHS;
+        } else {
+            paths = new PathStats[size];
+            for (int i = 0; i < size; i++) {
+                paths[i] = PathStats.readPathStats(in);
+            }
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(sizeInBytes);
         out.writeVLong(throttleTimeInNanos);
+        out.writeVInt(paths.length);
+        for (PathStats path : paths) {
+            path.writeTo(out);
+        }
     }
 
     @Override
@@ -105,6 +159,13 @@ public class StoreStats implements Streamable, ToXContent {
         builder.field(Fields.SIZE_IN_BYTES, sizeInBytes);
         builder.field(Fields.THROTTLE_TIME, throttleTime().toString());
         builder.field(Fields.THROTTLE_TIME_IN_MILLIS, throttleTime().millis());
+        if (paths.length > 0) {
+            builder.startArray(Fields.PATHS);
+            for (PathStats path : paths) {
+                path.toXContent(builder, params);
+            }
+            builder.endArray();
+        }
         builder.endObject();
         return builder;
     }
@@ -116,5 +177,94 @@ public class StoreStats implements Streamable, ToXContent {
 
         static final XContentBuilderString THROTTLE_TIME = new XContentBuilderString("throttle_time");
         static final XContentBuilderString THROTTLE_TIME_IN_MILLIS = new XContentBuilderString("throttle_time_in_millis");
+
+        static final XContentBuilderString PATHS = new XContentBuilderString("paths");
+        static final XContentBuilderString PATH = new XContentBuilderString("path");
+        static final XContentBuilderString FILES = new XContentBuilderString("files");
+        static final XContentBuilderString WRITTEN = new XContentBuilderString("written");
+        static final XContentBuilderString WRITTEN_IN_BYTES = new XContentBuilderString("written_in_bytes");
+    }
+
+    /**
+     * Stats of a single data path of a store, the number of files it holds and the bytes written to it.
+     */
+    public static class PathStats implements Streamable, ToXContent {
+
+        private String path;
+
+        private long numberOfFiles;
+
+        private long writtenInBytes;
+
+        PathStats() {
+
+        }
+
+        public PathStats(String path, long numberOfFiles, long writtenInBytes) {
+            this.path = path;
+            this.numberOfFiles = numberOfFiles;
+            this.writtenInBytes = writtenInBytes;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public String getPath() {
+            return path();
+        }
+
+        public long numberOfFiles() {
+            return numberOfFiles;
+        }
+
+        public long getNumberOfFiles() {
+            return numberOfFiles();
+        }
+
+        /**
+         * The total bytes written to this path since the store was opened.
+         */
+        public ByteSizeValue written() {
+            return new ByteSizeValue(writtenInBytes);
+        }
+
+        /**
+         * The total bytes written to this path since the store was opened.
+         */
+        public ByteSizeValue getWritten() {
+            return written();
+        }
+
+        public static PathStats readPathStats(StreamInput in) throws IOException {
+            PathStats path = new PathStats();
+            path.readFrom(in);
+            return path;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            path = in.readString();
+            numberOfFiles = in.readVLong();
+            writtenInBytes = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(path);
+            out.writeVLong(numberOfFiles);
+            out.writeVLong(writtenInBytes);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(Fields.PATH, path);
+            builder.field(Fields.FILES, numberOfFiles);
+            builder.field(Fields.WRITTEN, written().toString());
+            builder.field(Fields.WRITTEN_IN_BYTES, writtenInBytes);
+            builder.endObject();
+            return builder;
+        }
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store.distributor;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.elasticsearch.index.store.DirectoryService;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Base class for the distributors, builds the directories using the {@link DirectoryService} and short
+ * circuits the selection when there is only a single directory.
+ */
+public abstract class AbstractDistributor implements Distributor {
+
+    protected final Directory[] delegates;
+
+    protected AbstractDistributor(DirectoryService directoryService) throws IOException {
+        delegates = directoryService.build();
+    }
+
+    @Override
+    public Directory[] all() {
+        return delegates;
+    }
+
+    @Override
+    public Directory primary() {
+        return delegates[0];
+    }
+
+    @Override
+    public Directory any() throws IOException {
+        if (delegates.length == 1) {
+            return delegates[0];
+        } else {
+            return doAny();
+        }
+    }
+
+    /**
+     * The usable space (in bytes) left for the directory, <tt>-1</tt> if it can't be computed
+     * (not a file system based directory).
+     */
+    protected long getUsableSpace(Directory directory) {
+        if (directory instanceof FSDirectory) {
+            return ((FSDirectory) directory).getDirectory().getUsableSpace();
+        }
+        return -1;
+    }
+
+    /**
+     * Selects one of the (more than one) directories.
+     */
+    protected abstract Directory doAny() throws IOException;
+
+    /**
+     * The name of the strategy, used in {@link #toString()}.
+     */
+    protected abstract String name();
+
+    @Override
+    public String toString() {
+        return name() + Arrays.toString(delegates);
+    }
+}
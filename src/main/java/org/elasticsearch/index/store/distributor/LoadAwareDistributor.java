@@ -0,0 +1,98 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store.distributor;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.index.store.DirectoryService;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.monitor.fs.FsStats;
+
+import java.io.IOException;
+
+/**
+ * Implements an I/O load aware directory distribution strategy, selecting the directory with the
+ * shortest disk queue (as reported by the node {@link FsStats}), and falling back to the directory
+ * with the most usable space when the disk queues are equal or not available (for example, without sigar).
+ */
+public class LoadAwareDistributor extends AbstractDistributor {
+
+    private final FsService fsService;
+
+    @Inject
+    public LoadAwareDistributor(DirectoryService directoryService, FsService fsService) throws IOException {
+        super(directoryService);
+        this.fsService = fsService;
+    }
+
+    @Override
+    protected Directory doAny() throws IOException {
+        FsStats fsStats = fsService.stats();
+        double[] queues = new double[delegates.length];
+        for (int i = 0; i < delegates.length; i++) {
+            queues[i] = diskQueue(fsStats, delegates[i]);
+            if (queues[i] < 0) {
+                // no disk queue information for one of the directories, can't compare loads, only use the usable space
+                queues = new double[delegates.length];
+                break;
+            }
+        }
+        Directory directory = null;
+        double minQueue = Double.MAX_VALUE;
+        long maxUsableSpace = Long.MIN_VALUE;
+        for (int i = 0; i < delegates.length; i++) {
+            long usableSpace = getUsableSpace(delegates[i]);
+            if (queues[i] < minQueue || (queues[i] == minQueue && usableSpace > maxUsableSpace)) {
+                minQueue = queues[i];
+                maxUsableSpace = usableSpace;
+                directory = delegates[i];
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * The disk queue of the data location the directory resides in, <tt>-1</tt> if not available.
+     */
+    private double diskQueue(FsStats fsStats, Directory directory) {
+        if (!(directory instanceof FSDirectory)) {
+            return -1;
+        }
+        String path = ((FSDirectory) directory).getDirectory().getAbsolutePath();
+        FsStats.Info match = null;
+        for (FsStats.Info info : fsStats) {
+            if (info.path() != null && path.startsWith(info.path())) {
+                if (match == null || info.path().length() > match.path().length()) {
+                    match = info;
+                }
+            }
+        }
+        if (match == null) {
+            return -1;
+        }
+        return match.diskQueue();
+    }
+
+    @Override
+    protected String name() {
+        return "load_aware";
+    }
+}
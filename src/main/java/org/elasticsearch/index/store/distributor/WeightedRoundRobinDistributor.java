@@ -0,0 +1,75 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store.distributor;
+
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.index.store.DirectoryService;
+
+import java.io.IOException;
+
+/**
+ * Implements a (smooth) weighted round robin directory distribution strategy, where each directory is
+ * selected in proportion to its usable space. Unlike the {@link LeastUsedDistributor}, concurrent file
+ * creations (like several merges running at once) are spread across all directories, and the selections
+ * of a directory are interleaved with the other ones instead of coming in bursts. Directories without
+ * usable space are not selected, and a plain round robin is used when no space information is available.
+ */
+public class WeightedRoundRobinDistributor extends AbstractDistributor {
+
+    private final long[] currentWeights;
+
+    private int next;
+
+    @Inject
+    public WeightedRoundRobinDistributor(DirectoryService directoryService) throws IOException {
+        super(directoryService);
+        this.currentWeights = new long[delegates.length];
+    }
+
+    @Override
+    protected synchronized Directory doAny() {
+        long totalWeight = 0;
+        int selected = -1;
+        for (int i = 0; i < delegates.length; i++) {
+            long weight = Math.max(0, getUsableSpace(delegates[i]));
+            if (weight == 0) {
+                continue;
+            }
+            totalWeight += weight;
+            currentWeights[i] += weight;
+            if (selected == -1 || currentWeights[i] > currentWeights[selected]) {
+                selected = i;
+            }
+        }
+        if (selected == -1) {
+            // no space information, fall back to a plain round robin
+            next = (next + 1) % delegates.length;
+            return delegates[next];
+        }
+        currentWeights[selected] -= totalWeight;
+        return delegates[selected];
+    }
+
+    @Override
+    protected String name() {
+        return "weighted_round_robin";
+    }
+}
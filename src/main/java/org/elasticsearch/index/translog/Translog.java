@@ -42,6 +42,24 @@ public interface Translog extends IndexShardComponent {
 
     public static final String TRANSLOG_ID_KEY = "translog_id";
 
+    /**
+     * The commit user data key holding the id of the primary translog this shard copy was last recovered
+     * against. The commit is known to contain all operations that were done before that translog was created.
+     */
+    public static final String RECOVERY_TRANSLOG_ID_KEY = "recovery_translog_id";
+
+    /**
+     * The commit user data key holding the {@link #uuid()} of the primary translog this shard copy was
+     * last recovered against.
+     */
+    public static final String RECOVERY_TRANSLOG_UUID_KEY = "recovery_translog_uuid";
+
+    /**
+     * A unique id of this translog instance. Translog ids are only comparable between translogs with the
+     * same uuid.
+     */
+    String uuid();
+
     /**
      * Returns the id of the current transaction log.
      */
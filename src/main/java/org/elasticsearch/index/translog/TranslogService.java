@@ -59,6 +59,8 @@ public class TranslogService extends AbstractIndexShardComponent {
 
     private TimeValue flushThresholdPeriod;
 
+    private ByteSizeValue retentionSize;
+
     private boolean disableFlush;
 
     private final TimeValue interval;
@@ -80,8 +82,9 @@ public class TranslogService extends AbstractIndexShardComponent {
         this.flushThresholdPeriod = componentSettings.getAsTime("flush_threshold_period", TimeValue.timeValueMinutes(30));
         this.interval = componentSettings.getAsTime("interval", timeValueMillis(5000));
         this.disableFlush = componentSettings.getAsBoolean("disable_flush", false);
+        this.retentionSize = componentSettings.getAsBytesSize("retention_size", new ByteSizeValue(0));
 
-        logger.debug("interval [{}], flush_threshold_ops [{}], flush_threshold_size [{}], flush_threshold_period [{}]", interval, flushThresholdOperations, flushThresholdSize, flushThresholdPeriod);
+        logger.debug("interval [{}], flush_threshold_ops [{}], flush_threshold_size [{}], flush_threshold_period [{}], retention_size [{}]", interval, flushThresholdOperations, flushThresholdSize, flushThresholdPeriod, retentionSize);
 
         this.future = threadPool.schedule(interval, ThreadPool.Names.SAME, new TranslogBasedFlush());
 
@@ -99,7 +102,8 @@ public class TranslogService extends AbstractIndexShardComponent {
                 "index.translog.flush_threshold_ops",
                 "index.translog.flush_threshold_size",
                 "index.translog.flush_threshold_period",
-                "index.translog.disable_flush"
+                "index.translog.disable_flush",
+                "index.translog.retention_size"
         );
     }
 
@@ -126,6 +130,11 @@ public class TranslogService extends AbstractIndexShardComponent {
                 logger.info("updating disable_flush from [{}] to [{}]", TranslogService.this.disableFlush, disableFlush);
                 TranslogService.this.disableFlush = disableFlush;
             }
+            ByteSizeValue retentionSize = settings.getAsBytesSize("index.translog.retention_size", TranslogService.this.retentionSize);
+            if (!retentionSize.equals(TranslogService.this.retentionSize)) {
+                logger.info("updating retention_size from [{}] to [{}]", TranslogService.this.retentionSize, retentionSize);
+                TranslogService.this.retentionSize = retentionSize;
+            }
         }
     }
 
@@ -133,6 +142,11 @@ public class TranslogService extends AbstractIndexShardComponent {
 
         private volatile long lastFlushTime = System.currentTimeMillis();
 
+        // the state of the translog at the last commit that retained it, thresholds only apply to what was added since
+        private volatile long committedTranslogId = -1;
+        private volatile int committedOperations;
+        private volatile long committedSizeInBytes;
+
         @Override
         public void run() {
             if (indexShard.state() == IndexShardState.CLOSED) {
@@ -150,8 +164,13 @@ public class TranslogService extends AbstractIndexShardComponent {
                 return;
             }
 
+            if (translog.currentId() != committedTranslogId) {
+                committedOperations = 0;
+                committedSizeInBytes = 0;
+            }
+
             if (flushThresholdOperations > 0) {
-                int currentNumberOfOperations = translog.estimatedNumberOfOperations();
+                int currentNumberOfOperations = translog.estimatedNumberOfOperations() - committedOperations;
                 if (currentNumberOfOperations > flushThresholdOperations) {
                     logger.trace("flushing translog, operations [{}], breached [{}]", currentNumberOfOperations, flushThresholdOperations);
                     asyncFlushAndReschedule();
@@ -160,7 +179,7 @@ public class TranslogService extends AbstractIndexShardComponent {
             }
 
             if (flushThresholdSize.bytes() > 0) {
-                long sizeInBytes = translog.translogSizeInBytes();
+                long sizeInBytes = translog.translogSizeInBytes() - committedSizeInBytes;
                 if (sizeInBytes > flushThresholdSize.bytes()) {
                     logger.trace("flushing translog, size [{}], breached [{}]", new ByteSizeValue(sizeInBytes), flushThresholdSize);
                     asyncFlushAndReschedule();
@@ -188,7 +207,19 @@ public class TranslogService extends AbstractIndexShardComponent {
                 @Override
                 public void run() {
                     try {
-                        indexShard.flush(new Engine.Flush());
+                        long translogId = translog.currentId();
+                        int operations = translog.estimatedNumberOfOperations();
+                        long sizeInBytes = translog.translogSizeInBytes();
+                        if (retentionSize.bytes() > 0 && sizeInBytes < retentionSize.bytes()) {
+                            // only commit the index and keep the translog, so replicas that were recovered against
+                            // it can later be recovered by replaying it instead of copying the index files
+                            indexShard.flush(new Engine.Flush().type(Engine.Flush.Type.COMMIT).refresh(true));
+                            committedTranslogId = translogId;
+                            committedOperations = operations;
+                            committedSizeInBytes = sizeInBytes;
+                        } else {
+                            indexShard.flush(new Engine.Flush());
+                        }
                     } catch (IllegalIndexShardStateException e) {
                         // we are being closed, or in created state, ignore
                     } catch (FlushNotAllowedEngineException e) {
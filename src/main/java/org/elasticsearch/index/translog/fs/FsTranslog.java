@@ -21,6 +21,7 @@ package org.elasticsearch.index.translog.fs;
 
 import jsr166y.ThreadLocalRandom;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.UUID;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -83,6 +84,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
     private final ReadWriteLock rwl = new ReentrantReadWriteLock();
     private final File[] locations;
 
+    private final String uuid = UUID.randomBase64UUID();
+
     private volatile FsTranslogFile current;
     private volatile FsTranslogFile trans;
 
@@ -146,6 +149,11 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         return locations;
     }
 
+    @Override
+    public String uuid() {
+        return uuid;
+    }
+
     @Override
     public long currentId() {
         FsTranslogFile current1 = this.current;
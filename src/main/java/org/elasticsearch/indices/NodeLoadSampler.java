@@ -0,0 +1,123 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.monitor.fs.FsStats;
+
+/**
+ * Samples the load of the node used to adapt background I/O (recoveries, merges): the average search
+ * latency since the previous sample, the disk queue and the number of ongoing merges. The query totals
+ * of the previous sample are kept, so each user should have its own sampler.
+ */
+public class NodeLoadSampler {
+
+    private final IndicesService indicesService;
+
+    private final FsService fsService;
+
+    private long lastQueryCount;
+    private long lastQueryTimeInMillis;
+
+    public NodeLoadSampler(IndicesService indicesService, FsService fsService) {
+        this.indicesService = indicesService;
+        this.fsService = fsService;
+    }
+
+    public synchronized Sample sample() {
+        long queryCount = 0;
+        long queryTimeInMillis = 0;
+        long currentMerges = 0;
+        for (IndexService indexService : indicesService) {
+            for (IndexShard indexShard : indexService) {
+                SearchStats.Stats searchStats = indexShard.searchStats().total();
+                queryCount += searchStats.queryCount();
+                queryTimeInMillis += searchStats.queryTimeInMillis();
+                currentMerges += indexShard.mergeStats().current();
+            }
+        }
+        long searchLatency = -1;
+        // shards might have been removed since the last sample, in which case there is no latency for this round
+        if (queryCount > lastQueryCount && queryTimeInMillis >= lastQueryTimeInMillis) {
+            searchLatency = (queryTimeInMillis - lastQueryTimeInMillis) / (queryCount - lastQueryCount);
+        }
+        lastQueryCount = queryCount;
+        lastQueryTimeInMillis = queryTimeInMillis;
+
+        double diskQueue = -1;
+        for (FsStats.Info info : fsService.stats()) {
+            diskQueue = Math.max(diskQueue, info.diskQueue());
+        }
+        return new Sample(searchLatency, diskQueue, currentMerges);
+    }
+
+    /**
+     * The rate to use next: halved when the node is busy, otherwise raised by a tenth of the range, always
+     * staying within <tt>min</tt> and <tt>max</tt>.
+     */
+    public static long nextRate(long currentRate, long min, long max, boolean busy) {
+        long next;
+        if (busy) {
+            next = currentRate / 2;
+        } else {
+            next = currentRate + Math.max(1, (max - min) / 10);
+        }
+        return Math.min(max, Math.max(min, next));
+    }
+
+    /**
+     * A load sample, <tt>-1</tt> is used for a signal that is not available.
+     */
+    public static class Sample {
+
+        private final long searchLatencyInMillis;
+
+        private final double diskQueue;
+
+        private final long currentMerges;
+
+        public Sample(long searchLatencyInMillis, double diskQueue, long currentMerges) {
+            this.searchLatencyInMillis = searchLatencyInMillis;
+            this.diskQueue = diskQueue;
+            this.currentMerges = currentMerges;
+        }
+
+        /**
+         * The average latency of the queries executed since the previous sample.
+         */
+        public long searchLatencyInMillis() {
+            return searchLatencyInMillis;
+        }
+
+        /**
+         * The highest disk queue among the data paths.
+         */
+        public double diskQueue() {
+            return diskQueue;
+        }
+
+        public long currentMerges() {
+            return currentMerges;
+        }
+    }
+}
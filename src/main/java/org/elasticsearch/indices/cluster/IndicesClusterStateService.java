@@ -20,6 +20,7 @@
 package org.elasticsearch.indices.cluster;
 
 import com.google.common.collect.Lists;
+import org.apache.lucene.index.SegmentInfos;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.cluster.ClusterChangedEvent;
@@ -37,6 +38,7 @@ import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.CompressedString;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
@@ -55,6 +57,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.recovery.RecoveryFailedException;
 import org.elasticsearch.indices.recovery.RecoveryStatus;
@@ -62,6 +65,7 @@ import org.elasticsearch.indices.recovery.RecoveryTarget;
 import org.elasticsearch.indices.recovery.StartRecoveryRequest;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
@@ -605,7 +609,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
                     final DiscoveryNode sourceNode = nodes.get(entry.currentNodeId());
                     try {
                         // we are recovering a backup from a primary, so no need to mark it as relocated
-                        final StartRecoveryRequest request = new StartRecoveryRequest(indexShard.shardId(), sourceNode, nodes.localNode(), false, indexShard.store().list());
+                        final StartRecoveryRequest request = newStartRecoveryRequest(indexShard, sourceNode, nodes.localNode());
                         recoveryTarget.startRecovery(request, indexShard, new PeerRecoveryListener(request, shardRouting, indexService));
                     } catch (Exception e) {
                         handleRecoveryFailure(indexService, shardRouting, true, e);
@@ -641,7 +645,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
                 try {
                     // we don't mark this one as relocated at the end, requests in any case are routed to both when its relocating
                     // and that way we handle the edge case where its mark as relocated, and we might need to roll it back...
-                    final StartRecoveryRequest request = new StartRecoveryRequest(indexShard.shardId(), sourceNode, nodes.localNode(), false, indexShard.store().list());
+                    final StartRecoveryRequest request = newStartRecoveryRequest(indexShard, sourceNode, nodes.localNode());
                     recoveryTarget.startRecovery(request, indexShard, new PeerRecoveryListener(request, shardRouting, indexService));
                 } catch (Exception e) {
                     handleRecoveryFailure(indexService, shardRouting, true, e);
@@ -650,6 +654,17 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         }
     }
 
+    private StartRecoveryRequest newStartRecoveryRequest(InternalIndexShard indexShard, DiscoveryNode sourceNode, DiscoveryNode localNode) throws IOException {
+        long recoveryTranslogId = -1;
+        String recoveryTranslogUuid = null;
+        SegmentInfos segmentInfos = Lucene.readSegmentInfosIfExists(indexShard.store().directory());
+        if (segmentInfos != null && segmentInfos.getUserData().containsKey(Translog.RECOVERY_TRANSLOG_UUID_KEY)) {
+            recoveryTranslogId = Long.parseLong(segmentInfos.getUserData().get(Translog.RECOVERY_TRANSLOG_ID_KEY));
+            recoveryTranslogUuid = segmentInfos.getUserData().get(Translog.RECOVERY_TRANSLOG_UUID_KEY);
+        }
+        return new StartRecoveryRequest(indexShard.shardId(), sourceNode, localNode, false, indexShard.store().list(), recoveryTranslogId, recoveryTranslogUuid);
+    }
+
     private class PeerRecoveryListener implements RecoveryTarget.RecoveryListener {
 
         private final StartRecoveryRequest request;
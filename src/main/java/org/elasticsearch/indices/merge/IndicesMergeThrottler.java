@@ -0,0 +1,289 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.merge;
+
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.merge.MergeThrottle;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.NodeLoadSampler;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * A node level I/O budget for merges. The budget (<tt>indices.merge.throttle.max_bytes_per_sec</tt>) is shared
+ * evenly among the shards that are currently merging on the node, and is split again as soon as a merge starts
+ * or finishes (the shard merge throttles notify the node). A merging shard never gets less than
+ * <tt>min_shard_bytes_per_sec</tt>, so many concurrent merges can exceed the node budget rather than stall.
+ * Every <tt>interval</tt>, the budget is halved
+ * (down to <tt>min_bytes_per_sec</tt>) when the search latency or the disk queue is above its threshold, and is
+ * increased back by a tenth of the range when the node is idle.
+ * <p/>
+ * Disabled by default (a <tt>max_bytes_per_sec</tt> of <tt>0</tt>).
+ */
+public class IndicesMergeThrottler extends AbstractLifecycleComponent<IndicesMergeThrottler> {
+
+    static {
+        MetaData.addDynamicSettings(
+                "indices.merge.throttle.max_bytes_per_sec",
+                "indices.merge.throttle.min_bytes_per_sec",
+                "indices.merge.throttle.min_shard_bytes_per_sec"
+        );
+    }
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            ByteSizeValue maxBytesPerSec = settings.getAsBytesSize("indices.merge.throttle.max_bytes_per_sec", IndicesMergeThrottler.this.maxBytesPerSec);
+            if (!maxBytesPerSec.equals(IndicesMergeThrottler.this.maxBytesPerSec)) {
+                logger.info("updating [indices.merge.throttle.max_bytes_per_sec] from [{}] to [{}]", IndicesMergeThrottler.this.maxBytesPerSec, maxBytesPerSec);
+                IndicesMergeThrottler.this.maxBytesPerSec = maxBytesPerSec;
+                // start from the top of the new budget
+                IndicesMergeThrottler.this.budget = maxBytesPerSec.bytes();
+            }
+            ByteSizeValue minBytesPerSec = settings.getAsBytesSize("indices.merge.throttle.min_bytes_per_sec", IndicesMergeThrottler.this.minBytesPerSec);
+            if (!minBytesPerSec.equals(IndicesMergeThrottler.this.minBytesPerSec)) {
+                logger.info("updating [indices.merge.throttle.min_bytes_per_sec] from [{}] to [{}]", IndicesMergeThrottler.this.minBytesPerSec, minBytesPerSec);
+                IndicesMergeThrottler.this.minBytesPerSec = minBytesPerSec;
+            }
+            ByteSizeValue minShardBytesPerSec = settings.getAsBytesSize("indices.merge.throttle.min_shard_bytes_per_sec", IndicesMergeThrottler.this.minShardBytesPerSec);
+            if (!minShardBytesPerSec.equals(IndicesMergeThrottler.this.minShardBytesPerSec)) {
+                logger.info("updating [indices.merge.throttle.min_shard_bytes_per_sec] from [{}] to [{}]", IndicesMergeThrottler.this.minShardBytesPerSec, minShardBytesPerSec);
+                IndicesMergeThrottler.this.minShardBytesPerSec = minShardBytesPerSec;
+            }
+        }
+    }
+
+    private final ThreadPool threadPool;
+
+    private final IndicesService indicesService;
+
+    private final NodeLoadSampler loadSampler;
+
+    private final NodeSettingsService nodeSettingsService;
+
+    private final TimeValue interval;
+
+    private final TimeValue searchLatency;
+
+    private final double diskQueue;
+
+    private volatile ByteSizeValue maxBytesPerSec;
+
+    private volatile ByteSizeValue minBytesPerSec;
+
+    private volatile ByteSizeValue minShardBytesPerSec;
+
+    private volatile long budget;
+
+    private final ApplySettings applySettings = new ApplySettings();
+
+    private final Listener listener = new Listener();
+
+    private final Object mutex = new Object();
+
+    private volatile ScheduledFuture scheduler;
+
+    @Inject
+    public IndicesMergeThrottler(Settings settings, ThreadPool threadPool, IndicesService indicesService, FsService fsService, NodeSettingsService nodeSettingsService) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.indicesService = indicesService;
+        this.loadSampler = new NodeLoadSampler(indicesService, fsService);
+        this.nodeSettingsService = nodeSettingsService;
+
+        this.maxBytesPerSec = componentSettings.getAsBytesSize("throttle.max_bytes_per_sec", new ByteSizeValue(0));
+        this.minBytesPerSec = componentSettings.getAsBytesSize("throttle.min_bytes_per_sec", new ByteSizeValue(5, ByteSizeUnit.MB));
+        this.minShardBytesPerSec = componentSettings.getAsBytesSize("throttle.min_shard_bytes_per_sec", new ByteSizeValue(1, ByteSizeUnit.MB));
+        this.interval = componentSettings.getAsTime("throttle.interval", TimeValue.timeValueSeconds(1));
+        this.searchLatency = componentSettings.getAsTime("throttle.search_latency", TimeValue.timeValueMillis(50));
+        this.diskQueue = componentSettings.getAsDouble("throttle.disk_queue", 2.0);
+        this.budget = maxBytesPerSec.bytes();
+
+        logger.debug("using max_bytes_per_sec [{}], min_bytes_per_sec [{}], min_shard_bytes_per_sec [{}], search_latency [{}], disk_queue [{}], interval [{}]",
+                maxBytesPerSec, minBytesPerSec, minShardBytesPerSec, searchLatency, diskQueue, interval);
+    }
+
+    @Override
+    protected void doStart() throws ElasticSearchException {
+        nodeSettingsService.addListener(applySettings);
+        indicesService.indicesLifecycle().addListener(listener);
+        for (MergeThrottle throttle : throttles()) {
+            throttle.listener(listener);
+        }
+        // updating the budget only samples (cached) stats and sets rates, so the scheduler thread is used
+        this.scheduler = threadPool.scheduleWithFixedDelay(new BudgetUpdater(), interval);
+    }
+
+    @Override
+    protected void doStop() throws ElasticSearchException {
+        nodeSettingsService.removeListener(applySettings);
+        indicesService.indicesLifecycle().removeListener(listener);
+        for (MergeThrottle throttle : throttles()) {
+            throttle.listener(null);
+        }
+        if (scheduler != null) {
+            scheduler.cancel(false);
+            scheduler = null;
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticSearchException {
+    }
+
+    /**
+     * The current node merge budget (bytes per second), <tt>0</tt> if merges are not throttled.
+     */
+    public ByteSizeValue budget() {
+        return new ByteSizeValue(budget);
+    }
+
+    /**
+     * The budget (bytes per second) to use next, given the current one and if the node is busy.
+     */
+    public long nextBudget(long currentBudget, boolean busy) {
+        long max = maxBytesPerSec.bytes();
+        if (max <= 0) {
+            return 0;
+        }
+        return NodeLoadSampler.nextRate(currentBudget, Math.min(max, minBytesPerSec.bytes()), max, busy);
+    }
+
+    /**
+     * The share (bytes per second) of the budget each merging shard gets given the number of merging shards,
+     * never less than <tt>min_shard_bytes_per_sec</tt> (unless the budget itself is lower).
+     */
+    public long shardBudget(long budget, int mergingShards) {
+        if (budget <= 0) {
+            return 0;
+        }
+        long floor = Math.min(budget, minShardBytesPerSec.bytes());
+        return Math.max(floor, budget / Math.max(1, mergingShards));
+    }
+
+    /**
+     * Splits the current budget among the given shard throttles that are merging. Throttles of shards that are not
+     * merging get the share they would have when starting to merge, until the split that start triggers.
+     */
+    public void split(List<MergeThrottle> throttles) {
+        synchronized (mutex) {
+            int mergingShards = 0;
+            for (MergeThrottle throttle : throttles) {
+                if (throttle.currentMerges() > 0) {
+                    mergingShards++;
+                }
+            }
+            ByteSizeValue mergingShardBudget = new ByteSizeValue(shardBudget(budget, mergingShards));
+            ByteSizeValue idleShardBudget = new ByteSizeValue(shardBudget(budget, mergingShards + 1));
+            for (MergeThrottle throttle : throttles) {
+                ByteSizeValue shardBudget = throttle.currentMerges() > 0 ? mergingShardBudget : idleShardBudget;
+                if (!shardBudget.equals(throttle.maxRate())) {
+                    throttle.maxRate(shardBudget);
+                }
+            }
+        }
+    }
+
+    /**
+     * Is the node busy serving searches or doing I/O, see {@link NodeLoadSampler.Sample}.
+     */
+    public boolean busy(long searchLatencyInMillis, double diskQueue) {
+        return searchLatencyInMillis > searchLatency.millis() || diskQueue > this.diskQueue;
+    }
+
+    private List<MergeThrottle> throttles() {
+        List<MergeThrottle> throttles = newArrayList();
+        for (IndexService indexService : indicesService) {
+            for (IndexShard indexShard : indexService) {
+                if (indexShard instanceof InternalIndexShard) {
+                    throttles.add(((InternalIndexShard) indexShard).mergeScheduler().throttle());
+                }
+            }
+        }
+        return throttles;
+    }
+
+    class Listener extends IndicesLifecycle.Listener implements MergeThrottle.Listener {
+
+        @Override
+        public void afterIndexShardCreated(IndexShard indexShard) {
+            if (indexShard instanceof InternalIndexShard) {
+                ((InternalIndexShard) indexShard).mergeScheduler().throttle().listener(this);
+            }
+        }
+
+        @Override
+        public void onMergeStarted(MergeThrottle throttle) {
+            // split before the merge writes anything, so the node budget is not exceeded until the next update
+            if (budget > 0) {
+                split(throttles());
+            }
+        }
+
+        @Override
+        public void onMergeFinished(MergeThrottle throttle) {
+            // give the freed share to the merges still running
+            if (budget > 0) {
+                split(throttles());
+            }
+        }
+    }
+
+    class BudgetUpdater implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                List<MergeThrottle> throttles = throttles();
+
+                NodeLoadSampler.Sample sample = loadSampler.sample();
+                boolean busy = busy(sample.searchLatencyInMillis(), sample.diskQueue());
+                long next = nextBudget(budget, busy);
+                if (next != budget && logger.isDebugEnabled()) {
+                    logger.debug("{} merge budget from [{}] to [{}], shards [{}], merges [{}], search_latency [{}ms], disk_queue [{}]",
+                            busy ? "lowering" : "raising", new ByteSizeValue(budget), new ByteSizeValue(next), throttles.size(),
+                            sample.currentMerges(), sample.searchLatencyInMillis(), sample.diskQueue());
+                }
+                budget = next;
+
+                split(throttles);
+            } catch (Exception e) {
+                logger.warn("failed to update the merge budget", e);
+            }
+        }
+    }
+}
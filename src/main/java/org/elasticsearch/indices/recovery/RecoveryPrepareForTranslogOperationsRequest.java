@@ -33,13 +33,17 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
 
     private long recoveryId;
     private ShardId shardId;
+    private long translogId;
+    private String translogUuid;
 
     RecoveryPrepareForTranslogOperationsRequest() {
     }
 
-    RecoveryPrepareForTranslogOperationsRequest(long recoveryId, ShardId shardId) {
+    RecoveryPrepareForTranslogOperationsRequest(long recoveryId, ShardId shardId, long translogId, String translogUuid) {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
+        this.translogId = translogId;
+        this.translogUuid = translogUuid;
     }
 
     public long recoveryId() {
@@ -50,11 +54,27 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
         return shardId;
     }
 
+    /**
+     * The id of the source translog the operations will be replayed from.
+     */
+    public long translogId() {
+        return translogId;
+    }
+
+    /**
+     * The uuid of the source translog the operations will be replayed from.
+     */
+    public String translogUuid() {
+        return translogUuid;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         recoveryId = in.readLong();
         shardId = ShardId.readShardId(in);
+        translogId = in.readLong();
+        translogUuid = in.readString();
     }
 
     @Override
@@ -62,5 +82,7 @@ class RecoveryPrepareForTranslogOperationsRequest extends TransportRequest {
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
+        out.writeLong(translogId);
+        out.writeString(translogUuid);
     }
 }
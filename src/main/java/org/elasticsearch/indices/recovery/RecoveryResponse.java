@@ -40,6 +40,7 @@ class RecoveryResponse extends TransportResponse {
     long phase1ExistingTotalSize;
     long phase1Time;
     long phase1ThrottlingWaitTime;
+    boolean phase1TranslogOnly;
 
     long startTime;
 
@@ -81,6 +82,7 @@ class RecoveryResponse extends TransportResponse {
         phase1ExistingTotalSize = in.readVLong();
         phase1Time = in.readVLong();
         phase1ThrottlingWaitTime = in.readVLong();
+        phase1TranslogOnly = in.readBoolean();
         startTime = in.readVLong();
         phase2Operations = in.readVInt();
         phase2Time = in.readVLong();
@@ -113,6 +115,7 @@ class RecoveryResponse extends TransportResponse {
         out.writeVLong(phase1ExistingTotalSize);
         out.writeVLong(phase1Time);
         out.writeVLong(phase1ThrottlingWaitTime);
+        out.writeBoolean(phase1TranslogOnly);
         out.writeVLong(startTime);
         out.writeVInt(phase2Operations);
         out.writeVLong(phase2Time);
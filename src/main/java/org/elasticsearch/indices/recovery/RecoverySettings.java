@@ -44,6 +44,7 @@ public class RecoverySettings extends AbstractComponent {
         MetaData.addDynamicSettings("indices.recovery.compress");
         MetaData.addDynamicSettings("indices.recovery.concurrent_streams");
         MetaData.addDynamicSettings("indices.recovery.max_size_per_sec");
+        MetaData.addDynamicSettings("indices.recovery.translog_only");
     }
 
     private volatile ByteSizeValue fileChunkSize;
@@ -51,6 +52,7 @@ public class RecoverySettings extends AbstractComponent {
     private volatile boolean compress;
     private volatile int translogOps;
     private volatile ByteSizeValue translogSize;
+    private volatile boolean translogOnly;
 
     private volatile int concurrentStreams;
     private final ThreadPoolExecutor concurrentStreamPool;
@@ -66,6 +68,7 @@ public class RecoverySettings extends AbstractComponent {
         this.translogOps = componentSettings.getAsInt("translog_ops", settings.getAsInt("index.shard.recovery.translog_ops", 1000));
         this.translogSize = componentSettings.getAsBytesSize("translog_size", settings.getAsBytesSize("index.shard.recovery.translog_size", new ByteSizeValue(512, ByteSizeUnit.KB)));
         this.compress = componentSettings.getAsBoolean("compress", true);
+        this.translogOnly = componentSettings.getAsBoolean("translog_only", true);
 
         this.concurrentStreams = componentSettings.getAsInt("concurrent_streams", settings.getAsInt("index.shard.recovery.concurrent_streams", 3));
         this.concurrentStreamPool = EsExecutors.newScalingExecutorService(0, concurrentStreams, 60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[recovery_stream]"));
@@ -77,8 +80,8 @@ public class RecoverySettings extends AbstractComponent {
             rateLimiter = new RateLimiter(maxSizePerSec.mbFrac());
         }
 
-        logger.debug("using max_size_per_sec[{}], concurrent_streams [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], and compress [{}]",
-                maxSizePerSec, concurrentStreams, fileChunkSize, translogSize, translogOps, compress);
+        logger.debug("using max_size_per_sec[{}], concurrent_streams [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], translog_only [{}], and compress [{}]",
+                maxSizePerSec, concurrentStreams, fileChunkSize, translogSize, translogOps, translogOnly, compress);
 
         nodeSettingsService.addListener(new ApplySettings());
     }
@@ -109,6 +112,14 @@ public class RecoverySettings extends AbstractComponent {
         return translogSize;
     }
 
+    /**
+     * Should a shard copy that was last recovered against the current translog of the primary be recovered
+     * by only replaying the translog, keeping its own index files.
+     */
+    public boolean translogOnly() {
+        return translogOnly;
+    }
+
     public int concurrentStreams() {
         return concurrentStreams;
     }
@@ -121,20 +132,44 @@ public class RecoverySettings extends AbstractComponent {
         return rateLimiter;
     }
 
+    /**
+     * The current (effective) max bytes per second recoveries on this node are throttled at, <tt>0</tt>
+     * for no throttling.
+     */
+    public ByteSizeValue maxSizePerSec() {
+        return maxSizePerSec;
+    }
+
+    /**
+     * Changes the rate recovery files are sent at. Used by the {@link RecoveryThrottler} to adapt the rate to the
+     * node load, dynamic settings updates of <tt>indices.recovery.max_size_per_sec</tt> go through it as well.
+     */
+    synchronized void maxSizePerSec(ByteSizeValue maxSizePerSec) {
+        this.maxSizePerSec = maxSizePerSec;
+        if (maxSizePerSec.bytes() <= 0) {
+            rateLimiter = null;
+        } else if (rateLimiter != null) {
+            rateLimiter.setMaxRate(maxSizePerSec.mbFrac());
+        } else {
+            rateLimiter = new RateLimiter(maxSizePerSec.mbFrac());
+        }
+    }
+
+    /**
+     * Changes the number of concurrent streams used to send recovery files.
+     */
+    synchronized void concurrentStreams(int concurrentStreams) {
+        this.concurrentStreams = concurrentStreams;
+        concurrentStreamPool.setMaximumPoolSize(concurrentStreams);
+    }
+
     class ApplySettings implements NodeSettingsService.Listener {
         @Override
         public void onRefreshSettings(Settings settings) {
             ByteSizeValue maxSizePerSec = settings.getAsBytesSize("indices.recovery.max_size_per_sec", RecoverySettings.this.maxSizePerSec);
             if (!Objects.equal(maxSizePerSec, RecoverySettings.this.maxSizePerSec)) {
                 logger.info("updating [indices.recovery.max_size_per_sec] from [{}] to [{}]", RecoverySettings.this.maxSizePerSec, maxSizePerSec);
-                RecoverySettings.this.maxSizePerSec = maxSizePerSec;
-                if (maxSizePerSec.bytes() <= 0) {
-                    rateLimiter = null;
-                } else if (rateLimiter != null) {
-                    rateLimiter.setMaxRate(maxSizePerSec.mbFrac());
-                } else {
-                    rateLimiter = new RateLimiter(maxSizePerSec.mbFrac());
-                }
+                maxSizePerSec(maxSizePerSec);
             }
 
             ByteSizeValue fileChunkSize = settings.getAsBytesSize("indices.recovery.file_chunk_size", RecoverySettings.this.fileChunkSize);
@@ -161,11 +196,16 @@ public class RecoverySettings extends AbstractComponent {
                 RecoverySettings.this.compress = compress;
             }
 
+            boolean translogOnly = settings.getAsBoolean("indices.recovery.translog_only", RecoverySettings.this.translogOnly);
+            if (translogOnly != RecoverySettings.this.translogOnly) {
+                logger.info("updating [indices.recovery.translog_only] from [{}] to [{}]", RecoverySettings.this.translogOnly, translogOnly);
+                RecoverySettings.this.translogOnly = translogOnly;
+            }
+
             int concurrentStreams = settings.getAsInt("indices.recovery.concurrent_streams", RecoverySettings.this.concurrentStreams);
             if (concurrentStreams != RecoverySettings.this.concurrentStreams) {
                 logger.info("updating [indices.recovery.concurrent_streams] from [{}] to [{}]", RecoverySettings.this.concurrentStreams, concurrentStreams);
-                RecoverySettings.this.concurrentStreams = concurrentStreams;
-                RecoverySettings.this.concurrentStreamPool.setMaximumPoolSize(concurrentStreams);
+                concurrentStreams(concurrentStreams);
             }
         }
     }
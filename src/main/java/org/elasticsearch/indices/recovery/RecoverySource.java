@@ -94,6 +94,29 @@ public class RecoverySource extends AbstractComponent {
                 try {
                     StopWatch stopWatch = new StopWatch().start();
 
+                    if (canRecoverFromTranslogOnly(shard, request)) {
+                        // the target was last recovered against our current translog, so its last commit already holds
+                        // all the operations done before it was created, keep its files and just replay the translog
+                        response.phase1TranslogOnly = true;
+                        for (StoreFileMetaData md : request.existingFiles().values()) {
+                            response.phase1ExistingFileNames.add(md.name());
+                            response.phase1ExistingFileSizes.add(md.length());
+                            existingTotalSize += md.length();
+                        }
+                        response.phase1TotalSize = existingTotalSize;
+                        response.phase1ExistingTotalSize = existingTotalSize;
+
+                        logger.trace("[{}][{}] recovery [phase1] to {}: recovering from translog [{}] only, reusing_files [{}] with total_size [{}]", request.shardId().index().name(), request.shardId().id(), request.targetNode(), request.recoveryTranslogId(), response.phase1ExistingFileNames.size(), new ByteSizeValue(existingTotalSize));
+
+                        RecoveryFilesInfoRequest recoveryInfoFilesRequest = new RecoveryFilesInfoRequest(request.recoveryId(), request.shardId(), response.phase1FileNames, response.phase1FileSizes,
+                                response.phase1ExistingFileNames, response.phase1ExistingFileSizes, response.phase1TotalSize, response.phase1ExistingTotalSize);
+                        transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILES_INFO, recoveryInfoFilesRequest, TransportRequestOptions.options().withTimeout(internalActionTimeout), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+
+                        stopWatch.stop();
+                        response.phase1Time = stopWatch.totalTime().millis();
+                        return;
+                    }
+
                     for (String name : snapshot.getFiles()) {
                         StoreFileMetaData md = shard.store().metaData(name);
                         boolean useExisting = false;
@@ -162,8 +185,9 @@ public class RecoverySource extends AbstractComponent {
 
                                         indexInput.readBytes(buf, 0, toRead, false);
                                         BytesArray content = new BytesArray(buf, 0, toRead);
+                                        // we wait for the response before reusing the buffer, so the chunk can be sent without copying it
                                         transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK, new RecoveryFileChunkRequest(request.recoveryId(), request.shardId(), name, position, len, md.checksum(), content),
-                                                TransportRequestOptions.options().withCompress(shouldCompressRequest).withLowType().withTimeout(internalActionTimeout), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+                                                TransportRequestOptions.options().withCompress(shouldCompressRequest).withLowType().withZeroCopy(true).withTimeout(internalActionTimeout), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
                                         readCount += toRead;
                                     }
                                 } catch (Exception e) {
@@ -207,7 +231,9 @@ public class RecoverySource extends AbstractComponent {
                 }
                 logger.trace("[{}][{}] recovery [phase2] to {}: start", request.shardId().index().name(), request.shardId().id(), request.targetNode());
                 StopWatch stopWatch = new StopWatch().start();
-                transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.PREPARE_TRANSLOG, new RecoveryPrepareForTranslogOperationsRequest(request.recoveryId(), request.shardId()), TransportRequestOptions.options().withTimeout(internalActionTimeout), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+                // no new translog can be created while recovering, so the current one holds all operations since the phase1 commit
+                RecoveryPrepareForTranslogOperationsRequest prepareRequest = new RecoveryPrepareForTranslogOperationsRequest(request.recoveryId(), request.shardId(), shard.translog().currentId(), shard.translog().uuid());
+                transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.PREPARE_TRANSLOG, prepareRequest, TransportRequestOptions.options().withTimeout(internalActionTimeout), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
                 stopWatch.stop();
                 response.startTime = stopWatch.totalTime().millis();
                 logger.trace("[{}][{}] recovery [phase2] to {}: start took [{}]", request.shardId().index().name(), request.shardId().id(), request.targetNode(), stopWatch.totalTime());
@@ -284,6 +310,17 @@ public class RecoverySource extends AbstractComponent {
         return response;
     }
 
+    /**
+     * Returns <tt>true</tt> if the target shard was last recovered against the current translog of this shard, in
+     * which case replaying the translog on top of the target's own commit brings it up to date.
+     */
+    private boolean canRecoverFromTranslogOnly(InternalIndexShard shard, StartRecoveryRequest request) {
+        if (!recoverySettings.translogOnly() || request.recoveryTranslogUuid() == null || request.existingFiles().isEmpty()) {
+            return false;
+        }
+        return request.recoveryTranslogUuid().equals(shard.translog().uuid()) && request.recoveryTranslogId() == shard.translog().currentId();
+    }
+
     class StartRecoveryTransportRequestHandler extends BaseTransportRequestHandler<StartRecoveryRequest> {
 
         @Override
@@ -216,9 +216,13 @@ public class RecoveryTarget extends AbstractComponent {
                 StringBuilder sb = new StringBuilder();
                 sb.append('[').append(request.shardId().index().name()).append(']').append('[').append(request.shardId().id()).append("] ");
                 sb.append("recovery completed from ").append(request.sourceNode()).append(", took[").append(stopWatch.totalTime()).append("]\n");
-                sb.append("   phase1: recovered_files [").append(recoveryResponse.phase1FileNames.size()).append("]").append(" with total_size of [").append(new ByteSizeValue(recoveryResponse.phase1TotalSize)).append("]")
-                        .append(", took [").append(timeValueMillis(recoveryResponse.phase1Time)).append("], throttling_wait [").append(timeValueMillis(recoveryResponse.phase1ThrottlingWaitTime)).append(']')
-                        .append("\n");
+                if (recoveryResponse.phase1TranslogOnly) {
+                    sb.append("   phase1: skipped, recovering from translog only").append("\n");
+                } else {
+                    sb.append("   phase1: recovered_files [").append(recoveryResponse.phase1FileNames.size()).append("]").append(" with total_size of [").append(new ByteSizeValue(recoveryResponse.phase1TotalSize)).append("]")
+                            .append(", took [").append(timeValueMillis(recoveryResponse.phase1Time)).append("], throttling_wait [").append(timeValueMillis(recoveryResponse.phase1ThrottlingWaitTime)).append(']')
+                            .append("\n");
+                }
                 sb.append("         : reusing_files   [").append(recoveryResponse.phase1ExistingFileNames.size()).append("] with total_size of [").append(new ByteSizeValue(recoveryResponse.phase1ExistingTotalSize)).append("]\n");
                 sb.append("   phase2: start took [").append(timeValueMillis(recoveryResponse.startTime)).append("]\n");
                 sb.append("         : recovered [").append(recoveryResponse.phase2Operations).append("]").append(" transaction log operations")
@@ -371,7 +375,7 @@ public class RecoveryTarget extends AbstractComponent {
 
             onGoingRecovery.stage = RecoveryStatus.Stage.TRANSLOG;
 
-            onGoingRecovery.indexShard.performRecoveryPrepareForTranslog();
+            onGoingRecovery.indexShard.performRecoveryPrepareForTranslog(request.translogId(), request.translogUuid());
             channel.sendResponse(TransportResponse.Empty.INSTANCE);
         }
     }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.NodeLoadSampler;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.monitor.os.OsService;
+import org.elasticsearch.monitor.os.OsStats;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Adapts the recovery rate ({@link RecoverySettings#maxSizePerSec()}) and the number of concurrent recovery
+ * streams to the load of the node. Every <tt>interval</tt> the search latency, the cpu I/O wait, the disk
+ * queue and the number of ongoing merges are sampled. If any of them is above its threshold, the rate is
+ * halved, otherwise it is increased by a tenth of the configured range, always staying within
+ * <tt>min_size_per_sec</tt> and <tt>max_size_per_sec</tt>. The number of streams follows the rate.
+ * <p/>
+ * Disabled by default, enable using <tt>indices.recovery.adaptive.enabled</tt>. Note, once enabled, it
+ * takes over <tt>indices.recovery.max_size_per_sec</tt> and <tt>indices.recovery.concurrent_streams</tt>.
+ */
+public class RecoveryThrottler extends AbstractLifecycleComponent<RecoveryThrottler> {
+
+    private final ThreadPool threadPool;
+
+    private final RecoverySettings recoverySettings;
+
+    private final OsService osService;
+
+    private final NodeLoadSampler loadSampler;
+
+    private final boolean enabled;
+
+    private final TimeValue interval;
+
+    private final ByteSizeValue minSizePerSec;
+    private final ByteSizeValue maxSizePerSec;
+
+    private final int minConcurrentStreams;
+    private final int maxConcurrentStreams;
+
+    private final TimeValue searchLatency;
+    private final int ioWait;
+    private final double diskQueue;
+    private final long merges;
+
+    private volatile ScheduledFuture scheduler;
+
+    @Inject
+    public RecoveryThrottler(Settings settings, ThreadPool threadPool, RecoverySettings recoverySettings, IndicesService indicesService,
+                             OsService osService, FsService fsService) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.recoverySettings = recoverySettings;
+        this.osService = osService;
+        this.loadSampler = new NodeLoadSampler(indicesService, fsService);
+
+        this.enabled = componentSettings.getAsBoolean("adaptive.enabled", false);
+        this.interval = componentSettings.getAsTime("adaptive.interval", TimeValue.timeValueSeconds(5));
+        this.minSizePerSec = componentSettings.getAsBytesSize("adaptive.min_size_per_sec", new ByteSizeValue(5, ByteSizeUnit.MB));
+        this.maxSizePerSec = componentSettings.getAsBytesSize("adaptive.max_size_per_sec", new ByteSizeValue(100, ByteSizeUnit.MB));
+        this.minConcurrentStreams = componentSettings.getAsInt("adaptive.min_concurrent_streams", 1);
+        this.maxConcurrentStreams = Math.max(minConcurrentStreams, componentSettings.getAsInt("adaptive.max_concurrent_streams", recoverySettings.concurrentStreams()));
+        this.searchLatency = componentSettings.getAsTime("adaptive.search_latency", TimeValue.timeValueMillis(50));
+        this.ioWait = componentSettings.getAsInt("adaptive.io_wait", 20);
+        this.diskQueue = componentSettings.getAsDouble("adaptive.disk_queue", 2.0);
+        this.merges = componentSettings.getAsLong("adaptive.merges", 3l);
+
+        if (enabled) {
+            logger.debug("using min_size_per_sec [{}], max_size_per_sec [{}], min_concurrent_streams [{}], max_concurrent_streams [{}], search_latency [{}], io_wait [{}], disk_queue [{}], merges [{}], interval [{}]",
+                    minSizePerSec, maxSizePerSec, minConcurrentStreams, maxConcurrentStreams, searchLatency, ioWait, diskQueue, merges, interval);
+        }
+    }
+
+    @Override
+    protected void doStart() throws ElasticSearchException {
+        if (!enabled) {
+            return;
+        }
+        // start conservatively, and speed up while the node has spare capacity
+        recoverySettings.maxSizePerSec(minSizePerSec);
+        recoverySettings.concurrentStreams(concurrentStreams(minSizePerSec.bytes()));
+        // sampling the stats is cheap (and cached), so the scheduler thread is used
+        this.scheduler = threadPool.scheduleWithFixedDelay(new RateUpdater(), interval);
+    }
+
+    @Override
+    protected void doStop() throws ElasticSearchException {
+        if (scheduler != null) {
+            scheduler.cancel(false);
+            scheduler = null;
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticSearchException {
+    }
+
+    /**
+     * The rate (bytes per second) to use next, given the current one and if the node is overloaded.
+     */
+    public long nextSizePerSec(long currentSizePerSec, boolean overloaded) {
+        return NodeLoadSampler.nextRate(currentSizePerSec, minSizePerSec.bytes(), maxSizePerSec.bytes(), overloaded);
+    }
+
+    /**
+     * The number of concurrent streams to use for the given rate, scaled linearly between the min and max streams.
+     */
+    public int concurrentStreams(long sizePerSec) {
+        long range = maxSizePerSec.bytes() - minSizePerSec.bytes();
+        if (range <= 0) {
+            return maxConcurrentStreams;
+        }
+        double ratio = ((double) (sizePerSec - minSizePerSec.bytes())) / range;
+        ratio = Math.min(1, Math.max(0, ratio));
+        return minConcurrentStreams + (int) Math.round(ratio * (maxConcurrentStreams - minConcurrentStreams));
+    }
+
+    /**
+     * Is the node overloaded based on the sampled signals, <tt>-1</tt> for a signal that is not available.
+     */
+    public boolean overloaded(long searchLatencyInMillis, int ioWait, double diskQueue, long merges) {
+        return searchLatencyInMillis > searchLatency.millis()
+                || ioWait > this.ioWait
+                || diskQueue > this.diskQueue
+                || merges > this.merges;
+    }
+
+    class RateUpdater implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                NodeLoadSampler.Sample sample = loadSampler.sample();
+                long latency = sample.searchLatencyInMillis();
+                double currentDiskQueue = sample.diskQueue();
+                long currentMerges = sample.currentMerges();
+
+                int currentIoWait = -1;
+                OsStats.Cpu cpu = osService.stats().cpu();
+                if (cpu != null) {
+                    currentIoWait = cpu.ioWait();
+                }
+
+                boolean overloaded = overloaded(latency, currentIoWait, currentDiskQueue, currentMerges);
+                long current = recoverySettings.maxSizePerSec().bytes();
+                long next = nextSizePerSec(current, overloaded);
+                int streams = concurrentStreams(next);
+                if (next != current) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("{} recovery rate from [{}] to [{}] with [{}] streams, search_latency [{}ms], io_wait [{}], disk_queue [{}], merges [{}]",
+                                overloaded ? "lowering" : "raising", new ByteSizeValue(current), new ByteSizeValue(next), streams, latency, currentIoWait, currentDiskQueue, currentMerges);
+                    }
+                    recoverySettings.maxSizePerSec(new ByteSizeValue(next));
+                }
+                if (streams != recoverySettings.concurrentStreams()) {
+                    recoverySettings.concurrentStreams(streams);
+                }
+            } catch (Exception e) {
+                logger.warn("failed to adapt recovery throttling", e);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.indices.recovery;
 
 import com.google.common.collect.Maps;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
@@ -50,6 +51,10 @@ public class StartRecoveryRequest extends TransportRequest {
 
     private Map<String, StoreFileMetaData> existingFiles;
 
+    private long recoveryTranslogId = -1;
+
+    private String recoveryTranslogUuid;
+
     StartRecoveryRequest() {
     }
 
@@ -71,6 +76,24 @@ public class StartRecoveryRequest extends TransportRequest {
         this.existingFiles = existingFiles;
     }
 
+    /**
+     * Start recovery request.
+     *
+     * @param shardId
+     * @param sourceNode           The node to recover from
+     * @param targetNode           Teh node to recover to
+     * @param markAsRelocated
+     * @param existingFiles
+     * @param recoveryTranslogId   The id of the primary translog the existing files were last recovered against, <tt>-1</tt> if unknown
+     * @param recoveryTranslogUuid The uuid of the primary translog the existing files were last recovered against, <tt>null</tt> if unknown
+     */
+    public StartRecoveryRequest(ShardId shardId, DiscoveryNode sourceNode, DiscoveryNode targetNode, boolean markAsRelocated, Map<String, StoreFileMetaData> existingFiles,
+                                long recoveryTranslogId, @Nullable String recoveryTranslogUuid) {
+        this(shardId, sourceNode, targetNode, markAsRelocated, existingFiles);
+        this.recoveryTranslogId = recoveryTranslogId;
+        this.recoveryTranslogUuid = recoveryTranslogUuid;
+    }
+
     public long recoveryId() {
         return this.recoveryId;
     }
@@ -95,6 +118,21 @@ public class StartRecoveryRequest extends TransportRequest {
         return existingFiles;
     }
 
+    /**
+     * The id of the primary translog the existing files were last recovered against, <tt>-1</tt> if unknown.
+     */
+    public long recoveryTranslogId() {
+        return recoveryTranslogId;
+    }
+
+    /**
+     * The uuid of the primary translog the existing files were last recovered against, <tt>null</tt> if unknown.
+     */
+    @Nullable
+    public String recoveryTranslogUuid() {
+        return recoveryTranslogUuid;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -109,6 +147,8 @@ public class StartRecoveryRequest extends TransportRequest {
             StoreFileMetaData md = StoreFileMetaData.readStoreFileMetaData(in);
             existingFiles.put(md.name(), md);
         }
+        recoveryTranslogId = in.readLong();
+        recoveryTranslogUuid = in.readOptionalString();
     }
 
     @Override
@@ -123,5 +163,7 @@ public class StartRecoveryRequest extends TransportRequest {
         for (StoreFileMetaData md : existingFiles.values()) {
             md.writeTo(out);
         }
+        out.writeLong(recoveryTranslogId);
+        out.writeOptionalString(recoveryTranslogUuid);
     }
 }
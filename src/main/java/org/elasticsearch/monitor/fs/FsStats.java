@@ -86,6 +86,14 @@ public class FsStats implements Iterable<FsStats.Info>, Streamable, ToXContent {
             out.writeDouble(diskServiceTime);
         }
 
+        public String path() {
+            return path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
         public ByteSizeValue total() {
             return new ByteSizeValue(total);
         }
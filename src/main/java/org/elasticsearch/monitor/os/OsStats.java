@@ -114,6 +114,7 @@ public class OsStats implements Streamable, Serializable, ToXContent {
         static final XContentBuilderString SYS = new XContentBuilderString("sys");
         static final XContentBuilderString USER = new XContentBuilderString("user");
         static final XContentBuilderString IDLE = new XContentBuilderString("idle");
+        static final XContentBuilderString IO_WAIT = new XContentBuilderString("io_wait");
 
         static final XContentBuilderString MEM = new XContentBuilderString("mem");
         static final XContentBuilderString SWAP = new XContentBuilderString("swap");
@@ -154,6 +155,9 @@ public class OsStats implements Streamable, Serializable, ToXContent {
             builder.field(Fields.SYS, cpu.sys());
             builder.field(Fields.USER, cpu.user());
             builder.field(Fields.IDLE, cpu.idle());
+            if (cpu.ioWait() != -1) {
+                builder.field(Fields.IO_WAIT, cpu.ioWait());
+            }
             builder.endObject();
         }
 
@@ -370,6 +374,7 @@ public class OsStats implements Streamable, Serializable, ToXContent {
         short sys = -1;
         short user = -1;
         short idle = -1;
+        short ioWait = -1;
 
         Cpu() {
 
@@ -386,6 +391,7 @@ public class OsStats implements Streamable, Serializable, ToXContent {
             sys = in.readShort();
             user = in.readShort();
             idle = in.readShort();
+            ioWait = in.readShort();
         }
 
         @Override
@@ -393,6 +399,7 @@ public class OsStats implements Streamable, Serializable, ToXContent {
             out.writeShort(sys);
             out.writeShort(user);
             out.writeShort(idle);
+            out.writeShort(ioWait);
         }
 
         public short sys() {
@@ -418,5 +425,16 @@ public class OsStats implements Streamable, Serializable, ToXContent {
         public short getIdle() {
             return idle();
         }
+
+        /**
+         * The percentage of time the cpu was waiting on I/O, <tt>-1</tt> if not available.
+         */
+        public short ioWait() {
+            return ioWait;
+        }
+
+        public short getIoWait() {
+            return ioWait();
+        }
     }
 }
@@ -0,0 +1,45 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * Consumes the body of a streamed request, see {@link StreamingRestHandler}. Callbacks are never called
+ * concurrently for the same request.
+ */
+public interface RestContentConsumer {
+
+    /**
+     * Called with the next part of the request body. The content is not reused, and can be retained.
+     */
+    void onContent(BytesReference content);
+
+    /**
+     * Called once the whole request body has been received.
+     */
+    void onEnd();
+
+    /**
+     * Called when the request body can't be fully received, for example because the connection was closed.
+     * No response can be sent in this case.
+     */
+    void onFailure(Throwable t);
+}
@@ -153,6 +153,23 @@ public class RestController extends AbstractLifecycleComponent<RestController> {
         }
     }
 
+    /**
+     * Returns the streaming handler registered for the request, or <tt>null</tt> if the request should be
+     * dispatched once its content has been fully received. Streaming is not used when filters are
+     * registered, since they expect the full request.
+     */
+    @Nullable
+    public StreamingRestHandler streamingHandler(RestRequest request) {
+        if (filters.length > 0) {
+            return null;
+        }
+        RestHandler handler = getHandler(request);
+        if (handler instanceof StreamingRestHandler) {
+            return (StreamingRestHandler) handler;
+        }
+        return null;
+    }
+
     void executeHandler(RestRequest request, RestChannel channel) {
         final RestHandler handler = getHandler(request);
         if (handler != null) {
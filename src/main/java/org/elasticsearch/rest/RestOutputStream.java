@@ -0,0 +1,39 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest;
+
+import java.io.OutputStream;
+
+/**
+ * The content stream of a response started using {@link StreamingRestChannel#startResponse(RestStatus, String)}.
+ */
+public abstract class RestOutputStream extends OutputStream {
+
+    /**
+     * Returns <tt>true</tt> if (part of) the response has already been sent to the client, in which case
+     * it can no longer be replaced with a different response (for example, a failure).
+     */
+    public abstract boolean committed();
+
+    /**
+     * Abandons the response. If it has already been committed, the connection is closed so the client
+     * does not mistake the partial content for a complete response.
+     */
+    public abstract void abort();
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest;
+
+/**
+ * A {@link RestChannel} that can send a response to the client while it is still being rendered,
+ * instead of requiring the whole content in memory first.
+ */
+public interface StreamingRestChannel extends RestChannel {
+
+    /**
+     * Starts a response with the given status and content type. The content written to the returned
+     * stream is sent to the client as it fills up, and the response is completed when the stream
+     * is closed. Content that fits in a single chunk is sent as a regular (non chunked) response.
+     */
+    RestOutputStream startResponse(RestStatus status, String contentType);
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.Nullable;
+
+/**
+ * A {@link RestHandler} that can consume the request body as it arrives, instead of having it fully
+ * buffered before {@link #handleRequest(RestRequest, RestChannel)} is called.
+ */
+public interface StreamingRestHandler extends RestHandler {
+
+    /**
+     * Starts handling a request which body will be streamed to the returned consumer. The request itself
+     * has no content. Returning <tt>null</tt> falls back to buffering the body and calling
+     * {@link #handleRequest(RestRequest, RestChannel)}.
+     */
+    @Nullable
+    RestContentConsumer handleStreamingRequest(RestRequest request, RestChannel channel, RestContentStream stream);
+}
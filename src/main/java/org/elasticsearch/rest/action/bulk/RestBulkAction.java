@@ -28,13 +28,19 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 import org.elasticsearch.rest.*;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -50,12 +56,30 @@ import static org.elasticsearch.rest.action.support.RestXContentBuilder.restCont
  * { "create" : { "_index" : "test", "_type" : "type1", "_id" : "1" }
  * { "type1" : { "field1" : "value1" } }
  * </pre>
+ * <p/>
+ * When streaming is enabled with <tt>http.streaming</tt> (disabled by default) and the body is received in chunks
+ * (bodies larger than <tt>http.max_chunk_size</tt>, or using chunked transfer encoding), it is parsed as it arrives
+ * and executed in batches of <tt>http.bulk.streaming.batch_size</tt> (defaults to <tt>5mb</tt>) instead of being
+ * buffered, with up to <tt>http.bulk.streaming.max_in_flight</tt> (defaults to <tt>1</tt>) batches executing while
+ * reading from the client is paused. Unlike a buffered bulk request, which fails as a whole when an action is
+ * malformed, batches executed before a malformed action or a failure are not rolled back. Setting
+ * <tt>http.bulk.streaming</tt> to <tt>false</tt> keeps buffering bulk requests even when streaming is enabled.
  */
-public class RestBulkAction extends BaseRestHandler {
+public class RestBulkAction extends BaseRestHandler implements StreamingRestHandler {
+
+    private final boolean streaming;
+
+    private final ByteSizeValue batchSize;
+
+    private final int maxInFlight;
 
     @Inject
     public RestBulkAction(Settings settings, Client client, RestController controller) {
         super(settings, client);
+        this.streaming = settings.getAsBoolean("http.bulk.streaming", true);
+        this.batchSize = settings.getAsBytesSize("http.bulk.streaming.batch_size", new ByteSizeValue(5, ByteSizeUnit.MB));
+        // more than one batch in flight allows actions on the same document in different batches to be reordered
+        this.maxInFlight = settings.getAsInt("http.bulk.streaming.max_in_flight", 1);
 
         controller.registerHandler(POST, "/_bulk", this);
         controller.registerHandler(PUT, "/_bulk", this);
@@ -67,20 +91,9 @@ public class RestBulkAction extends BaseRestHandler {
 
     @Override
     public void handleRequest(final RestRequest request, final RestChannel channel) {
-        BulkRequest bulkRequest = Requests.bulkRequest();
-        bulkRequest.listenerThreaded(false);
+        BulkRequest bulkRequest = newBulkRequest(request);
         String defaultIndex = request.param("index");
         String defaultType = request.param("type");
-
-        String replicationType = request.param("replication");
-        if (replicationType != null) {
-            bulkRequest.replicationType(ReplicationType.fromString(replicationType));
-        }
-        String consistencyLevel = request.param("consistency");
-        if (consistencyLevel != null) {
-            bulkRequest.consistencyLevel(WriteConsistencyLevel.fromString(consistencyLevel));
-        }
-        bulkRequest.refresh(request.paramAsBoolean("refresh", bulkRequest.refresh()));
         try {
             bulkRequest.add(request.content(), request.contentUnsafe(), defaultIndex, defaultType);
         } catch (Exception e) {
@@ -97,56 +110,324 @@ public class RestBulkAction extends BaseRestHandler {
             @Override
             public void onResponse(BulkResponse response) {
                 try {
-                    XContentBuilder builder = restContentBuilder(request);
-                    builder.startObject();
-                    builder.field(Fields.TOOK, response.tookInMillis());
-                    builder.startArray(Fields.ITEMS);
-                    for (BulkItemResponse itemResponse : response) {
-                        builder.startObject();
-                        builder.startObject(itemResponse.opType());
-                        builder.field(Fields._INDEX, itemResponse.index());
-                        builder.field(Fields._TYPE, itemResponse.type());
-                        builder.field(Fields._ID, itemResponse.id());
-                        long version = itemResponse.version();
-                        if (version != -1) {
-                            builder.field(Fields._VERSION, itemResponse.version());
+                    channel.sendResponse(new XContentRestResponse(request, OK, buildResponse(request, response.tookInMillis(), response)));
+                } catch (Exception e) {
+                    onFailure(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                try {
+                    channel.sendResponse(new XContentThrowableRestResponse(request, e));
+                } catch (IOException e1) {
+                    logger.error("Failed to send failure response", e1);
+                }
+            }
+        });
+    }
+
+    @Override
+    public RestContentConsumer handleStreamingRequest(RestRequest request, RestChannel channel, RestContentStream stream) {
+        if (!streaming || request.paramAsBoolean("refresh", false)) {
+            // a refresh needs to be executed after all the batches, simply buffer the whole request
+            return null;
+        }
+        try {
+            return new StreamingBulk(request, channel, stream);
+        } catch (IOException e) {
+            // can't happen, the response is rendered into memory, fall back to buffering
+            return null;
+        }
+    }
+
+    private BulkRequest newBulkRequest(RestRequest request) {
+        BulkRequest bulkRequest = Requests.bulkRequest();
+        bulkRequest.listenerThreaded(false);
+        String replicationType = request.param("replication");
+        if (replicationType != null) {
+            bulkRequest.replicationType(ReplicationType.fromString(replicationType));
+        }
+        String consistencyLevel = request.param("consistency");
+        if (consistencyLevel != null) {
+            bulkRequest.consistencyLevel(WriteConsistencyLevel.fromString(consistencyLevel));
+        }
+        bulkRequest.refresh(request.paramAsBoolean("refresh", bulkRequest.refresh()));
+        return bulkRequest;
+    }
+
+    /**
+     * Parses the actions of a bulk request body as it arrives, and executes them in batches of
+     * <tt>batchSize</tt> bytes while the rest of the body is still being received. Once
+     * <tt>maxInFlight</tt> batches are executing, reading from the client is paused until one of them
+     * completes, bounding the memory used by a bulk request regardless of its size.
+     */
+    class StreamingBulk implements RestContentConsumer {
+
+        private final RestRequest request;
+
+        private final RestChannel channel;
+
+        private final RestContentStream stream;
+
+        private final String defaultIndex;
+
+        private final String defaultType;
+
+        private final long startTime = System.currentTimeMillis();
+
+        // the items of the batches executed so far, rendered in request order as the batches complete
+        private final XContentBuilder builder;
+
+        // completed batches waiting for an earlier one to complete before being rendered, at most maxInFlight
+        private final Map<Integer, BulkResponse> completed = new HashMap<Integer, BulkResponse>();
+
+        private int batches;
+
+        private int rendered;
+
+        private BytesStreamOutput pending = new BytesStreamOutput();
+
+        private long nextBatchSize = batchSize.bytes();
+
+        private int inFlight;
+
+        private boolean ended;
+
+        private boolean done;
+
+        private Throwable failure;
+
+        private boolean parseFailure;
+
+        StreamingBulk(RestRequest request, RestChannel channel, RestContentStream stream) throws IOException {
+            this.request = request;
+            this.channel = channel;
+            this.stream = stream;
+            this.defaultIndex = request.param("index");
+            this.defaultType = request.param("type");
+            this.builder = restContentBuilder(request);
+            builder.startObject();
+            builder.startArray(Fields.ITEMS);
+        }
+
+        @Override
+        public void onContent(BytesReference content) {
+            synchronized (this) {
+                if (done || failure != null) {
+                    // drain the rest of the body
+                    return;
+                }
+                try {
+                    content.writeTo(pending);
+                } catch (IOException e) {
+                    // can't happen, writing to memory
+                    failure = e;
+                }
+            }
+            executeBatches();
+        }
+
+        @Override
+        public void onEnd() {
+            synchronized (this) {
+                ended = true;
+            }
+            executeBatches();
+        }
+
+        @Override
+        public synchronized void onFailure(Throwable t) {
+            // the client is gone, no need to execute the rest of the batches
+            done = true;
+            pending = null;
+            logger.debug("failed to receive bulk request body", t);
+        }
+
+        private void executeBatches() {
+            while (true) {
+                BulkRequest bulkRequest = null;
+                int slot = -1;
+                boolean respond = false;
+                synchronized (this) {
+                    if (done) {
+                        return;
+                    }
+                    if (failure == null && inFlight < maxInFlight && (ended || pending.size() >= nextBatchSize)) {
+                        try {
+                            bulkRequest = nextBatch();
+                        } catch (Exception e) {
+                            failure = e;
+                            parseFailure = true;
+                        }
+                        if (bulkRequest != null) {
+                            slot = batches++;
+                            if (++inFlight >= maxInFlight) {
+                                stream.pause();
+                            }
                         }
-                        if (itemResponse.failed()) {
-                            builder.field(Fields.ERROR, itemResponse.failure().message());
-                        } else {
-                            builder.field(Fields.OK, true);
+                    }
+                    if (bulkRequest == null) {
+                        if (ended && inFlight == 0) {
+                            done = true;
+                            respond = true;
+                        } else if (failure != null) {
+                            stream.resume();
                         }
-                        if (itemResponse.response() instanceof IndexResponse) {
-                            IndexResponse indexResponse = itemResponse.response();
-                            if (indexResponse.matches() != null) {
-                                builder.startArray(Fields.MATCHES);
-                                for (String match : indexResponse.matches()) {
-                                    builder.value(match);
-                                }
-                                builder.endArray();
+                    }
+                }
+                if (respond) {
+                    sendResponse();
+                    return;
+                }
+                if (bulkRequest == null) {
+                    return;
+                }
+                execute(bulkRequest, slot);
+            }
+        }
+
+        /**
+         * Returns the next batch to execute, or <tt>null</tt> if there are no complete actions to execute yet.
+         */
+        private BulkRequest nextBatch() throws Exception {
+            BytesReference data = pending.bytes();
+            BulkRequest bulkRequest = newBulkRequest(request);
+            if (ended) {
+                // the rest of the body, an empty body is still executed if nothing else was so it fails like a non streamed one
+                if (data.length() > 0 || batches == 0) {
+                    bulkRequest.add(data, false, defaultIndex, defaultType);
+                    pending = new BytesStreamOutput();
+                }
+                if (bulkRequest.numberOfActions() == 0 && batches > 0) {
+                    return null;
+                }
+                return bulkRequest;
+            }
+            int consumed = bulkRequest.addComplete(data, false, defaultIndex, defaultType, null);
+            if (bulkRequest.numberOfActions() == 0) {
+                // a single action bigger than the batch size, wait for more of it before parsing again
+                nextBatchSize = data.length() * 2;
+                return null;
+            }
+            // the requests of the batch point to the current buffer, start a new one for the rest
+            BytesStreamOutput rest = new BytesStreamOutput(Math.max(data.length() - consumed, 1024));
+            data.slice(consumed, data.length() - consumed).writeTo(rest);
+            pending = rest;
+            nextBatchSize = batchSize.bytes();
+            return bulkRequest;
+        }
+
+        private void execute(BulkRequest bulkRequest, final int slot) {
+            client.bulk(bulkRequest, new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    synchronized (StreamingBulk.this) {
+                        completed.put(slot, response);
+                        try {
+                            renderCompleted();
+                        } catch (IOException e) {
+                            if (failure == null) {
+                                failure = e;
                             }
                         }
-                        builder.endObject();
-                        builder.endObject();
+                        inFlight--;
+                        stream.resume();
                     }
-                    builder.endArray();
+                    executeBatches();
+                }
 
-                    builder.endObject();
-                    channel.sendResponse(new XContentRestResponse(request, OK, builder));
-                } catch (Exception e) {
-                    onFailure(e);
+                @Override
+                public void onFailure(Throwable e) {
+                    synchronized (StreamingBulk.this) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                        inFlight--;
+                        stream.resume();
+                    }
+                    executeBatches();
                 }
+            });
+        }
+
+        /**
+         * Renders the items of the completed batches that follow the ones already rendered, so only the rendered
+         * items, and not the responses of every batch, are kept until the body ends.
+         */
+        private void renderCompleted() throws IOException {
+            BulkResponse response;
+            while ((response = completed.remove(rendered)) != null) {
+                buildItems(builder, response);
+                rendered++;
             }
+        }
 
-            @Override
-            public void onFailure(Throwable e) {
+        private void sendResponse() {
+            try {
+                if (failure != null) {
+                    if (parseFailure) {
+                        XContentBuilder builder = restContentBuilder(request);
+                        channel.sendResponse(new XContentRestResponse(request, BAD_REQUEST, builder.startObject().field("error", failure.getMessage()).endObject()));
+                    } else {
+                        channel.sendResponse(new XContentThrowableRestResponse(request, failure));
+                    }
+                    return;
+                }
+                builder.endArray();
+                builder.field(Fields.TOOK, System.currentTimeMillis() - startTime);
+                builder.endObject();
+                channel.sendResponse(new XContentRestResponse(request, OK, builder));
+            } catch (Exception e) {
                 try {
                     channel.sendResponse(new XContentThrowableRestResponse(request, e));
                 } catch (IOException e1) {
                     logger.error("Failed to send failure response", e1);
                 }
             }
-        });
+        }
+    }
+
+    static XContentBuilder buildResponse(RestRequest request, long tookInMillis, Iterable<BulkItemResponse> itemResponses) throws IOException {
+        XContentBuilder builder = restContentBuilder(request);
+        builder.startObject();
+        builder.field(Fields.TOOK, tookInMillis);
+        builder.startArray(Fields.ITEMS);
+        buildItems(builder, itemResponses);
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+
+    static void buildItems(XContentBuilder builder, Iterable<BulkItemResponse> itemResponses) throws IOException {
+        for (BulkItemResponse itemResponse : itemResponses) {
+            builder.startObject();
+            builder.startObject(itemResponse.opType());
+            builder.field(Fields._INDEX, itemResponse.index());
+            builder.field(Fields._TYPE, itemResponse.type());
+            builder.field(Fields._ID, itemResponse.id());
+            long version = itemResponse.version();
+            if (version != -1) {
+                builder.field(Fields._VERSION, itemResponse.version());
+            }
+            if (itemResponse.failed()) {
+                builder.field(Fields.ERROR, itemResponse.failure().message());
+            } else {
+                builder.field(Fields.OK, true);
+            }
+            if (itemResponse.response() instanceof IndexResponse) {
+                IndexResponse indexResponse = itemResponse.response();
+                if (indexResponse.matches() != null) {
+                    builder.startArray(Fields.MATCHES);
+                    for (String match : indexResponse.matches()) {
+                        builder.value(match);
+                    }
+                    builder.endArray();
+                }
+            }
+            builder.endObject();
+            builder.endObject();
+        }
     }
 
     static final class Fields {
@@ -37,6 +37,7 @@ import org.elasticsearch.rest.action.support.RestActions;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 
@@ -45,15 +46,24 @@ import static org.elasticsearch.rest.RestRequest.Method.GET;
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestStatus.BAD_REQUEST;
 import static org.elasticsearch.rest.action.support.RestXContentBuilder.restContentBuilder;
+import static org.elasticsearch.rest.action.support.RestXContentBuilder.restContentType;
 
 /**
- *
+ * When <tt>http.search.streaming</tt> is enabled (disabled by default), search responses are rendered on the
+ * search thread pool straight to the client in chunks, waiting for the client to keep up instead of building the
+ * whole response in memory first.
  */
 public class RestSearchAction extends BaseRestHandler {
 
+    private final ThreadPool threadPool;
+
+    private final boolean streaming;
+
     @Inject
-    public RestSearchAction(Settings settings, Client client, RestController controller) {
+    public RestSearchAction(Settings settings, Client client, RestController controller, ThreadPool threadPool) {
         super(settings, client);
+        this.threadPool = threadPool;
+        this.streaming = settings.getAsBoolean("http.search.streaming", false);
         controller.registerHandler(GET, "/_search", this);
         controller.registerHandler(POST, "/_search", this);
         controller.registerHandler(GET, "/{index}/_search", this);
@@ -91,6 +101,35 @@ public class RestSearchAction extends BaseRestHandler {
         client.search(searchRequest, new ActionListener<SearchResponse>() {
             @Override
             public void onResponse(SearchResponse response) {
+                // render large responses straight to the client instead of building them in memory first, jsonp
+                // responses are wrapped by the channel so they keep using the buffered response
+                if (streaming && channel instanceof StreamingRestChannel && request.param("callback") == null) {
+                    forkStreamingResponse(response);
+                    return;
+                }
+                sendResponse(response);
+            }
+
+            /**
+             * Renders the response on the search pool, so writing it can wait for the client instead of queueing
+             * the whole response when the listener is called on a network thread.
+             */
+            private void forkStreamingResponse(final SearchResponse response) {
+                try {
+                    threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            sendStreamingResponse(response);
+                        }
+                    });
+                } catch (Exception e) {
+                    // rejected, render it in memory instead
+                    logger.debug("failed to fork streaming search response, sending it buffered", e);
+                    sendResponse(response);
+                }
+            }
+
+            private void sendResponse(SearchResponse response) {
                 try {
                     XContentBuilder builder = restContentBuilder(request);
                     builder.startObject();
@@ -105,6 +144,34 @@ public class RestSearchAction extends BaseRestHandler {
                 }
             }
 
+            private void sendStreamingResponse(SearchResponse response) {
+                RestOutputStream out = ((StreamingRestChannel) channel).startResponse(response.status(), restContentType(request).restContentType());
+                XContentBuilder builder = null;
+                try {
+                    builder = restContentBuilder(request, out);
+                    builder.startObject();
+                    response.toXContent(builder, request);
+                    builder.endObject();
+                    builder.flush();
+                    out.close();
+                } catch (Exception e) {
+                    out.abort();
+                    if (out.committed()) {
+                        // part of the response is already sent, the connection was closed instead
+                        logger.debug("failed to execute search (streaming response)", e);
+                    } else {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("failed to execute search (building response)", e);
+                        }
+                        onFailure(e);
+                    }
+                } finally {
+                    if (builder != null) {
+                        builder.close();
+                    }
+                }
+            }
+
             @Override
             public void onFailure(Throwable e) {
                 try {
@@ -28,13 +28,14 @@ import org.elasticsearch.common.xcontent.*;
 import org.elasticsearch.rest.RestRequest;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  *
  */
 public class RestXContentBuilder {
 
-    public static XContentBuilder restContentBuilder(RestRequest request) throws IOException {
+    public static XContentType restContentType(RestRequest request) {
         XContentType contentType = XContentType.fromRestContentType(request.param("format", request.header("Content-Type")));
         if (contentType == null) {
             // try and guess it from the body, if exists
@@ -46,8 +47,25 @@ public class RestXContentBuilder {
             // default to JSON
             contentType = XContentType.JSON;
         }
+        return contentType;
+    }
+
+    public static XContentBuilder restContentBuilder(RestRequest request) throws IOException {
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(contentType), cachedEntry.bytes(), cachedEntry);
+        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(restContentType(request)), cachedEntry.bytes(), cachedEntry);
+        return configure(request, builder);
+    }
+
+    /**
+     * Creates a builder for the request that renders directly into the provided stream, for example one
+     * that is sent to the client as it is written (see {@link org.elasticsearch.rest.StreamingRestChannel}).
+     */
+    public static XContentBuilder restContentBuilder(RestRequest request, OutputStream os) throws IOException {
+        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(restContentType(request)), os);
+        return configure(request, builder);
+    }
+
+    private static XContentBuilder configure(RestRequest request, XContentBuilder builder) {
         if (request.paramAsBoolean("pretty", false)) {
             builder.prettyPrint();
         }
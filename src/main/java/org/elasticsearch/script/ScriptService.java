@@ -21,14 +21,21 @@ package org.elasticsearch.script;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
@@ -42,10 +49,25 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
- *
+ * Compiles and caches scripts for the different script engines.
+ * <p/>
+ * Dynamic scripts are kept in a bounded cache of compiled scripts, controlled by the following settings:
+ * <ul>
+ * <li><tt>script.cache.max_size</tt>: the maximum number of compiled scripts to keep, defaults to <tt>500</tt>.</li>
+ * <li><tt>script.cache.size</tt>: when set, bounds the cache by the estimated size of the cached scripts
+ * (for example <tt>10mb</tt>) instead of by entry count. A script is estimated to take its source
+ * (two bytes per char) plus three times that for its compiled form.</li>
+ * <li><tt>script.cache.expire</tt>: evicts compiled scripts that have not been accessed for the given time,
+ * not set by default.</li>
+ * <li><tt>script.compile.slow_threshold</tt>: compilations taking longer than this are logged as a warning
+ * and counted in the stats, defaults to <tt>1s</tt>, <tt>-1</tt> disables it.</li>
+ * </ul>
  */
 public class ScriptService extends AbstractComponent {
 
@@ -55,8 +77,21 @@ public class ScriptService extends AbstractComponent {
 
     private final ConcurrentMap<String, CompiledScript> staticCache = ConcurrentCollections.newConcurrentMap();
 
-    // TODO expose some cache aspects like expiration and max size
-    private final Cache<CacheKey, CompiledScript> cache = CacheBuilder.newBuilder().build();
+    private final Cache<CacheKey, CompiledScript> cache;
+
+    private final int cacheMaxSize;
+
+    private final ByteSizeValue cacheSize;
+
+    private final TimeValue cacheExpire;
+
+    private final TimeValue slowCompileThreshold;
+
+    private final CounterMetric compileCount = new CounterMetric();
+
+    private final CounterMetric compileTimeInNanos = new CounterMetric();
+
+    private final CounterMetric slowCompileMetric = new CounterMetric();
 
     private final boolean disableDynamic;
 
@@ -73,6 +108,26 @@ public class ScriptService extends AbstractComponent {
 
         this.defaultLang = componentSettings.get("default_lang", "mvel");
         this.disableDynamic = componentSettings.getAsBoolean("disable_dynamic", false);
+        this.cacheMaxSize = componentSettings.getAsInt("cache.max_size", 500);
+        this.cacheSize = componentSettings.getAsBytesSize("cache.size", null);
+        this.cacheExpire = componentSettings.getAsTime("cache.expire", null);
+        this.slowCompileThreshold = componentSettings.getAsTime("compile.slow_threshold", TimeValue.timeValueSeconds(1));
+
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().recordStats();
+        if (cacheSize != null) {
+            cacheBuilder.maximumWeight(cacheSize.bytes());
+        } else if (cacheMaxSize >= 0) {
+            cacheBuilder.maximumSize(cacheMaxSize);
+        }
+        if (cacheExpire != null) {
+            cacheBuilder.expireAfterAccess(cacheExpire.nanos(), TimeUnit.NANOSECONDS);
+        }
+        if (cacheSize != null) {
+            this.cache = cacheBuilder.weigher(new CompiledScriptWeigher()).build();
+        } else {
+            this.cache = cacheBuilder.build();
+        }
+        logger.debug("using script cache with max_size [{}], size [{}], expire [{}], slow_threshold [{}]", cacheMaxSize, cacheSize, cacheExpire, slowCompileThreshold);
 
         ImmutableMap.Builder<String, ScriptEngineService> builder = ImmutableMap.builder();
         for (ScriptEngineService scriptEngine : scriptEngines) {
@@ -148,21 +203,53 @@ public class ScriptService extends AbstractComponent {
         if (dynamicScriptDisabled(lang)) {
             throw new ScriptException("dynamic scripting disabled");
         }
-        CacheKey cacheKey = new CacheKey(lang, script);
-        compiled = cache.getIfPresent(cacheKey);
-        if (compiled != null) {
-            return compiled;
-        }
-        // not the end of the world if we compile it twice...
-        ScriptEngineService service = scriptEngines.get(lang);
+        final ScriptEngineService service = scriptEngines.get(lang);
         if (service == null) {
             throw new ElasticSearchIllegalArgumentException("script_lang not supported [" + lang + "]");
         }
-        compiled = new CompiledScript(lang, service.compile(script));
-        cache.put(cacheKey, compiled);
+        final CacheKey cacheKey = new CacheKey(lang, script);
+        try {
+            // concurrent requests for the same script wait on a single compilation
+            return cache.get(cacheKey, new Callable<CompiledScript>() {
+                @Override
+                public CompiledScript call() throws Exception {
+                    return doCompile(service, cacheKey);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new ScriptException("failed to compile script [" + script + "]", e.getCause());
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    private CompiledScript doCompile(ScriptEngineService service, CacheKey cacheKey) {
+        long start = System.nanoTime();
+        CompiledScript compiled = new CompiledScript(cacheKey.lang, service.compile(cacheKey.script));
+        long took = System.nanoTime() - start;
+        compileCount.inc();
+        compileTimeInNanos.inc(took);
+        if (slowCompileThreshold.nanos() >= 0 && took > slowCompileThreshold.nanos()) {
+            slowCompileMetric.inc();
+            logger.warn("compiling [{}] script took [{}], script [{}]", cacheKey.lang, TimeValue.timeValueNanos(took), cacheKey.script);
+        }
         return compiled;
     }
 
+    /**
+     * Statistics of the compiled scripts cache and of dynamic script compilations.
+     */
+    public ScriptStats stats() {
+        CacheStats cacheStats = cache.stats();
+        return new ScriptStats(cache.size(), cacheStats.hitCount(), cacheStats.missCount(), cacheStats.evictionCount(),
+                compileCount.count(), TimeUnit.NANOSECONDS.toMillis(compileTimeInNanos.count()), slowCompileMetric.count());
+    }
+
     public ExecutableScript executable(String lang, String script, Map vars) {
         return executable(compile(lang, script), vars);
     }
@@ -199,6 +286,26 @@ public class ScriptService extends AbstractComponent {
         return !"native".equals(lang);
     }
 
+    /**
+     * Estimates the heap used by a cached script from the length of its source, as the compiled
+     * form is engine specific and opaque: the source (two bytes per char) plus a compiled form assumed
+     * to be {@link #COMPILED_SIZE_MULTIPLIER} times the size of the source, plus a fixed entry overhead.
+     */
+    static class CompiledScriptWeigher implements Weigher<CacheKey, CompiledScript> {
+
+        static final int ENTRY_OVERHEAD = 64;
+
+        static final int BYTES_PER_CHAR = 2;
+
+        static final int COMPILED_SIZE_MULTIPLIER = 3;
+
+        @Override
+        public int weigh(CacheKey key, CompiledScript value) {
+            int sourceBytes = (key.lang.length() + key.script.length()) * BYTES_PER_CHAR;
+            return ENTRY_OVERHEAD + sourceBytes + sourceBytes * COMPILED_SIZE_MULTIPLIER;
+        }
+    }
+
     public static class CacheKey {
         public final String lang;
         public final String script;
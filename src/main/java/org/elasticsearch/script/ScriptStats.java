@@ -0,0 +1,196 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Node level statistics of the compiled scripts cache held by {@link ScriptService}.
+ */
+public class ScriptStats implements Streamable, ToXContent {
+
+    private long cacheSize;
+    private long cacheHitCount;
+    private long cacheMissCount;
+    private long cacheEvictions;
+    private long compileTotal;
+    private long compileTimeInMillis;
+    private long slowCompileTotal;
+
+    ScriptStats() {
+
+    }
+
+    public ScriptStats(long cacheSize, long cacheHitCount, long cacheMissCount, long cacheEvictions,
+                       long compileTotal, long compileTimeInMillis, long slowCompileTotal) {
+        this.cacheSize = cacheSize;
+        this.cacheHitCount = cacheHitCount;
+        this.cacheMissCount = cacheMissCount;
+        this.cacheEvictions = cacheEvictions;
+        this.compileTotal = compileTotal;
+        this.compileTimeInMillis = compileTimeInMillis;
+        this.slowCompileTotal = slowCompileTotal;
+    }
+
+    /**
+     * The number of compiled scripts currently held in the cache.
+     */
+    public long cacheSize() {
+        return this.cacheSize;
+    }
+
+    public long getCacheSize() {
+        return cacheSize();
+    }
+
+    public long cacheHitCount() {
+        return this.cacheHitCount;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount();
+    }
+
+    public long cacheMissCount() {
+        return this.cacheMissCount;
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount();
+    }
+
+    /**
+     * The number of compiled scripts removed from the cache because of its size or expiration.
+     */
+    public long cacheEvictions() {
+        return this.cacheEvictions;
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions();
+    }
+
+    /**
+     * The total number of dynamic scripts compiled.
+     */
+    public long compileTotal() {
+        return this.compileTotal;
+    }
+
+    public long getCompileTotal() {
+        return compileTotal();
+    }
+
+    /**
+     * The total time spent compiling dynamic scripts (in milliseconds).
+     */
+    public long compileTimeInMillis() {
+        return this.compileTimeInMillis;
+    }
+
+    public long getCompileTimeInMillis() {
+        return compileTimeInMillis();
+    }
+
+    /**
+     * The total time spent compiling dynamic scripts.
+     */
+    public TimeValue compileTime() {
+        return new TimeValue(compileTimeInMillis);
+    }
+
+    public TimeValue getCompileTime() {
+        return compileTime();
+    }
+
+    /**
+     * The number of compilations that took longer than the configured slow compile threshold.
+     */
+    public long slowCompileTotal() {
+        return this.slowCompileTotal;
+    }
+
+    public long getSlowCompileTotal() {
+        return slowCompileTotal();
+    }
+
+    public static ScriptStats readScriptStats(StreamInput in) throws IOException {
+        ScriptStats stats = new ScriptStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        cacheSize = in.readVLong();
+        cacheHitCount = in.readVLong();
+        cacheMissCount = in.readVLong();
+        cacheEvictions = in.readVLong();
+        compileTotal = in.readVLong();
+        compileTimeInMillis = in.readVLong();
+        slowCompileTotal = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(cacheSize);
+        out.writeVLong(cacheHitCount);
+        out.writeVLong(cacheMissCount);
+        out.writeVLong(cacheEvictions);
+        out.writeVLong(compileTotal);
+        out.writeVLong(compileTimeInMillis);
+        out.writeVLong(slowCompileTotal);
+    }
+
+    static final class Fields {
+        static final XContentBuilderString SCRIPT = new XContentBuilderString("script");
+        static final XContentBuilderString CACHE_SIZE = new XContentBuilderString("cache_size");
+        static final XContentBuilderString CACHE_HIT_COUNT = new XContentBuilderString("cache_hit_count");
+        static final XContentBuilderString CACHE_MISS_COUNT = new XContentBuilderString("cache_miss_count");
+        static final XContentBuilderString CACHE_EVICTIONS = new XContentBuilderString("cache_evictions");
+        static final XContentBuilderString COMPILE_TOTAL = new XContentBuilderString("compile_total");
+        static final XContentBuilderString COMPILE_TIME = new XContentBuilderString("compile_time");
+        static final XContentBuilderString COMPILE_TIME_IN_MILLIS = new XContentBuilderString("compile_time_in_millis");
+        static final XContentBuilderString SLOW_COMPILE_TOTAL = new XContentBuilderString("slow_compile_total");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.SCRIPT);
+        builder.field(Fields.CACHE_SIZE, cacheSize);
+        builder.field(Fields.CACHE_HIT_COUNT, cacheHitCount);
+        builder.field(Fields.CACHE_MISS_COUNT, cacheMissCount);
+        builder.field(Fields.CACHE_EVICTIONS, cacheEvictions);
+        builder.field(Fields.COMPILE_TOTAL, compileTotal);
+        builder.field(Fields.COMPILE_TIME, compileTime().toString());
+        builder.field(Fields.COMPILE_TIME_IN_MILLIS, compileTimeInMillis);
+        builder.field(Fields.SLOW_COMPILE_TOTAL, slowCompileTotal);
+        builder.endObject();
+        return builder;
+    }
+}
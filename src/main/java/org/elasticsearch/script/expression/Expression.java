@@ -0,0 +1,70 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import java.util.Arrays;
+
+/**
+ * A compiled numeric expression, see {@link ExpressionParser} for the syntax. Expressions are immutable
+ * and can be shared, the per execution state lives in {@link ExpressionScript}.
+ */
+public class Expression {
+
+    private final String source;
+
+    final ExpressionNode root;
+
+    final String[] fields;
+
+    final String[] variables;
+
+    Expression(String source, ExpressionNode root, String[] fields, String[] variables) {
+        this.source = source;
+        this.root = root;
+        this.fields = fields;
+        this.variables = variables;
+    }
+
+    /**
+     * The source the expression was compiled from.
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * The fields (accessed with <tt>doc['field']</tt>) the expression reads.
+     */
+    public String[] fields() {
+        return fields;
+    }
+
+    /**
+     * The variables the expression reads.
+     */
+    public String[] variables() {
+        return variables;
+    }
+
+    @Override
+    public String toString() {
+        return "expression [" + source + "], fields " + Arrays.toString(fields) + ", variables " + Arrays.toString(variables);
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+/**
+ * A node of a compiled expression. Nodes are immutable and evaluate against the state of the
+ * {@link ExpressionScript} they are run by, so a compiled expression can be shared by many scripts.
+ */
+abstract class ExpressionNode {
+
+    abstract double eval(ExpressionScript script);
+
+    boolean isConstant() {
+        return false;
+    }
+
+    static boolean bool(double value) {
+        return value != 0;
+    }
+
+    static double bool(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    static final class Constant extends ExpressionNode {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    static final class FieldValue extends ExpressionNode {
+        final int field;
+
+        FieldValue(int field) {
+            this.field = field;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return script.fieldData[field].doubleValue(script.docId);
+        }
+    }
+
+    static final class FieldEmpty extends ExpressionNode {
+        final int field;
+
+        FieldEmpty(int field) {
+            this.field = field;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(!script.fieldData[field].hasValue(script.docId));
+        }
+    }
+
+    static final class Score extends ExpressionNode {
+        @Override
+        double eval(ExpressionScript script) {
+            return script.score;
+        }
+    }
+
+    static final class Variable extends ExpressionNode {
+        final int var;
+
+        Variable(int var) {
+            this.var = var;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return script.vars[var];
+        }
+    }
+
+    static final class Negate extends ExpressionNode {
+        final ExpressionNode node;
+
+        Negate(ExpressionNode node) {
+            this.node = node;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return -node.eval(script);
+        }
+    }
+
+    static final class Not extends ExpressionNode {
+        final ExpressionNode node;
+
+        Not(ExpressionNode node) {
+            this.node = node;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(!bool(node.eval(script)));
+        }
+    }
+
+    static abstract class Binary extends ExpressionNode {
+        final ExpressionNode left;
+        final ExpressionNode right;
+
+        Binary(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    static final class Add extends Binary {
+        Add(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return left.eval(script) + right.eval(script);
+        }
+    }
+
+    static final class Subtract extends Binary {
+        Subtract(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return left.eval(script) - right.eval(script);
+        }
+    }
+
+    static final class Multiply extends Binary {
+        Multiply(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return left.eval(script) * right.eval(script);
+        }
+    }
+
+    static final class Divide extends Binary {
+        Divide(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return left.eval(script) / right.eval(script);
+        }
+    }
+
+    static final class Remainder extends Binary {
+        Remainder(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return left.eval(script) % right.eval(script);
+        }
+    }
+
+    static final class LessThan extends Binary {
+        LessThan(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(left.eval(script) < right.eval(script));
+        }
+    }
+
+    static final class LessThanOrEqual extends Binary {
+        LessThanOrEqual(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(left.eval(script) <= right.eval(script));
+        }
+    }
+
+    static final class GreaterThan extends Binary {
+        GreaterThan(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(left.eval(script) > right.eval(script));
+        }
+    }
+
+    static final class GreaterThanOrEqual extends Binary {
+        GreaterThanOrEqual(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(left.eval(script) >= right.eval(script));
+        }
+    }
+
+    static final class Equal extends Binary {
+        Equal(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(left.eval(script) == right.eval(script));
+        }
+    }
+
+    static final class NotEqual extends Binary {
+        NotEqual(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(left.eval(script) != right.eval(script));
+        }
+    }
+
+    static final class And extends Binary {
+        And(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(bool(left.eval(script)) && bool(right.eval(script)));
+        }
+    }
+
+    static final class Or extends Binary {
+        Or(ExpressionNode left, ExpressionNode right) {
+            super(left, right);
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(bool(left.eval(script)) || bool(right.eval(script)));
+        }
+    }
+
+    static final class Conditional extends ExpressionNode {
+        final ExpressionNode condition;
+        final ExpressionNode whenTrue;
+        final ExpressionNode whenFalse;
+
+        Conditional(ExpressionNode condition, ExpressionNode whenTrue, ExpressionNode whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            return bool(condition.eval(script)) ? whenTrue.eval(script) : whenFalse.eval(script);
+        }
+    }
+
+    static final class Function extends ExpressionNode {
+
+        static final int ABS = 0;
+        static final int CEIL = 1;
+        static final int FLOOR = 2;
+        static final int ROUND = 3;
+        static final int SQRT = 4;
+        static final int EXP = 5;
+        static final int LOG = 6;
+        static final int LOG10 = 7;
+        static final int SIN = 8;
+        static final int COS = 9;
+        static final int TAN = 10;
+        static final int ATAN = 11;
+        static final int POW = 12;
+        static final int MIN = 13;
+        static final int MAX = 14;
+        static final int ATAN2 = 15;
+
+        final int function;
+        final ExpressionNode arg1;
+        final ExpressionNode arg2;
+
+        Function(int function, ExpressionNode arg1, ExpressionNode arg2) {
+            this.function = function;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+        }
+
+        @Override
+        double eval(ExpressionScript script) {
+            double value = arg1.eval(script);
+            switch (function) {
+                case ABS:
+                    return Math.abs(value);
+                case CEIL:
+                    return Math.ceil(value);
+                case FLOOR:
+                    return Math.floor(value);
+                case ROUND:
+                    return Math.round(value);
+                case SQRT:
+                    return Math.sqrt(value);
+                case EXP:
+                    return Math.exp(value);
+                case LOG:
+                    return Math.log(value);
+                case LOG10:
+                    return Math.log10(value);
+                case SIN:
+                    return Math.sin(value);
+                case COS:
+                    return Math.cos(value);
+                case TAN:
+                    return Math.tan(value);
+                case ATAN:
+                    return Math.atan(value);
+                case POW:
+                    return Math.pow(value, arg2.eval(script));
+                case MIN:
+                    return Math.min(value, arg2.eval(script));
+                case MAX:
+                    return Math.max(value, arg2.eval(script));
+                case ATAN2:
+                    return Math.atan2(value, arg2.eval(script));
+                default:
+                    throw new IllegalStateException("unknown function [" + function + "]");
+            }
+        }
+    }
+}
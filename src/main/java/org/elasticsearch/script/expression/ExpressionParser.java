@@ -0,0 +1,366 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.script.ScriptException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses numeric expressions into an {@link Expression}. All values are doubles, booleans are represented as
+ * <tt>1</tt> and <tt>0</tt>. The syntax supports:
+ * <ul>
+ * <li>number literals, <tt>PI</tt> and <tt>E</tt> (optionally prefixed with <tt>Math.</tt>)
+ * <li><tt>doc['field'].value</tt> and <tt>doc['field'].empty</tt> on numeric fields
+ * <li><tt>_score</tt> and numeric variables passed as script parameters
+ * <li>the <tt>+ - * / %</tt>, <tt>&lt; &lt;= &gt; &gt;= == !=</tt>, <tt>&& || !</tt> and <tt>? :</tt> operators
+ * <li>the <tt>abs, ceil, floor, round, sqrt, exp, log, log10, sin, cos, tan, atan, pow, min, max, atan2</tt>
+ * functions (optionally prefixed with <tt>Math.</tt>)
+ * </ul>
+ * Sub expressions that only involve constants are evaluated when parsing.
+ */
+public class ExpressionParser {
+
+    private static final String[] FUNCTIONS = new String[]{
+            "abs", "ceil", "floor", "round", "sqrt", "exp", "log", "log10", "sin", "cos", "tan", "atan", "pow", "min", "max", "atan2"
+    };
+
+    private static final int FIRST_BINARY_FUNCTION = ExpressionNode.Function.POW;
+
+    private static final ExpressionNode SCORE = new ExpressionNode.Score();
+
+    public static Expression parse(String source) throws ScriptException {
+        ExpressionParser parser = new ExpressionParser(source);
+        ExpressionNode root = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.peek() == ';') {
+            parser.pos++;
+            parser.skipWhitespace();
+        }
+        if (parser.pos != source.length()) {
+            throw parser.error("unexpected character [" + source.charAt(parser.pos) + "]");
+        }
+        return new Expression(source, root, parser.fields.toArray(new String[parser.fields.size()]),
+                parser.variables.toArray(new String[parser.variables.size()]));
+    }
+
+    private final String source;
+
+    private int pos;
+
+    private final List<String> fields = new ArrayList<String>();
+
+    private final List<String> variables = new ArrayList<String>();
+
+    private ExpressionParser(String source) {
+        this.source = source;
+    }
+
+    private ExpressionNode parseExpression() {
+        ExpressionNode condition = parseOr();
+        if (consume("?")) {
+            ExpressionNode whenTrue = parseExpression();
+            expect(":");
+            ExpressionNode whenFalse = parseExpression();
+            if (condition.isConstant()) {
+                return ExpressionNode.bool(((ExpressionNode.Constant) condition).value) ? whenTrue : whenFalse;
+            }
+            return new ExpressionNode.Conditional(condition, whenTrue, whenFalse);
+        }
+        return condition;
+    }
+
+    private ExpressionNode parseOr() {
+        ExpressionNode node = parseAnd();
+        while (consume("||")) {
+            node = fold(new ExpressionNode.Or(node, parseAnd()));
+        }
+        return node;
+    }
+
+    private ExpressionNode parseAnd() {
+        ExpressionNode node = parseEquality();
+        while (consume("&&")) {
+            node = fold(new ExpressionNode.And(node, parseEquality()));
+        }
+        return node;
+    }
+
+    private ExpressionNode parseEquality() {
+        ExpressionNode node = parseComparison();
+        while (true) {
+            if (consume("==")) {
+                node = fold(new ExpressionNode.Equal(node, parseComparison()));
+            } else if (consume("!=")) {
+                node = fold(new ExpressionNode.NotEqual(node, parseComparison()));
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseComparison() {
+        ExpressionNode node = parseAdditive();
+        while (true) {
+            if (consume("<=")) {
+                node = fold(new ExpressionNode.LessThanOrEqual(node, parseAdditive()));
+            } else if (consume(">=")) {
+                node = fold(new ExpressionNode.GreaterThanOrEqual(node, parseAdditive()));
+            } else if (consume("<")) {
+                node = fold(new ExpressionNode.LessThan(node, parseAdditive()));
+            } else if (consume(">")) {
+                node = fold(new ExpressionNode.GreaterThan(node, parseAdditive()));
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseAdditive() {
+        ExpressionNode node = parseMultiplicative();
+        while (true) {
+            if (consume("+")) {
+                node = fold(new ExpressionNode.Add(node, parseMultiplicative()));
+            } else if (consume("-")) {
+                node = fold(new ExpressionNode.Subtract(node, parseMultiplicative()));
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseMultiplicative() {
+        ExpressionNode node = parseUnary();
+        while (true) {
+            if (consume("*")) {
+                node = fold(new ExpressionNode.Multiply(node, parseUnary()));
+            } else if (consume("/")) {
+                node = fold(new ExpressionNode.Divide(node, parseUnary()));
+            } else if (consume("%")) {
+                node = fold(new ExpressionNode.Remainder(node, parseUnary()));
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseUnary() {
+        if (consume("-")) {
+            return fold(new ExpressionNode.Negate(parseUnary()));
+        }
+        if (consume("+")) {
+            return parseUnary();
+        }
+        if (peek() == '!' && peek(1) != '=') {
+            pos++;
+            return fold(new ExpressionNode.Not(parseUnary()));
+        }
+        return parsePrimary();
+    }
+
+    private ExpressionNode parsePrimary() {
+        skipWhitespace();
+        char c = peek();
+        if (c == '(') {
+            pos++;
+            ExpressionNode node = parseExpression();
+            expect(")");
+            return node;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        }
+        if (!Character.isJavaIdentifierStart(c)) {
+            throw error(c == 0 ? "unexpected end of expression" : "unexpected character [" + c + "]");
+        }
+        String identifier = parseIdentifier();
+        if (identifier.equals("Math") && peek() == '.') {
+            pos++;
+            identifier = parseIdentifier();
+        } else if (identifier.equals("doc")) {
+            return parseDoc();
+        } else if (identifier.equals("_score")) {
+            return SCORE;
+        }
+        if (consume("(")) {
+            return parseFunction(identifier);
+        }
+        if (identifier.equals("PI")) {
+            return new ExpressionNode.Constant(Math.PI);
+        }
+        if (identifier.equals("E")) {
+            return new ExpressionNode.Constant(Math.E);
+        }
+        return new ExpressionNode.Variable(index(variables, identifier));
+    }
+
+    private ExpressionNode parseDoc() {
+        expect("[");
+        skipWhitespace();
+        char quote = peek();
+        if (quote != '\'' && quote != '"') {
+            throw error("expected a quoted field name");
+        }
+        int end = source.indexOf(quote, pos + 1);
+        if (end == -1) {
+            throw error("unterminated field name");
+        }
+        String field = source.substring(pos + 1, end);
+        pos = end + 1;
+        expect("]");
+        expect(".");
+        skipWhitespace();
+        String property = parseIdentifier();
+        if (property.equals("value")) {
+            return new ExpressionNode.FieldValue(index(fields, field));
+        }
+        if (property.equals("empty")) {
+            return new ExpressionNode.FieldEmpty(index(fields, field));
+        }
+        throw error("unsupported field property [" + property + "], only [value] and [empty] are supported");
+    }
+
+    private ExpressionNode parseFunction(String name) {
+        int function = -1;
+        for (int i = 0; i < FUNCTIONS.length; i++) {
+            if (FUNCTIONS[i].equals(name)) {
+                function = i;
+                break;
+            }
+        }
+        if (function == -1) {
+            throw error("unknown function [" + name + "]");
+        }
+        ExpressionNode arg1 = parseExpression();
+        ExpressionNode arg2 = null;
+        if (function >= FIRST_BINARY_FUNCTION) {
+            expect(",");
+            arg2 = parseExpression();
+        }
+        expect(")");
+        ExpressionNode.Function node = new ExpressionNode.Function(function, arg1, arg2);
+        if (arg1.isConstant() && (arg2 == null || arg2.isConstant())) {
+            return new ExpressionNode.Constant(node.eval(null));
+        }
+        return node;
+    }
+
+    private ExpressionNode parseNumber() {
+        int start = pos;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (Character.isDigit(c) || c == '.') {
+                pos++;
+            } else if ((c == 'e' || c == 'E') && pos + 1 < source.length()) {
+                pos++;
+                if (source.charAt(pos) == '-' || source.charAt(pos) == '+') {
+                    pos++;
+                }
+            } else {
+                break;
+            }
+        }
+        String number = source.substring(start, pos);
+        // allow for java style type suffixes
+        if (pos < source.length() && "dDfFlL".indexOf(source.charAt(pos)) != -1) {
+            pos++;
+        }
+        try {
+            return new ExpressionNode.Constant(Double.parseDouble(number));
+        } catch (NumberFormatException e) {
+            throw error("invalid number [" + number + "]");
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = pos;
+        if (pos < source.length() && Character.isJavaIdentifierStart(source.charAt(pos))) {
+            pos++;
+            while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                pos++;
+            }
+        }
+        if (start == pos) {
+            throw error("expected an identifier");
+        }
+        return source.substring(start, pos);
+    }
+
+    private static ExpressionNode fold(ExpressionNode node) {
+        if (node instanceof ExpressionNode.Binary) {
+            ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+            if (binary.left.isConstant() && binary.right.isConstant()) {
+                return new ExpressionNode.Constant(node.eval(null));
+            }
+        } else if (node instanceof ExpressionNode.Negate) {
+            if (((ExpressionNode.Negate) node).node.isConstant()) {
+                return new ExpressionNode.Constant(node.eval(null));
+            }
+        } else if (node instanceof ExpressionNode.Not) {
+            if (((ExpressionNode.Not) node).node.isConstant()) {
+                return new ExpressionNode.Constant(node.eval(null));
+            }
+        }
+        return node;
+    }
+
+    private static int index(List<String> names, String name) {
+        int index = names.indexOf(name);
+        if (index == -1) {
+            index = names.size();
+            names.add(name);
+        }
+        return index;
+    }
+
+    private boolean consume(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!consume(token)) {
+            throw error("expected [" + token + "]");
+        }
+    }
+
+    private char peek() {
+        return peek(0);
+    }
+
+    private char peek(int offset) {
+        return pos + offset < source.length() ? source.charAt(pos + offset) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private ScriptException error(String message) {
+        return new ScriptException("Failed to compile expression [" + source + "]: " + message + " at position [" + pos + "]");
+    }
+}
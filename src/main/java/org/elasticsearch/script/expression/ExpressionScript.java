@@ -0,0 +1,147 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.Scorer;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.field.data.FieldData;
+import org.elasticsearch.index.field.data.NumericFieldData;
+import org.elasticsearch.script.ScriptException;
+import org.elasticsearch.script.SearchScript;
+import org.elasticsearch.search.lookup.SearchLookup;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Runs an {@link Expression}, reading numeric field data values directly without boxing them. Variables
+ * that were not provided evaluate to <tt>NaN</tt>.
+ */
+public class ExpressionScript implements SearchScript {
+
+    private final Expression expression;
+
+    @Nullable
+    private final SearchLookup lookup;
+
+    final NumericFieldData[] fieldData;
+
+    final double[] vars;
+
+    int docId = -1;
+
+    double score = Double.NaN;
+
+    public ExpressionScript(Expression expression, @Nullable SearchLookup lookup, @Nullable Map<String, Object> vars) {
+        if (lookup == null && expression.fields.length > 0) {
+            throw new ScriptException("Expression [" + expression.source() + "] can only access fields when used during search");
+        }
+        this.expression = expression;
+        this.lookup = lookup;
+        this.fieldData = new NumericFieldData[expression.fields.length];
+        this.vars = new double[expression.variables.length];
+        Arrays.fill(this.vars, Double.NaN);
+        if (vars != null) {
+            for (Map.Entry<String, Object> entry : vars.entrySet()) {
+                setNextVar(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void setScorer(Scorer scorer) {
+        if (lookup != null) {
+            lookup.setScorer(scorer);
+        }
+    }
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) {
+        if (lookup == null) {
+            return;
+        }
+        lookup.setNextReader(context);
+        for (int i = 0; i < fieldData.length; i++) {
+            FieldData data = lookup.doc().fieldData(expression.fields[i]);
+            if (!(data instanceof NumericFieldData)) {
+                throw new ElasticSearchIllegalArgumentException("Expression [" + expression.source() + "] can only access numeric fields, [" + expression.fields[i] + "] is not numeric");
+            }
+            fieldData[i] = (NumericFieldData) data;
+        }
+    }
+
+    @Override
+    public void setNextDocId(int doc) {
+        // field data is read directly, no need to move the lookup to the doc
+        this.docId = doc;
+    }
+
+    @Override
+    public void setNextSource(Map<String, Object> source) {
+        if (lookup != null) {
+            lookup.source().setNextSource(source);
+        }
+    }
+
+    @Override
+    public void setNextScore(float score) {
+        this.score = score;
+    }
+
+    @Override
+    public void setNextVar(String name, Object value) {
+        for (int i = 0; i < expression.variables.length; i++) {
+            if (expression.variables[i].equals(name)) {
+                if (!(value instanceof Number)) {
+                    throw new ScriptException("Expression [" + expression.source() + "] can only use numeric variables, [" + name + "] is [" + value + "]");
+                }
+                vars[i] = ((Number) value).doubleValue();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Object run() {
+        return runAsDouble();
+    }
+
+    @Override
+    public float runAsFloat() {
+        return (float) expression.root.eval(this);
+    }
+
+    @Override
+    public long runAsLong() {
+        return (long) expression.root.eval(this);
+    }
+
+    @Override
+    public double runAsDouble() {
+        return expression.root.eval(this);
+    }
+
+    @Override
+    public Object unwrap(Object value) {
+        return value;
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.search;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.action.search.SearchType;
@@ -38,6 +39,10 @@ import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.object.ObjectMapper;
+import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
 import org.elasticsearch.index.search.stats.StatsGroupsParseElement;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
@@ -58,7 +63,9 @@ import org.elasticsearch.search.warmer.IndexWarmersMetaData;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicLong;
@@ -127,6 +134,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
         this.keepAliveReaper = threadPool.scheduleWithFixedDelay(new Reaper(), keepAliveInterval);
 
+        this.indicesWarmer.addListener(new FixedBitSetFilterWarmer());
         this.indicesWarmer.addListener(new SearchWarmer());
     }
 
@@ -622,6 +630,48 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         }
     }
 
+    /**
+     * Loads the nested parent and child filters into the fixed bitset cache for the new segments, so
+     * nested queries and facets do not have to build them on the first search.
+     */
+    class FixedBitSetFilterWarmer implements IndicesWarmer.Listener {
+
+        @Override
+        public String executor() {
+            return ThreadPool.Names.SEARCH;
+        }
+
+        @Override
+        public void warm(IndexShard indexShard, IndexMetaData indexMetaData, IndicesWarmer.WarmerContext warmerContext) {
+            IndexService indexService = indicesService.indexService(indexShard.shardId().index().name());
+            if (indexService == null) {
+                return;
+            }
+            MapperService mapperService = indexService.mapperService();
+            if (!mapperService.hasNested()) {
+                return;
+            }
+            List<Filter> filters = new ArrayList<Filter>();
+            filters.add(NonNestedDocsFilter.INSTANCE);
+            for (DocumentMapper docMapper : mapperService) {
+                for (ObjectMapper objectMapper : docMapper.objectMappers().values()) {
+                    if (objectMapper.nested().isNested()) {
+                        filters.add(objectMapper.nestedTypeFilter());
+                    }
+                }
+            }
+            try {
+                long now = System.nanoTime();
+                indexService.cache().fixedBitSetFilter().warm(warmerContext.newSearcher().reader(), filters);
+                if (indexShard.warmerService().logger().isTraceEnabled()) {
+                    indexShard.warmerService().logger().trace("warmed [{}] fixed bitset filters, took [{}]", filters.size(), TimeValue.timeValueNanos(System.nanoTime() - now));
+                }
+            } catch (Throwable t) {
+                indexShard.warmerService().logger().warn("failed to warm fixed bitset filters", t);
+            }
+        }
+    }
+
     class SearchWarmer implements IndicesWarmer.Listener {
 
         @Override
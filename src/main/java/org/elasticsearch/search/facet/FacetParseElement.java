@@ -126,7 +126,7 @@ public class FacetParseElement implements SearchParseElement {
                     if (!objectMapper.nested().isNested()) {
                         throw new SearchParseException(context, "facet nested path [" + nestedPath + "] is not nested");
                     }
-                    facet = new NestedChildrenCollector(facet, context.filterCache().cache(NonNestedDocsFilter.INSTANCE), context.filterCache().cache(objectMapper.nestedTypeFilter()));
+                    facet = new NestedChildrenCollector(facet, context.fixedBitSetFilterCache().cache(NonNestedDocsFilter.INSTANCE), context.fixedBitSetFilterCache().cache(objectMapper.nestedTypeFilter()));
                 }
 
                 if (facet == null) {
@@ -40,6 +40,8 @@ public class GeoDistanceFacetCollector extends AbstractFacetCollector {
 
     protected final String indexFieldName;
 
+    protected final GeoPointFieldDataType fieldDataType;
+
     protected final double lat;
 
     protected final double lon;
@@ -73,7 +75,7 @@ public class GeoDistanceFacetCollector extends AbstractFacetCollector {
         if (smartMappers == null || !smartMappers.hasMapper()) {
             throw new FacetPhaseExecutionException(facetName, "No mapping found for field [" + fieldName + "]");
         }
-        if (smartMappers.mapper().fieldDataType() != GeoPointFieldDataType.TYPE) {
+        if (!(smartMappers.mapper().fieldDataType() instanceof GeoPointFieldDataType)) {
             throw new FacetPhaseExecutionException(facetName, "field [" + fieldName + "] is not a geo_point field");
         }
 
@@ -83,12 +85,13 @@ public class GeoDistanceFacetCollector extends AbstractFacetCollector {
         }
 
         this.indexFieldName = smartMappers.mapper().names().indexName();
+        this.fieldDataType = (GeoPointFieldDataType) smartMappers.mapper().fieldDataType();
         this.aggregator = new Aggregator(fixedSourceDistance, entries);
     }
 
     @Override
     protected void doSetNextReader(AtomicReaderContext context) throws IOException {
-        fieldData = (GeoPointFieldData) fieldDataCache.cache(GeoPointFieldDataType.TYPE, context.reader(), indexFieldName);
+        fieldData = (GeoPointFieldData) fieldDataCache.cache(fieldDataType, context.reader(), indexFieldName);
     }
 
     @Override
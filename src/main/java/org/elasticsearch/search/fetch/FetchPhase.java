@@ -26,10 +26,13 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.ReaderUtil;
+import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.document.BaseFieldVisitor;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.FieldMapper;
@@ -40,6 +43,7 @@ import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.mapper.selector.*;
 import org.elasticsearch.index.mapper.selector.AllButSourceFieldVisitor;
 import org.elasticsearch.index.mapper.selector.FieldMappersFieldVisitor;
+import org.elasticsearch.index.search.stats.ShardSearchService;
 import org.elasticsearch.indices.TypeMissingException;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.SearchParseElement;
@@ -54,24 +58,68 @@ import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.InternalSearchHitField;
 import org.elasticsearch.search.internal.InternalSearchHits;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *
  */
-public class FetchPhase implements SearchPhase {
+public class FetchPhase extends AbstractComponent implements SearchPhase {
+
+    /**
+     * The name the time spent loading the stored fields of the hits is reported under in the search stats.
+     */
+    public static final String LOAD_SUB_PHASE = "load";
 
     private final FetchSubPhase[] fetchSubPhases;
 
+    /**
+     * The names the time spent in each of the {@link #fetchSubPhases} is reported under in the search stats.
+     */
+    private final String[] fetchSubPhaseNames;
+
+    /**
+     * Whether each of the {@link #fetchSubPhases} can be executed concurrently on different hits. Script fields, partial
+     * fields, matched filters and explain all end up using state shared on the search context (the search lookup, or
+     * scripts compiled against it), so they are always executed on the search thread.
+     */
+    private final boolean[] fetchSubPhasesConcurrent;
+
+    private final ThreadPool threadPool;
+
+    private final boolean parallel;
+
+    private final int parallelMinHits;
+
+    private final int parallelChunkSize;
+
     @Inject
-    public FetchPhase(HighlightPhase highlightPhase, ScriptFieldsFetchSubPhase scriptFieldsPhase, PartialFieldsFetchSubPhase partialFieldsPhase,
+    public FetchPhase(Settings settings, ThreadPool threadPool, HighlightPhase highlightPhase, ScriptFieldsFetchSubPhase scriptFieldsPhase, PartialFieldsFetchSubPhase partialFieldsPhase,
                       MatchedFiltersFetchSubPhase matchFiltersPhase, ExplainFetchSubPhase explainPhase, VersionFetchSubPhase versionPhase) {
+        super(settings);
+        this.threadPool = threadPool;
         this.fetchSubPhases = new FetchSubPhase[]{scriptFieldsPhase, partialFieldsPhase, matchFiltersPhase, explainPhase, highlightPhase, versionPhase};
+        this.fetchSubPhaseNames = new String[]{"script_fields", "partial_fields", "matched_filters", "explain", "highlight", "version"};
+        this.fetchSubPhasesConcurrent = new boolean[]{false, false, false, false, true, true};
+
+        this.parallel = componentSettings.getAsBoolean("parallel.enabled", false);
+        this.parallelMinHits = componentSettings.getAsInt("parallel.min_hits", 50);
+        this.parallelChunkSize = Math.max(1, componentSettings.getAsInt("parallel.chunk_size", 20));
+
+        logger.debug("using parallel [{}], parallel.min_hits [{}], parallel.chunk_size [{}]", parallel, parallelMinHits, parallelChunkSize);
     }
 
     @Override
@@ -154,10 +202,42 @@ public class FetchPhase implements SearchPhase {
             }
         }
 
+        boolean[] subPhasesNeeded = new boolean[fetchSubPhases.length];
+        for (int i = 0; i < fetchSubPhases.length; i++) {
+            subPhasesNeeded[i] = fetchSubPhases[i].hitExecutionNeeded(context);
+        }
+        long[] subPhasesTimeInNanos = new long[fetchSubPhases.length];
+        long loadTimeInNanos = 0;
+
+        // when executing concurrently, the sub phases that support it are executed once all the hits are loaded
+        ConcurrentHit[] concurrentHits = null;
+        if (concurrentExecutionNeeded(context, subPhasesNeeded)) {
+            concurrentHits = new ConcurrentHit[context.docIdsToLoadSize()];
+        }
+
+        // visit the hits in doc id order, so we go over the segments (and their stored fields) sequentially
+        // instead of jumping back and forth, the hits are still placed in their original (score / sort) order
+        int[] hitsOrder = docIdsOrder(context);
+        List<AtomicReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        AtomicReaderContext subReaderContext = null;
+        int subReaderDocEnd = -1;
+
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+        // a single hit context for all the hits, so the sub phases can cache things in it across hits
+        FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+        for (int i = 0; i < hitsOrder.length; i++) {
+            int index = hitsOrder[i];
             int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-            Document doc = loadDocument(context, fieldVisitor, docId);
+            if (docId >= subReaderDocEnd) {
+                // moved to the next segment (docs are visited in increasing order)
+                subReaderContext = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                subReaderDocEnd = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+                context.lookup().setNextReader(subReaderContext);
+            }
+            int subDoc = docId - subReaderContext.docBase;
+
+            long loadStart = System.nanoTime();
+            Document doc = loadDocument(context, fieldVisitor, subReaderContext, subDoc);
             Uid uid = extractUid(context, doc, fieldVisitor);
 
             DocumentMapper documentMapper = context.mapperService().documentMapper(uid.type());
@@ -217,17 +297,16 @@ public class FetchPhase implements SearchPhase {
                 hitField.values().add(value);
             }
 
-            int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-            AtomicReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
-            int subDoc = docId - subReaderContext.docBase;
-
             // go over and extract fields that are not mapped / stored
-            context.lookup().setNextReader(subReaderContext);
             context.lookup().setNextDocId(subDoc);
             if (source != null) {
                 context.lookup().source().setNextSource(new BytesArray(source));
             }
             if (extractFieldNames != null) {
+                if (extractFieldNames.size() > 1) {
+                    // parse the source once instead of streaming over it for each field
+                    context.lookup().source().loadSourceIfNeeded();
+                }
                 for (String extractFieldName : extractFieldNames) {
                     Object value = context.lookup().source().extractValue(extractFieldName);
                     if (value != null) {
@@ -245,24 +324,170 @@ public class FetchPhase implements SearchPhase {
                 }
             }
 
-            for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
-                FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-                if (fetchSubPhase.hitExecutionNeeded(context)) {
-                    hitContext.reset(searchHit, subReaderContext, subDoc, context.searcher().getIndexReader(), docId, doc);
-                    fetchSubPhase.hitExecute(context, hitContext);
+            loadTimeInNanos += System.nanoTime() - loadStart;
+
+            hitContext.reset(searchHit, subReaderContext, subDoc, context.searcher().getIndexReader(), docId, doc, context.lookup().source());
+            for (int j = 0; j < fetchSubPhases.length; j++) {
+                if (subPhasesNeeded[j] && (concurrentHits == null || !fetchSubPhasesConcurrent[j])) {
+                    long start = System.nanoTime();
+                    fetchSubPhases[j].hitExecute(context, hitContext);
+                    subPhasesTimeInNanos[j] += System.nanoTime() - start;
                 }
             }
+
+            if (concurrentHits != null) {
+                concurrentHits[i] = new ConcurrentHit(searchHit, subReaderContext, subDoc, docId, doc, source);
+            }
         }
 
-        for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
-            if (fetchSubPhase.hitsExecutionNeeded(context)) {
-                fetchSubPhase.hitsExecute(context, hits);
+        if (concurrentHits != null) {
+            executeConcurrently(context, concurrentHits, subPhasesNeeded, subPhasesTimeInNanos);
+        }
+
+        for (int j = 0; j < fetchSubPhases.length; j++) {
+            if (fetchSubPhases[j].hitsExecutionNeeded(context)) {
+                long start = System.nanoTime();
+                fetchSubPhases[j].hitsExecute(context, hits);
+                subPhasesTimeInNanos[j] += System.nanoTime() - start;
+                subPhasesNeeded[j] = true;
+            }
+        }
+
+        if (context.indexShard() != null && hits.length > 0) {
+            ShardSearchService searchService = context.indexShard().searchService();
+            searchService.onFetchSubPhase(context, LOAD_SUB_PHASE, loadTimeInNanos);
+            for (int j = 0; j < fetchSubPhases.length; j++) {
+                if (subPhasesNeeded[j]) {
+                    searchService.onFetchSubPhase(context, fetchSubPhaseNames[j], subPhasesTimeInNanos[j]);
+                }
             }
         }
 
         context.fetchResult().hits(new InternalSearchHits(hits, context.queryResult().topDocs().totalHits, context.queryResult().topDocs().getMaxScore()));
     }
 
+    private boolean concurrentExecutionNeeded(SearchContext context, boolean[] subPhasesNeeded) {
+        if (!parallel || context.docIdsToLoadSize() < parallelMinHits || context.docIdsToLoadSize() <= parallelChunkSize) {
+            return false;
+        }
+        for (int j = 0; j < fetchSubPhases.length; j++) {
+            if (subPhasesNeeded[j] && fetchSubPhasesConcurrent[j]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executes the concurrent sub phases on the (already loaded) hits, in chunks of hits on the fetch thread pool. The
+     * first chunk is executed on the current thread. Each hit is updated in place, so the order of the hits is kept.
+     */
+    private void executeConcurrently(final SearchContext context, final ConcurrentHit[] concurrentHits, final boolean[] subPhasesNeeded, long[] subPhasesTimeInNanos) {
+        final long deadline = context.timeoutInMillis() == -1 ? -1 : threadPool.estimatedTimeInMillis() + context.timeoutInMillis();
+        final AtomicBoolean aborted = new AtomicBoolean();
+
+        List<FutureTask<long[]>> tasks = Lists.newArrayList();
+        boolean success = false;
+        try {
+            for (int from = parallelChunkSize; from < concurrentHits.length; from += parallelChunkSize) {
+                final int chunkFrom = from;
+                final int chunkTo = Math.min(from + parallelChunkSize, concurrentHits.length);
+                FutureTask<long[]> task = new FutureTask<long[]>(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws Exception {
+                        return executeChunk(context, concurrentHits, chunkFrom, chunkTo, subPhasesNeeded, deadline, aborted);
+                    }
+                });
+                tasks.add(task);
+                threadPool.executor(ThreadPool.Names.FETCH).execute(task);
+            }
+
+            addTimes(subPhasesTimeInNanos, executeChunk(context, concurrentHits, 0, parallelChunkSize, subPhasesNeeded, deadline, aborted));
+
+            for (FutureTask<long[]> task : tasks) {
+                if (deadline == -1) {
+                    addTimes(subPhasesTimeInNanos, task.get());
+                } else {
+                    addTimes(subPhasesTimeInNanos, task.get(Math.max(0, deadline - threadPool.estimatedTimeInMillis()), TimeUnit.MILLISECONDS));
+                }
+            }
+            success = true;
+        } catch (TimeoutException e) {
+            throw new FetchPhaseExecutionException(context, "Timed out executing fetch sub phases after [" + context.timeoutInMillis() + "ms]");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchPhaseExecutionException(context, "Interrupted while executing fetch sub phases", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ElasticSearchException) {
+                throw (ElasticSearchException) e.getCause();
+            }
+            throw new FetchPhaseExecutionException(context, "Failed to execute fetch sub phases", e.getCause());
+        } finally {
+            if (!success) {
+                // let the chunks still running stop early, we don't interrupt them since they might be doing IO
+                aborted.set(true);
+                for (FutureTask<long[]> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    private long[] executeChunk(SearchContext context, ConcurrentHit[] concurrentHits, int from, int to, boolean[] subPhasesNeeded, long deadline, AtomicBoolean aborted) {
+        long[] subPhasesTimeInNanos = new long[fetchSubPhases.length];
+        // each chunk uses its own source lookup (the one on the search context is not thread safe), and hit context
+        SourceLookup sourceLookup = new SourceLookup();
+        FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+        for (int i = from; i < to; i++) {
+            if (aborted.get()) {
+                return subPhasesTimeInNanos;
+            }
+            if (deadline != -1 && threadPool.estimatedTimeInMillis() > deadline) {
+                throw new FetchPhaseExecutionException(context, "Timed out executing fetch sub phases after [" + context.timeoutInMillis() + "ms]");
+            }
+            ConcurrentHit concurrentHit = concurrentHits[i];
+            sourceLookup.setNextReader(concurrentHit.readerContext);
+            sourceLookup.setNextDocId(concurrentHit.docId);
+            if (concurrentHit.source != null) {
+                sourceLookup.setNextSource(new BytesArray(concurrentHit.source));
+            }
+            hitContext.reset(concurrentHit.hit, concurrentHit.readerContext, concurrentHit.docId, context.searcher().getIndexReader(), concurrentHit.topLevelDocId, concurrentHit.doc, sourceLookup);
+            for (int j = 0; j < fetchSubPhases.length; j++) {
+                if (subPhasesNeeded[j] && fetchSubPhasesConcurrent[j]) {
+                    long start = System.nanoTime();
+                    fetchSubPhases[j].hitExecute(context, hitContext);
+                    subPhasesTimeInNanos[j] += System.nanoTime() - start;
+                }
+            }
+        }
+        return subPhasesTimeInNanos;
+    }
+
+    private static void addTimes(long[] subPhasesTimeInNanos, long[] chunkTimeInNanos) {
+        // we report the total time spent across all threads
+        for (int j = 0; j < subPhasesTimeInNanos.length; j++) {
+            subPhasesTimeInNanos[j] += chunkTimeInNanos[j];
+        }
+    }
+
+    /**
+     * Returns the positions of the docs to load, sorted by their doc id.
+     */
+    private int[] docIdsOrder(SearchContext context) {
+        int size = context.docIdsToLoadSize();
+        long[] docIdsAndPositions = new long[size];
+        for (int index = 0; index < size; index++) {
+            // doc ids are positive ints, so sorting on the packed value sorts on the doc id
+            docIdsAndPositions[index] = (((long) context.docIdsToLoad()[context.docIdsToLoadFrom() + index]) << 32) | index;
+        }
+        Arrays.sort(docIdsAndPositions);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) docIdsAndPositions[i];
+        }
+        return order;
+    }
+
     private byte[] extractSource(Document doc, DocumentMapper documentMapper) {
         IndexableField sourceField = doc.getField(SourceFieldMapper.NAME);
         if (sourceField != null) {
@@ -285,16 +510,36 @@ public class FetchPhase implements SearchPhase {
         throw new FetchPhaseExecutionException(context, "Failed to load uid from the index, missing internal _uid field, current fields in the doc [" + fieldNames + "], selector [" + fieldVisitor + "]");
     }
 
-    private Document loadDocument(SearchContext context, @Nullable BaseFieldVisitor fieldVisitor, int docId) {
+    private Document loadDocument(SearchContext context, @Nullable BaseFieldVisitor fieldVisitor, AtomicReaderContext readerContext, int subDoc) {
         try {
+            // load directly from the segment reader, no need to resolve the segment again through the top level reader
             if (fieldVisitor == null) {
-                return context.searcher().doc(docId);
+                return readerContext.reader().document(subDoc);
             }
             fieldVisitor.reset();
-            context.searcher().doc(docId, fieldVisitor);
+            readerContext.reader().document(subDoc, fieldVisitor);
             return fieldVisitor.createDocument();
         } catch (IOException e) {
-            throw new FetchPhaseExecutionException(context, "Failed to fetch doc id [" + docId + "]", e);
+            throw new FetchPhaseExecutionException(context, "Failed to fetch doc id [" + (readerContext.docBase + subDoc) + "]", e);
+        }
+    }
+
+    static class ConcurrentHit {
+        final InternalSearchHit hit;
+        final AtomicReaderContext readerContext;
+        final int docId;
+        final int topLevelDocId;
+        final Document doc;
+        @Nullable
+        final byte[] source;
+
+        ConcurrentHit(InternalSearchHit hit, AtomicReaderContext readerContext, int docId, int topLevelDocId, Document doc, @Nullable byte[] source) {
+            this.hit = hit;
+            this.readerContext = readerContext;
+            this.docId = docId;
+            this.topLevelDocId = topLevelDocId;
+            this.doc = doc;
+            this.source = source;
         }
     }
 }
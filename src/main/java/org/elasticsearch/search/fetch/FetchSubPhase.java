@@ -28,6 +28,7 @@ import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
@@ -43,15 +44,17 @@ public interface FetchSubPhase {
         private AtomicReaderContext readerContext;
         private int docId;
         private Document doc;
+        private SourceLookup sourceLookup;
         private Map<String, Object> cache;
 
-        public void reset(InternalSearchHit hit, AtomicReaderContext context, int docId, IndexReader topLevelReader, int topLevelDocId, Document doc) {
+        public void reset(InternalSearchHit hit, AtomicReaderContext context, int docId, IndexReader topLevelReader, int topLevelDocId, Document doc, SourceLookup sourceLookup) {
             this.hit = hit;
             this.readerContext = context;
             this.docId = docId;
             this.topLevelReader = topLevelReader;
             this.topLevelDocId = topLevelDocId;
             this.doc = doc;
+            this.sourceLookup = sourceLookup;
         }
 
         public InternalSearchHit hit() {
@@ -82,6 +85,18 @@ public interface FetchSubPhase {
             return doc;
         }
 
+        /**
+         * The source lookup to use for the hit. Sub phases should use it instead of the search context lookup, since
+         * hits might be processed concurrently, each (chunk of hits) with its own source lookup.
+         */
+        public SourceLookup sourceLookup() {
+            return sourceLookup;
+        }
+
+        /**
+         * A cache shared across the hits of the fetch request (or across a chunk of its hits, when they are processed
+         * concurrently), sub phases can use it to reuse heavy per request state between hits.
+         */
         public Map<String, Object> cache() {
             if (cache == null) {
                 cache = Maps.newHashMap();
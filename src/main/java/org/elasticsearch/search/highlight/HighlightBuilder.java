@@ -181,7 +181,8 @@ public class HighlightBuilder implements ToXContent {
 
     /**
      * Set type of highlighter to use. Supported types
-     * are <tt>highlighter</tt> and <tt>fast-vector-highlighter</tt>.
+     * are <tt>highlighter</tt>, <tt>fast-vector-highlighter</tt> and <tt>postings</tt> (for fields
+     * indexed with <tt>index_options</tt> set to <tt>offsets</tt>).
      */
     public HighlightBuilder highlighterType(String highlighterType) {
         this.highlighterType = highlighterType;
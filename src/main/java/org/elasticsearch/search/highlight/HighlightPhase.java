@@ -24,11 +24,15 @@ import com.google.common.collect.Maps;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.FieldInfo.IndexOptions;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.highlight.*;
 import org.apache.lucene.search.highlight.Formatter;
 import org.apache.lucene.search.vectorhighlight.*;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -43,12 +47,14 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.fetch.FetchPhaseExecutionException;
 import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.highlight.postings.PostingsHighlighter;
 import org.elasticsearch.search.highlight.vectorhighlight.SourceScoreOrderFragmentsBuilder;
 import org.elasticsearch.search.highlight.vectorhighlight.SourceSimpleFragmentsBuilder;
 import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.SearchContext;
-import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.lookup.SourceLookup;
 
+import java.io.IOException;
 import java.util.*;
 
 import static com.google.common.collect.Maps.newHashMap;
@@ -92,7 +98,8 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
 
     @Override
     public void hitExecute(SearchContext context, HitContext hitContext) throws ElasticSearchException {
-        // we use a cache to cache heavy things, mainly the rewrite in FieldQuery for FVH
+        // we use a cache to cache heavy things across hits, mainly the rewrite in FieldQuery for FVH, and the
+        // highlighters / scorers / fragments builders per field
         HighlighterEntry cache = (HighlighterEntry) hitContext.cache().get("highlight");
         if (cache == null) {
             cache = new HighlighterEntry();
@@ -125,10 +132,12 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                 }
             }
             boolean useFastVectorHighlighter;
+            boolean usePostingsHighlighter = false;
             if (field.highlighterType() == null) {
-                // if we can do highlighting using Term Vectors, use FastVectorHighlighter, otherwise, use the
-                // slower plain highlighter
+                // if we can do highlighting using Term Vectors, use FastVectorHighlighter, otherwise, if offsets are
+                // indexed use the postings highlighter, and fall back to the slower plain highlighter
                 useFastVectorHighlighter = mapper.storeTermVectors() && mapper.storeTermVectorOffsets() && mapper.storeTermVectorPositions();
+                usePostingsHighlighter = !useFastVectorHighlighter && mapper.indexOptions() == IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS;
             } else if (field.highlighterType().equals("fast-vector-highlighter") || field.highlighterType().equals("fvh")) {
                 if (!(mapper.storeTermVectors() && mapper.storeTermVectorOffsets() && mapper.storeTermVectorPositions())) {
                     throw new FetchPhaseExecutionException(context, "the field [" + field.field() + "] should be indexed with term vector with position offsets to be used with fast vector highlighter");
@@ -136,23 +145,83 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                 useFastVectorHighlighter = true;
             } else if (field.highlighterType().equals("highlighter") || field.highlighterType().equals("plain")) {
                 useFastVectorHighlighter = false;
+            } else if (field.highlighterType().equals("postings")) {
+                if (mapper.indexOptions() != IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS) {
+                    throw new FetchPhaseExecutionException(context, "the field [" + field.field() + "] should be indexed with offsets (index_options set to offsets) to be used with postings highlighter");
+                }
+                useFastVectorHighlighter = false;
+                usePostingsHighlighter = true;
             } else {
                 throw new FetchPhaseExecutionException(context, "unknown highlighter type [" + field.highlighterType() + "] for the field [" + field.field() + "]");
             }
-            if (!useFastVectorHighlighter) {
+            if (usePostingsHighlighter) {
+                try {
+                    MapperHighlightEntry entry = cache.mappers.get(mapper);
+                    if (entry == null) {
+                        entry = new MapperHighlightEntry();
+                        entry.postingsHighlighter = new PostingsHighlighter(field.preTags()[0], field.postTags()[0], encoder,
+                                field.fragmentCharSize(), field.numberOfFragments(), field.scoreOrdered(), field.boundaryMaxScan());
+                        entry.postingsTerms = postingsTerms(context, cache, mapper, field.requireFieldMatch());
+                        cache.mappers.put(mapper, entry);
+                    }
+
+                    List<Object> textsToHighlight = loadFieldValues(context, field, mapper, hitContext);
+                    String text;
+                    if (textsToHighlight.size() == 1) {
+                        text = textsToHighlight.get(0).toString();
+                    } else {
+                        // the offsets of multiple values are indexed one after the other, separated by the offset gap
+                        int offsetGap = documentMapper.mappers().indexAnalyzer().getOffsetGap(mapper.names().indexName());
+                        StringBuilder sb = new StringBuilder();
+                        for (int i = 0; i < textsToHighlight.size(); i++) {
+                            if (i > 0) {
+                                for (int j = 0; j < offsetGap; j++) {
+                                    sb.append(' ');
+                                }
+                            }
+                            sb.append(textsToHighlight.get(i).toString());
+                        }
+                        text = sb.toString();
+                    }
+
+                    String[] fragments = entry.postingsHighlighter.highlight(hitContext.reader(), hitContext.docId(), mapper.names().indexName(), entry.postingsTerms, text);
+                    if (fragments.length > 0) {
+                        HighlightField highlightField = new HighlightField(field.field(), StringText.convertFromStringArray(fragments));
+                        highlightFields.put(highlightField.name(), highlightField);
+                    }
+                } catch (FetchPhaseExecutionException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + field.field() + "]", e);
+                }
+            } else if (!useFastVectorHighlighter) {
                 MapperHighlightEntry entry = cache.mappers.get(mapper);
                 if (entry == null) {
                     // Don't use the context.query() since it might be rewritten, and we need to pass the non rewritten queries to
                     // let the highlighter handle MultiTerm ones
 
                     Query query = context.parsedQuery().query();
-                    QueryScorer queryScorer = new CustomQueryScorer(query, field.requireFieldMatch() ? mapper.names().indexName() : null);
-                    queryScorer.setExpandMultiTermQuery(true);
+                    Scorer queryScorer;
                     Fragmenter fragmenter;
-                    if (field.numberOfFragments() == 0) {
-                        fragmenter = new NullFragmenter();
+                    WeightedSpanTerm[] weightedTerms = WeightedTermsScorer.extractTerms(query, field.requireFieldMatch() ? mapper.names().indexName() : null);
+                    if (weightedTerms != null) {
+                        // the terms don't depend on the text highlighted, so there is no need to extract them from the
+                        // query for each text, as the query scorer does
+                        queryScorer = new WeightedTermsScorer(weightedTerms);
+                        if (field.numberOfFragments() == 0) {
+                            fragmenter = new NullFragmenter();
+                        } else {
+                            fragmenter = new WeightedTermsScorer.SizeFragmenter(field.fragmentCharSize());
+                        }
                     } else {
-                        fragmenter = new SimpleSpanFragmenter(queryScorer, field.fragmentCharSize());
+                        QueryScorer customQueryScorer = new CustomQueryScorer(query, field.requireFieldMatch() ? mapper.names().indexName() : null);
+                        customQueryScorer.setExpandMultiTermQuery(true);
+                        queryScorer = customQueryScorer;
+                        if (field.numberOfFragments() == 0) {
+                            fragmenter = new NullFragmenter();
+                        } else {
+                            fragmenter = new SimpleSpanFragmenter(customQueryScorer, field.fragmentCharSize());
+                        }
                     }
                     Formatter formatter = new SimpleHTMLFormatter(field.preTags()[0], field.postTags()[0]);
 
@@ -166,27 +235,7 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                     cache.mappers.put(mapper, entry);
                 }
 
-                List<Object> textsToHighlight;
-                if (mapper.stored()) {
-                    try {
-                        SingleFieldVisitor fieldVisitor = new SingleFieldVisitor(mapper.names().indexName());
-                        hitContext.reader().document(hitContext.docId(), fieldVisitor);
-                        Document doc = fieldVisitor.createDocument();
-                        textsToHighlight = new ArrayList<Object>(doc.getFields().size());
-                        for (IndexableField docField : doc.getFields()) {
-                            if (docField.stringValue() != null) {
-                                textsToHighlight.add(docField.stringValue());
-                            }
-                        }
-                    } catch (Exception e) {
-                        throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + field.field() + "]", e);
-                    }
-                } else {
-                    SearchLookup lookup = context.lookup();
-                    lookup.setNextReader(hitContext.readerContext());
-                    lookup.setNextDocId(hitContext.docId());
-                    textsToHighlight = lookup.source().extractRawValues(mapper.names().sourcePath());
-                }
+                List<Object> textsToHighlight = loadFieldValues(context, field, mapper, hitContext);
 
                 // a HACK to make highlighter do highlighting, even though its using the single frag list builder
                 int numberOfFragments = field.numberOfFragments() == 0 ? 1 : field.numberOfFragments();
@@ -194,7 +243,7 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                 try {
                     for (Object textToHighlight : textsToHighlight) {
                         String text = textToHighlight.toString();
-                        Analyzer analyzer = context.mapperService().documentMapper(hitContext.hit().type()).mappers().indexAnalyzer();
+                        Analyzer analyzer = documentMapper.mappers().indexAnalyzer();
                         TokenStream tokenStream = analyzer.tokenStream(mapper.names().indexName(), new FastStringReader(text));
                         TextFragment[] bestTextFragments = entry.highlighter.getBestTextFragments(tokenStream, text, false, numberOfFragments);
                         for (TextFragment bestTextFragment : bestTextFragments) {
@@ -236,7 +285,7 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
             } else {
                 try {
                     MapperHighlightEntry entry = cache.mappers.get(mapper);
-                    FieldQuery fieldQuery = null;
+                    FieldQuery fieldQuery;
                     if (entry == null) {
                         FragListBuilder fragListBuilder;
                         AbstractFragmentsBuilder fragmentsBuilder;
@@ -252,7 +301,7 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                             if (mapper.stored()) {
                                 fragmentsBuilder = new XSimpleFragmentsBuilder(field.preTags(), field.postTags(), boundaryScanner);
                             } else {
-                                fragmentsBuilder = new SourceSimpleFragmentsBuilder(mapper, context, field.preTags(), field.postTags(), boundaryScanner);
+                                fragmentsBuilder = new SourceSimpleFragmentsBuilder(mapper, hitContext.sourceLookup(), field.preTags(), field.postTags(), boundaryScanner);
                             }
                         } else {
                             if (field.fragmentOffset() == -1)
@@ -264,13 +313,13 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                                 if (mapper.stored()) {
                                     fragmentsBuilder = new XScoreOrderFragmentsBuilder(field.preTags(), field.postTags(), boundaryScanner);
                                 } else {
-                                    fragmentsBuilder = new SourceScoreOrderFragmentsBuilder(mapper, context, field.preTags(), field.postTags(), boundaryScanner);
+                                    fragmentsBuilder = new SourceScoreOrderFragmentsBuilder(mapper, hitContext.sourceLookup(), field.preTags(), field.postTags(), boundaryScanner);
                                 }
                             } else {
                                 if (mapper.stored()) {
                                     fragmentsBuilder = new XSimpleFragmentsBuilder(field.preTags(), field.postTags(), boundaryScanner);
                                 } else {
-                                    fragmentsBuilder = new SourceSimpleFragmentsBuilder(mapper, context, field.preTags(), field.postTags(), boundaryScanner);
+                                    fragmentsBuilder = new SourceSimpleFragmentsBuilder(mapper, hitContext.sourceLookup(), field.preTags(), field.postTags(), boundaryScanner);
                                 }
                             }
                         }
@@ -284,23 +333,26 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
                             // fragment builders are used explicitly
                             cache.fvh = new FastVectorHighlighter();
                         }
-                        CustomFieldQuery.highlightFilters.set(field.highlightFilter());
-                        if (field.requireFieldMatch()) {
-                            if (cache.fieldMatchFieldQuery == null) {
-                                // we use top level reader to rewrite the query against all readers, with use caching it across hits (and across readers...)
-                                cache.fieldMatchFieldQuery = new CustomFieldQuery(context.parsedQuery().query(), hitContext.topLevelReader(), true, field.requireFieldMatch());
-                            }
-                            fieldQuery = cache.fieldMatchFieldQuery;
-                        } else {
-                            if (cache.noFieldMatchFieldQuery == null) {
-                                // we use top level reader to rewrite the query against all readers, with use caching it across hits (and across readers...)
-                                cache.noFieldMatchFieldQuery = new CustomFieldQuery(context.parsedQuery().query(), hitContext.topLevelReader(), true, field.requireFieldMatch());
-                            }
-                            fieldQuery = cache.noFieldMatchFieldQuery;
-                        }
                         cache.mappers.put(mapper, entry);
                     }
 
+                    // the field queries are shared by all the fields, and across hits
+                    if (field.requireFieldMatch()) {
+                        if (cache.fieldMatchFieldQuery == null) {
+                            // we use top level reader to rewrite the query against all readers, with use caching it across hits (and across readers...)
+                            CustomFieldQuery.highlightFilters.set(field.highlightFilter());
+                            cache.fieldMatchFieldQuery = new CustomFieldQuery(context.parsedQuery().query(), hitContext.topLevelReader(), true, field.requireFieldMatch());
+                        }
+                        fieldQuery = cache.fieldMatchFieldQuery;
+                    } else {
+                        if (cache.noFieldMatchFieldQuery == null) {
+                            // we use top level reader to rewrite the query against all readers, with use caching it across hits (and across readers...)
+                            CustomFieldQuery.highlightFilters.set(field.highlightFilter());
+                            cache.noFieldMatchFieldQuery = new CustomFieldQuery(context.parsedQuery().query(), hitContext.topLevelReader(), true, field.requireFieldMatch());
+                        }
+                        fieldQuery = cache.noFieldMatchFieldQuery;
+                    }
+
                     String[] fragments;
 
                     // a HACK to make highlighter do highlighting, even though its using the single frag list builder
@@ -322,17 +374,77 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
         hitContext.hit().highlightFields(highlightFields);
     }
 
+    /**
+     * Loads the values of the field to highlight, from the stored field if it is stored, or from the source.
+     */
+    private List<Object> loadFieldValues(SearchContext context, SearchContextHighlight.Field field, FieldMapper mapper, HitContext hitContext) {
+        if (mapper.stored()) {
+            try {
+                SingleFieldVisitor fieldVisitor = new SingleFieldVisitor(mapper.names().indexName());
+                hitContext.reader().document(hitContext.docId(), fieldVisitor);
+                Document doc = fieldVisitor.createDocument();
+                List<Object> textsToHighlight = new ArrayList<Object>(doc.getFields().size());
+                for (IndexableField docField : doc.getFields()) {
+                    if (docField.stringValue() != null) {
+                        textsToHighlight.add(docField.stringValue());
+                    }
+                }
+                return textsToHighlight;
+            } catch (Exception e) {
+                throw new FetchPhaseExecutionException(context, "Failed to highlight field [" + field.field() + "]", e);
+            }
+        }
+        SourceLookup sourceLookup = hitContext.sourceLookup();
+        sourceLookup.setNextReader(hitContext.readerContext());
+        sourceLookup.setNextDocId(hitContext.docId());
+        return sourceLookup.extractRawValues(mapper.names().sourcePath());
+    }
+
+    /**
+     * Returns the terms of the query to look up in the postings of the field. Unless field match is required, terms
+     * of other fields are looked up as well.
+     */
+    private Set<BytesRef> postingsTerms(SearchContext context, HighlighterEntry cache, FieldMapper mapper, boolean requireFieldMatch) throws IOException {
+        if (cache.queryTerms == null) {
+            // Don't use the context.query() since it might be rewritten with filters and such, rewrite the parsed query
+            // against the top level reader so multi term queries are expanded into terms
+            IndexReader reader = context.searcher().getIndexReader();
+            Query query = context.parsedQuery().query();
+            for (Query rewritten = query.rewrite(reader); rewritten != query; rewritten = query.rewrite(reader)) {
+                query = rewritten;
+            }
+            Set<Term> queryTerms = new HashSet<Term>();
+            try {
+                query.extractTerms(queryTerms);
+            } catch (UnsupportedOperationException e) {
+                // some queries can't provide their terms, nothing to highlight for them
+            }
+            cache.queryTerms = queryTerms;
+        }
+        Set<BytesRef> terms = new LinkedHashSet<BytesRef>();
+        for (Term term : cache.queryTerms) {
+            if (!requireFieldMatch || term.field().equals(mapper.names().indexName())) {
+                terms.add(term.bytes());
+            }
+        }
+        return terms;
+    }
+
     static class MapperHighlightEntry {
         public FragListBuilder fragListBuilder;
         public FragmentsBuilder fragmentsBuilder;
 
         public Highlighter highlighter;
+
+        public PostingsHighlighter postingsHighlighter;
+        public Set<BytesRef> postingsTerms;
     }
 
     static class HighlighterEntry {
         public FastVectorHighlighter fvh;
         public FieldQuery noFieldMatchFieldQuery;
         public FieldQuery fieldMatchFieldQuery;
+        public Set<Term> queryTerms;
         public Map<FieldMapper, MapperHighlightEntry> mappers = Maps.newHashMap();
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.highlight;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.util.CharArrayMap;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.highlight.Fragmenter;
+import org.apache.lucene.search.highlight.Scorer;
+import org.apache.lucene.search.highlight.TextFragment;
+import org.apache.lucene.search.highlight.WeightedSpanTerm;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lucene.Lucene;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A scorer for queries made only of (not position sensitive) terms, scoring tokens and fragments the same way
+ * {@link org.apache.lucene.search.highlight.QueryScorer} does, but without extracting the terms from the query for each
+ * text highlighted. Since it is not bound to a text, it can be reused across hits. Note, the scorer itself does not
+ * allocate per token, but the {@link org.apache.lucene.search.highlight.Highlighter} using it still does.
+ */
+public class WeightedTermsScorer implements Scorer {
+
+    private final CharArrayMap<Integer> termsOrd;
+
+    private final float[] weights;
+
+    // the fragment each term was last found in, to score each term once per fragment
+    private final int[] foundInFragment;
+
+    private int fragment;
+
+    private float totalScore;
+
+    private CharTermAttribute termAtt;
+
+    public WeightedTermsScorer(WeightedSpanTerm[] weightedTerms) {
+        this.termsOrd = new CharArrayMap<Integer>(Lucene.VERSION, weightedTerms.length, false);
+        this.weights = new float[weightedTerms.length];
+        this.foundInFragment = new int[weightedTerms.length];
+        for (int i = 0; i < weightedTerms.length; i++) {
+            termsOrd.put(weightedTerms[i].getTerm(), i);
+            weights[i] = weightedTerms[i].getWeight();
+        }
+    }
+
+    /**
+     * Returns the weighted terms of the query if it is only made of term queries (possibly wrapped in boolean queries),
+     * <tt>null</tt> otherwise. As with {@link org.apache.lucene.search.highlight.WeightedSpanTermExtractor}, terms of
+     * prohibited clauses are ignored and when a term appears several times, the weight of the last one is used.
+     */
+    @Nullable
+    public static WeightedSpanTerm[] extractTerms(Query query, @Nullable String fieldName) {
+        Map<String, WeightedSpanTerm> terms = new LinkedHashMap<String, WeightedSpanTerm>();
+        if (!extractTerms(query, fieldName, terms)) {
+            return null;
+        }
+        return terms.values().toArray(new WeightedSpanTerm[terms.size()]);
+    }
+
+    private static boolean extractTerms(Query query, @Nullable String fieldName, Map<String, WeightedSpanTerm> terms) {
+        if (query instanceof TermQuery) {
+            Term term = ((TermQuery) query).getTerm();
+            if (fieldName == null || fieldName.equals(term.field())) {
+                terms.put(term.text(), new WeightedSpanTerm(query.getBoost(), term.text()));
+            }
+            return true;
+        } else if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                if (clause.isProhibited()) {
+                    continue;
+                }
+                if (!extractTerms(clause.getQuery(), fieldName, terms)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public TokenStream init(TokenStream tokenStream) {
+        termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+        return null;
+    }
+
+    @Override
+    public void startFragment(TextFragment newFragment) {
+        fragment++;
+        totalScore = 0;
+    }
+
+    @Override
+    public float getTokenScore() {
+        Integer ord = termsOrd.get(termAtt.buffer(), 0, termAtt.length());
+        if (ord == null) {
+            return 0;
+        }
+        float score = weights[ord];
+        // found a query term, is it unique in this fragment?
+        if (foundInFragment[ord] != fragment) {
+            foundInFragment[ord] = fragment;
+            totalScore += score;
+        }
+        return score;
+    }
+
+    @Override
+    public float getFragmentScore() {
+        return totalScore;
+    }
+
+    /**
+     * A fragmenter that breaks fragments the same way {@link org.apache.lucene.search.highlight.SimpleSpanFragmenter}
+     * does for terms that are not position sensitive.
+     */
+    public static class SizeFragmenter implements Fragmenter {
+
+        private final int fragmentSize;
+
+        private int currentNumFrags;
+
+        private int textSize;
+
+        private OffsetAttribute offsetAtt;
+
+        public SizeFragmenter(int fragmentSize) {
+            this.fragmentSize = fragmentSize;
+        }
+
+        @Override
+        public void start(String originalText, TokenStream tokenStream) {
+            currentNumFrags = 1;
+            textSize = originalText.length();
+            offsetAtt = tokenStream.addAttribute(OffsetAttribute.class);
+        }
+
+        @Override
+        public boolean isNewFragment() {
+            boolean isNewFrag = offsetAtt.endOffset() >= (fragmentSize * currentNumFrags)
+                    && (textSize - offsetAtt.endOffset()) >= (fragmentSize >>> 1);
+            if (isNewFrag) {
+                currentNumFrags++;
+            }
+            return isNewFrag;
+        }
+    }
+}
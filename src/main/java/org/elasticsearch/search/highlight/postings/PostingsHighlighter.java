@@ -0,0 +1,272 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.highlight.postings;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.DocsAndPositionsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.highlight.Encoder;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A highlighter that uses the offsets indexed in the postings of a field (fields indexed with <tt>index_options</tt>
+ * set to <tt>offsets</tt>) to find the query terms in the text of a hit. Unlike the plain highlighter it does not need
+ * to re-analyze the text, and unlike the fast vector highlighter it does not need term vectors to be stored.
+ * <p/>
+ * Multi valued fields are highlighted as a single text, with the values joined using the offset gap of the analyzer,
+ * which is how their offsets are indexed.
+ */
+public class PostingsHighlighter {
+
+    private static final Comparator<Fragment> SCORE_ORDER = new Comparator<Fragment>() {
+        @Override
+        public int compare(Fragment o1, Fragment o2) {
+            int cmp = Float.compare(o2.score, o1.score);
+            return cmp != 0 ? cmp : o1.start - o2.start;
+        }
+    };
+
+    private static final Comparator<Fragment> TEXT_ORDER = new Comparator<Fragment>() {
+        @Override
+        public int compare(Fragment o1, Fragment o2) {
+            return o1.start - o2.start;
+        }
+    };
+
+    private final String preTag;
+
+    private final String postTag;
+
+    private final Encoder encoder;
+
+    private final int fragmentCharSize;
+
+    private final int numberOfFragments;
+
+    private final boolean scoreOrdered;
+
+    private final int boundaryMaxScan;
+
+    /**
+     * @param numberOfFragments the maximum number of fragments to return, <tt>0</tt> to highlight the whole text
+     */
+    public PostingsHighlighter(String preTag, String postTag, Encoder encoder, int fragmentCharSize, int numberOfFragments,
+                               boolean scoreOrdered, int boundaryMaxScan) {
+        this.preTag = preTag;
+        this.postTag = postTag;
+        this.encoder = encoder;
+        this.fragmentCharSize = fragmentCharSize;
+        this.numberOfFragments = numberOfFragments;
+        this.scoreOrdered = scoreOrdered;
+        this.boundaryMaxScan = boundaryMaxScan;
+    }
+
+    /**
+     * Highlights the provided terms in the text of the field of the doc.
+     *
+     * @param reader the segment reader the doc belongs to
+     * @param docId  the doc id, relative to the segment reader
+     * @param field  the (index) name of the field, which must be indexed with offsets
+     * @param terms  the (field less) terms to highlight
+     * @param text   the text of the field, as indexed
+     * @return the highlighted fragments, empty if none of the terms is found in the doc
+     */
+    public String[] highlight(AtomicReader reader, int docId, String field, Collection<BytesRef> terms, String text) throws IOException {
+        List<Match> matches = matches(reader, docId, field, terms, text.length());
+        if (matches.isEmpty()) {
+            return new String[0];
+        }
+        if (numberOfFragments == 0) {
+            return new String[]{render(text, 0, text.length(), matches, 0, matches.size())};
+        }
+
+        List<Fragment> fragments = new ArrayList<Fragment>();
+        int i = 0;
+        while (i < matches.size()) {
+            Fragment fragment = new Fragment();
+            fragment.start = boundaryBefore(text, matches.get(i).start);
+            int end = Math.max(matches.get(i).end, Math.min(text.length(), fragment.start + fragmentCharSize));
+            fragment.fromMatch = i;
+            long seenTerms = 0;
+            while (i < matches.size() && matches.get(i).end <= end) {
+                Match match = matches.get(i);
+                // distinct terms count more than repeated ones
+                if (match.term >= 64 || (seenTerms & (1L << match.term)) == 0) {
+                    fragment.score += 1;
+                    seenTerms |= match.term < 64 ? (1L << match.term) : 0;
+                } else {
+                    fragment.score += 0.1f;
+                }
+                i++;
+            }
+            fragment.toMatch = i;
+            fragment.end = boundaryAfter(text, end, i < matches.size() ? matches.get(i).start : text.length());
+            fragments.add(fragment);
+        }
+
+        if (fragments.size() > numberOfFragments) {
+            // keep the best ones, on equal scores the ones appearing first
+            Collections.sort(fragments, SCORE_ORDER);
+            fragments = new ArrayList<Fragment>(fragments.subList(0, numberOfFragments));
+            if (!scoreOrdered) {
+                Collections.sort(fragments, TEXT_ORDER);
+            }
+        } else if (scoreOrdered) {
+            Collections.sort(fragments, SCORE_ORDER);
+        }
+
+        String[] result = new String[fragments.size()];
+        for (int j = 0; j < result.length; j++) {
+            Fragment fragment = fragments.get(j);
+            result[j] = render(text, fragment.start, fragment.end, matches, fragment.fromMatch, fragment.toMatch);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the offsets of the terms in the doc from the postings, sorted by start offset and without overlaps.
+     */
+    private List<Match> matches(AtomicReader reader, int docId, String field, Collection<BytesRef> terms, int textLength) throws IOException {
+        Terms fieldTerms = reader.terms(field);
+        if (fieldTerms == null || terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Match> matches = new ArrayList<Match>();
+        TermsEnum termsEnum = fieldTerms.iterator(null);
+        DocsAndPositionsEnum docsAndPositions = null;
+        int term = 0;
+        for (BytesRef bytes : terms) {
+            int termOrd = term++;
+            if (!termsEnum.seekExact(bytes, false)) {
+                continue;
+            }
+            docsAndPositions = termsEnum.docsAndPositions(null, docsAndPositions, DocsAndPositionsEnum.FLAG_OFFSETS);
+            if (docsAndPositions == null) {
+                // not indexed with positions
+                return Collections.emptyList();
+            }
+            if (docsAndPositions.advance(docId) != docId) {
+                continue;
+            }
+            int freq = docsAndPositions.freq();
+            for (int i = 0; i < freq; i++) {
+                docsAndPositions.nextPosition();
+                int start = docsAndPositions.startOffset();
+                int end = docsAndPositions.endOffset();
+                if (start == -1) {
+                    // offsets are not indexed for the field
+                    return Collections.emptyList();
+                }
+                if (end > textLength || start >= end) {
+                    // the text does not match what was indexed, skip
+                    continue;
+                }
+                matches.add(new Match(start, end, termOrd));
+            }
+        }
+        if (matches.size() > 1) {
+            Match[] sorted = matches.toArray(new Match[matches.size()]);
+            Arrays.sort(sorted);
+            matches.clear();
+            Match last = null;
+            for (Match match : sorted) {
+                if (last != null && match.start < last.end) {
+                    // overlapping (for example synonyms), merge into the previous one
+                    last.end = Math.max(last.end, match.end);
+                    continue;
+                }
+                matches.add(match);
+                last = match;
+            }
+        }
+        return matches;
+    }
+
+    private int boundaryBefore(String text, int offset) {
+        int limit = Math.max(0, offset - boundaryMaxScan);
+        for (int i = offset; i > limit; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return offset;
+    }
+
+    private int boundaryAfter(String text, int offset, int nextMatchStart) {
+        int limit = Math.min(nextMatchStart, Math.min(text.length(), offset + boundaryMaxScan));
+        for (int i = offset; i < limit; i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return Math.min(offset, nextMatchStart);
+    }
+
+    private String render(String text, int start, int end, List<Match> matches, int fromMatch, int toMatch) {
+        StringBuilder sb = new StringBuilder(end - start + (toMatch - fromMatch) * (preTag.length() + postTag.length()));
+        int position = start;
+        for (int i = fromMatch; i < toMatch; i++) {
+            Match match = matches.get(i);
+            if (match.start > position) {
+                sb.append(encoder.encodeText(text.substring(position, match.start)));
+            }
+            sb.append(preTag).append(encoder.encodeText(text.substring(match.start, match.end))).append(postTag);
+            position = match.end;
+        }
+        if (end > position) {
+            sb.append(encoder.encodeText(text.substring(position, end)));
+        }
+        return sb.toString();
+    }
+
+    static class Match implements Comparable<Match> {
+        final int start;
+        int end;
+        final int term;
+
+        Match(int start, int end, int term) {
+            this.start = start;
+            this.end = end;
+            this.term = term;
+        }
+
+        @Override
+        public int compareTo(Match o) {
+            return start != o.start ? start - o.start : o.end - end;
+        }
+    }
+
+    static class Fragment {
+        int start;
+        int end;
+        int fromMatch;
+        int toMatch;
+        float score;
+    }
+}
@@ -25,8 +25,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.vectorhighlight.BoundaryScanner;
 import org.apache.lucene.search.vectorhighlight.XSimpleFragmentsBuilder;
 import org.elasticsearch.index.mapper.FieldMapper;
-import org.elasticsearch.search.internal.SearchContext;
-import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
 import java.util.List;
@@ -38,13 +37,13 @@ public class SourceSimpleFragmentsBuilder extends XSimpleFragmentsBuilder {
 
     private final FieldMapper mapper;
 
-    private final SearchContext searchContext;
+    private final SourceLookup sourceLookup;
 
-    public SourceSimpleFragmentsBuilder(FieldMapper mapper, SearchContext searchContext,
+    public SourceSimpleFragmentsBuilder(FieldMapper mapper, SourceLookup sourceLookup,
                                         String[] preTags, String[] postTags, BoundaryScanner boundaryScanner) {
         super(preTags, postTags, boundaryScanner);
         this.mapper = mapper;
-        this.searchContext = searchContext;
+        this.sourceLookup = sourceLookup;
     }
 
     public static final Field[] EMPTY_FIELDS = new Field[0];
@@ -52,11 +51,10 @@ public class SourceSimpleFragmentsBuilder extends XSimpleFragmentsBuilder {
     @Override
     protected Field[] getFields(IndexReader reader, int docId, String fieldName) throws IOException {
         // we know its low level reader, and matching docId, since that's how we call the highlighter with
-        SearchLookup lookup = searchContext.lookup();
-        lookup.setNextReader((AtomicReaderContext) reader.getContext());
-        lookup.setNextDocId(docId);
+        sourceLookup.setNextReader((AtomicReaderContext) reader.getContext());
+        sourceLookup.setNextDocId(docId);
 
-        List<Object> values = lookup.source().extractRawValues(mapper.names().sourcePath());
+        List<Object> values = sourceLookup.extractRawValues(mapper.names().sourcePath());
         if (values.isEmpty()) {
             return EMPTY_FIELDS;
         }
@@ -30,6 +30,7 @@ import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.lucene.search.function.BoostScoreFunction;
 import org.elasticsearch.common.lucene.search.function.FunctionScoreQuery;
 import org.elasticsearch.index.analysis.AnalysisService;
+import org.elasticsearch.index.cache.bitset.FixedBitSetFilterCache;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
 import org.elasticsearch.index.cache.id.IdCache;
@@ -41,6 +42,7 @@ import org.elasticsearch.index.query.IndexQueryParserService;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.query.QueryParseContext;
 import org.elasticsearch.index.search.nested.BlockJoinQuery;
+import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.index.similarity.SimilarityService;
@@ -215,12 +217,18 @@ public class SearchContext implements Releasable {
         }
         Filter searchFilter = mapperService().searchFilter(types());
         if (searchFilter != null) {
+            // the non nested docs filter is resident in the fixed bitset cache, no need to have it compete in the filter cache
+            if (searchFilter == NonNestedDocsFilter.INSTANCE) {
+                searchFilter = fixedBitSetFilterCache().cache(searchFilter);
+            } else {
+                searchFilter = filterCache().cache(searchFilter);
+            }
             if (Queries.isConstantMatchAllQuery(query())) {
-                Query q = new DeletionAwareConstantScoreQuery(filterCache().cache(searchFilter));
+                Query q = new DeletionAwareConstantScoreQuery(searchFilter);
                 q.setBoost(query().getBoost());
                 parsedQuery(new ParsedQuery(q, parsedQuery()));
             } else {
-                parsedQuery(new ParsedQuery(new FilteredQuery(query(), filterCache().cache(searchFilter)), parsedQuery()));
+                parsedQuery(new ParsedQuery(new FilteredQuery(query(), searchFilter), parsedQuery()));
             }
         }
     }
@@ -351,6 +359,10 @@ public class SearchContext implements Releasable {
         return indexService.cache().filter();
     }
 
+    public FixedBitSetFilterCache fixedBitSetFilterCache() {
+        return indexService.cache().fixedBitSetFilter();
+    }
+
     public FieldDataCache fieldDataCache() {
         return indexService.cache().fieldData();
     }
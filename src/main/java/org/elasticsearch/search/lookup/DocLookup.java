@@ -109,7 +109,13 @@ public class DocLookup implements Map {
     @Override
     public Object get(Object key) {
         // assume its a string...
-        String fieldName = key.toString();
+        return fieldData(key.toString()).docFieldData(docId);
+    }
+
+    /**
+     * Returns the field data of the field for the current reader.
+     */
+    public FieldData fieldData(String fieldName) {
         FieldData fieldData = localCacheFieldData.get(fieldName);
         if (fieldData == null) {
             FieldMapper mapper = mapperService.smartNameFieldMapper(fieldName, types);
@@ -123,7 +129,7 @@ public class DocLookup implements Map {
             }
             localCacheFieldData.put(fieldName, fieldData);
         }
-        return fieldData.docFieldData(docId);
+        return fieldData;
     }
 
     public boolean containsKey(Object key) {
@@ -24,9 +24,12 @@ import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticSearchParseException;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.common.xcontent.support.XContentStreamValues;
 import org.elasticsearch.index.mapper.internal.SourceFieldVisitor;
 
 import java.util.Collection;
@@ -40,38 +43,79 @@ import java.util.Set;
 // TODO: If we are processing it in the per hit fetch phase, we cna initialize it with a source if it was loaded..
 public class SourceLookup implements Map {
 
+    /**
+     * The number of path extractions streamed over the source bytes of a document before the source is parsed
+     * into a map once and the following extractions are done on the map.
+     */
+    private static final int MAX_STREAMED_EXTRACTIONS = 2;
+
     private AtomicReader reader;
 
     private int docId = -1;
 
     private BytesReference sourceAsBytes;
+    private boolean sourceAsBytesLoaded;
     private Map<String, Object> source;
 
+    private int streamedExtractions;
+
     public Map<String, Object> source() {
         return source;
     }
 
-    private Map<String, Object> loadSourceIfNeeded() {
+    /**
+     * Parses the source into a map if not done already. Path extractions are streamed over the source bytes
+     * otherwise, which is cheaper for a few paths but not when the source is going to be used as a whole.
+     */
+    public Map<String, Object> loadSourceIfNeeded() {
         if (source != null) {
             return source;
         }
-        if (sourceAsBytes != null) {
+        BytesReference sourceAsBytes = loadSourceBytesIfNeeded();
+        if (sourceAsBytes == null) {
+            source = ImmutableMap.of();
+        } else {
             source = sourceAsMap(sourceAsBytes);
-            return source;
+        }
+        return source;
+    }
+
+    private BytesReference loadSourceBytesIfNeeded() {
+        if (sourceAsBytes != null || sourceAsBytesLoaded) {
+            return sourceAsBytes;
         }
         try {
             SourceFieldVisitor sourceFieldVisitor = new SourceFieldVisitor();
             reader.document(docId, sourceFieldVisitor);
             BytesRef source = sourceFieldVisitor.source();
-            if (source == null) {
-                this.source = ImmutableMap.of();
-            } else {
-                this.source = sourceAsMap(source.bytes, source.offset, source.length);
+            if (source != null) {
+                sourceAsBytes = new BytesArray(source.bytes, source.offset, source.length);
             }
+            sourceAsBytesLoaded = true;
         } catch (Exception e) {
             throw new ElasticSearchParseException("failed to parse / load source", e);
         }
-        return this.source;
+        return sourceAsBytes;
+    }
+
+    /**
+     * Returns a parser over the source bytes when the path extraction should be streamed instead of done on the
+     * source map, <tt>null</tt> otherwise.
+     */
+    private XContentParser streamingParser() {
+        if (source != null || streamedExtractions >= MAX_STREAMED_EXTRACTIONS) {
+            return null;
+        }
+        BytesReference sourceAsBytes = loadSourceBytesIfNeeded();
+        if (sourceAsBytes == null) {
+            return null;
+        }
+        streamedExtractions++;
+        try {
+            return XContentHelper.createParser(sourceAsBytes);
+        } catch (Exception e) {
+            throw new ElasticSearchParseException("failed to parse source", e);
+        }
     }
 
     public static Map<String, Object> sourceAsMap(BytesReference source) throws ElasticSearchParseException {
@@ -89,6 +133,8 @@ public class SourceLookup implements Map {
         this.reader = context.reader();
         this.source = null;
         this.sourceAsBytes = null;
+        this.sourceAsBytesLoaded = false;
+        this.streamedExtractions = 0;
         this.docId = -1;
     }
 
@@ -98,11 +144,14 @@ public class SourceLookup implements Map {
         }
         this.docId = docId;
         this.sourceAsBytes = null;
+        this.sourceAsBytesLoaded = false;
+        this.streamedExtractions = 0;
         this.source = null;
     }
 
     public void setNextSource(BytesReference source) {
         this.sourceAsBytes = source;
+        this.streamedExtractions = 0;
     }
 
     public void setNextSource(Map<String, Object> source) {
@@ -114,14 +163,44 @@ public class SourceLookup implements Map {
      * handle path expression where an array/list is navigated within.
      */
     public List<Object> extractRawValues(String path) {
+        XContentParser parser = streamingParser();
+        if (parser != null) {
+            try {
+                return XContentStreamValues.extractRawValues(path, parser);
+            } catch (Exception e) {
+                throw new ElasticSearchParseException("failed to extract [" + path + "] from source", e);
+            } finally {
+                parser.close();
+            }
+        }
         return XContentMapValues.extractRawValues(path, loadSourceIfNeeded());
     }
 
     public Object filter(String[] includes, String[] excludes) {
+        XContentParser parser = streamingParser();
+        if (parser != null) {
+            try {
+                return XContentStreamValues.filter(parser, includes, excludes);
+            } catch (Exception e) {
+                throw new ElasticSearchParseException("failed to filter source", e);
+            } finally {
+                parser.close();
+            }
+        }
         return XContentMapValues.filter(loadSourceIfNeeded(), includes, excludes);
     }
 
     public Object extractValue(String path) {
+        XContentParser parser = streamingParser();
+        if (parser != null) {
+            try {
+                return XContentStreamValues.extractValue(path, parser);
+            } catch (Exception e) {
+                throw new ElasticSearchParseException("failed to extract [" + path + "] from source", e);
+            } finally {
+                parser.close();
+            }
+        }
         return XContentMapValues.extractValue(path, loadSourceIfNeeded());
     }
 
@@ -75,4 +75,19 @@ public interface Transport extends LifecycleComponent<Transport> {
     void sendRequest(DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options) throws IOException, TransportException;
 
     long serverOpen();
+
+    /**
+     * The number of writes done when messages are coalesced (see {@link #coalescedMessages()}).
+     */
+    long coalescedWrites();
+
+    /**
+     * The number of messages sent through coalesced writes.
+     */
+    long coalescedMessages();
+
+    /**
+     * The coalescing stats of the connections to other nodes, empty when messages are not coalesced.
+     */
+    TransportStats.ConnectionCoalesceStats[] connectionCoalesceStats();
 }
@@ -57,6 +57,8 @@ public class TransportRequestOptions {
 
     private Type type = Type.MED;
 
+    private boolean zeroCopy;
+
     public TransportRequestOptions withTimeout(long timeout) {
         return withTimeout(TimeValue.timeValueMillis(timeout));
     }
@@ -76,6 +78,15 @@ public class TransportRequestOptions {
         return this;
     }
 
+    /**
+     * Allows large bytes references of the request to be sent without copying them. The caller must then not
+     * modify them until the request has been responded to (or has failed).
+     */
+    public TransportRequestOptions withZeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+        return this;
+    }
+
     /**
      * A request that requires very low latency. Usually reserved for ping requests with very small payload.
      */
@@ -111,4 +122,8 @@ public class TransportRequestOptions {
     public Type type() {
         return this.type;
     }
+
+    public boolean zeroCopy() {
+        return this.zeroCopy;
+    }
 }
@@ -36,17 +36,24 @@ public class TransportStats implements Streamable, ToXContent {
     private long rxSize;
     private long txCount;
     private long txSize;
+    private long coalescedWrites;
+    private long coalescedMessages;
+    private ConnectionCoalesceStats[] connections;
 
     TransportStats() {
 
     }
 
-    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long coalescedWrites, long coalescedMessages,
+                          ConnectionCoalesceStats[] connections) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.coalescedWrites = coalescedWrites;
+        this.coalescedMessages = coalescedMessages;
+        this.connections = connections;
     }
 
     public long serverOpen() {
@@ -89,6 +96,53 @@ public class TransportStats implements Streamable, ToXContent {
         return txSize();
     }
 
+    /**
+     * The number of writes done when coalescing messages (<tt>transport.netty.coalesce.enabled</tt>).
+     */
+    public long coalescedWrites() {
+        return coalescedWrites;
+    }
+
+    public long getCoalescedWrites() {
+        return coalescedWrites();
+    }
+
+    /**
+     * The number of messages sent through coalesced writes.
+     */
+    public long coalescedMessages() {
+        return coalescedMessages;
+    }
+
+    public long getCoalescedMessages() {
+        return coalescedMessages();
+    }
+
+    /**
+     * The average number of messages sent per coalesced write.
+     */
+    public double messagesPerWrite() {
+        if (coalescedWrites == 0) {
+            return 0;
+        }
+        return ((double) coalescedMessages) / coalescedWrites;
+    }
+
+    public double getMessagesPerWrite() {
+        return messagesPerWrite();
+    }
+
+    /**
+     * The coalescing stats of the connections to other nodes.
+     */
+    public ConnectionCoalesceStats[] connections() {
+        return connections;
+    }
+
+    public ConnectionCoalesceStats[] getConnections() {
+        return connections();
+    }
+
     public static TransportStats readTransportStats(StreamInput in) throws IOException {
         TransportStats stats = new TransportStats();
         stats.readFrom(in);
@@ -102,6 +156,12 @@ public class TransportStats implements Streamable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        coalescedWrites = in.readVLong();
+        coalescedMessages = in.readVLong();
+        connections = new ConnectionCoalesceStats[in.readVInt()];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = ConnectionCoalesceStats.readConnectionCoalesceStats(in);
+        }
     }
 
     @Override
@@ -111,6 +171,12 @@ public class TransportStats implements Streamable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        out.writeVLong(coalescedWrites);
+        out.writeVLong(coalescedMessages);
+        out.writeVInt(connections.length);
+        for (ConnectionCoalesceStats connection : connections) {
+            connection.writeTo(out);
+        }
     }
 
     @Override
@@ -123,6 +189,24 @@ public class TransportStats implements Streamable, ToXContent {
         builder.field(Fields.TX_COUNT, txCount);
         builder.field(Fields.TX_SIZE, txSize().toString());
         builder.field(Fields.TX_SIZE_IN_BYTES, txSize);
+        if (coalescedWrites > 0) {
+            builder.startObject(Fields.COALESCE);
+            builder.field(Fields.WRITES, coalescedWrites);
+            builder.field(Fields.MESSAGES, coalescedMessages);
+            builder.field(Fields.MESSAGES_PER_WRITE, Math.round(messagesPerWrite() * 100) / 100.0);
+            if (connections.length > 0) {
+                builder.startObject(Fields.CONNECTIONS);
+                for (ConnectionCoalesceStats connection : connections) {
+                    builder.startObject(connection.nodeId(), XContentBuilder.FieldCaseConversion.NONE);
+                    builder.field(Fields.WRITES, connection.writes());
+                    builder.field(Fields.MESSAGES, connection.messages());
+                    builder.field(Fields.MESSAGES_PER_WRITE, Math.round(connection.messagesPerWrite() * 100) / 100.0);
+                    builder.endObject();
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -136,5 +220,88 @@ public class TransportStats implements Streamable, ToXContent {
         static final XContentBuilderString TX_COUNT = new XContentBuilderString("tx_count");
         static final XContentBuilderString TX_SIZE = new XContentBuilderString("tx_size");
         static final XContentBuilderString TX_SIZE_IN_BYTES = new XContentBuilderString("tx_size_in_bytes");
+        static final XContentBuilderString COALESCE = new XContentBuilderString("coalesce");
+        static final XContentBuilderString WRITES = new XContentBuilderString("writes");
+        static final XContentBuilderString MESSAGES = new XContentBuilderString("messages");
+        static final XContentBuilderString MESSAGES_PER_WRITE = new XContentBuilderString("messages_per_write");
+        static final XContentBuilderString CONNECTIONS = new XContentBuilderString("connections");
+    }
+
+    /**
+     * The writes and messages sent when coalescing messages on the connection to a node.
+     */
+    public static class ConnectionCoalesceStats implements Streamable {
+
+        private String nodeId;
+        private long writes;
+        private long messages;
+
+        ConnectionCoalesceStats() {
+
+        }
+
+        public ConnectionCoalesceStats(String nodeId, long writes, long messages) {
+            this.nodeId = nodeId;
+            this.writes = writes;
+            this.messages = messages;
+        }
+
+        /**
+         * The id of the node the connection is to.
+         */
+        public String nodeId() {
+            return nodeId;
+        }
+
+        public String getNodeId() {
+            return nodeId();
+        }
+
+        public long writes() {
+            return writes;
+        }
+
+        public long getWrites() {
+            return writes();
+        }
+
+        public long messages() {
+            return messages;
+        }
+
+        public long getMessages() {
+            return messages();
+        }
+
+        public double messagesPerWrite() {
+            if (writes == 0) {
+                return 0;
+            }
+            return ((double) messages) / writes;
+        }
+
+        public double getMessagesPerWrite() {
+            return messagesPerWrite();
+        }
+
+        public static ConnectionCoalesceStats readConnectionCoalesceStats(StreamInput in) throws IOException {
+            ConnectionCoalesceStats stats = new ConnectionCoalesceStats();
+            stats.readFrom(in);
+            return stats;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            nodeId = in.readString();
+            writes = in.readVLong();
+            messages = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(nodeId);
+            out.writeVLong(writes);
+            out.writeVLong(messages);
+        }
     }
 }
\ No newline at end of file
@@ -155,6 +155,21 @@ public class LocalTransport extends AbstractLifecycleComponent<Transport> implem
         return 0;
     }
 
+    @Override
+    public long coalescedWrites() {
+        return 0;
+    }
+
+    @Override
+    public long coalescedMessages() {
+        return 0;
+    }
+
+    @Override
+    public TransportStats.ConnectionCoalesceStats[] connectionCoalesceStats() {
+        return new TransportStats.ConnectionCoalesceStats[0];
+    }
+
     @Override
     public void sendRequest(final DiscoveryNode node, final long requestId, final String action, final TransportRequest request, TransportRequestOptions options) throws IOException, TransportException {
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
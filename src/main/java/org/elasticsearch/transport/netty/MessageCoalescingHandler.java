@@ -0,0 +1,175 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.transport.netty;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.*;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces messages written to a channel into a single write. Messages are queued by the writing threads and
+ * drained on the channel's I/O thread, so all messages queued until the I/O thread gets to them (a "window" that
+ * adds no latency of its own) are sent with one write. While the channel is not writable, messages keep queueing
+ * and are drained once it becomes writable again.
+ * <p/>
+ * Messages larger than the maximum batch size are written on their own, and ordering is always preserved.
+ */
+public class MessageCoalescingHandler extends SimpleChannelHandler {
+
+    private final int maxBatchSize;
+
+    private final CounterMetric totalWrites;
+
+    private final CounterMetric totalMessages;
+
+    private final Queue<MessageEvent> queue = new ConcurrentLinkedQueue<MessageEvent>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile ChannelHandlerContext ctx;
+
+    // only updated on the I/O thread of the channel
+    private volatile long writes;
+
+    private volatile long messages;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            scheduled.set(false);
+            drain();
+        }
+    };
+
+    public MessageCoalescingHandler(int maxBatchSize, CounterMetric totalWrites, CounterMetric totalMessages) {
+        this.maxBatchSize = maxBatchSize;
+        this.totalWrites = totalWrites;
+        this.totalMessages = totalMessages;
+    }
+
+    /**
+     * The number of (possibly coalesced) writes done on this connection.
+     */
+    public long writes() {
+        return writes;
+    }
+
+    /**
+     * The number of messages written on this connection.
+     */
+    public long messages() {
+        return messages;
+    }
+
+    @Override
+    public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        if (!(e.getMessage() instanceof ChannelBuffer)) {
+            ctx.sendDownstream(e);
+            return;
+        }
+        this.ctx = ctx;
+        queue.add(e);
+        if (scheduled.compareAndSet(false, true)) {
+            ctx.getPipeline().execute(drainTask);
+        }
+    }
+
+    @Override
+    public void channelInterestChanged(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        if (ctx.getChannel().isWritable() && !queue.isEmpty()) {
+            this.ctx = ctx;
+            drain();
+        }
+        ctx.sendUpstream(e);
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        MessageEvent event;
+        while ((event = queue.poll()) != null) {
+            event.getFuture().setFailure(new ClosedChannelException());
+        }
+        ctx.sendUpstream(e);
+    }
+
+    private void drain() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            return;
+        }
+        Channel channel = ctx.getChannel();
+        // wait for the channel to become writable, more messages can be coalesced meanwhile
+        if (channel.isOpen() && !channel.isWritable()) {
+            return;
+        }
+        List<MessageEvent> batch = new ArrayList<MessageEvent>();
+        int batchSize = 0;
+        MessageEvent event;
+        while ((event = queue.poll()) != null) {
+            int size = ((ChannelBuffer) event.getMessage()).readableBytes();
+            if (!batch.isEmpty() && batchSize + size > maxBatchSize) {
+                write(ctx, batch);
+                batch = new ArrayList<MessageEvent>();
+                batchSize = 0;
+            }
+            batch.add(event);
+            batchSize += size;
+        }
+        if (!batch.isEmpty()) {
+            write(ctx, batch);
+        }
+    }
+
+    private void write(ChannelHandlerContext ctx, final List<MessageEvent> batch) {
+        writes++;
+        messages += batch.size();
+        totalWrites.inc();
+        totalMessages.inc(batch.size());
+        if (batch.size() == 1) {
+            ctx.sendDownstream(batch.get(0));
+            return;
+        }
+        ChannelBuffer[] buffers = new ChannelBuffer[batch.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = (ChannelBuffer) batch.get(i).getMessage();
+        }
+        ChannelFuture future = Channels.future(ctx.getChannel());
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                for (MessageEvent event : batch) {
+                    if (future.isSuccess()) {
+                        event.getFuture().setSuccess();
+                    } else {
+                        event.getFuture().setFailure(future.getCause());
+                    }
+                }
+            }
+        });
+        Channels.write(ctx, future, ChannelBuffers.wrappedBuffer(buffers), batch.get(0).getRemoteAddress());
+    }
+}
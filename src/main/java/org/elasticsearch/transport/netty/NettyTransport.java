@@ -30,6 +30,7 @@ import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.netty.NettyStaticSetup;
 import org.elasticsearch.common.netty.OpenChannelsHandler;
 import org.elasticsearch.common.network.NetworkService;
@@ -39,6 +40,7 @@ import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.monitor.jvm.JvmInfo;
@@ -48,6 +50,7 @@ import org.elasticsearch.transport.support.TransportStatus;
 import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
@@ -64,6 +67,7 @@ import java.nio.channels.CancelledKeyException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -109,6 +113,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
 
     final boolean compress;
 
+    final int zeroCopyThreshold;
+
     final TimeValue connectTimeout;
 
     final Boolean tcpNoDelay;
@@ -128,6 +134,14 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     final ByteSizeValue maxCumulationBufferCapacity;
     final int maxCompositeBufferComponents;
 
+    final boolean directBuffers;
+
+    final boolean coalesce;
+    final int coalesceMaxSize;
+
+    final CounterMetric coalescedWrites = new CounterMetric();
+    final CounterMetric coalescedMessages = new CounterMetric();
+
     private final ThreadPool threadPool;
 
     private volatile OpenChannelsHandler serverOpenChannels;
@@ -182,6 +196,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.bindHost = componentSettings.get("bind_host", settings.get("transport.bind_host", settings.get("transport.host")));
         this.publishHost = componentSettings.get("publish_host", settings.get("transport.publish_host", settings.get("transport.host")));
         this.compress = settings.getAsBoolean("transport.tcp.compress", false);
+        // bytes references at least this big are sent as part of a composite buffer instead of being copied, -1 to disable
+        this.zeroCopyThreshold = (int) componentSettings.getAsBytesSize("zero_copy_threshold", new ByteSizeValue(16, ByteSizeUnit.KB)).bytes();
         this.connectTimeout = componentSettings.getAsTime("connect_timeout", settings.getAsTime("transport.tcp.connect_timeout", settings.getAsTime(TCP_CONNECT_TIMEOUT, TCP_DEFAULT_CONNECT_TIMEOUT)));
         this.tcpNoDelay = componentSettings.getAsBoolean("tcp_no_delay", settings.getAsBoolean(TCP_NO_DELAY, true));
         this.tcpKeepAlive = componentSettings.getAsBoolean("tcp_keep_alive", settings.getAsBoolean(TCP_KEEP_ALIVE, true));
@@ -194,6 +210,12 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
 
         this.maxCumulationBufferCapacity = componentSettings.getAsBytesSize("max_cumulation_buffer_capacity", null);
         this.maxCompositeBufferComponents = componentSettings.getAsInt("max_composite_buffer_components", -1);
+        // read messages into direct buffers (sliced out of preallocated chunks), keeping the socket reads and
+        // message cumulation off the heap
+        this.directBuffers = componentSettings.getAsBoolean("direct_buffers", settings.getAsBoolean("network.netty.direct_buffers", false));
+        // small messages sent concurrently on the same channel (like the search fan out) can be coalesced into one write
+        this.coalesce = componentSettings.getAsBoolean("coalesce.enabled", false);
+        this.coalesceMaxSize = (int) componentSettings.getAsBytesSize("coalesce.max_size", new ByteSizeValue(64, ByteSizeUnit.KB)).bytes();
 
         long defaultReceiverPredictor = 512 * 1024;
         if (JvmInfo.jvmInfo().mem().directMemoryMax().bytes() > 0) {
@@ -247,6 +269,9 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             @Override
             public ChannelPipeline getPipeline() throws Exception {
                 ChannelPipeline pipeline = Channels.pipeline();
+                if (coalesce) {
+                    pipeline.addLast("coalesce", new MessageCoalescingHandler(coalesceMaxSize, coalescedWrites, coalescedMessages));
+                }
                 SizeHeaderFrameDecoder sizeHeader = new SizeHeaderFrameDecoder();
                 if (maxCumulationBufferCapacity != null) {
                     if (maxCumulationBufferCapacity.bytes() > Integer.MAX_VALUE) {
@@ -278,6 +303,9 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             clientBootstrap.setOption("receiveBufferSize", tcpReceiveBufferSize.bytes());
         }
         clientBootstrap.setOption("receiveBufferSizePredictorFactory", receiveBufferSizePredictorFactory);
+        if (directBuffers) {
+            clientBootstrap.setOption("bufferFactory", DirectChannelBufferFactory.getInstance());
+        }
         if (reuseAddress != null) {
             clientBootstrap.setOption("reuseAddress", reuseAddress);
         }
@@ -303,6 +331,9 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             public ChannelPipeline getPipeline() throws Exception {
                 ChannelPipeline pipeline = Channels.pipeline();
                 pipeline.addLast("openChannels", serverOpenChannels);
+                if (coalesce) {
+                    pipeline.addLast("coalesce", new MessageCoalescingHandler(coalesceMaxSize, coalescedWrites, coalescedMessages));
+                }
                 SizeHeaderFrameDecoder sizeHeader = new SizeHeaderFrameDecoder();
                 if (maxCumulationBufferCapacity != null) {
                     if (maxCumulationBufferCapacity.bytes() > Integer.MAX_VALUE) {
@@ -334,6 +365,9 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         }
         serverBootstrap.setOption("receiveBufferSizePredictorFactory", receiveBufferSizePredictorFactory);
         serverBootstrap.setOption("child.receiveBufferSizePredictorFactory", receiveBufferSizePredictorFactory);
+        if (directBuffers) {
+            serverBootstrap.setOption("child.bufferFactory", DirectChannelBufferFactory.getInstance());
+        }
         if (reuseAddress != null) {
             serverBootstrap.setOption("reuseAddress", reuseAddress);
             serverBootstrap.setOption("child.reuseAddress", reuseAddress);
@@ -511,6 +545,30 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         return channels == null ? 0 : channels.numberOfOpenChannels();
     }
 
+    @Override
+    public long coalescedWrites() {
+        return coalescedWrites.count();
+    }
+
+    @Override
+    public long coalescedMessages() {
+        return coalescedMessages.count();
+    }
+
+    @Override
+    public TransportStats.ConnectionCoalesceStats[] connectionCoalesceStats() {
+        if (!coalesce) {
+            return new TransportStats.ConnectionCoalesceStats[0];
+        }
+        List<TransportStats.ConnectionCoalesceStats> stats = new ArrayList<TransportStats.ConnectionCoalesceStats>();
+        for (Map.Entry<DiscoveryNode, NodeChannels> entry : connectedNodes.entrySet()) {
+            long[] writesAndMessages = new long[2];
+            entry.getValue().coalesceStats(writesAndMessages);
+            stats.add(new TransportStats.ConnectionCoalesceStats(entry.getKey().id(), writesAndMessages[0], writesAndMessages[1]));
+        }
+        return stats.toArray(new TransportStats.ConnectionCoalesceStats[stats.size()]);
+    }
+
     @Override
     public void sendRequest(final DiscoveryNode node, final long requestId, final String action, final TransportRequest request, TransportRequestOptions options) throws IOException, TransportException {
         Channel targetChannel = nodeChannel(node, options);
@@ -535,12 +593,15 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         } else {
             StreamOutput stream = cachedEntry.handles();
             cachedEntry.bytes().skip(NettyHeader.HEADER_SIZE);
+            if (options.zeroCopy()) {
+                cachedEntry.bytes().referenceThreshold(zeroCopyThreshold);
+            }
             stream.setVersion(node.version());
             stream.writeString(action);
             request.writeTo(stream);
             stream.close();
         }
-        ChannelBuffer buffer = cachedEntry.bytes().bytes().toChannelBuffer();
+        ChannelBuffer buffer = cachedEntry.bytes().toChannelBuffer();
         NettyHeader.writeHeader(buffer, requestId, status, node.version());
 
         ChannelFuture future = targetChannel.write(buffer);
@@ -807,6 +868,25 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             }
         }
 
+        /**
+         * Adds the writes and messages of the channels to the node (when coalescing) to the given array.
+         */
+        void coalesceStats(long[] writesAndMessages) {
+            coalesceStats(low, writesAndMessages);
+            coalesceStats(med, writesAndMessages);
+            coalesceStats(high, writesAndMessages);
+        }
+
+        private void coalesceStats(Channel[] channels, long[] writesAndMessages) {
+            for (Channel channel : channels) {
+                MessageCoalescingHandler handler = channel == null ? null : channel.getPipeline().get(MessageCoalescingHandler.class);
+                if (handler != null) {
+                    writesAndMessages[0] += handler.writes();
+                    writesAndMessages[1] += handler.messages();
+                }
+            }
+        }
+
         public synchronized void close() {
             List<ChannelFuture> futures = new ArrayList<ChannelFuture>();
             closeChannelsAndWait(low, futures);
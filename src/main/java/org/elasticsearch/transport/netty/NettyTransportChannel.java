@@ -88,10 +88,12 @@ public class NettyTransportChannel implements TransportChannel {
             StreamOutput stream = cachedEntry.handles();
             stream.setVersion(version);
             cachedEntry.bytes().skip(NettyHeader.HEADER_SIZE);
+            // responses own their bytes, so large ones (like a _source) are sent without copying them
+            cachedEntry.bytes().referenceThreshold(transport.zeroCopyThreshold);
             response.writeTo(stream);
             stream.close();
         }
-        ChannelBuffer buffer = cachedEntry.bytes().bytes().toChannelBuffer();
+        ChannelBuffer buffer = cachedEntry.bytes().toChannelBuffer();
         NettyHeader.writeHeader(buffer, requestId, status, version);
         ChannelFuture future = channel.write(buffer);
         future.addListener(new NettyTransport.CacheFutureListener(cachedEntry));
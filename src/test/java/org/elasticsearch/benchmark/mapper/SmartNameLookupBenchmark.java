@@ -0,0 +1,95 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.mapper;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+
+import java.util.Random;
+
+/**
+ * Measures {@link MapperService#smartName(String)} lookups on an index with many types and fields, using
+ * a mix of full names, leaf names, type prefixed names and unknown names.
+ */
+public class SmartNameLookupBenchmark {
+
+    private static final int NUMBER_OF_TYPES = 10;
+    private static final int NUMBER_OF_OBJECTS = 20;
+    private static final int FIELDS_PER_OBJECT = 50;
+    private static final int NUMBER_OF_LOOKUPS = 10000000;
+    private static final int NUMBER_OF_ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        MapperService mapperService = MapperTests.newMapperService();
+        StopWatch stopWatch = new StopWatch().start();
+        for (int t = 0; t < NUMBER_OF_TYPES; t++) {
+            XContentBuilder mapping = XContentFactory.jsonBuilder().startObject().startObject("type" + t).startObject("properties");
+            for (int o = 0; o < NUMBER_OF_OBJECTS; o++) {
+                mapping.startObject("obj" + o).startObject("properties");
+                for (int f = 0; f < FIELDS_PER_OBJECT; f++) {
+                    mapping.startObject("field" + t + "_" + f).field("type", "string").endObject();
+                }
+                mapping.endObject().endObject();
+            }
+            mapping.endObject().endObject().endObject();
+            mapperService.add("type" + t, mapping.string(), true);
+        }
+        System.out.println("--> Added [" + (NUMBER_OF_TYPES * NUMBER_OF_OBJECTS * FIELDS_PER_OBJECT) + "] fields in [" + NUMBER_OF_TYPES + "] types, took " + stopWatch.stop().totalTime());
+
+        Random random = new Random(0);
+        String[] names = new String[1024];
+        for (int i = 0; i < names.length; i++) {
+            int t = random.nextInt(NUMBER_OF_TYPES);
+            String field = "obj" + random.nextInt(NUMBER_OF_OBJECTS) + ".field" + t + "_" + random.nextInt(FIELDS_PER_OBJECT);
+            switch (i % 4) {
+                case 0:
+                    names[i] = field;
+                    break;
+                case 1:
+                    names[i] = field.substring(field.indexOf('.') + 1);
+                    break;
+                case 2:
+                    names[i] = "type" + t + "." + field;
+                    break;
+                default:
+                    names[i] = field + "_unknown";
+                    break;
+            }
+            // don't let the lookups share the key instances
+            names[i] = new String(names[i].toCharArray());
+        }
+
+        for (int iteration = 0; iteration < NUMBER_OF_ITERATIONS; iteration++) {
+            int found = 0;
+            stopWatch = new StopWatch().start();
+            for (int i = 0; i < NUMBER_OF_LOOKUPS; i++) {
+                if (mapperService.smartName(names[i & (names.length - 1)]) != null) {
+                    found++;
+                }
+            }
+            stopWatch.stop();
+            System.out.println("--> Iteration [" + iteration + "]: [" + NUMBER_OF_LOOKUPS + "] smart name lookups ([" + found + "] found) took "
+                    + stopWatch.totalTime() + ", " + (stopWatch.totalTime().nanos() / NUMBER_OF_LOOKUPS) + "ns per lookup");
+        }
+    }
+}
@@ -58,7 +58,7 @@ public class GeoDistanceSearchBenchmark {
             System.out.println("Found an index, count: " + client.prepareCount("test").setQuery(QueryBuilders.matchAllQuery()).execute().actionGet().count());
         } else {
             String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1")
-                    .startObject("properties").startObject("location").field("type", "geo_point").field("lat_lon", true).endObject().endObject()
+                    .startObject("properties").startObject("location").field("type", "geo_point").field("lat_lon", true).field("geohash_prefix", true).endObject().endObject()
                     .endObject().endObject().string();
             client.admin().indices().prepareCreate("test")
                     .setSettings(ImmutableSettings.settingsBuilder().put("number_of_shards", 1).put("number_of_replicas", 0))
@@ -137,6 +137,22 @@ public class GeoDistanceSearchBenchmark {
         totalTime = System.currentTimeMillis() - start;
         System.err.println("--> Perf (ARC) - optimize_bbox (indexed) " + (totalTime / NUM_RUNS) + "ms");
 
+        System.err.println("--> Warming up (ARC)  - optimize_bbox (geohash)");
+        start = System.currentTimeMillis();
+        for (int i = 0; i < NUM_WARM; i++) {
+            run(client, GeoDistance.ARC, "geohash");
+        }
+        totalTime = System.currentTimeMillis() - start;
+        System.err.println("--> Warmup (ARC) - optimize_bbox (geohash) " + (totalTime / NUM_WARM) + "ms");
+
+        System.err.println("--> Perf (ARC) - optimize_bbox (geohash)");
+        start = System.currentTimeMillis();
+        for (int i = 0; i < NUM_RUNS; i++) {
+            run(client, GeoDistance.ARC, "geohash");
+        }
+        totalTime = System.currentTimeMillis() - start;
+        System.err.println("--> Perf (ARC) - optimize_bbox (geohash) " + (totalTime / NUM_RUNS) + "ms");
+
 
         System.err.println("--> Warming up (ARC)  - no optimize_bbox");
         start = System.currentTimeMillis();
@@ -0,0 +1,149 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.highlight;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.node.Node;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.*;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Measures the bytes allocated (by all the threads of the node) per highlighted hit when highlighting 1000 hits with
+ * the plain and fast vector highlighters. Run it before and after a change to compare allocation rates.
+ */
+public class HighlightAllocationBenchmark {
+
+    private static final String[] WORDS = new String[]{"quick", "brown", "fox", "jumps", "over", "the", "lazy", "dog",
+            "elastic", "search", "highlight", "fragment", "score", "query", "term", "vector", "offset", "token"};
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = settingsBuilder()
+                .put("index.engine.robin.refreshInterval", "-1")
+                .put("gateway.type", "none")
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        Node node1 = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node1")).node();
+        Client client = node1.client();
+
+        int COUNT = 10000;
+        int BATCH = 500;
+        int HITS = 1000;
+        int QUERY_WARMUP = 20;
+        int QUERY_COUNT = 50;
+
+        client.admin().indices().prepareCreate("test")
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("plain").field("type", "string").endObject()
+                        .startObject("fvh").field("type", "string").field("term_vector", "with_positions_offsets").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        Random random = new Random(0);
+        System.out.println("--> Indexing [" + COUNT + "] ...");
+        for (int i = 0; i < COUNT; i += BATCH) {
+            BulkRequestBuilder request = client.prepareBulk();
+            for (int j = 0; j < BATCH; j++) {
+                String text = text(random, 200);
+                request.add(Requests.indexRequest("test").type("type1").id(Integer.toString(i + j))
+                        .source(jsonBuilder().startObject().field("plain", text).field("fvh", text).endObject()));
+            }
+            if (request.execute().actionGet().hasFailures()) {
+                System.err.println("--> failures...");
+            }
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        client.admin().indices().prepareOptimize().setMaxNumSegments(1).execute().actionGet();
+
+        // what the search itself allocates, without highlighting
+        run(client, "no highlight", termQuery("plain", "fox"), null, HITS, QUERY_WARMUP, QUERY_COUNT);
+        for (String field : new String[]{"plain", "fvh"}) {
+            run(client, field + " term", termQuery(field, "fox"), field, HITS, QUERY_WARMUP, QUERY_COUNT);
+            run(client, field + " bool", boolQuery().should(termQuery(field, "fox")).should(termQuery(field, "dog")), field, HITS, QUERY_WARMUP, QUERY_COUNT);
+            run(client, field + " phrase", matchPhraseQuery(field, "quick brown"), field, HITS, QUERY_WARMUP, QUERY_COUNT);
+        }
+
+        client.close();
+        node1.close();
+    }
+
+    private static void run(Client client, String name, QueryBuilder query, String field, int hits, int warmup, int iterations) {
+        SearchRequestBuilder request = client.prepareSearch("test").setQuery(query).setSize(hits);
+        if (field != null) {
+            request.addHighlightedField(field, 100, 3);
+        }
+        for (int j = 0; j < warmup; j++) {
+            SearchResponse searchResponse = request.execute().actionGet();
+            if (searchResponse.failedShards() > 0) {
+                System.err.println("--> failures: " + searchResponse.shardFailures()[0].reason());
+                return;
+            }
+        }
+        long totalHits = 0;
+        long totalTime = 0;
+        long allocated = allocatedBytes();
+        for (int j = 0; j < iterations; j++) {
+            SearchResponse searchResponse = request.execute().actionGet();
+            totalHits += searchResponse.hits().hits().length;
+            totalTime += searchResponse.tookInMillis();
+        }
+        allocated = allocatedBytes() - allocated;
+        System.out.println("--> " + name + ": " + (totalTime / iterations) + "ms, allocated per hit " + new ByteSizeValue(allocated / Math.max(1, totalHits))
+                + " (" + (allocated / Math.max(1, totalHits)) + " bytes)");
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
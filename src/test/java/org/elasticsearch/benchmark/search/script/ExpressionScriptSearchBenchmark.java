@@ -0,0 +1,145 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.script;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.search.sort.SortBuilders;
+
+import java.util.Random;
+
+import static org.elasticsearch.client.Requests.createIndexRequest;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.customScoreQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Compares custom score and script sort search times of the <tt>expression</tt> and <tt>mvel</tt> script languages.
+ */
+public class ExpressionScriptSearchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = settingsBuilder()
+                .put("index.engine.robin.refreshInterval", "-1")
+                .put("gateway.type", "local")
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        Node node1 = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node1")).node();
+
+        Client client = node1.client();
+
+        long COUNT = SizeValue.parseSizeValue("10m").singles();
+        int BATCH = 1000;
+        int QUERY_WARMUP = 5;
+        int QUERY_COUNT = 20;
+
+        Random random = new Random(0);
+
+        Thread.sleep(10000);
+        try {
+            client.admin().indices().create(createIndexRequest("test")).actionGet();
+
+            StopWatch stopWatch = new StopWatch().start();
+
+            System.out.println("--> Indexing [" + COUNT + "] ...");
+            long ITERS = COUNT / BATCH;
+            long i = 1;
+            int counter = 0;
+            for (; i <= ITERS; i++) {
+                BulkRequestBuilder request = client.prepareBulk();
+                for (int j = 0; j < BATCH; j++) {
+                    counter++;
+                    XContentBuilder source = jsonBuilder().startObject()
+                            .field("l_value", random.nextInt(100000))
+                            .field("d_value", random.nextDouble() * 1000)
+                            .endObject();
+                    request.add(Requests.indexRequest("test").type("type1").id(Integer.toString(counter))
+                            .source(source));
+                }
+                BulkResponse response = request.execute().actionGet();
+                if (response.hasFailures()) {
+                    System.err.println("--> failures...");
+                }
+                if (((i * BATCH) % 100000) == 0) {
+                    System.out.println("--> Indexed " + (i * BATCH) + " took " + stopWatch.stop().lastTaskTime());
+                    stopWatch.start();
+                }
+            }
+            System.out.println("--> Indexing took " + stopWatch.totalTime() + ", TPS " + (((double) (COUNT)) / stopWatch.totalTime().secondsFrac()));
+        } catch (Exception e) {
+            System.out.println("--> Index already exists, ignoring indexing phase, waiting for green");
+            ClusterHealthResponse clusterHealthResponse = client.admin().cluster().prepareHealth().setWaitForGreenStatus().setTimeout("10m").execute().actionGet();
+            if (clusterHealthResponse.timedOut()) {
+                System.err.println("--> Timed out waiting for cluster health");
+            }
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        COUNT = client.prepareCount().setQuery(matchAllQuery()).execute().actionGet().count();
+        System.out.println("--> Number of docs in index: " + COUNT);
+
+        String script = "doc['l_value'].value * factor + log(1 + doc['d_value'].value) * _score";
+        for (String lang : new String[]{"mvel", "expression", "mvel", "expression"}) {
+            run(client, lang + " custom score", client.prepareSearch()
+                    .setQuery(customScoreQuery(matchAllQuery()).lang(lang).script(script).param("factor", 0.5)),
+                    COUNT, QUERY_WARMUP, QUERY_COUNT);
+            run(client, lang + " script sort", client.prepareSearch()
+                    .setQuery(matchAllQuery())
+                    .addSort(SortBuilders.scriptSort("doc['l_value'].value * factor - doc['d_value'].value", "number").lang(lang).param("factor", 0.5)),
+                    COUNT, QUERY_WARMUP, QUERY_COUNT);
+        }
+
+        node1.close();
+    }
+
+    private static void run(Client client, String name, SearchRequestBuilder request, long count, int warmup, int iterations) {
+        for (int j = 0; j < warmup; j++) {
+            SearchResponse searchResponse = request.execute().actionGet();
+            if (searchResponse.failedShards() > 0) {
+                System.err.println("--> failures: " + searchResponse.shardFailures()[0].reason());
+                return;
+            }
+        }
+        long totalQueryTime = 0;
+        for (int j = 0; j < iterations; j++) {
+            SearchResponse searchResponse = request.execute().actionGet();
+            if (searchResponse.hits().totalHits() != count) {
+                System.err.println("--> mismatch on hits");
+            }
+            totalQueryTime += searchResponse.tookInMillis();
+        }
+        System.out.println("--> " + name + ": " + (totalQueryTime / iterations) + "ms");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.stress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.ParsedDocumentStreams;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/**
+ * Compares the CPU a replica spends per document when parsing the source against
+ * reading the parsed document shipped by the primary (<tt>action.replicate_parsed_document</tt>).
+ */
+public class ReplicaParsedDocumentBenchmark {
+
+    private static final int NUMBER_OF_FIELDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int numberOfDocs = 100000;
+        int iterations = 5;
+
+        XContentBuilder mapping = XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties");
+        for (int i = 0; i < NUMBER_OF_FIELDS; i++) {
+            mapping.startObject("str" + i).field("type", "string").endObject();
+            mapping.startObject("long" + i).field("type", "long").endObject();
+        }
+        mapping.endObject().endObject().endObject();
+        DocumentMapper docMapper = MapperTests.newParser().parse(mapping.string());
+
+        Random random = new Random(0);
+        BytesReference[] sources = new BytesReference[numberOfDocs];
+        BytesReference[] parsedDocs = new BytesReference[numberOfDocs];
+        for (int i = 0; i < numberOfDocs; i++) {
+            XContentBuilder source = XContentFactory.jsonBuilder().startObject();
+            for (int j = 0; j < NUMBER_OF_FIELDS; j++) {
+                source.field("str" + j, "value " + random.nextInt(1000) + " of field " + j);
+                source.field("long" + j, random.nextLong());
+            }
+            sources[i] = source.endObject().bytes();
+        }
+        // the first parse marks the mappings as modified, do it before creating the parsed docs
+        docMapper.parse(SourceToParse.source(sources[0]).type("type").id("0"));
+        for (int i = 0; i < numberOfDocs; i++) {
+            SourceToParse sourceToParse = SourceToParse.source(sources[i]).type("type").id(Integer.toString(i));
+            ParsedDocument doc = docMapper.parse(sourceToParse);
+            parsedDocs[i] = ParsedDocumentStreams.write(doc, docMapper, sourceToParse.source());
+            if (parsedDocs[i] == null) {
+                throw new IllegalStateException("document [" + i + "] can't be written in its parsed form");
+            }
+        }
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long start = threadMXBean.getCurrentThreadCpuTime();
+            for (int i = 0; i < numberOfDocs; i++) {
+                docMapper.parse(SourceToParse.source(sources[i]).type("type").id(Integer.toString(i)));
+            }
+            long parseCpu = threadMXBean.getCurrentThreadCpuTime() - start;
+
+            start = threadMXBean.getCurrentThreadCpuTime();
+            for (int i = 0; i < numberOfDocs; i++) {
+                docMapper.parse(SourceToParse.source(sources[i]).type("type").id(Integer.toString(i)).parsedDocument(parsedDocs[i]));
+            }
+            long parsedDocCpu = threadMXBean.getCurrentThreadCpuTime() - start;
+
+            System.out.println("Iteration [" + iteration + "]: parse source [" + (parseCpu / numberOfDocs) + "ns/doc], read parsed doc ["
+                    + (parsedDocCpu / numberOfDocs) + "ns/doc]");
+        }
+    }
+}
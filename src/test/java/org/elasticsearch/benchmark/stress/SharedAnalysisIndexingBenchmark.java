@@ -0,0 +1,150 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.stress;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the CPU spent per document parsing and analyzing (and parsing and indexing) documents made of multi fields, with and without
+ * sharing the analysis of the <tt>_all</tt> entries and of the multi field sub fields (<tt>_all.shared_analysis</tt>).
+ */
+public class SharedAnalysisIndexingBenchmark {
+
+    private static final int NUMBER_OF_FIELDS = 10;
+
+    private static final String[] WORDS = new String[]{"quick", "brown", "fox", "jumps", "over", "the", "lazy", "dog",
+            "elastic", "search", "shared", "analysis", "of", "multi", "field", "content", "replayed", "tokens"};
+
+    public static void main(String[] args) throws Exception {
+        int numberOfDocs = 50000;
+        int iterations = 5;
+
+        DocumentMapper concatenatedDocMapper = docMapper(false);
+        DocumentMapper sharedDocMapper = docMapper(true);
+
+        Random random = new Random(0);
+        BytesReference[] sources = new BytesReference[numberOfDocs];
+        for (int i = 0; i < numberOfDocs; i++) {
+            XContentBuilder source = XContentFactory.jsonBuilder().startObject();
+            for (int j = 0; j < NUMBER_OF_FIELDS; j++) {
+                StringBuilder value = new StringBuilder();
+                int numberOfWords = 5 + random.nextInt(20);
+                for (int k = 0; k < numberOfWords; k++) {
+                    value.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                }
+                source.field("field" + j, value.toString());
+            }
+            sources[i] = source.endObject().bytes();
+        }
+        // the first parse marks the mappings as modified, do it before measuring
+        concatenatedDocMapper.parse(SourceToParse.source(sources[0]).type("type").id("0"));
+        sharedDocMapper.parse(SourceToParse.source(sources[0]).type("type").id("0"));
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long concatenatedCpu = analyze(threadMXBean, concatenatedDocMapper, sources);
+            long sharedCpu = analyze(threadMXBean, sharedDocMapper, sources);
+            System.out.println("Iteration [" + iteration + "]: parse and analyze: concatenated _all [" + (concatenatedCpu / numberOfDocs) + "ns/doc], shared analysis ["
+                    + (sharedCpu / numberOfDocs) + "ns/doc]");
+            concatenatedCpu = index(threadMXBean, concatenatedDocMapper, sources);
+            sharedCpu = index(threadMXBean, sharedDocMapper, sources);
+            System.out.println("Iteration [" + iteration + "]: parse and index: concatenated _all [" + (concatenatedCpu / numberOfDocs) + "ns/doc], shared analysis ["
+                    + (sharedCpu / numberOfDocs) + "ns/doc]");
+        }
+    }
+
+    private static DocumentMapper docMapper(boolean sharedAnalysis) throws Exception {
+        XContentBuilder mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("_all").field("shared_analysis", sharedAnalysis).endObject()
+                .startObject("properties");
+        for (int i = 0; i < NUMBER_OF_FIELDS; i++) {
+            mapping.startObject("field" + i).field("type", "multi_field").startObject("fields")
+                    .startObject("field" + i).field("type", "string").endObject()
+                    .startObject("phrase").field("type", "string").field("omit_norms", true).endObject()
+                    .startObject("untouched").field("type", "string").field("index", "not_analyzed").endObject()
+                    .endObject().endObject();
+        }
+        mapping.endObject().endObject().endObject();
+        return MapperTests.newParser().parse(mapping.string());
+    }
+
+    /**
+     * Consumes the token streams of the indexed fields in the order the index writer inverts them (sorted by name).
+     */
+    private static long analyze(ThreadMXBean threadMXBean, DocumentMapper docMapper, BytesReference[] sources) throws Exception {
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < sources.length; i++) {
+            ParsedDocument doc = docMapper.parse(SourceToParse.source(sources[i]).type("type").id(Integer.toString(i)));
+            List<IndexableField> fields = new ArrayList<IndexableField>(doc.rootDoc().getFields());
+            Collections.sort(fields, FIELD_NAME_COMPARATOR);
+            for (IndexableField field : fields) {
+                if (!field.fieldType().indexed()) {
+                    continue;
+                }
+                TokenStream stream = field.tokenStream(doc.analyzer());
+                stream.reset();
+                while (stream.incrementToken()) {
+                }
+                stream.end();
+                stream.close();
+            }
+        }
+        return threadMXBean.getCurrentThreadCpuTime() - start;
+    }
+
+    private static final Comparator<IndexableField> FIELD_NAME_COMPARATOR = new Comparator<IndexableField>() {
+        @Override
+        public int compare(IndexableField o1, IndexableField o2) {
+            return o1.name().compareTo(o2.name());
+        }
+    };
+
+    private static long index(ThreadMXBean threadMXBean, DocumentMapper docMapper, BytesReference[] sources) throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < sources.length; i++) {
+            ParsedDocument doc = docMapper.parse(SourceToParse.source(sources[i]).type("type").id(Integer.toString(i)));
+            writer.addDocuments(doc.docs(), doc.analyzer());
+        }
+        long took = threadMXBean.getCurrentThreadCpuTime() - start;
+        writer.close();
+        return took;
+    }
+}
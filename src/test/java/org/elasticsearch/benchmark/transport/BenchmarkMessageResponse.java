@@ -19,6 +19,7 @@
 
 package org.elasticsearch.benchmark.transport;
 
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportResponse;
@@ -66,7 +67,7 @@ public class BenchmarkMessageResponse extends TransportResponse {
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
         out.writeLong(id);
-        out.writeVInt(payload.length);
-        out.writeBytes(payload);
+        // same wire format as writing the length and bytes, but lets the transport send the payload without copying it
+        out.writeBytesReference(new BytesArray(payload));
     }
 }
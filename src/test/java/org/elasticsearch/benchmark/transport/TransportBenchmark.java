@@ -59,14 +59,17 @@ public class TransportBenchmark {
         final String executor = ThreadPool.Names.GENERIC;
         final boolean waitForRequest = true;
         final ByteSizeValue payloadSize = new ByteSizeValue(100, ByteSizeUnit.BYTES);
-        final int NUMBER_OF_CLIENTS = 10;
-        final int NUMBER_OF_ITERATIONS = 100000;
+        final int NUMBER_OF_CLIENTS = 50;
+        final int NUMBER_OF_ITERATIONS = 20000;
         final byte[] payload = new byte[(int) payloadSize.bytes()];
         final AtomicLong idGenerator = new AtomicLong();
         final Type type = Type.NETTY;
+        // coalesce concurrent small messages into a single write (netty only)
+        final boolean coalesce = true;
 
 
         Settings settings = ImmutableSettings.settingsBuilder()
+                .put("transport.netty.coalesce.enabled", coalesce)
                 .build();
 
         final ThreadPool serverThreadPool = new ThreadPool();
@@ -179,6 +182,11 @@ public class TransportBenchmark {
         stopWatch.stop();
 
         System.out.println("Ran [" + NUMBER_OF_CLIENTS + "], each with [" + NUMBER_OF_ITERATIONS + "] iterations, payload [" + payloadSize + "]: took [" + stopWatch.totalTime() + "], TPS: " + (NUMBER_OF_CLIENTS * NUMBER_OF_ITERATIONS) / stopWatch.totalTime().secondsFrac());
+        if (coalesce) {
+            TransportStats clientStats = clientTransportService.stats();
+            TransportStats serverStats = serverTransportService.stats();
+            System.out.println("Messages per write, client [" + clientStats.messagesPerWrite() + "], server [" + serverStats.messagesPerWrite() + "]");
+        }
 
         clientTransportService.close();
         clientThreadPool.shutdownNow();
@@ -23,6 +23,7 @@ import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
@@ -37,6 +38,8 @@ public class NettyEchoBenchmark {
         final int payloadSize = 100;
         int CYCLE_SIZE = 50000;
         final long NUMBER_OF_ITERATIONS = 500000;
+        // read into direct buffers (transport.netty.direct_buffers / http.netty.direct_buffers)
+        final boolean directBuffers = false;
 
         ChannelBuffer message = ChannelBuffers.buffer(100);
         for (int i = 0; i < message.capacity(); i++) {
@@ -57,6 +60,10 @@ public class NettyEchoBenchmark {
             }
         });
 
+        if (directBuffers) {
+            serverBootstrap.setOption("child.bufferFactory", DirectChannelBufferFactory.getInstance());
+        }
+
         // Bind and start to accept incoming connections.
         serverBootstrap.bind(new InetSocketAddress(9000));
 
@@ -77,6 +84,10 @@ public class NettyEchoBenchmark {
             }
         });
 
+        if (directBuffers) {
+            clientBootstrap.setOption("bufferFactory", DirectChannelBufferFactory.getInstance());
+        }
+
         // Start the connection attempt.
         ChannelFuture future = clientBootstrap.connect(new InetSocketAddress("localhost", 9000));
         future.awaitUninterruptibly();
@@ -0,0 +1,132 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.document;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+public class ConcurrentBulkParsingTests extends AbstractNodesTests {
+
+    private Client client;
+
+    @BeforeClass
+    public void startNodes() {
+        startNode("server1", ImmutableSettings.settingsBuilder()
+                .put("action.bulk.parse_concurrency", 4)
+                .put("action.bulk.parse_ahead", 4));
+        client = client("server1");
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testItemOrderAndFailures() throws Exception {
+        client.admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("num").field("type", "long").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        int numItems = 500;
+        BulkRequestBuilder bulk = client.prepareBulk();
+        for (int i = 0; i < numItems; i++) {
+            if (i % 7 == 3) {
+                // fails to parse
+                bulk.add(client.prepareIndex("test", "type1", id(i)).setSource(jsonBuilder().startObject().field("num", "not a number").endObject()));
+            } else if (i % 11 == 5) {
+                // the document was indexed by an earlier item (or a failing one), creating it fails if it exists
+                bulk.add(client.prepareIndex("test", "type1", id(i)).setCreate(true).setSource(jsonBuilder().startObject().field("num", i).endObject()));
+            } else if (i % 13 == 0) {
+                bulk.add(client.prepareDelete("test", "type1", id(i)));
+            } else {
+                bulk.add(client.prepareIndex("test", "type1", id(i)).setSource(jsonBuilder().startObject().field("num", i).endObject()));
+            }
+        }
+        BulkResponse response = bulk.execute().actionGet();
+        assertThat(response.items().length, equalTo(numItems));
+
+        // replay the items in order to know what each of them should have done
+        Map<String, Long> versions = new HashMap<String, Long>();
+        Map<String, Integer> values = new HashMap<String, Integer>();
+        for (int i = 0; i < numItems; i++) {
+            BulkItemResponse item = response.items()[i];
+            String id = id(i);
+            assertThat(item.itemId(), equalTo(i));
+            assertThat(item.id(), equalTo(id));
+            if (i % 7 == 3) {
+                assertThat("item " + i, item.failed(), equalTo(true));
+            } else if (i % 11 == 5) {
+                boolean exists = values.containsKey(id);
+                assertThat("item " + i, item.failed(), equalTo(exists));
+                if (!exists) {
+                    versions.put(id, item.version());
+                    values.put(id, i);
+                }
+            } else if (i % 13 == 0) {
+                assertThat("item " + i, item.failed(), equalTo(false));
+                values.remove(id);
+                versions.put(id, item.version());
+            } else {
+                assertThat("item " + i, item.failed(), equalTo(false));
+                Long version = versions.get(id);
+                assertThat("item " + i, item.version(), equalTo(version == null ? 1 : version + 1));
+                versions.put(id, item.version());
+                values.put(id, i);
+            }
+        }
+
+        for (int i = 0; i < numItems; i++) {
+            String id = id(i);
+            GetResponse get = client.prepareGet("test", "type1", id).execute().actionGet();
+            assertThat(id, get.exists(), equalTo(values.containsKey(id)));
+            if (get.exists()) {
+                assertThat(id, ((Number) get.sourceAsMap().get("num")).intValue(), equalTo(values.get(id)));
+            }
+        }
+    }
+
+    private static String id(int i) {
+        return Integer.toString(i % 37);
+    }
+}
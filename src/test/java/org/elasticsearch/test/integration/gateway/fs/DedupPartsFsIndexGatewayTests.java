@@ -0,0 +1,107 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.integration.gateway.fs;
+
+import com.google.common.collect.Maps;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.common.blobstore.BlobMetaData;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.ImmutableBlobContainer;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.gateway.Gateway;
+import org.elasticsearch.gateway.blobstore.BlobStoreGateway;
+import org.elasticsearch.index.gateway.blobstore.BlobStoreIndexGateway;
+import org.elasticsearch.node.internal.InternalNode;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.elasticsearch.client.Requests.clusterHealthRequest;
+import static org.elasticsearch.client.Requests.gatewaySnapshotRequest;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Snapshots index files as small content addressed parts.
+ */
+public class DedupPartsFsIndexGatewayTests extends AbstractSimpleIndexGatewayTests {
+
+    @Test
+    public void testExistingPartsAreNotUploadedAgain() throws Exception {
+        startNode("server1");
+        client("server1").admin().indices().prepareCreate("test").execute().actionGet();
+        ClusterHealthResponse clusterHealth = client("server1").admin().cluster().health(clusterHealthRequest().waitForYellowStatus().waitForActiveShards(1)).actionGet();
+        assertThat(clusterHealth.timedOut(), equalTo(false));
+
+        for (int i = 0; i < 200; i++) {
+            client("server1").prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .field("field", "value " + i).endObject()).execute().actionGet();
+        }
+        client("server1").admin().indices().prepareFlush().execute().actionGet();
+        client("server1").admin().indices().gatewaySnapshot(gatewaySnapshotRequest("test")).actionGet();
+
+        BlobStoreGateway gateway = (BlobStoreGateway) ((InternalNode) node("server1")).injector().getInstance(Gateway.class);
+        BlobPath shardPath = BlobStoreIndexGateway.shardPath(gateway.basePath(), "test", 0);
+        ImmutableBlobContainer container = gateway.blobStore().immutableBlobContainer(shardPath);
+        File shardDir = ((FsBlobStore) gateway.blobStore()).path();
+        for (String path : shardPath.toArray()) {
+            shardDir = new File(shardDir, path);
+        }
+
+        Map<String, Long> parts = Maps.newHashMap();
+        for (BlobMetaData blob : container.listBlobs().values()) {
+            assertThat(blob.name(), not(containsString(".part")));
+            if (blob.name().startsWith("part-")) {
+                assertThat(blob.length(), lessThanOrEqualTo(4096l));
+                parts.put(blob.name(), new File(shardDir, blob.name()).lastModified());
+            }
+        }
+        assertThat(parts.size(), greaterThan(1));
+
+        // drop the commit points, so all files need to be snapshotted again, but their content is already there
+        for (String blobName : container.listBlobs().keySet()) {
+            if (blobName.startsWith("commit-")) {
+                container.deleteBlob(blobName);
+            }
+        }
+        Thread.sleep(1100);
+        client("server1").prepareIndex("test", "type1", "200").setSource(jsonBuilder().startObject()
+                .field("field", "value 200").endObject()).execute().actionGet();
+        client("server1").admin().indices().prepareFlush().execute().actionGet();
+        client("server1").admin().indices().gatewaySnapshot(gatewaySnapshotRequest("test")).actionGet();
+
+        Map<String, BlobMetaData> blobs = container.listBlobs();
+        boolean commitPointWritten = false;
+        for (String blobName : blobs.keySet()) {
+            commitPointWritten |= blobName.startsWith("commit-");
+        }
+        assertThat(commitPointWritten, equalTo(true));
+        // the parts of the segments file change, but the ones of the existing segments are kept as is
+        int keptParts = 0;
+        for (Map.Entry<String, Long> part : parts.entrySet()) {
+            if (blobs.containsKey(part.getKey())) {
+                keptParts++;
+                assertThat(new File(shardDir, part.getKey()).lastModified(), equalTo(part.getValue()));
+            }
+        }
+        assertThat(keptParts, greaterThan(parts.size() / 2));
+    }
+}
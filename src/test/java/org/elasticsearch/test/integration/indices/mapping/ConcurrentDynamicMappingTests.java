@@ -0,0 +1,118 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.indices.mapping;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class ConcurrentDynamicMappingTests extends AbstractNodesTests {
+
+    private Client client;
+
+    @BeforeMethod
+    public void startNodes() {
+        startNode("node1");
+        startNode("node2");
+        client = client("node1");
+    }
+
+    @AfterMethod
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testConcurrentDynamicMappingUpdates() throws Exception {
+        client.admin().indices().prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 5).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        final int numberOfThreads = 4;
+        final int fieldsPerThread = 20;
+        final CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        final CopyOnWriteArrayList<Throwable> failures = new CopyOnWriteArrayList<Throwable>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            final int threadId = t;
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < fieldsPerThread; i++) {
+                            BulkRequestBuilder bulk = client.prepareBulk();
+                            for (int j = 0; j < 5; j++) {
+                                bulk.add(client.prepareIndex("test", "type1", threadId + "_" + i + "_" + j)
+                                        .setSource(jsonBuilder().startObject().field("field_" + threadId + "_" + i, "value").endObject()));
+                            }
+                            BulkResponse response = bulk.execute().actionGet();
+                            if (response.hasFailures()) {
+                                failures.add(new Exception(response.buildFailureMessage()));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+        latch.await();
+        assertThat(failures, emptyIterable());
+
+        // the mapping updates are applied on the master asynchronously
+        Map<String, Object> properties = null;
+        for (int i = 0; i < 100; i++) {
+            ClusterState clusterState = client.admin().cluster().prepareState().execute().actionGet().state();
+            MappingMetaData mappingMetaData = clusterState.metaData().index("test").mapping("type1");
+            assertThat(mappingMetaData, notNullValue());
+            properties = (Map<String, Object>) mappingMetaData.sourceAsMap().get("properties");
+            if (properties.size() == numberOfThreads * fieldsPerThread) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        for (int t = 0; t < numberOfThreads; t++) {
+            for (int i = 0; i < fieldsPerThread; i++) {
+                assertThat(properties, hasKey("field_" + t + "_" + i));
+            }
+        }
+    }
+}
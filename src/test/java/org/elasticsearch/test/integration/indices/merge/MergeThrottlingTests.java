@@ -0,0 +1,80 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.indices.merge;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStats;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ */
+public class MergeThrottlingTests extends AbstractNodesTests {
+
+    private Client client;
+
+    @BeforeClass
+    public void createNodes() throws Exception {
+        startNode("node1", settingsBuilder()
+                .put("indices.merge.throttle.max_bytes_per_sec", "50kb")
+                .put("indices.merge.throttle.min_bytes_per_sec", "50kb")
+                .put("indices.merge.throttle.interval", "100ms"));
+        client = client("node1");
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testMergesAreThrottledByNodeBudget() throws Exception {
+        client.admin().indices().prepareCreate("test")
+                .setSettings(settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        for (int segment = 0; segment < 5; segment++) {
+            for (int i = 0; i < 100; i++) {
+                client.prepareIndex("test", "type", segment + "_" + i)
+                        .setSource("field", "value " + i + " of segment " + segment + " with some more text to make it bigger")
+                        .execute().actionGet();
+            }
+            client.admin().indices().prepareRefresh().execute().actionGet();
+        }
+        // let the budget be assigned to the shard
+        Thread.sleep(500);
+
+        client.admin().indices().prepareOptimize("test").setMaxNumSegments(1).setWaitForMerge(true).execute().actionGet();
+
+        IndicesStats stats = client.admin().indices().prepareStats().setMerge(true).execute().actionGet();
+        assertThat(stats.total().merge().current(), equalTo(0l));
+        assertThat(stats.total().merge().total(), greaterThan(0l));
+        assertThat(stats.total().merge().totalThrottledTimeInMillis(), greaterThan(0l));
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.test.integration.nested;
 
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.status.IndicesStatusResponse;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetResponse;
@@ -43,6 +44,7 @@ import static org.elasticsearch.index.query.FilterBuilders.nestedFilter;
 import static org.elasticsearch.index.query.QueryBuilders.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.notNullValue;
 
 @Test
@@ -370,6 +372,63 @@ public class SimpleNestedTests extends AbstractNodesTests {
         assertThat(searchResponse.hits().totalHits(), equalTo(0l));
     }
 
+    @Test
+    public void nestedFiltersWarmedIntoFixedBitSetCache() throws Exception {
+        client.admin().indices().prepareDelete().execute().actionGet();
+
+        client.admin().indices().prepareCreate("test")
+                .setSettings(settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("nested1")
+                        .field("type", "nested")
+                        .endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        client.prepareIndex("test", "type1", "1").setSource(jsonBuilder().startObject()
+                .field("field1", "value1")
+                .startArray("nested1")
+                .startObject().field("n_field1", "n_value1_1").endObject()
+                .startObject().field("n_field1", "n_value1_2").endObject()
+                .endArray()
+                .endObject()).execute().actionGet();
+
+        // the refresh warms the new segment, loading the nested parent and child bitsets
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        // clearing the filter cache only leaves the fixed bitsets in place, and refreshes the cache stats
+        client.admin().indices().prepareClearCache().setFilterCache(true).execute().actionGet();
+        assertThat(fixedBitSetFilterSizeInBytes(), greaterThan(0l));
+
+        SearchResponse searchResponse = client.prepareSearch("test").setQuery(nestedQuery("nested1", termQuery("nested1.n_field1", "n_value1_1"))).execute().actionGet();
+        assertThat(Arrays.toString(searchResponse.shardFailures()), searchResponse.failedShards(), equalTo(0));
+        assertThat(searchResponse.hits().totalHits(), equalTo(1l));
+
+        searchResponse = client.prepareSearch("test").setFilter(nestedFilter("nested1", termQuery("nested1.n_field1", "n_value1_2"))).execute().actionGet();
+        assertThat(Arrays.toString(searchResponse.shardFailures()), searchResponse.failedShards(), equalTo(0));
+        assertThat(searchResponse.hits().totalHits(), equalTo(1l));
+
+        // a full clear drops them
+        client.admin().indices().prepareClearCache().execute().actionGet();
+        assertThat(fixedBitSetFilterSizeInBytes(), equalTo(0l));
+
+        // and they are loaded again on demand
+        searchResponse = client.prepareSearch("test").setQuery(nestedQuery("nested1", termQuery("nested1.n_field1", "n_value1_1"))).execute().actionGet();
+        assertThat(searchResponse.hits().totalHits(), equalTo(1l));
+        client.admin().indices().prepareClearCache().setFilterCache(true).execute().actionGet();
+        assertThat(fixedBitSetFilterSizeInBytes(), greaterThan(0l));
+    }
+
+    private long fixedBitSetFilterSizeInBytes() {
+        long sizeInBytes = 0;
+        for (NodeStats nodeStats : client.admin().cluster().prepareNodesStats().execute().actionGet().nodes()) {
+            sizeInBytes += nodeStats.indices().cache().fixedBitSetFilterSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
     @Test
     public void testFacetsSingleShard() throws Exception {
         testFacets(1);
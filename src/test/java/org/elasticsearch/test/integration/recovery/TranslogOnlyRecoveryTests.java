@@ -0,0 +1,140 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.recovery;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.status.IndexShardStatus;
+import org.elasticsearch.action.admin.indices.status.IndicesStatusResponse;
+import org.elasticsearch.action.admin.indices.status.ShardStatus;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.gateway.Gateway;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ *
+ */
+public class TranslogOnlyRecoveryTests extends AbstractNodesTests {
+
+    @AfterMethod
+    public void cleanAndCloseNodes() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            if (node("node" + i) != null) {
+                node("node" + i).stop();
+                // since we store (by default) the index snapshot under the gateway, resetting it will reset the index data as well
+                ((InternalNode) node("node" + i)).injector().getInstance(Gateway.class).reset();
+            }
+        }
+        closeAllNodes();
+    }
+
+    @Test
+    public void testReplicaRecoveredFromRetainedTranslog() throws Exception {
+        ShardStatus replicaStatus = restartReplica("100mb");
+        logger.info("--> recovered {}, reused {}, translog operations {}", replicaStatus.peerRecoveryStatus().recoveredIndexSize(),
+                replicaStatus.peerRecoveryStatus().reusedIndexSize(), replicaStatus.peerRecoveryStatus().recoveredTranslogOperations());
+        assertThat(replicaStatus.peerRecoveryStatus().recoveredIndexSize().bytes(), equalTo(0l));
+        assertThat(replicaStatus.peerRecoveryStatus().reusedIndexSize().bytes(), greaterThan(0l));
+        // the replica replays all the operations since it was last recovered
+        assertThat(replicaStatus.peerRecoveryStatus().recoveredTranslogOperations(), equalTo(600l));
+    }
+
+    @Test
+    public void testReplicaRecoveredFromFilesOnceTranslogIsCleared() throws Exception {
+        ShardStatus replicaStatus = restartReplica("0");
+        logger.info("--> recovered {}, reused {}, translog operations {}", replicaStatus.peerRecoveryStatus().recoveredIndexSize(),
+                replicaStatus.peerRecoveryStatus().reusedIndexSize(), replicaStatus.peerRecoveryStatus().recoveredTranslogOperations());
+        assertThat(replicaStatus.peerRecoveryStatus().recoveredIndexSize().bytes(), greaterThan(0l));
+    }
+
+    private ShardStatus restartReplica(String retentionSize) throws Exception {
+        buildNode("node1", settingsBuilder().put("gateway.type", "local").build());
+        buildNode("node2", settingsBuilder().put("gateway.type", "local").build());
+        cleanAndCloseNodes();
+
+        ImmutableSettings.Builder settings = settingsBuilder()
+                .put("gateway.type", "local")
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 1)
+                .put("index.translog.flush_threshold_ops", 100)
+                .put("index.translog.interval", "100ms")
+                .put("index.translog.retention_size", retentionSize);
+        startNode("node1", settings);
+        startNode("node2", settings);
+
+        logger.info("--> indexing docs");
+        for (int i = 0; i < 500; i++) {
+            client("node1").prepareIndex("test", "type", Integer.toString(i)).setSource("field", "value" + i).execute().actionGet();
+        }
+        ClusterHealthResponse clusterHealth = client("node1").admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+        assertThat(clusterHealth.timedOut(), equalTo(false));
+        // merge so the copies don't share their segments, without a flush which would clear the translog
+        Thread.sleep(500);
+        client("node1").admin().indices().prepareOptimize("test").setMaxNumSegments(1).setFlush(false).execute().actionGet();
+
+        ClusterState state = client("node1").admin().cluster().prepareState().execute().actionGet().state();
+        String replicaNode = null;
+        for (ShardRouting shardRouting : state.routingTable().index("test").shard(0)) {
+            if (!shardRouting.primary()) {
+                replicaNode = state.nodes().get(shardRouting.currentNodeId()).name();
+            }
+        }
+        String primaryNode = replicaNode.equals("node1") ? "node2" : "node1";
+
+        logger.info("--> closing the replica node [{}]", replicaNode);
+        closeNode(replicaNode);
+
+        logger.info("--> indexing more docs");
+        for (int i = 500; i < 600; i++) {
+            client(primaryNode).prepareIndex("test", "type", Integer.toString(i)).setSource("field", "value" + i).execute().actionGet();
+        }
+        Thread.sleep(500);
+
+        logger.info("--> starting the replica node [{}] back up", replicaNode);
+        startNode(replicaNode, settings);
+        clusterHealth = client(primaryNode).admin().cluster().prepareHealth().setWaitForGreenStatus().setWaitForNodes("2").execute().actionGet();
+        assertThat(clusterHealth.timedOut(), equalTo(false));
+
+        client(replicaNode).admin().indices().prepareRefresh().execute().actionGet();
+        for (int i = 0; i < 5; i++) {
+            assertThat(client(replicaNode).prepareSearch("test").setPreference("_local").setQuery(matchAllQuery()).setSize(0).execute().actionGet().hits().totalHits(), equalTo(600l));
+        }
+
+        IndicesStatusResponse statusResponse = client(primaryNode).admin().indices().prepareStatus("test").setRecovery(true).execute().actionGet();
+        for (IndexShardStatus indexShardStatus : statusResponse.index("test")) {
+            for (ShardStatus shardStatus : indexShardStatus) {
+                if (!shardStatus.shardRouting().primary()) {
+                    return shardStatus;
+                }
+            }
+        }
+        throw new AssertionError("no replica found");
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.rest.bulk;
+
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class StreamingBulkTests extends AbstractNodesTests {
+
+    private String baseUrl;
+
+    private String bufferedBaseUrl;
+
+    @BeforeClass
+    public void startNodes() {
+        baseUrl = baseUrl(startNode("server1", ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 2)
+                .put("index.number_of_replicas", 0)
+                .put("http.streaming", true)
+                .put("http.bulk.streaming.batch_size", "8kb")));
+        // streaming is disabled by default
+        bufferedBaseUrl = baseUrl(startNode("server2", ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 2)
+                .put("index.number_of_replicas", 0)));
+    }
+
+    private String baseUrl(Node node) {
+        InetSocketAddress address = ((InetSocketTransportAddress) ((InternalNode) node).injector().getInstance(HttpServerTransport.class).boundAddress().publishAddress()).address();
+        return "http://" + address.getHostName() + ":" + address.getPort();
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        closeAllNodes();
+    }
+
+    private String body(int numDocs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numDocs; i++) {
+            sb.append("{ \"index\" : { \"_id\" : \"").append(i).append("\" } }\n");
+            sb.append("{ \"field\" : \"value ").append(i).append("\" }\n");
+            if (i % 10 == 0) {
+                // delete a document indexed in a previous batch
+                sb.append("{ \"delete\" : { \"_id\" : \"").append(i / 2).append("\" } }\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private Map<String, Object> post(String path, String body, boolean chunked, int expectedStatus) throws Exception {
+        return post(baseUrl, path, body, chunked, expectedStatus);
+    }
+
+    private Map<String, Object> post(String baseUrl, String path, String body, boolean chunked, int expectedStatus) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        byte[] data = body.getBytes("UTF-8");
+        if (chunked) {
+            connection.setChunkedStreamingMode(1024);
+        } else {
+            connection.setFixedLengthStreamingMode(data.length);
+        }
+        OutputStream os = connection.getOutputStream();
+        os.write(data);
+        os.close();
+        assertThat(connection.getResponseCode(), equalTo(expectedStatus));
+        InputStream is = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String response = Streams.copyToString(new InputStreamReader(is, "UTF-8"));
+        XContentParser parser = XContentFactory.xContent(response).createParser(response);
+        try {
+            return parser.map();
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void assertBulk(String index, boolean chunked) throws Exception {
+        int numDocs = 1000;
+        Map<String, Object> response = post("/" + index + "/type1/_bulk", body(numDocs), chunked, 200);
+        List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("items");
+        assertThat(items.size(), equalTo(numDocs + numDocs / 10));
+
+        // items are returned in request order
+        int pos = 0;
+        for (int i = 0; i < numDocs; i++) {
+            Map<String, Object> indexItem = (Map<String, Object>) items.get(pos++).get("index");
+            assertThat(indexItem.get("_id").toString(), equalTo(Integer.toString(i)));
+            assertThat(indexItem.get("ok"), equalTo((Object) true));
+            if (i % 10 == 0) {
+                Map<String, Object> delete = (Map<String, Object>) items.get(pos++).get("delete");
+                assertThat(delete.get("_id").toString(), equalTo(Integer.toString(i / 2)));
+            }
+        }
+
+        client("server1").admin().indices().prepareRefresh(index).execute().actionGet();
+        // ids 0, 5, 10, ... 495 are deleted, and deletes come after their index operation
+        assertThat(client("server1").prepareCount(index).execute().actionGet().count(), equalTo((long) numDocs - numDocs / 10));
+    }
+
+    @Test
+    public void testChunkedBody() throws Exception {
+        assertBulk("chunked", true);
+    }
+
+    @Test
+    public void testContentLengthBody() throws Exception {
+        assertBulk("content_length", false);
+    }
+
+    @Test
+    public void testMalformedAction() throws Exception {
+        String body = body(500) + "{ \"index\" : { \"_id\" : \"1\" \n{}\n" + body(10);
+        Map<String, Object> response = post("/malformed/type1/_bulk", body, true, 400);
+        assertThat(response.containsKey("error"), equalTo(true));
+    }
+
+    @Test
+    public void testMalformedActionNotStreamedByDefault() throws Exception {
+        String body = body(500) + "{ \"index\" : { \"_id\" : \"1\" \n{}\n" + body(10);
+        Map<String, Object> response = post(bufferedBaseUrl, "/malformed_buffered/type1/_bulk", body, true, 400);
+        assertThat(response.containsKey("error"), equalTo(true));
+        // the whole request is rejected, nothing got indexed
+        assertThat(client("server2").admin().indices().prepareExists("malformed_buffered").execute().actionGet().exists(), equalTo(false));
+    }
+}
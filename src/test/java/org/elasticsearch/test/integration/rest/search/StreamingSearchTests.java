@@ -0,0 +1,142 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.integration.rest.search;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class StreamingSearchTests extends AbstractNodesTests {
+
+    private String streamingUrl;
+
+    private String bufferedUrl;
+
+    @BeforeClass
+    public void startNodes() throws Exception {
+        streamingUrl = baseUrl(startNode("server1", ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 2)
+                .put("index.number_of_replicas", 0)
+                .put("http.search.streaming", true)
+                .put("http.response_chunk_size", "1kb")));
+        bufferedUrl = baseUrl(startNode("server2", ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 2)
+                .put("index.number_of_replicas", 0)));
+
+        Client client = client("server1");
+        for (int i = 0; i < 200; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .field("num", i)
+                    .field("text", "some text to make the response a bit bigger " + i)
+                    .endObject()).execute().actionGet();
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+    }
+
+    private String baseUrl(org.elasticsearch.node.Node node) {
+        InetSocketAddress address = ((InetSocketTransportAddress) ((InternalNode) node).injector().getInstance(HttpServerTransport.class).boundAddress().publishAddress()).address();
+        return "http://" + address.getHostName() + ":" + address.getPort();
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        closeAllNodes();
+    }
+
+    private HttpURLConnection get(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        assertThat(connection.getResponseCode(), equalTo(200));
+        return connection;
+    }
+
+    private String body(HttpURLConnection connection) throws Exception {
+        return Streams.copyToString(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+    }
+
+    private Map<String, Object> map(String body) throws Exception {
+        XContentParser parser = XContentFactory.xContent(body).createParser(body);
+        try {
+            Map<String, Object> map = parser.map();
+            map.remove("took");
+            return map;
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testLargeResponseIsChunked() throws Exception {
+        String path = "/test/_search?size=200&sort=num&pretty=true";
+        HttpURLConnection streaming = get(streamingUrl + path);
+        assertThat(streaming.getHeaderField("Transfer-Encoding"), equalTo("chunked"));
+        assertThat(streaming.getHeaderField("Content-Length"), nullValue());
+        assertThat(streaming.getContentType(), startsWith("application/json"));
+        Map<String, Object> streamed = map(body(streaming));
+
+        HttpURLConnection buffered = get(bufferedUrl + path);
+        assertThat(buffered.getHeaderField("Transfer-Encoding"), nullValue());
+        Map<String, Object> expected = map(body(buffered));
+
+        assertThat(streamed, equalTo(expected));
+        List hits = (List) ((Map) streamed.get("hits")).get("hits");
+        assertThat(hits.size(), equalTo(200));
+    }
+
+    @Test
+    public void testSmallResponseIsNotChunked() throws Exception {
+        String path = "/test/_search?size=1&sort=num";
+        HttpURLConnection streaming = get(streamingUrl + path);
+        assertThat(streaming.getHeaderField("Transfer-Encoding"), nullValue());
+        String body = body(streaming);
+        assertThat(streaming.getHeaderField("Content-Length"), equalTo(Integer.toString(body.getBytes("UTF-8").length)));
+
+        assertThat(map(body), equalTo(map(body(get(bufferedUrl + path)))));
+    }
+
+    @Test
+    public void testJsonpIsNotChunked() throws Exception {
+        HttpURLConnection streaming = get(streamingUrl + "/test/_search?size=200&callback=cb");
+        assertThat(streaming.getHeaderField("Transfer-Encoding"), nullValue());
+        String body = body(streaming);
+        assertThat(body, startsWith("cb("));
+        assertThat(body, endsWith(");"));
+    }
+}
@@ -24,6 +24,7 @@ import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.test.integration.AbstractNodesTests;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -228,6 +229,66 @@ public class CustomScoreSearchTests extends AbstractNodesTests {
         assertThat(response.hits().getAt(1).id(), equalTo("2"));
     }
 
+    @Test
+    public void testCustomScriptBoostExpression() throws Exception {
+        client.admin().indices().prepareDelete().execute().actionGet();
+        client.admin().indices().prepareCreate("test").setSettings(settingsBuilder().put("index.number_of_shards", 1)).execute().actionGet();
+
+        client.index(indexRequest("test").type("type1").id("1")
+                .source(jsonBuilder().startObject().field("test", "value beck").field("num1", 1.0f).endObject())).actionGet();
+        client.index(indexRequest("test").type("type1").id("2")
+                .source(jsonBuilder().startObject().field("test", "value check").field("num1", 2.0f).endObject())).actionGet();
+        client.admin().indices().refresh(refreshRequest()).actionGet();
+
+        logger.info("running doc['num1'].value");
+        SearchResponse response = client.search(searchRequest()
+                .searchType(SearchType.QUERY_THEN_FETCH)
+                .source(searchSource().explain(true).query(customScoreQuery(termQuery("test", "value")).lang("expression").script("doc['num1'].value")))
+        ).actionGet();
+
+        assertThat(Arrays.toString(response.shardFailures()), response.failedShards(), equalTo(0));
+        assertThat(response.hits().totalHits(), equalTo(2l));
+        assertThat(response.hits().getAt(0).id(), equalTo("2"));
+        assertThat(response.hits().getAt(0).score(), equalTo(2f));
+        assertThat(response.hits().getAt(1).id(), equalTo("1"));
+        assertThat(response.hits().getAt(1).score(), equalTo(1f));
+
+        logger.info("running -pow(doc['num1'].value, 2) + param1");
+        response = client.search(searchRequest()
+                .searchType(SearchType.QUERY_THEN_FETCH)
+                .source(searchSource().explain(true).query(customScoreQuery(termQuery("test", "value")).lang("expression").script("-pow(doc['num1'].value, 2) + param1").param("param1", 10)))
+        ).actionGet();
+
+        assertThat(Arrays.toString(response.shardFailures()), response.failedShards(), equalTo(0));
+        assertThat(response.hits().totalHits(), equalTo(2l));
+        assertThat(response.hits().getAt(0).id(), equalTo("1"));
+        assertThat(response.hits().getAt(0).score(), equalTo(9f));
+        assertThat(response.hits().getAt(1).id(), equalTo("2"));
+        assertThat(response.hits().getAt(1).score(), equalTo(6f));
+
+        logger.info("running doc['num1'].value > 1 ? _score : 0");
+        response = client.search(searchRequest()
+                .searchType(SearchType.QUERY_THEN_FETCH)
+                .source(searchSource().explain(true).query(customScoreQuery(termQuery("test", "value")).lang("expression").script("doc['num1'].value > 1 ? _score : 0")))
+        ).actionGet();
+
+        assertThat(Arrays.toString(response.shardFailures()), response.failedShards(), equalTo(0));
+        assertThat(response.hits().totalHits(), equalTo(2l));
+        assertThat(response.hits().getAt(0).id(), equalTo("2"));
+        assertThat(response.hits().getAt(1).id(), equalTo("1"));
+        assertThat(response.hits().getAt(1).score(), equalTo(0f));
+
+        logger.info("sorting on -doc['num1'].value");
+        response = client.prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .addSort(SortBuilders.scriptSort("-doc['num1'].value", "number").lang("expression"))
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(response.shardFailures()), response.failedShards(), equalTo(0));
+        assertThat(response.hits().getAt(0).id(), equalTo("2"));
+        assertThat(response.hits().getAt(1).id(), equalTo("1"));
+    }
+
     @Test
     public void testCustomFiltersScore() throws Exception {
         client.admin().indices().prepareDelete().execute().actionGet();
@@ -31,6 +31,10 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.FilterBuilders.geoDistanceFilter;
 import static org.elasticsearch.index.query.FilterBuilders.geoDistanceRangeFilter;
@@ -241,4 +245,102 @@ public class GeoDistanceTests extends AbstractNodesTests {
         assertThat(searchResponse.hits().getAt(1).id(), equalTo("2"));
         assertThat(searchResponse.hits().getAt(0).id(), equalTo("7"));
     }
+
+    @Test
+    public void geohashPrefixDistanceTests() throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1")
+                .startObject("properties").startObject("location").field("type", "geo_point").field("geohash_prefix", true).endObject().endObject()
+                .endObject().endObject().string();
+        client.admin().indices().prepareCreate("test").addMapping("type1", mapping).execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        Random random = new Random(42);
+        int id = 0;
+        // around NY, and around a point on the 180 meridian
+        for (double[] center : new double[][]{{40.7143528, -74.0059731}, {-17.7, 179.99}}) {
+            for (int i = 0; i < 200; i++) {
+                double lat = center[0] + (random.nextDouble() - 0.5) * 0.2;
+                double lon = center[1] + (random.nextDouble() - 0.5) * 0.2;
+                if (lon > 180) {
+                    lon -= 360;
+                }
+                client.prepareIndex("test", "type1", Integer.toString(id++)).setSource(jsonBuilder().startObject()
+                        .startObject("location").field("lat", lat).field("lon", lon).endObject()
+                        .endObject()).execute().actionGet();
+            }
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        for (double[] center : new double[][]{{40.7143528, -74.0059731}, {-17.7, 179.99}}) {
+            for (String distance : new String[]{"0.1km", "1km", "3km", "8km", "50km"}) {
+                for (GeoDistance geoDistance : new GeoDistance[]{GeoDistance.ARC, GeoDistance.PLANE}) {
+                    SearchResponse expected = client.prepareSearch().setSize(id)
+                            .setQuery(filteredQuery(matchAllQuery(), geoDistanceFilter("location").distance(distance).point(center[0], center[1]).geoDistance(geoDistance)))
+                            .execute().actionGet();
+                    SearchResponse searchResponse = client.prepareSearch().setSize(id)
+                            .setQuery(filteredQuery(matchAllQuery(), geoDistanceFilter("location").distance(distance).point(center[0], center[1]).geoDistance(geoDistance).optimizeBbox("geohash")))
+                            .execute().actionGet();
+                    assertThat(searchResponse.failedShards(), equalTo(0));
+                    assertThat(searchResponse.hits().getTotalHits(), equalTo(expected.hits().getTotalHits()));
+                    Set<String> expectedIds = new HashSet<String>();
+                    for (SearchHit hit : expected.hits()) {
+                        expectedIds.add(hit.id());
+                    }
+                    for (SearchHit hit : searchResponse.hits()) {
+                        assertThat(expectedIds.contains(hit.id()), equalTo(true));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void compressedFieldDataDistanceTests() throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1")
+                .startObject("properties")
+                .startObject("location").field("type", "geo_point").endObject()
+                .startObject("location_compressed").field("type", "geo_point")
+                .startObject("field_data").field("format", "compressed").field("off_heap", true).endObject()
+                .endObject()
+                .endObject()
+                .endObject().endObject().string();
+        client.admin().indices().prepareCreate("test").addMapping("type1", mapping).execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        Random random = new Random(7);
+        int numDocs = 300;
+        for (int i = 0; i < numDocs; i++) {
+            double lat = 40.7143528 + (random.nextDouble() - 0.5) * 0.2;
+            double lon = -74.0059731 + (random.nextDouble() - 0.5) * 0.2;
+            client.prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .startObject("location").field("lat", lat).field("lon", lon).endObject()
+                    .startObject("location_compressed").field("lat", lat).field("lon", lon).endObject()
+                    .endObject()).execute().actionGet();
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        SearchResponse expected = client.prepareSearch().setSize(numDocs)
+                .setQuery(filteredQuery(matchAllQuery(), geoDistanceFilter("location").distance("3km").point(40.7143528, -74.0059731)))
+                .addSort(SortBuilders.geoDistanceSort("location").point(40.7143528, -74.0059731).order(SortOrder.ASC))
+                .execute().actionGet();
+        SearchResponse searchResponse = client.prepareSearch().setSize(numDocs)
+                .setQuery(filteredQuery(matchAllQuery(), geoDistanceFilter("location_compressed").distance("3km").point(40.7143528, -74.0059731)))
+                .addSort(SortBuilders.geoDistanceSort("location_compressed").point(40.7143528, -74.0059731).order(SortOrder.ASC))
+                .execute().actionGet();
+        assertThat(searchResponse.failedShards(), equalTo(0));
+        assertThat(searchResponse.hits().getTotalHits(), equalTo(expected.hits().getTotalHits()));
+        for (int i = 0; i < expected.hits().hits().length; i++) {
+            assertThat(searchResponse.hits().getAt(i).id(), equalTo(expected.hits().getAt(i).id()));
+        }
+    }
 }
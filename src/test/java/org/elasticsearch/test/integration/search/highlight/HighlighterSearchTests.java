@@ -887,4 +887,91 @@ public class HighlighterSearchTests extends AbstractNodesTests {
             assertThat(hit.highlightFields().get("title").fragments()[0].string(), equalTo("This is a <em>test</em> for the <em>workaround</em> for the fast vector highlighting SOLR-3724"));
         }
     }
+
+    @Test
+    public void testPostingsHighlighter() throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+
+        client.admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("number_of_shards", 2))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        // no term vectors, offsets are indexed in the postings
+                        .startObject("title").field("type", "string").field("store", "no").field("index_options", "offsets").endObject()
+                        .startObject("tags").field("type", "string").field("store", "yes").field("index_options", "offsets").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        for (int i = 0; i < 5; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource(XContentFactory.jsonBuilder().startObject()
+                            .field("title", "This is a test on the highlighting bug present in elasticsearch, not a bug in the highlighting test")
+                            .array("tags", "first tag", "a bug tag", "last bug")
+                            .endObject())
+                    .setRefresh(true).execute().actionGet();
+        }
+
+        // picked automatically since the field has offsets and no term vectors
+        SearchResponse search = client.prepareSearch()
+                .setQuery(fieldQuery("title", "bug"))
+                .addHighlightedField("title", -1, 0)
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(search.shardFailures()), search.failedShards(), equalTo(0));
+        assertThat(search.hits().totalHits(), equalTo(5l));
+        for (SearchHit hit : search.hits()) {
+            assertThat(hit.highlightFields().get("title").fragments()[0].string(), equalTo("This is a test on the highlighting <em>bug</em> present in elasticsearch, not a <em>bug</em> in the highlighting test"));
+        }
+
+        search = client.prepareSearch()
+                .setQuery(boolQuery().should(fieldQuery("title", "bug")).should(fieldQuery("title", "test")))
+                .addHighlightedField(new HighlightBuilder.Field("title").highlighterType("postings").fragmentSize(30).numOfFragments(2))
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(search.shardFailures()), search.failedShards(), equalTo(0));
+        assertThat(search.hits().totalHits(), equalTo(5l));
+        for (SearchHit hit : search.hits()) {
+            assertThat(hit.highlightFields().get("title").fragments().length, equalTo(2));
+            assertThat(hit.highlightFields().get("title").fragments()[0].string(), equalTo("<em>test</em> on the highlighting <em>bug</em> present"));
+            assertThat(hit.highlightFields().get("title").fragments()[1].string(), equalTo("<em>bug</em> in the highlighting <em>test</em>"));
+        }
+
+        // multi valued stored field, values are highlighted as one text
+        search = client.prepareSearch()
+                .setQuery(fieldQuery("tags", "bug"))
+                .addHighlightedField(new HighlightBuilder.Field("tags").highlighterType("postings").numOfFragments(0))
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(search.shardFailures()), search.failedShards(), equalTo(0));
+        assertThat(search.hits().totalHits(), equalTo(5l));
+        for (SearchHit hit : search.hits()) {
+            assertThat(hit.highlightFields().get("tags").fragments()[0].string(), equalTo("first tag a <em>bug</em> tag last <em>bug</em>"));
+        }
+    }
+
+    @Test
+    public void testPostingsHighlighterShouldFailIfNoOffsets() throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+
+        client.admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("number_of_shards", 2))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("title").field("type", "string").field("store", "yes").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        client.prepareIndex("test", "type1", "1").setSource("title", "This is a test for the postings highlighter").setRefresh(true).execute().actionGet();
+
+        SearchResponse search = client.prepareSearch()
+                .setQuery(fieldQuery("title", "test"))
+                .addHighlightedField(new HighlightBuilder.Field("title").highlighterType("postings"))
+                .execute().actionGet();
+
+        assertThat(search.failedShards(), equalTo(1));
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.search.highlight;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.fieldQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+public class ParallelHighlighterSearchTests extends AbstractNodesTests {
+
+    private Client client;
+
+    @BeforeClass
+    public void createNodes() throws Exception {
+        startNode("server1", settingsBuilder()
+                .put("search.fetch.parallel.enabled", true)
+                .put("search.fetch.parallel.min_hits", 10)
+                .put("search.fetch.parallel.chunk_size", 7));
+        client = client("server1");
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testParallelHighlightingKeepsHitsOrder() throws Exception {
+        try {
+            client.admin().indices().prepareDelete("test").execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+
+        client.admin().indices().prepareCreate("test").setSettings(settingsBuilder().put("number_of_shards", 1).put("number_of_replicas", 0))
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("num").field("type", "integer").endObject()
+                        // source based plain highlighting
+                        .startObject("title").field("type", "string").field("store", "no").field("term_vector", "no").endObject()
+                        // stored fast vector highlighting
+                        .startObject("body").field("type", "string").field("store", "yes").field("term_vector", "with_positions_offsets").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+
+        for (int i = 0; i < 100; i++) {
+            client.prepareIndex("test", "type1", Integer.toString(i))
+                    .setSource(jsonBuilder().startObject()
+                            .field("num", i)
+                            .field("title", "title " + i + " to highlight")
+                            .field("body", "body " + i + " to highlight")
+                            .endObject())
+                    .execute().actionGet();
+            if (i % 30 == 0) {
+                // create a few segments
+                client.admin().indices().prepareRefresh().execute().actionGet();
+            }
+        }
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        SearchResponse search = client.prepareSearch()
+                .setQuery(fieldQuery("_all", "highlight"))
+                .addSort("num", SortOrder.DESC)
+                .setSize(100)
+                .setVersion(true)
+                .addHighlightedField("title", -1, 0)
+                .addHighlightedField("body", -1, 0)
+                .execute().actionGet();
+
+        assertThat(Arrays.toString(search.shardFailures()), search.failedShards(), equalTo(0));
+        assertThat(search.hits().hits().length, equalTo(100));
+        for (int i = 0; i < 100; i++) {
+            SearchHit hit = search.hits().getAt(i);
+            int num = 99 - i;
+            assertThat(hit.id(), equalTo(Integer.toString(num)));
+            assertThat(hit.version(), equalTo(1l));
+            assertThat(hit.highlightFields().get("title").fragments()[0].string(), equalTo("title " + num + " to <em>highlight</em>"));
+            assertThat(hit.highlightFields().get("body").fragments()[0].string(), equalTo("body " + num + " to <em>highlight</em>"));
+        }
+    }
+}
@@ -78,6 +78,13 @@ public class SearchStatsTests extends AbstractNodesTests {
         assertThat(indicesStats.total().search().total().fetchCount(), greaterThan(0l));
         assertThat(indicesStats.total().search().total().fetchTimeInMillis(), greaterThan(0l));
         assertThat(indicesStats.total().search().groupStats(), nullValue());
+        assertThat(indicesStats.total().search().total().fetchSubPhaseTimeInMillis(), notNullValue());
+        assertThat(indicesStats.total().search().total().fetchSubPhaseTimeInMillis().containsKey("load"), equalTo(true));
+        assertThat(indicesStats.total().search().total().fetchSubPhaseTimeInMillis().containsKey("highlight"), equalTo(false));
+
+        client.prepareSearch().setQuery(QueryBuilders.termQuery("field", "value")).addHighlightedField("field").execute().actionGet();
+        indicesStats = client.admin().indices().prepareStats().execute().actionGet();
+        assertThat(indicesStats.total().search().total().fetchSubPhaseTimeInMillis().containsKey("highlight"), equalTo(true));
 
         indicesStats = client.admin().indices().prepareStats().setGroups("group1").execute().actionGet();
         assertThat(indicesStats.total().search().groupStats(), notNullValue());
@@ -19,9 +19,14 @@
 
 package org.elasticsearch.test.unit.common.io.streams;
 
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.testng.annotations.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -62,4 +67,44 @@ public class BytesStreamsTests {
         assertThat(in.readUTF(), equalTo("hello"));
         assertThat(in.readUTF(), equalTo("goodbye"));
     }
+
+    @Test
+    public void testReferencedBytes() throws Exception {
+        byte[] large = new byte[100];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.referenceThreshold(50);
+        out.writeInt(1);
+        out.writeBytesReference(new BytesArray(large, 10, 80));
+        out.writeBytesReference(new BytesArray(large, 0, 10));
+        out.writeBytesReference(new ChannelBufferBytesReference(ChannelBuffers.wrappedBuffer(large)));
+        out.writeInt(2);
+
+        // the referenced bytes are not copied, so changes to them are visible until the stream is consumed
+        large[10] = 42;
+        assertThat(out.size(), equalTo(4 + 1 + 80 + 1 + 10 + 1 + 100 + 4));
+
+        ChannelBuffer buffer = out.toChannelBuffer();
+        assertThat(buffer.readableBytes(), equalTo(out.size()));
+        byte[] content = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), content);
+        assertThat(content, equalTo(out.bytes().toBytes()));
+
+        BytesStreamInput in = new BytesStreamInput(content, false);
+        assertThat(in.readInt(), equalTo(1));
+        BytesReference bytes = in.readBytesReference();
+        assertThat(bytes.length(), equalTo(80));
+        assertThat(bytes.get(0), equalTo((byte) 42));
+        assertThat(bytes.get(79), equalTo((byte) 89));
+        assertThat(in.readBytesReference().length(), equalTo(10));
+        assertThat(in.readBytesReference().toBytes(), equalTo(large));
+        assertThat(in.readInt(), equalTo(2));
+
+        out.reset();
+        assertThat(out.size(), equalTo(0));
+        out.writeInt(3);
+        assertThat(out.toChannelBuffer().readableBytes(), equalTo(4));
+    }
 }
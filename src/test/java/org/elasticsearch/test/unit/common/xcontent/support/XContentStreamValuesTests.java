@@ -0,0 +1,111 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.xcontent.support;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.common.xcontent.support.XContentStreamValues;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Checks that streaming extraction returns the same as extraction on the parsed map.
+ */
+@Test
+public class XContentStreamValuesTests {
+
+    private static final String[] SOURCES = new String[]{
+            "{\"test\":\"value\",\"other\":{\"a\":[1,2,{\"b\":3}]}}",
+            "{\"path1\":{\"path2\":{\"test\":\"value\",\"num\":1.5}},\"test\":null}",
+            "{\"path1\":{\"path2\":[{\"test\":\"value1\"},{\"test\":\"value2\"},null,[{\"test\":\"value3\"}],4]}}",
+            "{\"path1.xxx\":{\"path2.yyy\":{\"test\":\"value\"}},\"path1\":{\"zzz\":true}}",
+            "{\"path1\":null,\"path1.path2\":{\"test\":\"dotted\"},\"path1.path2.test\":\"fully dotted\"}",
+            "{\"path1\":{\"other\":1},\"path1.path2\":{\"test\":\"shadowed\"}}",
+            "{\"path1\":{\"path2\":\"scalar\"},\"arr\":[[1,2],[3,[4]]],\"empty\":{},\"list\":[]}",
+            "{\"test\":[\"a\",\"b\"],\"path1\":[{\"path2\":{\"test\":1}},{\"path2\":[{\"test\":2},{\"test\":null}]}]}",
+    };
+
+    private static final String[] PATHS = new String[]{
+            "test", "test.me", "other", "other.a", "other.a.b", "path1", "path1.path2", "path1.path2.test", "path1.path2.num",
+            "path1.xxx.path2.yyy.test", "path1.zzz", "arr", "empty", "list", "something.else.2", ""
+    };
+
+    private static final String[][] FILTERS = new String[][]{
+            {"test"}, {"test*"}, {"path1"}, {"path1*"}, {"path1.path2.*"}, {"*.test"}, {"arr*"}, {"other.a*"}, {}
+    };
+
+    @Test
+    public void testExtractValue() throws Exception {
+        for (String source : SOURCES) {
+            Map<String, Object> map = XContentFactory.xContent(XContentType.JSON).createParser(source).mapAndClose();
+            for (String path : PATHS) {
+                XContentParser parser = XContentFactory.xContent(XContentType.JSON).createParser(source);
+                Object value = XContentStreamValues.extractValue(path, parser);
+                parser.close();
+                assertThat(source + " / " + path, value, equalTo(XContentMapValues.extractValue(path, map)));
+            }
+        }
+    }
+
+    @Test
+    public void testExtractRawValues() throws Exception {
+        for (String source : SOURCES) {
+            Map<String, Object> map = XContentFactory.xContent(XContentType.JSON).createParser(source).mapAndClose();
+            for (String path : PATHS) {
+                XContentParser parser = XContentFactory.xContent(XContentType.JSON).createParser(source);
+                List<Object> values = XContentStreamValues.extractRawValues(path, parser);
+                parser.close();
+                assertThat(source + " / " + path, values, equalTo(XContentMapValues.extractRawValues(path, map)));
+            }
+        }
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        for (String source : SOURCES) {
+            Map<String, Object> map = XContentFactory.xContent(XContentType.JSON).createParser(source).mapAndClose();
+            for (String[] includes : FILTERS) {
+                for (String[] excludes : new String[][]{Strings.EMPTY_ARRAY, {"path1.path2"}, {"*.test"}}) {
+                    XContentParser parser = XContentFactory.xContent(XContentType.JSON).createParser(source);
+                    Map<String, Object> filtered = XContentStreamValues.filter(parser, includes, excludes);
+                    parser.close();
+                    assertThat(source + " / " + Strings.arrayToCommaDelimitedString(includes) + " / " + Strings.arrayToCommaDelimitedString(excludes),
+                            filtered, equalTo(XContentMapValues.filter(map, includes, excludes)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParserPositionedOnStartObject() throws Exception {
+        XContentParser parser = XContentFactory.xContent(XContentType.JSON).createParser("{\"path1\":{\"test\":\"value\"},\"test\":\"other\"}");
+        assertThat(parser.nextToken(), equalTo(XContentParser.Token.START_OBJECT));
+        assertThat(XContentStreamValues.extractValue("path1.test", parser), equalTo((Object) "value"));
+        parser.close();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
+import org.elasticsearch.common.lucene.all.AllField;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.analysis.SharedAnalysis;
+import org.elasticsearch.index.analysis.SharedAnalysisField;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class SharedAnalysisTests {
+
+    private static DocumentMapper docMapper(boolean allSharedAnalysis) throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("_all").field("shared_analysis", allSharedAnalysis).endObject()
+                .startObject("properties")
+                .startObject("name").field("type", "multi_field").startObject("fields")
+                .startObject("name").field("type", "string").endObject()
+                .startObject("copy").field("type", "string").endObject()
+                .startObject("simple").field("type", "string").field("analyzer", "simple").endObject()
+                .startObject("untouched").field("type", "string").field("index", "not_analyzed").endObject()
+                .endObject().endObject()
+                .startObject("body").field("type", "string").endObject()
+                .startObject("count").field("type", "long").endObject()
+                .endObject().endObject().endObject().string();
+        return MapperTests.newParser().parse(mapping);
+    }
+
+    private static ParsedDocument parse(DocumentMapper docMapper) throws Exception {
+        return docMapper.parse("type", "1", XContentFactory.jsonBuilder().startObject()
+                .field("name", "The Quick brown-fox, 2012")
+                .startObject("body").field("value", "jumps over the lazy dog. The quick fox!").field("boost", 2.0f).endObject()
+                .field("count", 42)
+                .endObject().bytes());
+    }
+
+    @Test
+    public void testMultiFieldSharesAnalysis() throws Exception {
+        DocumentMapper docMapper = docMapper(false);
+        ParsedDocument doc = parse(docMapper);
+        Document rootDoc = doc.rootDoc();
+        Analyzer analyzer = doc.analyzer();
+
+        SharedAnalysisField name = (SharedAnalysisField) rootDoc.getField("name");
+        SharedAnalysis sharedAnalysis = name.sharedAnalysis();
+        assertThat(rootDoc.getField("name.untouched"), not(instanceOf(SharedAnalysisField.class)));
+
+        List<String> nameTokens = tokens(name, analyzer, true);
+        // name.copy is analyzed with the same analyzer, its tokens are recorded for it
+        assertThat(sharedAnalysis.recordedCount(), equalTo(1));
+        assertThat(tokens(rootDoc.getField("name.copy"), analyzer, true), equalTo(nameTokens));
+        assertThat(nameTokens, hasItems("quick/2/4-9", "brown/1/10-15", "2012/1/21-25", "end/25"));
+
+        // name.simple uses another analyzer, and does not replay the recorded tokens
+        List<String> simpleTokens = tokens(rootDoc.getField("name.simple"), analyzer, true);
+        assertThat(simpleTokens, hasItem("the/1/0-3"));
+        assertThat(simpleTokens, not(hasItem("2012/1/21-25")));
+        assertThat(sharedAnalysis.recordedCount(), equalTo(1));
+
+        // the recorded tokens are the same as a plain analysis
+        DocumentMapper plainDocMapper = docMapper(false);
+        ParsedDocument plainDoc = parse(plainDocMapper);
+        assertThat(tokens(plainDoc.rootDoc().getField("name.copy"), plainDoc.analyzer(), true), equalTo(nameTokens));
+    }
+
+    @Test
+    public void testAllSharedAnalysis() throws Exception {
+        DocumentMapper docMapper = docMapper(true);
+        assertThat(docMapper.allFieldMapper().sharedAnalysis(), equalTo(true));
+        assertThat(docMapper.mappingSource().string(), containsString("\"shared_analysis\":true"));
+        ParsedDocument doc = parse(docMapper);
+
+        DocumentMapper concatenatedDocMapper = docMapper(false);
+        ParsedDocument concatenatedDoc = parse(concatenatedDocMapper);
+
+        AllField allField = (AllField) doc.rootDoc().getField("_all");
+        assertThat(allField.sharedAnalysis(), notNullValue());
+        // the _all field is inverted before the other fields (fields are processed sorted by name)
+        List<String> allTokens = tokens(allField, doc.analyzer(), false);
+        assertThat(allTokens, equalTo(tokens(concatenatedDoc.rootDoc().getField("_all"), concatenatedDoc.analyzer(), false)));
+        // the name, body and name.copy values are all analyzed again with the same analyzer as _all
+        assertThat(allField.sharedAnalysis().recordedCount(), equalTo(2));
+
+        for (String field : new String[]{"name", "name.copy", "body"}) {
+            assertThat(tokens(doc.rootDoc().getField(field), doc.analyzer(), true),
+                    equalTo(tokens(concatenatedDoc.rootDoc().getField(field), concatenatedDoc.analyzer(), true)));
+        }
+    }
+
+    @Test
+    public void testAllSharedAnalysisIndexedTwice() throws Exception {
+        DocumentMapper docMapper = docMapper(true);
+        ParsedDocument doc = parse(docMapper);
+        IndexableField name = doc.rootDoc().getField("name");
+        List<String> nameTokens = tokens(name, doc.analyzer(), true);
+        List<String> allTokens = tokens(doc.rootDoc().getField("_all"), doc.analyzer(), true);
+        // indexing the same document again replays the recorded tokens
+        assertThat(tokens(name, doc.analyzer(), true), equalTo(nameTokens));
+        assertThat(tokens(doc.rootDoc().getField("_all"), doc.analyzer(), true), equalTo(allTokens));
+    }
+
+    private static List<String> tokens(IndexableField field, Analyzer analyzer, boolean includeEnd) throws IOException {
+        TokenStream stream = field.tokenStream(analyzer);
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+        OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+        PayloadAttribute payloadAtt = stream.addAttribute(PayloadAttribute.class);
+        List<String> tokens = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            String token = termAtt.toString() + "/" + posIncAtt.getPositionIncrement() + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset();
+            if (payloadAtt.getPayload() != null) {
+                token += "/" + payloadAtt.getPayload();
+            }
+            tokens.add(token);
+        }
+        stream.end();
+        if (includeEnd) {
+            tokens.add("end/" + offsetAtt.endOffset());
+        }
+        stream.close();
+        return tokens;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.field.data.geo;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.cache.field.data.soft.SoftFieldDataCache;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldData;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldDataType;
+import org.elasticsearch.index.mapper.geo.GeoPointValues;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+public class GeoPointFieldDataTests {
+
+    @Test
+    public void testPackedValues() {
+        Random random = new Random(1);
+        for (int bits : new int[]{1, 7, 13, 16, 27, 31, 32}) {
+            for (boolean offHeap : new boolean[]{false, true}) {
+                int size = 1000;
+                double[] lats = new double[size];
+                double[] lons = new double[size];
+                GeoPointValues.Packed values = GeoPointValues.Packed.create(size, bits, offHeap);
+                for (int i = 0; i < size; i++) {
+                    lats[i] = random.nextDouble() * 180 - 90;
+                    lons[i] = random.nextDouble() * 360 - 180;
+                    values.set(i, GeoPointValues.Packed.encode(lats[i], lons[i], bits));
+                }
+                // half a step of the encoding
+                double latError = 180.0 / ((1L << bits) - 1) / 2 + 1e-9;
+                double lonError = 360.0 / ((1L << bits) - 1) / 2 + 1e-9;
+                for (int i = 0; i < size; i++) {
+                    assertThat(values.lat(i), closeTo(lats[i], latError));
+                    assertThat(values.lon(i), closeTo(lons[i], lonError));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeClampsOutOfRangeValues() {
+        for (int bits : new int[]{7, 32}) {
+            assertThat(GeoPointValues.Packed.encode(95, 200, bits), equalTo(GeoPointValues.Packed.encode(90, 180, bits)));
+            assertThat(GeoPointValues.Packed.encode(-90.5, -181, bits), equalTo(GeoPointValues.Packed.encode(-90, -180, bits)));
+
+            GeoPointValues.Packed values = GeoPointValues.Packed.create(2, bits, false);
+            values.set(0, GeoPointValues.Packed.encode(1000, 1000, bits));
+            values.set(1, GeoPointValues.Packed.encode(-1000, -1000, bits));
+            assertThat(values.lat(0), closeTo(90, 1e-9));
+            assertThat(values.lon(0), closeTo(180, 1e-9));
+            assertThat(values.lat(1), closeTo(-90, 1e-9));
+            assertThat(values.lon(1), closeTo(-180, 1e-9));
+        }
+    }
+
+    @Test
+    public void testOffHeapSizeAndRelease() {
+        GeoPointValues.Packed onHeap = GeoPointValues.Packed.create(1000, 32, false);
+        assertThat(onHeap.sizeInBytes() > 8000, equalTo(true));
+        assertThat(onHeap.offHeapSizeInBytes(), equalTo(0l));
+
+        GeoPointValues.Packed offHeap = GeoPointValues.Packed.create(1000, 32, true);
+        offHeap.set(0, GeoPointValues.Packed.encode(1, 1, 32));
+        assertThat(offHeap.sizeInBytes(), equalTo(0l));
+        assertThat(offHeap.offHeapSizeInBytes(), equalTo(8000l));
+
+        offHeap.release();
+        assertThat(offHeap.offHeapSizeInBytes(), equalTo(0l));
+        // releasing twice is fine
+        offHeap.release();
+    }
+
+    @Test
+    public void testCacheReleasesOffHeapFieldDataOnSegmentClose() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        Document document = new Document();
+        document.add(new StringField("value", "40.7143528,-74.0059731", Field.Store.NO));
+        indexWriter.addDocument(document);
+        indexWriter.close();
+
+        SoftFieldDataCache cache = new SoftFieldDataCache(new Index("test"), ImmutableSettings.Builder.EMPTY_SETTINGS);
+        GeoPointFieldDataType type = GeoPointFieldDataType.compressed(32, true);
+
+        // cleared explicitly, a running search can still use the field data so it is left to the GC
+        DirectoryReader reader = DirectoryReader.open(dir);
+        AtomicReader segmentReader = reader.leaves().get(0).reader();
+        GeoPointFieldData fieldData = (GeoPointFieldData) cache.cache(type, segmentReader, "value");
+        assertThat(fieldData.offHeapSizeInBytes() > 0, equalTo(true));
+        assertThat(cache.offHeapSizeInBytes(), equalTo(fieldData.offHeapSizeInBytes()));
+        cache.clear("test");
+        assertThat(cache.offHeapSizeInBytes(), equalTo(0l));
+        assertThat(fieldData.offHeapSizeInBytes() > 0, equalTo(true));
+        assertThat(fieldData.latValue(0), closeTo(40.7143528, 1e-7));
+
+        // released on segment close
+        fieldData = (GeoPointFieldData) cache.cache(type, segmentReader, "value");
+        assertThat(fieldData.offHeapSizeInBytes() > 0, equalTo(true));
+        reader.close();
+        assertThat(fieldData.offHeapSizeInBytes(), equalTo(0l));
+        assertThat(cache.offHeapSizeInBytes(), equalTo(0l));
+
+        cache.close();
+        dir.close();
+    }
+
+    @Test
+    public void testPrecisionBits() {
+        assertThat(GeoPointValues.Packed.bitsForPrecision(0.00001), equalTo(31));
+        assertThat(GeoPointValues.Packed.bitsForPrecision(0.000001), equalTo(32));
+        for (int bits = 2; bits <= 32; bits++) {
+            assertThat(GeoPointValues.Packed.precisionForBits(bits) < GeoPointValues.Packed.precisionForBits(bits - 1), equalTo(true));
+        }
+        assertThat(GeoPointValues.Packed.bitsForPrecision(GeoPointValues.Packed.precisionForBits(20) * 1.01), equalTo(20));
+    }
+
+    @Test
+    public void testCompressedFieldData() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+
+        Document document = new Document();
+        document.add(new StringField("svalue", "40.7143528,-74.0059731", Field.Store.NO));
+        document.add(new StringField("mvalue", "40.7143528,-74.0059731", Field.Store.NO));
+        document.add(new StringField("mvalue", "-33.8674869,151.2069902", Field.Store.NO));
+        indexWriter.addDocument(document);
+
+        document = new Document();
+        document.add(new StringField("mvalue", "51.5072,-0.1275", Field.Store.NO));
+        indexWriter.addDocument(document);
+
+        document = new Document();
+        document.add(new StringField("svalue", "-90.0,180.0", Field.Store.NO));
+        indexWriter.addDocument(document);
+
+        AtomicReader reader = SlowCompositeReaderWrapper.wrap(DirectoryReader.open(indexWriter, false));
+
+        for (GeoPointFieldDataType type : new GeoPointFieldDataType[]{GeoPointFieldDataType.TYPE, GeoPointFieldDataType.compressed(32, false), GeoPointFieldDataType.compressed(32, true)}) {
+            GeoPointFieldData sFieldData = type.load(reader, "svalue");
+            GeoPointFieldData mFieldData = type.load(reader, "mvalue");
+            double error = type.compressed() ? 1e-7 : 0;
+
+            assertThat(sFieldData.multiValued(), equalTo(false));
+            assertThat(sFieldData.hasValue(0), equalTo(true));
+            assertThat(sFieldData.latValue(0), closeTo(40.7143528, error));
+            assertThat(sFieldData.lonValue(0), closeTo(-74.0059731, error));
+            assertThat(sFieldData.hasValue(1), equalTo(false));
+            assertThat(sFieldData.value(2).lat(), closeTo(-90.0, error));
+            assertThat(sFieldData.value(2).lon(), closeTo(180.0, error));
+
+            assertThat(mFieldData.multiValued(), equalTo(true));
+            assertThat(mFieldData.values(0).length, equalTo(2));
+            // ordered by term
+            assertThat(mFieldData.latValues(0)[0], closeTo(-33.8674869, error));
+            assertThat(mFieldData.lonValues(0)[0], closeTo(151.2069902, error));
+            assertThat(mFieldData.latValues(0)[1], closeTo(40.7143528, error));
+            assertThat(mFieldData.lonValues(0)[1], closeTo(-74.0059731, error));
+            assertThat(mFieldData.latValue(1), closeTo(51.5072, error));
+            assertThat(mFieldData.lonValue(1), closeTo(-0.1275, error));
+            assertThat(mFieldData.hasValue(2), equalTo(false));
+
+            if (type.compressed()) {
+                assertThat(sFieldData.sizeInBytes() < GeoPointFieldDataType.TYPE.load(reader, "svalue").sizeInBytes(), equalTo(true));
+            }
+        }
+        reader.close();
+        indexWriter.close();
+    }
+}
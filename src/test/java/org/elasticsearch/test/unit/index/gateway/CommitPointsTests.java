@@ -44,6 +44,7 @@ public class CommitPointsTests {
         ArrayList<CommitPoint.FileInfo> indexFiles = Lists.newArrayList();
         indexFiles.add(new CommitPoint.FileInfo("file1", "file1_p", 100, "ck1"));
         indexFiles.add(new CommitPoint.FileInfo("file2", "file2_p", 200, "ck2"));
+        indexFiles.add(new CommitPoint.FileInfo("file3", "file3_p", 300, "ck3", Lists.newArrayList("part-a", "part-b")));
 
         ArrayList<CommitPoint.FileInfo> translogFiles = Lists.newArrayList();
         translogFiles.add(new CommitPoint.FileInfo("t_file1", "t_file1_p", 100, null));
@@ -64,10 +65,13 @@ public class CommitPointsTests {
             assertThat(desCp.indexFiles().get(i).physicalName(), equalTo(commitPoint.indexFiles().get(i).physicalName()));
             assertThat(desCp.indexFiles().get(i).length(), equalTo(commitPoint.indexFiles().get(i).length()));
             assertThat(desCp.indexFiles().get(i).checksum(), equalTo(commitPoint.indexFiles().get(i).checksum()));
+            assertThat(desCp.indexFiles().get(i).parts(), equalTo(commitPoint.indexFiles().get(i).parts()));
         }
+        assertThat(desCp.indexFiles().get(0).parts(), nullValue());
+        assertThat(desCp.indexFiles().get(2).parts().size(), equalTo(2));
 
         assertThat(desCp.translogFiles().size(), equalTo(commitPoint.translogFiles().size()));
-        for (int i = 0; i < desCp.indexFiles().size(); i++) {
+        for (int i = 0; i < desCp.translogFiles().size(); i++) {
             assertThat(desCp.translogFiles().get(i).name(), equalTo(commitPoint.translogFiles().get(i).name()));
             assertThat(desCp.translogFiles().get(i).physicalName(), equalTo(commitPoint.translogFiles().get(i).physicalName()));
             assertThat(desCp.translogFiles().get(i).length(), equalTo(commitPoint.translogFiles().get(i).length()));
@@ -25,6 +25,8 @@ import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldDataType;
+import org.elasticsearch.index.mapper.geo.GeoPointValues;
 import org.elasticsearch.index.search.geo.GeoHashUtils;
 import org.elasticsearch.test.unit.index.mapper.MapperTests;
 import org.testng.annotations.Test;
@@ -397,4 +399,31 @@ public class LatLonMappingGeoPointTests {
         assertThat(BytesRef.deepCopyOf(doc.rootDoc().getFields("point.lon")[1].binaryValue()).bytes, equalTo(Numbers.doubleToBytes(1.5)));
         assertThat(doc.rootDoc().getFields("point")[1].stringValue(), equalTo("1.4,1.5"));
     }
+
+    @Test
+    public void testCompressedFieldData() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("point").field("type", "geo_point")
+                .startObject("field_data").field("format", "compressed").field("precision", "0.001km").field("off_heap", true).endObject()
+                .endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper defaultMapper = MapperTests.newParser().parse(mapping);
+        GeoPointFieldDataType fieldDataType = (GeoPointFieldDataType) defaultMapper.mappers().smartNameFieldMapper("point").fieldDataType();
+        assertThat(fieldDataType.compressed(), equalTo(true));
+        assertThat(fieldDataType.bits(), equalTo(GeoPointValues.Packed.bitsForPrecision(0.001)));
+        assertThat(fieldDataType.offHeap(), equalTo(true));
+
+        // and back from the serialized mapping
+        defaultMapper = MapperTests.newParser().parse(defaultMapper.mappingSource().string());
+        fieldDataType = (GeoPointFieldDataType) defaultMapper.mappers().smartNameFieldMapper("point").fieldDataType();
+        assertThat(fieldDataType.bits(), equalTo(GeoPointValues.Packed.bitsForPrecision(0.001)));
+        assertThat(fieldDataType.offHeap(), equalTo(true));
+
+        mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("point").field("type", "geo_point").endObject().endObject()
+                .endObject().endObject().string();
+        defaultMapper = MapperTests.newParser().parse(mapping);
+        assertThat(defaultMapper.mappers().smartNameFieldMapper("point").fieldDataType(), sameInstance((Object) GeoPointFieldDataType.TYPE));
+    }
 }
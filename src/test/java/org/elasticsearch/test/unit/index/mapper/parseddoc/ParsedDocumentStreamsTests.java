@@ -0,0 +1,194 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.mapper.parseddoc;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.all.AllField;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.ParsedDocumentStreams;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class ParsedDocumentStreamsTests {
+
+    private BytesReference source(int value) throws Exception {
+        return XContentFactory.jsonBuilder().startObject()
+                .field("name", "some value " + value)
+                .field("count", value)
+                .field("price", value + 0.5d)
+                .startArray("nested1")
+                .startObject().field("field1", "1").endObject()
+                .startObject().field("field1", "2").endObject()
+                .endArray()
+                .endObject().bytes();
+    }
+
+    private DocumentMapper mapper() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+                .startObject("name").field("type", "string").endObject()
+                .startObject("count").field("type", "long").field("store", "yes").endObject()
+                .startObject("price").field("type", "double").endObject()
+                .startObject("nested1").field("type", "nested").startObject("properties")
+                .startObject("field1").field("type", "string").endObject()
+                .endObject().endObject()
+                .endObject().endObject().endObject().string();
+        DocumentMapper docMapper = MapperTests.newParser().parse(mapping);
+        // the first parse marks the mappings as modified
+        docMapper.parse("type", "0", source(0));
+        return docMapper;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DocumentMapper docMapper = mapper();
+        SourceToParse sourceToParse = SourceToParse.source(source(1)).type("type").id("1");
+        ParsedDocument doc = docMapper.parse(sourceToParse);
+
+        BytesReference bytes = ParsedDocumentStreams.write(doc, docMapper, sourceToParse.source());
+        assertThat(bytes, notNullValue());
+
+        SourceToParse replicaSource = SourceToParse.source(source(1)).type("type").id("1");
+        ParsedDocument replicaDoc = ParsedDocumentStreams.read(docMapper, replicaSource, bytes);
+        assertThat(replicaDoc, notNullValue());
+        assertThat(replicaDoc.uid().uid(), equalTo(doc.uid().uid()));
+        assertThat(replicaDoc.id(), equalTo("1"));
+        assertThat(replicaDoc.type(), equalTo("type"));
+        assertThat(replicaDoc.analyzer(), sameInstance(doc.analyzer()));
+        assertThat(replicaDoc.source().toBytesArray(), equalTo(doc.source().toBytesArray()));
+        assertThat(replicaDoc.mappingsModified(), equalTo(false));
+        assertThat(replicaDoc.docs().size(), equalTo(3));
+        assertThat(replicaDoc.rootDoc().getField(replicaDoc.uid().name()), sameInstance((IndexableField) replicaDoc.uid()));
+
+        for (int i = 0; i < doc.docs().size(); i++) {
+            Document expected = doc.docs().get(i);
+            Document actual = replicaDoc.docs().get(i);
+            assertThat(actual.getFields().size(), equalTo(expected.getFields().size()));
+            for (int j = 0; j < expected.getFields().size(); j++) {
+                IndexableField expectedField = expected.getFields().get(j);
+                IndexableField actualField = actual.getFields().get(j);
+                assertThat(actualField.name(), equalTo(expectedField.name()));
+                assertThat(actualField.boost(), equalTo(expectedField.boost()));
+                assertThat(actualField.fieldType().indexed(), equalTo(expectedField.fieldType().indexed()));
+                assertThat(actualField.fieldType().stored(), equalTo(expectedField.fieldType().stored()));
+                assertThat(actualField.fieldType().tokenized(), equalTo(expectedField.fieldType().tokenized()));
+                assertThat(actualField.fieldType().omitNorms(), equalTo(expectedField.fieldType().omitNorms()));
+                assertThat(actualField.fieldType().indexOptions(), equalTo(expectedField.fieldType().indexOptions()));
+                if (expectedField instanceof NumberFieldMapper.CustomNumericField) {
+                    assertThat(actualField.getClass().getName(), equalTo(expectedField.getClass().getName()));
+                    assertThat(((NumberFieldMapper.CustomNumericField) actualField).numericAsString(),
+                            equalTo(((NumberFieldMapper.CustomNumericField) expectedField).numericAsString()));
+                    assertThat(actualField.binaryValue(), equalTo(expectedField.binaryValue()));
+                } else if (expectedField instanceof AllField) {
+                    assertThat(actualField, instanceOf(AllField.class));
+                    assertThat(((AllField) actualField).allEntries().buildText(), equalTo(((AllField) expectedField).allEntries().buildText()));
+                } else {
+                    assertThat(actualField.stringValue(), equalTo(expectedField.stringValue()));
+                    assertThat(actualField.binaryValue(), equalTo(expectedField.binaryValue()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParseUsesParsedDocument() throws Exception {
+        DocumentMapper docMapper = mapper();
+        SourceToParse sourceToParse = SourceToParse.source(source(1)).type("type").id("1");
+        ParsedDocument doc = docMapper.parse(sourceToParse);
+        BytesReference bytes = ParsedDocumentStreams.write(doc, docMapper, sourceToParse.source());
+
+        // the source differs from the parsed document, so we know which one was indexed
+        ParsedDocument replicaDoc = docMapper.parse(SourceToParse.source(source(2)).type("type").id("1").parsedDocument(bytes));
+        assertThat(replicaDoc.rootDoc().get("name"), equalTo("some value 1"));
+    }
+
+    @Test
+    public void testSourceNotWritten() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties")
+                .startObject("name").field("type", "string").endObject()
+                .startObject("payload").field("type", "object").field("enabled", false).endObject()
+                .endObject().endObject().endObject().string();
+        DocumentMapper docMapper = MapperTests.newParser().parse(mapping);
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            payload.append('x');
+        }
+        SourceToParse sourceToParse = SourceToParse.source(XContentFactory.jsonBuilder().startObject()
+                .field("name", "value")
+                .startObject("payload").field("data", payload.toString()).endObject()
+                .endObject().bytes()).type("type").id("1");
+        // the first parse marks the mappings as modified
+        docMapper.parse(sourceToParse);
+        ParsedDocument doc = docMapper.parse(sourceToParse);
+        BytesReference bytes = ParsedDocumentStreams.write(doc, docMapper, sourceToParse.source());
+        // the source is only in the _source field, which the replica rebuilds from the source it gets anyway
+        assertThat(bytes.length() < 1000, equalTo(true));
+
+        ParsedDocument replicaDoc = ParsedDocumentStreams.read(docMapper, SourceToParse.source(sourceToParse.source()).type("type").id("1"), bytes);
+        assertThat(replicaDoc.rootDoc().getBinaryValue("_source"), equalTo(doc.rootDoc().getBinaryValue("_source")));
+    }
+
+    @Test
+    public void testFilteredSourceWritten() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("_source").field("excludes", new String[]{"secret"}).endObject()
+                .startObject("properties")
+                .startObject("name").field("type", "string").endObject()
+                .startObject("secret").field("type", "string").endObject()
+                .endObject().endObject().endObject().string();
+        DocumentMapper docMapper = MapperTests.newParser().parse(mapping);
+        SourceToParse sourceToParse = SourceToParse.source(XContentFactory.jsonBuilder().startObject()
+                .field("name", "value").field("secret", "hidden")
+                .endObject().bytes()).type("type").id("1");
+        // the first parse marks the mappings as modified
+        docMapper.parse(sourceToParse);
+        ParsedDocument doc = docMapper.parse(sourceToParse);
+        BytesReference bytes = ParsedDocumentStreams.write(doc, docMapper, sourceToParse.source());
+        assertThat(bytes, notNullValue());
+
+        // the stored _source differs from the document source, so it is written as is
+        ParsedDocument replicaDoc = ParsedDocumentStreams.read(docMapper, SourceToParse.source(sourceToParse.source()).type("type").id("1"), bytes);
+        assertThat(replicaDoc.rootDoc().getBinaryValue("_source"), equalTo(doc.rootDoc().getBinaryValue("_source")));
+        assertThat(replicaDoc.rootDoc().getBinaryValue("_source").length < doc.source().length(), equalTo(true));
+    }
+
+    @Test
+    public void testMappingsModifiedNotWritten() throws Exception {
+        DocumentMapper docMapper = mapper();
+        SourceToParse sourceToParse = SourceToParse.source(XContentFactory.jsonBuilder().startObject()
+                .field("new_field", "value")
+                .endObject().bytes()).type("type").id("1");
+        ParsedDocument doc = docMapper.parse(sourceToParse);
+        assertThat(doc.mappingsModified(), equalTo(true));
+        assertThat(ParsedDocumentStreams.write(doc, docMapper, sourceToParse.source()), nullValue());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.mapper.smartname;
+
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.test.unit.index.mapper.MapperTests;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class SmartNameLookupTests {
+
+    @Test
+    public void testSmartNameResolution() throws Exception {
+        MapperService mapperService = MapperTests.newMapperService();
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1").startObject("properties")
+                .startObject("name").field("type", "string").field("index_name", "name_index").endObject()
+                .startObject("obj").startObject("properties")
+                .startObject("field").field("type", "string").endObject()
+                .endObject().endObject()
+                .endObject().endObject().endObject().string();
+        mapperService.add("type1", mapping, true);
+
+        // full name, index name and name
+        assertThat(mapperService.smartName("name").mapper().names().indexName(), equalTo("name_index"));
+        assertThat(mapperService.smartName("name_index").mapper().names().fullName(), equalTo("name"));
+        assertThat(mapperService.smartName("obj.field").mapper().names().fullName(), equalTo("obj.field"));
+        assertThat(mapperService.smartName("obj.field").hasDocMapper(), equalTo(false));
+        assertThat(mapperService.smartName("field").mapper().names().fullName(), equalTo("obj.field"));
+        assertThat(mapperService.smartNameFieldMapper("obj.field").names().fullName(), equalTo("obj.field"));
+
+        // prefixed with the type
+        MapperService.SmartNameFieldMappers typed = mapperService.smartName("type1.obj.field");
+        assertThat(typed.mapper().names().fullName(), equalTo("obj.field"));
+        assertThat(typed.explicitTypeInNameWithDocMapper(), equalTo(true));
+        assertThat(typed.docMapper().type(), equalTo("type1"));
+        assertThat(mapperService.smartNameFieldMappers("type1.name_index").mapper().names().fullName(), equalTo("name"));
+        assertThat(mapperService.smartName("obj.field", new String[]{"type1"}).hasDocMapper(), equalTo(true));
+        assertThat(mapperService.smartName("type1.name", new String[]{"type2"}).explicitTypeInName(), equalTo(true));
+
+        assertThat(mapperService.smartName("unknown"), nullValue());
+        assertThat(mapperService.smartName("type1.unknown"), nullValue());
+        assertThat(mapperService.smartName("type2.name"), nullValue());
+    }
+
+    @Test
+    public void testDynamicFieldsAndRemoval() throws Exception {
+        MapperService mapperService = MapperTests.newMapperService();
+        DocumentMapper docMapper = mapperService.documentMapperWithAutoCreate("type1");
+        assertThat(mapperService.smartName("field1"), nullValue());
+
+        docMapper.parse("type1", "1", XContentFactory.jsonBuilder().startObject().field("field1", "value").endObject().bytes());
+        assertThat(mapperService.smartName("field1"), notNullValue());
+        assertThat(mapperService.smartName("type1.field1").docMapper(), sameInstance(docMapper));
+
+        // replacing the type keeps resolving it, to the new document mapper
+        docMapper.refreshSource();
+        mapperService.add("type1", docMapper.mappingSource().string(), true);
+        DocumentMapper newDocMapper = mapperService.documentMapper("type1");
+        assertThat(newDocMapper, not(sameInstance(docMapper)));
+        assertThat(mapperService.smartName("field1").mapper(), sameInstance(newDocMapper.mappers().smartNameFieldMapper("field1")));
+        assertThat(mapperService.smartName("type1.field1").docMapper(), sameInstance(newDocMapper));
+        assertThat(mapperService.fullName("field1").mappers().size(), equalTo(1));
+
+        mapperService.remove("type1");
+        assertThat(mapperService.smartName("field1"), nullValue());
+        assertThat(mapperService.smartName("type1.field1"), nullValue());
+        assertThat(mapperService.fullName("field1"), nullValue());
+    }
+}
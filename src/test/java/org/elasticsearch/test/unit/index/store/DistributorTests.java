@@ -0,0 +1,152 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.store;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.index.store.DirectoryService;
+import org.elasticsearch.index.store.distributor.AbstractDistributor;
+import org.elasticsearch.index.store.distributor.LeastUsedDistributor;
+import org.elasticsearch.index.store.distributor.WeightedRoundRobinDistributor;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class DistributorTests {
+
+    @Test
+    public void testLeastUsedDistribution() throws Exception {
+        final FakeDirectoryService directoryService = new FakeDirectoryService(new FakeDirectory[]{
+                new FakeDirectory(10L), new FakeDirectory(20L), new FakeDirectory(30L)
+        });
+        LeastUsedDistributor distributor = new LeastUsedDistributor(directoryService) {
+            @Override
+            protected long getUsableSpace(Directory directory) {
+                return ((FakeDirectory) directory).usableSpace;
+            }
+        };
+        assertThat(distributor.primary(), sameInstance((Directory) directoryService.directories[0]));
+        for (int i = 0; i < 100; i++) {
+            assertThat(distributor.any(), sameInstance((Directory) directoryService.directories[2]));
+        }
+
+        // ties are broken randomly
+        directoryService.directories[1].usableSpace = 30L;
+        Map<Directory, Integer> counts = count(distributor, 1000);
+        assertThat(counts.containsKey(directoryService.directories[0]), equalTo(false));
+        assertThat(counts.get(directoryService.directories[1]), greaterThan(0));
+        assertThat(counts.get(directoryService.directories[2]), greaterThan(0));
+    }
+
+    @Test
+    public void testWeightedRoundRobinDistribution() throws Exception {
+        final FakeDirectoryService directoryService = new FakeDirectoryService(new FakeDirectory[]{
+                new FakeDirectory(0L), new FakeDirectory(100L), new FakeDirectory(300L)
+        });
+        WeightedRoundRobinDistributor distributor = new WeightedRoundRobinDistributor(directoryService) {
+            @Override
+            protected long getUsableSpace(Directory directory) {
+                return ((FakeDirectory) directory).usableSpace;
+            }
+        };
+        // selections are interleaved: 2, 1, 2, 2 and then repeat
+        assertThat(distributor.any(), sameInstance((Directory) directoryService.directories[2]));
+        assertThat(distributor.any(), sameInstance((Directory) directoryService.directories[1]));
+        assertThat(distributor.any(), sameInstance((Directory) directoryService.directories[2]));
+        assertThat(distributor.any(), sameInstance((Directory) directoryService.directories[2]));
+
+        Map<Directory, Integer> counts = count(distributor, 10000);
+        // a full directory is never picked
+        assertThat(counts.containsKey(directoryService.directories[0]), equalTo(false));
+        // and the rest are picked based on their free space, 1 to 3
+        assertThat(counts.get(directoryService.directories[1]), equalTo(2500));
+        assertThat(counts.get(directoryService.directories[2]), equalTo(7500));
+
+        // no space information at all, round robin over all directories
+        for (FakeDirectory directory : directoryService.directories) {
+            directory.usableSpace = 0;
+        }
+        counts = count(distributor, 999);
+        assertThat(counts.get(directoryService.directories[0]), equalTo(333));
+        assertThat(counts.get(directoryService.directories[1]), equalTo(333));
+        assertThat(counts.get(directoryService.directories[2]), equalTo(333));
+    }
+
+    @Test
+    public void testSingleDirectory() throws Exception {
+        final FakeDirectoryService directoryService = new FakeDirectoryService(new FakeDirectory[]{new FakeDirectory(10L)});
+        assertThat(new WeightedRoundRobinDistributor(directoryService).any(), sameInstance((Directory) directoryService.directories[0]));
+        assertThat(new LeastUsedDistributor(directoryService).any(), sameInstance((Directory) directoryService.directories[0]));
+    }
+
+    private Map<Directory, Integer> count(AbstractDistributor distributor, int iterations) throws IOException {
+        Map<Directory, Integer> counts = new IdentityHashMap<Directory, Integer>();
+        for (int i = 0; i < iterations; i++) {
+            Directory directory = distributor.any();
+            Integer count = counts.get(directory);
+            counts.put(directory, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    static class FakeDirectoryService implements DirectoryService {
+
+        final FakeDirectory[] directories;
+
+        FakeDirectoryService(FakeDirectory[] directories) {
+            this.directories = directories;
+        }
+
+        @Override
+        public Directory[] build() throws IOException {
+            return directories;
+        }
+
+        @Override
+        public long throttleTimeInNanos() {
+            return 0;
+        }
+
+        @Override
+        public void renameFile(Directory dir, String from, String to) throws IOException {
+        }
+
+        @Override
+        public void fullDelete(Directory dir) throws IOException {
+        }
+    }
+
+    static class FakeDirectory extends RAMDirectory {
+
+        long usableSpace;
+
+        FakeDirectory(long usableSpace) {
+            this.usableSpace = usableSpace;
+        }
+    }
+}
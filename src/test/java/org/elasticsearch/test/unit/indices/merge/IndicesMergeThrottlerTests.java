@@ -0,0 +1,157 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.indices.merge;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.merge.MergeThrottle;
+import org.elasticsearch.indices.merge.IndicesMergeThrottler;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+@Test
+public class IndicesMergeThrottlerTests {
+
+    private IndicesMergeThrottler throttler(Settings settings) {
+        return new IndicesMergeThrottler(settings, null, null, null, new NodeSettingsService(settings));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        IndicesMergeThrottler throttler = throttler(settingsBuilder().build());
+        assertThat(throttler.budget().bytes(), equalTo(0l));
+        assertThat(throttler.nextBudget(0, true), equalTo(0l));
+        assertThat(throttler.nextBudget(0, false), equalTo(0l));
+    }
+
+    @Test
+    public void testBudgetStaysWithinBounds() {
+        IndicesMergeThrottler throttler = throttler(settingsBuilder()
+                .put("indices.merge.throttle.max_bytes_per_sec", "110mb")
+                .put("indices.merge.throttle.min_bytes_per_sec", "10mb")
+                .build());
+        long max = new ByteSizeValue(110, ByteSizeUnit.MB).bytes();
+        long min = new ByteSizeValue(10, ByteSizeUnit.MB).bytes();
+        assertThat(throttler.budget().bytes(), equalTo(max));
+
+        long budget = throttler.nextBudget(max, true);
+        assertThat(budget, equalTo(max / 2));
+        for (int i = 0; i < 20; i++) {
+            budget = throttler.nextBudget(budget, true);
+        }
+        assertThat(budget, equalTo(min));
+
+        budget = throttler.nextBudget(budget, false);
+        assertThat(budget, equalTo(min + (max - min) / 10));
+        for (int i = 0; i < 20; i++) {
+            budget = throttler.nextBudget(budget, false);
+        }
+        assertThat(budget, equalTo(max));
+    }
+
+    @Test
+    public void testBudgetSharedAmongShards() {
+        IndicesMergeThrottler throttler = throttler(settingsBuilder()
+                .put("indices.merge.throttle.min_shard_bytes_per_sec", "10b")
+                .build());
+        assertThat(throttler.shardBudget(0, 4), equalTo(0l));
+        assertThat(throttler.shardBudget(100, 0), equalTo(100l));
+        assertThat(throttler.shardBudget(100, 1), equalTo(100l));
+        assertThat(throttler.shardBudget(100, 4), equalTo(25l));
+        // the per shard floor
+        assertThat(throttler.shardBudget(100, 50), equalTo(10l));
+        assertThat(throttler.shardBudget(5, 2), equalTo(5l));
+    }
+
+    @Test
+    public void testBudgetSplitAmongMergingShards() {
+        IndicesMergeThrottler throttler = throttler(settingsBuilder()
+                .put("indices.merge.throttle.max_bytes_per_sec", "100b")
+                .put("indices.merge.throttle.min_shard_bytes_per_sec", "10b")
+                .build());
+        List<MergeThrottle> throttles = newArrayList();
+        for (int i = 0; i < 50; i++) {
+            throttles.add(new MergeThrottle());
+        }
+        final List<MergeThrottle> started = newArrayList();
+        final List<MergeThrottle> finished = newArrayList();
+        MergeThrottle merging = throttles.get(0);
+        merging.listener(new MergeThrottle.Listener() {
+            @Override
+            public void onMergeStarted(MergeThrottle throttle) {
+                started.add(throttle);
+            }
+
+            @Override
+            public void onMergeFinished(MergeThrottle throttle) {
+                finished.add(throttle);
+            }
+        });
+
+        // one merging shard among 50 gets the whole budget
+        merging.beforeMerge();
+        assertThat(started.size(), equalTo(1));
+        assertThat(merging.currentMerges(), equalTo(1));
+        throttler.split(throttles);
+        assertThat(merging.maxRate().bytes(), equalTo(100l));
+        assertThat(throttles.get(1).maxRate().bytes(), equalTo(50l));
+
+        throttles.get(1).beforeMerge();
+        throttles.get(2).beforeMerge();
+        throttles.get(3).beforeMerge();
+        throttler.split(throttles);
+        assertThat(merging.maxRate().bytes(), equalTo(25l));
+        assertThat(throttles.get(3).maxRate().bytes(), equalTo(25l));
+        assertThat(throttles.get(4).maxRate().bytes(), equalTo(20l));
+
+        // never below the floor
+        for (int i = 4; i < 20; i++) {
+            throttles.get(i).beforeMerge();
+        }
+        throttler.split(throttles);
+        assertThat(merging.maxRate().bytes(), equalTo(10l));
+
+        merging.afterMerge();
+        assertThat(finished.size(), equalTo(1));
+        assertThat(merging.currentMerges(), equalTo(0));
+    }
+
+    @Test
+    public void testBusy() {
+        IndicesMergeThrottler throttler = throttler(settingsBuilder()
+                .put("indices.merge.throttle.search_latency", "50ms")
+                .put("indices.merge.throttle.disk_queue", 2.0)
+                .build());
+        assertThat(throttler.busy(-1, -1), equalTo(false));
+        assertThat(throttler.busy(20, 1.0), equalTo(false));
+        assertThat(throttler.busy(60, 1.0), equalTo(true));
+        assertThat(throttler.busy(20, 3.0), equalTo(true));
+    }
+}
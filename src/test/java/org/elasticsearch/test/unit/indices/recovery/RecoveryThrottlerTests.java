@@ -0,0 +1,105 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.indices.recovery;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.indices.recovery.RecoveryThrottler;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+@Test
+public class RecoveryThrottlerTests {
+
+    private RecoverySettings recoverySettings;
+
+    private RecoveryThrottler throttler;
+
+    @BeforeMethod
+    public void createThrottler() {
+        Settings settings = settingsBuilder()
+                .put("indices.recovery.adaptive.min_size_per_sec", "10mb")
+                .put("indices.recovery.adaptive.max_size_per_sec", "110mb")
+                .put("indices.recovery.adaptive.min_concurrent_streams", 1)
+                .put("indices.recovery.adaptive.max_concurrent_streams", 5)
+                .put("indices.recovery.adaptive.search_latency", "50ms")
+                .put("indices.recovery.adaptive.io_wait", 20)
+                .put("indices.recovery.adaptive.disk_queue", 2.0)
+                .put("indices.recovery.adaptive.merges", 3)
+                .build();
+        recoverySettings = new RecoverySettings(settings, new NodeSettingsService(settings));
+        throttler = new RecoveryThrottler(settings, null, recoverySettings, null, null, null);
+    }
+
+    @AfterMethod
+    public void closeSettings() {
+        recoverySettings.close();
+    }
+
+    @Test
+    public void testOverloaded() {
+        assertThat(throttler.overloaded(-1, -1, -1, 0), equalTo(false));
+        assertThat(throttler.overloaded(10, 5, 0.5, 1), equalTo(false));
+        assertThat(throttler.overloaded(51, 5, 0.5, 1), equalTo(true));
+        assertThat(throttler.overloaded(10, 21, 0.5, 1), equalTo(true));
+        assertThat(throttler.overloaded(10, 5, 2.5, 1), equalTo(true));
+        assertThat(throttler.overloaded(10, 5, 0.5, 4), equalTo(true));
+    }
+
+    @Test
+    public void testRateStaysWithinBounds() {
+        long min = new ByteSizeValue(10, ByteSizeUnit.MB).bytes();
+        long max = new ByteSizeValue(110, ByteSizeUnit.MB).bytes();
+        long step = (max - min) / 10;
+
+        long rate = min;
+        rate = throttler.nextSizePerSec(rate, false);
+        assertThat(rate, equalTo(min + step));
+        for (int i = 0; i < 20; i++) {
+            rate = throttler.nextSizePerSec(rate, false);
+        }
+        assertThat(rate, equalTo(max));
+
+        rate = throttler.nextSizePerSec(rate, true);
+        assertThat(rate, equalTo(max / 2));
+        for (int i = 0; i < 20; i++) {
+            rate = throttler.nextSizePerSec(rate, true);
+        }
+        assertThat(rate, equalTo(min));
+    }
+
+    @Test
+    public void testConcurrentStreamsFollowRate() {
+        assertThat(throttler.concurrentStreams(new ByteSizeValue(10, ByteSizeUnit.MB).bytes()), equalTo(1));
+        assertThat(throttler.concurrentStreams(new ByteSizeValue(60, ByteSizeUnit.MB).bytes()), equalTo(3));
+        assertThat(throttler.concurrentStreams(new ByteSizeValue(110, ByteSizeUnit.MB).bytes()), equalTo(5));
+        assertThat(throttler.concurrentStreams(new ByteSizeValue(1, ByteSizeUnit.GB).bytes()), equalTo(5));
+    }
+}
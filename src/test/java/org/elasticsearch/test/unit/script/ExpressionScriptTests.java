@@ -0,0 +1,134 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.script;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.common.inject.Injector;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsModule;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.ScriptException;
+import org.elasticsearch.script.ScriptModule;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.script.expression.Expression;
+import org.elasticsearch.script.expression.ExpressionParser;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class ExpressionScriptTests {
+
+    private ScriptService scriptService;
+
+    @BeforeClass
+    public void createScriptService() {
+        Settings settings = ImmutableSettings.Builder.EMPTY_SETTINGS;
+        Injector injector = new ModulesBuilder().add(
+                new SettingsModule(settings),
+                new ScriptModule(settings)).createInjector();
+        scriptService = injector.getInstance(ScriptService.class);
+    }
+
+    private double run(String script) {
+        return run(script, null);
+    }
+
+    private double run(String script, Map<String, Object> vars) {
+        ExecutableScript executable = scriptService.executable("expression", script, vars);
+        return ((Number) executable.run()).doubleValue();
+    }
+
+    @Test
+    public void testArithmetic() {
+        assertThat(run("1 + 2 * 3"), equalTo(7d));
+        assertThat(run("(1 + 2) * 3"), equalTo(9d));
+        assertThat(run("10 - 4 - 3"), equalTo(3d));
+        assertThat(run("12 / 4 / 3"), equalTo(1d));
+        assertThat(run("7 % 4"), equalTo(3d));
+        assertThat(run("-2 * -3"), equalTo(6d));
+        assertThat(run("1.5e2 + .5"), equalTo(150.5d));
+        assertThat(run("2d * 3l;"), equalTo(6d));
+    }
+
+    @Test
+    public void testLogical() {
+        assertThat(run("1 < 2"), equalTo(1d));
+        assertThat(run("2 <= 1"), equalTo(0d));
+        assertThat(run("1 == 1 && 2 != 3"), equalTo(1d));
+        assertThat(run("0 || !1"), equalTo(0d));
+        assertThat(run("3 > 2 ? 10 : 20"), equalTo(10d));
+        assertThat(run("3 >= 4 ? 10 : 2 > 1 ? 30 : 40"), equalTo(30d));
+    }
+
+    @Test
+    public void testFunctions() {
+        assertThat(run("abs(-2)"), equalTo(2d));
+        assertThat(run("Math.pow(2, 10)"), equalTo(1024d));
+        assertThat(run("max(1, min(5, 3))"), equalTo(3d));
+        assertThat(run("floor(1.7) + ceil(1.2) + round(1.5)"), equalTo(5d));
+        assertThat(run("log(E)"), equalTo(1d));
+        assertThat(run("Math.sqrt(16) * Math.PI"), equalTo(4 * Math.PI));
+    }
+
+    @Test
+    public void testVariables() {
+        Map<String, Object> vars = ImmutableMap.<String, Object>of("a", 2, "b", 0.5f);
+        assertThat(run("a * b + a", vars), equalTo(3d));
+        assertThat(Double.isNaN(run("missing + 1")), equalTo(true));
+
+        ExecutableScript executable = scriptService.executable("expression", "_value * 2", null);
+        executable.setNextVar("_value", 21L);
+        assertThat(((Number) executable.run()).doubleValue(), equalTo(42d));
+    }
+
+    @Test
+    public void testCompiled() {
+        Expression expression = ExpressionParser.parse("doc['price'].value * factor + doc['price'].empty + doc[\"other\"].value + 2 * 3");
+        assertThat(expression.fields(), arrayContaining("price", "other"));
+        assertThat(expression.variables(), arrayContaining("factor"));
+    }
+
+    @Test
+    public void testErrors() {
+        for (String script : new String[]{"1 +", "(1 + 2", "foo(1)", "doc['a'].values", "doc[a].value", "1 2", "pow(1)"}) {
+            try {
+                ExpressionParser.parse(script);
+                assertThat("expected [" + script + "] to fail", false, equalTo(true));
+            } catch (ScriptException e) {
+                assertThat(e.getMessage(), containsString(script));
+            }
+        }
+        try {
+            run("doc['a'].value");
+            assertThat("expected field access without search to fail", false, equalTo(true));
+        } catch (ScriptException e) {
+            // expected
+        }
+    }
+}
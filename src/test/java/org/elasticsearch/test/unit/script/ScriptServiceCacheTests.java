@@ -0,0 +1,113 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.script;
+
+import org.elasticsearch.common.inject.Injector;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsModule;
+import org.elasticsearch.script.CompiledScript;
+import org.elasticsearch.script.ScriptException;
+import org.elasticsearch.script.ScriptModule;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.script.ScriptStats;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class ScriptServiceCacheTests {
+
+    private ScriptService createScriptService(Settings settings) {
+        Injector injector = new ModulesBuilder().add(
+                new SettingsModule(settings),
+                new ScriptModule(settings)).createInjector();
+        return injector.getInstance(ScriptService.class);
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        ScriptService scriptService = createScriptService(settingsBuilder().build());
+
+        CompiledScript compiled = scriptService.compile("expression", "1 + 1");
+        assertThat(scriptService.compile("expression", "1 + 1"), sameInstance(compiled));
+        scriptService.compile("expression", "1 + 2");
+
+        ScriptStats stats = scriptService.stats();
+        assertThat(stats.cacheSize(), equalTo(2l));
+        assertThat(stats.cacheHitCount(), equalTo(1l));
+        assertThat(stats.cacheMissCount(), equalTo(2l));
+        assertThat(stats.compileTotal(), equalTo(2l));
+        assertThat(stats.cacheEvictions(), equalTo(0l));
+        assertThat(stats.slowCompileTotal(), equalTo(0l));
+
+        scriptService.clear();
+        assertThat(scriptService.stats().cacheSize(), equalTo(0l));
+    }
+
+    @Test
+    public void testMaxSize() {
+        ScriptService scriptService = createScriptService(settingsBuilder().put("script.cache.max_size", 10).build());
+        for (int i = 0; i < 100; i++) {
+            scriptService.compile("expression", "1 + " + i);
+        }
+        ScriptStats stats = scriptService.stats();
+        assertThat(stats.cacheSize(), lessThanOrEqualTo(10l));
+        assertThat(stats.cacheEvictions(), greaterThanOrEqualTo(90l));
+        assertThat(stats.compileTotal(), equalTo(100l));
+    }
+
+    @Test
+    public void testSize() {
+        ScriptService scriptService = createScriptService(settingsBuilder().put("script.cache.size", "2kb").build());
+        for (int i = 0; i < 100; i++) {
+            scriptService.compile("expression", "1 + " + i);
+        }
+        ScriptStats stats = scriptService.stats();
+        assertThat(stats.cacheSize(), lessThan(100l));
+        assertThat(stats.cacheEvictions(), greaterThan(0l));
+    }
+
+    @Test
+    public void testSlowCompile() {
+        ScriptService scriptService = createScriptService(settingsBuilder().put("script.compile.slow_threshold", "0s").build());
+        scriptService.compile("expression", "1 + 1");
+        assertThat(scriptService.stats().slowCompileTotal(), equalTo(1l));
+    }
+
+    @Test
+    public void testCompileFailureNotCached() {
+        ScriptService scriptService = createScriptService(settingsBuilder().build());
+        for (int i = 0; i < 2; i++) {
+            try {
+                scriptService.compile("expression", "1 +");
+                assert false : "expected compile failure";
+            } catch (ScriptException e) {
+                // expected
+            }
+        }
+        assertThat(scriptService.stats().cacheSize(), equalTo(0l));
+        assertThat(scriptService.stats().cacheMissCount(), equalTo(2l));
+    }
+}
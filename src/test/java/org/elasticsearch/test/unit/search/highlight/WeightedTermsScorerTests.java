@@ -0,0 +1,165 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.highlight;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.highlight.*;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.search.highlight.CustomQueryScorer;
+import org.elasticsearch.search.highlight.WeightedTermsScorer;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Checks that highlighting term queries with the {@link WeightedTermsScorer} gives the same fragments and
+ * scores as the {@link QueryScorer} based highlighting.
+ */
+public class WeightedTermsScorerTests {
+
+    private static final String[] TEXTS = new String[]{
+            "The quick brown fox jumps over the lazy dog. The dog was not amused by the fox, and the fox did not care at all about it. "
+                    + "Later that day, the quick fox came back to jump over the lazy dog once more, and the dog chased the brown fox away.",
+            "Nothing to see here",
+            "dog dog dog fox fox brown lazy quick",
+            "A brown dog and a quick cat. Some more words that do not match anything, to make sure several fragments are created "
+                    + "for this text, then a lazy fox at the end."
+    };
+
+    private final Analyzer analyzer = new StandardAnalyzer(Lucene.VERSION);
+
+    @Test
+    public void testTermQuery() throws Exception {
+        assertSameHighlighting(new TermQuery(new Term("field", "fox")));
+    }
+
+    @Test
+    public void testBooleanQueryWithBoosts() throws Exception {
+        BooleanQuery query = new BooleanQuery();
+        query.add(new TermQuery(new Term("field", "fox")), BooleanClause.Occur.SHOULD);
+        query.add(boost(new TermQuery(new Term("field", "dog")), 3f), BooleanClause.Occur.SHOULD);
+        BooleanQuery nested = new BooleanQuery();
+        nested.add(boost(new TermQuery(new Term("field", "lazy")), 0.5f), BooleanClause.Occur.MUST);
+        nested.add(new TermQuery(new Term("field", "quick")), BooleanClause.Occur.MUST);
+        query.add(boost(nested, 2f), BooleanClause.Occur.SHOULD);
+        assertSameHighlighting(query);
+    }
+
+    @Test
+    public void testMustNot() throws Exception {
+        BooleanQuery query = new BooleanQuery();
+        query.add(new TermQuery(new Term("field", "fox")), BooleanClause.Occur.MUST);
+        query.add(new TermQuery(new Term("field", "dog")), BooleanClause.Occur.MUST_NOT);
+        assertSameHighlighting(query);
+
+        WeightedSpanTerm[] terms = WeightedTermsScorer.extractTerms(query, "field");
+        assertThat(terms.length, equalTo(1));
+        assertThat(terms[0].getTerm(), equalTo("fox"));
+    }
+
+    @Test
+    public void testSameTermSeveralTimesLastWeightWins() throws Exception {
+        BooleanQuery query = new BooleanQuery();
+        query.add(boost(new TermQuery(new Term("field", "fox")), 2f), BooleanClause.Occur.SHOULD);
+        query.add(new TermQuery(new Term("field", "dog")), BooleanClause.Occur.SHOULD);
+        query.add(boost(new TermQuery(new Term("field", "fox")), 5f), BooleanClause.Occur.SHOULD);
+        assertSameHighlighting(query);
+
+        WeightedSpanTerm[] terms = WeightedTermsScorer.extractTerms(query, "field");
+        assertThat(terms.length, equalTo(2));
+        assertThat(terms[0].getTerm(), equalTo("fox"));
+        assertThat(terms[0].getWeight(), equalTo(5f));
+    }
+
+    @Test
+    public void testRequireFieldMatch() throws Exception {
+        BooleanQuery query = new BooleanQuery();
+        query.add(new TermQuery(new Term("field", "fox")), BooleanClause.Occur.SHOULD);
+        query.add(boost(new TermQuery(new Term("other", "dog")), 2f), BooleanClause.Occur.SHOULD);
+        query.add(new TermQuery(new Term("other", "fox")), BooleanClause.Occur.SHOULD);
+
+        // field match required, only the terms of the highlighted field are used
+        assertSameHighlighting(query, "field");
+        assertThat(WeightedTermsScorer.extractTerms(query, "field").length, equalTo(1));
+        // field match not required, terms of all the fields are used
+        assertSameHighlighting(query, null);
+        assertThat(WeightedTermsScorer.extractTerms(query, null).length, equalTo(2));
+    }
+
+    @Test
+    public void testOnlyTermQueries() throws Exception {
+        PhraseQuery phraseQuery = new PhraseQuery();
+        phraseQuery.add(new Term("field", "quick"));
+        phraseQuery.add(new Term("field", "fox"));
+        assertThat(WeightedTermsScorer.extractTerms(phraseQuery, "field"), nullValue());
+
+        BooleanQuery query = new BooleanQuery();
+        query.add(new TermQuery(new Term("field", "dog")), BooleanClause.Occur.SHOULD);
+        query.add(phraseQuery, BooleanClause.Occur.SHOULD);
+        assertThat(WeightedTermsScorer.extractTerms(query, "field"), nullValue());
+    }
+
+    private void assertSameHighlighting(Query query) throws Exception {
+        assertSameHighlighting(query, "field");
+        assertSameHighlighting(query, null);
+    }
+
+    private void assertSameHighlighting(Query query, String fieldName) throws Exception {
+        for (int fragmentSize : new int[]{20, 50, 100}) {
+            // the weighted terms highlighter is built once and reused for all the texts, as in the highlight phase
+            WeightedSpanTerm[] terms = WeightedTermsScorer.extractTerms(query, fieldName);
+            assertThat(terms, notNullValue());
+            Highlighter termsHighlighter = new Highlighter(new SimpleHTMLFormatter(), new WeightedTermsScorer(terms));
+            termsHighlighter.setTextFragmenter(new WeightedTermsScorer.SizeFragmenter(fragmentSize));
+            termsHighlighter.setMaxDocCharsToAnalyze(Integer.MAX_VALUE);
+
+            for (String text : TEXTS) {
+                QueryScorer queryScorer = new CustomQueryScorer(query, fieldName);
+                queryScorer.setExpandMultiTermQuery(true);
+                Highlighter highlighter = new Highlighter(new SimpleHTMLFormatter(), queryScorer);
+                highlighter.setTextFragmenter(new SimpleSpanFragmenter(queryScorer, fragmentSize));
+                highlighter.setMaxDocCharsToAnalyze(Integer.MAX_VALUE);
+
+                TextFragment[] expected = highlighter.getBestTextFragments(analyzer.tokenStream("field", new StringReader(text)), text, false, 10);
+                TextFragment[] actual = termsHighlighter.getBestTextFragments(analyzer.tokenStream("field", new StringReader(text)), text, false, 10);
+                assertThat(actual.length, equalTo(expected.length));
+                for (int i = 0; i < expected.length; i++) {
+                    assertThat(actual[i].toString(), equalTo(expected[i].toString()));
+                    assertThat(actual[i].getScore(), equalTo(expected[i].getScore()));
+                }
+            }
+        }
+    }
+
+    private static Query boost(Query query, float boost) {
+        query.setBoost(boost);
+        return query;
+    }
+}
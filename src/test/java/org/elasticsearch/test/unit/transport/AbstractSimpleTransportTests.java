@@ -32,6 +32,7 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.transport.TransportRequestOptions.options;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -470,6 +471,75 @@ public abstract class AbstractSimpleTransportTests {
         serviceA.removeHandler("sayHelloTimeoutDelayedResponse");
     }
 
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        serviceA.registerHandler("sayHelloConcurrent", new BaseTransportRequestHandler<StringMessageRequest>() {
+            @Override
+            public StringMessageRequest newInstance() {
+                return new StringMessageRequest();
+            }
+
+            @Override
+            public String executor() {
+                return ThreadPool.Names.SAME;
+            }
+
+            @Override
+            public void messageReceived(StringMessageRequest request, TransportChannel channel) throws Exception {
+                channel.sendResponse(new StringMessageResponse("hello " + request.message));
+            }
+        });
+
+        final int numberOfThreads = 10;
+        final int numberOfRequests = 200;
+        final CountDownLatch latch = new CountDownLatch(numberOfThreads * numberOfRequests);
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[numberOfThreads];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < numberOfRequests; j++) {
+                        final String message = thread + "_" + j;
+                        serviceB.sendRequest(serviceANode, "sayHelloConcurrent", new StringMessageRequest(message), new BaseTransportResponseHandler<StringMessageResponse>() {
+                            @Override
+                            public StringMessageResponse newInstance() {
+                                return new StringMessageResponse();
+                            }
+
+                            @Override
+                            public String executor() {
+                                return ThreadPool.Names.SAME;
+                            }
+
+                            @Override
+                            public void handleResponse(StringMessageResponse response) {
+                                if (!("hello " + message).equals(response.message)) {
+                                    failures.incrementAndGet();
+                                }
+                                latch.countDown();
+                            }
+
+                            @Override
+                            public void handleException(TransportException exp) {
+                                failures.incrementAndGet();
+                                latch.countDown();
+                            }
+                        });
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        assertThat(latch.await(30, TimeUnit.SECONDS), equalTo(true));
+        assertThat(failures.get(), equalTo(0));
+
+        serviceA.removeHandler("sayHelloConcurrent");
+    }
+
     static class StringMessageRequest extends TransportRequest {
 
         private String message;
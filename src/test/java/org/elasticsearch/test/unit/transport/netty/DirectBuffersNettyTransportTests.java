@@ -0,0 +1,46 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.test.unit.transport.netty;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.unit.transport.AbstractSimpleTransportTests;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.transport.netty.NettyTransport;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+
+/**
+ * Runs the transport tests with messages read into direct buffers.
+ */
+@Test
+public class DirectBuffersNettyTransportTests extends AbstractSimpleTransportTests {
+
+    @Override
+    protected void build() {
+        Settings settingsA = settingsBuilder().put("name", "A").put("transport.netty.direct_buffers", true).build();
+        serviceA = new TransportService(settingsA, new NettyTransport(settingsA, threadPool), threadPool).start();
+        serviceANode = new DiscoveryNode("A", serviceA.boundAddress().publishAddress());
+
+        Settings settingsB = settingsBuilder().put("name", "B").put("transport.netty.direct_buffers", true).build();
+        serviceB = new TransportService(settingsB, new NettyTransport(settingsB, threadPool), threadPool).start();
+        serviceBNode = new DiscoveryNode("B", serviceB.boundAddress().publishAddress());
+    }
+}